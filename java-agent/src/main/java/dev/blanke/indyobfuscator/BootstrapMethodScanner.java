@@ -0,0 +1,167 @@
+package dev.blanke.indyobfuscator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Finds the methods of a class file which contain {@code invokedynamic} instructions delegating to a given bootstrap
+ * method by reading the raw class file structure, without visiting any instructions.
+ */
+final class BootstrapMethodScanner {
+
+    private static final int CONSTANT_METHODREF_TAG           = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF_TAG = 11;
+    private static final int CONSTANT_METHOD_HANDLE_TAG       = 15;
+    private static final int CONSTANT_INVOKE_DYNAMIC_TAG      = 18;
+
+    private final ClassReader reader;
+
+    private final char[] charBuffer;
+
+    BootstrapMethodScanner(final ClassReader reader) {
+        this.reader     = reader;
+        this.charBuffer = new char[reader.getMaxStringLength()];
+    }
+
+    /**
+     * @return The names and descriptors of the methods which may contain an {@code invokedynamic} instruction using
+     *         the {@code bootstrapMethodHandle}, concatenated, e.g. {@code main([Ljava/lang/String;)V}. Empty if the
+     *         constant pool does not contain the handle, in which case no other part of the class file is read.
+     */
+    Set<String> findInvokingMethods(final Handle bootstrapMethodHandle) {
+        final int handleItem = findMethodHandle(bootstrapMethodHandle);
+        if (handleItem == 0)
+            return Set.of();
+
+        // Skip access_flags, this_class, super_class, and interfaces.
+        int offset = reader.header + 6;
+        offset += 2 + 2 * reader.readUnsignedShort(offset);
+
+        int fieldCount = reader.readUnsignedShort(offset);
+        offset += 2;
+        while (fieldCount-- > 0)
+            offset = skipAttributes(offset + 6);
+
+        final int methodsOffset = offset;
+        int methodCount = reader.readUnsignedShort(offset);
+        offset += 2;
+        while (methodCount-- > 0)
+            offset = skipAttributes(offset + 6);
+
+        final var invokeDynamicItems = findInvokeDynamicItems(offset, handleItem);
+        if (invokeDynamicItems.isEmpty())
+            return Set.of();
+
+        final var methods = new HashSet<String>();
+        offset = methodsOffset;
+        methodCount = reader.readUnsignedShort(offset);
+        offset += 2;
+        while (methodCount-- > 0) {
+            final var method = reader.readUTF8(offset + 2, charBuffer) + reader.readUTF8(offset + 4, charBuffer);
+            int attributeCount = reader.readUnsignedShort(offset + 6);
+            offset += 8;
+            while (attributeCount-- > 0) {
+                final int length = reader.readInt(offset + 2);
+                if ("Code".equals(reader.readUTF8(offset, charBuffer))
+                        && containsInvokeDynamic(offset + 14, reader.readInt(offset + 10), invokeDynamicItems))
+                    methods.add(method);
+                offset += 6 + length;
+            }
+        }
+        return methods;
+    }
+
+    /**
+     * @return The constant pool index of the {@code CONSTANT_MethodHandle_info} structure referring to the provided
+     *         handle, or {@code 0} if there is none.
+     */
+    private int findMethodHandle(final Handle handle) {
+        final int referenceTag = handle.isInterface() ? CONSTANT_INTERFACE_METHODREF_TAG : CONSTANT_METHODREF_TAG;
+        for (int item = 1; item < reader.getItemCount(); ++item) {
+            final int offset = reader.getItem(item);
+            // The second slot of long and double constants has no offset.
+            if ((offset == 0) || (reader.readByte(offset - 1) != CONSTANT_METHOD_HANDLE_TAG)
+                    || (reader.readByte(offset) != handle.getTag()))
+                continue;
+
+            final int referenceOffset = reader.getItem(reader.readUnsignedShort(offset + 1));
+            if (reader.readByte(referenceOffset - 1) != referenceTag)
+                continue;
+            final int nameAndTypeOffset = reader.getItem(reader.readUnsignedShort(referenceOffset + 2));
+            if (handle.getName().equals(reader.readUTF8(nameAndTypeOffset, charBuffer))
+                    && handle.getOwner().equals(reader.readClass(referenceOffset, charBuffer))
+                    && handle.getDesc().equals(reader.readUTF8(nameAndTypeOffset + 2, charBuffer)))
+                return item;
+        }
+        return 0;
+    }
+
+    /**
+     * @param attributesOffset The offset of the class attributes, which contain the {@code BootstrapMethods}
+     *                         attribute.
+     *
+     * @return The constant pool indices of the {@code CONSTANT_InvokeDynamic_info} structures whose bootstrap method
+     *         is the constant pool entry at {@code handleItem}.
+     */
+    private Set<Integer> findInvokeDynamicItems(int attributesOffset, final int handleItem) {
+        final var bootstrapMethodIndices = new HashSet<Integer>();
+        int attributeCount = reader.readUnsignedShort(attributesOffset);
+        attributesOffset += 2;
+        while (attributeCount-- > 0) {
+            if ("BootstrapMethods".equals(reader.readUTF8(attributesOffset, charBuffer))) {
+                final int bootstrapMethodCount = reader.readUnsignedShort(attributesOffset + 6);
+                int offset = attributesOffset + 8;
+                for (int index = 0; index < bootstrapMethodCount; ++index) {
+                    if (reader.readUnsignedShort(offset) == handleItem)
+                        bootstrapMethodIndices.add(index);
+                    offset += 4 + 2 * reader.readUnsignedShort(offset + 2);
+                }
+                break;
+            }
+            attributesOffset += 6 + reader.readInt(attributesOffset + 2);
+        }
+
+        final var invokeDynamicItems = new HashSet<Integer>();
+        if (bootstrapMethodIndices.isEmpty())
+            return invokeDynamicItems;
+        for (int item = 1; item < reader.getItemCount(); ++item) {
+            final int offset = reader.getItem(item);
+            if ((offset != 0) && (reader.readByte(offset - 1) == CONSTANT_INVOKE_DYNAMIC_TAG)
+                    && bootstrapMethodIndices.contains(reader.readUnsignedShort(offset)))
+                invokeDynamicItems.add(item);
+        }
+        return invokeDynamicItems;
+    }
+
+    /**
+     * Conservatively checks whether the code starting at {@code codeOffset} contains an {@code invokedynamic}
+     * instruction referring to one of the {@code invokeDynamicItems} by matching its encoding anywhere in the code,
+     * including inside the operands of other instructions, which at worst causes the method to be transformed without
+     * need.
+     */
+    private boolean containsInvokeDynamic(final int codeOffset, final int codeLength,
+                                          final Set<Integer> invokeDynamicItems) {
+        for (int offset = codeOffset; offset <= codeOffset + codeLength - 5; ++offset) {
+            if ((reader.readByte(offset) == Opcodes.INVOKEDYNAMIC)
+                    && invokeDynamicItems.contains(reader.readUnsignedShort(offset + 1))
+                    && (reader.readUnsignedShort(offset + 3) == 0))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return The offset following the {@code attributes_count} and attributes starting at {@code offset}.
+     */
+    private int skipAttributes(int offset) {
+        int attributeCount = reader.readUnsignedShort(offset);
+        offset += 2;
+        while (attributeCount-- > 0)
+            offset += 6 + reader.readInt(offset + 2);
+        return offset;
+    }
+}
@@ -20,16 +20,29 @@ final class ClassFileTransformer implements java.lang.instrument.ClassFileTransf
         this.replacementBootstrapMethodHandle = Objects.requireNonNull(replacementBootstrapMethodHandle);
     }
 
+    /**
+     * Returns {@code null}, i.e. leaves the class unchanged, unless the constant pool of the class file refers to the
+     * obfuscation bootstrap method. The methods which do not invoke it are copied as is by the {@link ClassWriter}.
+     */
     @Override
     public byte[] transform(final ClassLoader loader, final String className, final Class<?> classBeingRedefined,
                             final ProtectionDomain protectionDomain, final byte[] classfileBuffer) {
         final var reader = new ClassReader(classfileBuffer);
+        final var invokingMethods = new BootstrapMethodScanner(reader)
+            .findInvokingMethods(obfuscationBootstrapMethodHandle);
+        if (invokingMethods.isEmpty())
+            return null;
+
         final var writer = new ClassWriter(reader, 0);
         reader.accept(new ClassVisitor(Opcodes.ASM9, writer) {
             @Override
             public MethodVisitor visitMethod(final int access, final String name, final String descriptor,
                                              final String signature, final String[] exceptions) {
-                return new MethodVisitor(api, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+                final var methodVisitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+                // Wrapping the MethodWriter would prevent it from copying the method without visiting its code.
+                if (!invokingMethods.contains(name + descriptor))
+                    return methodVisitor;
+                return new MethodVisitor(api, methodVisitor) {
                     @Override
                     public void visitInvokeDynamicInsn(final String name, final String descriptor,
                                                        final Handle bootstrapMethodHandle,
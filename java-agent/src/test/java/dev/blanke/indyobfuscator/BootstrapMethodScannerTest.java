@@ -0,0 +1,156 @@
+package dev.blanke.indyobfuscator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+final class BootstrapMethodScannerTest {
+
+    private static final String DESCRIPTOR =
+        "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)"
+            + "Ljava/lang/invoke/CallSite;";
+
+    private static final Handle BOOTSTRAP_METHOD_HANDLE = new Handle(H_INVOKESTATIC, "p/Owner", "bootstrap",
+        DESCRIPTOR, false);
+
+    private static final Handle INTERFACE_BOOTSTRAP_METHOD_HANDLE = new Handle(H_INVOKESTATIC, "p/Interface",
+        "bootstrap", DESCRIPTOR, true);
+
+    /**
+     * A bootstrap method which only differs from the {@link #BOOTSTRAP_METHOD_HANDLE} by its owner.
+     */
+    private static final Handle OTHER_BOOTSTRAP_METHOD_HANDLE = new Handle(H_INVOKESTATIC, "p/Other", "bootstrap",
+        DESCRIPTOR, false);
+
+    /**
+     * @return A class whose methods {@code direct}, {@code withArgument}, and {@code mixed} contain
+     *         {@code invokedynamic} instructions using the {@code bootstrapMethodHandle}, where the one of
+     *         {@code withArgument} passes a static argument, so that the handle is the bootstrap method of two entries
+     *         of the {@code BootstrapMethods} attribute. The methods {@code other} and {@code mixed} use the
+     *         {@code otherBootstrapMethodHandle}. Long and double constants precede the handles inside the constant
+     *         pool.
+     */
+    private static byte[] createClass(final Handle bootstrapMethodHandle, final Handle otherBootstrapMethodHandle) {
+        final var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V11, ACC_PUBLIC, "p/Main", null, "java/lang/Object", null);
+        writer.visitField(ACC_STATIC | ACC_FINAL, "LONG", "J", null, 1L << 40).visitEnd();
+        writer.visitField(ACC_STATIC | ACC_FINAL, "DOUBLE", "D", null, 0.5).visitEnd();
+
+        var methodVisitor = visitMethod(writer, "constants");
+        methodVisitor.visitLdcInsn(1L << 41);
+        methodVisitor.visitInsn(POP2);
+        methodVisitor.visitLdcInsn(1.5);
+        methodVisitor.visitInsn(POP2);
+        visitEnd(methodVisitor);
+
+        methodVisitor = visitMethod(writer, "direct");
+        methodVisitor.visitInvokeDynamicInsn("0", "()V", bootstrapMethodHandle);
+        visitEnd(methodVisitor);
+
+        methodVisitor = visitMethod(writer, "withArgument");
+        methodVisitor.visitInvokeDynamicInsn("1", "()V", bootstrapMethodHandle, "argument");
+        visitEnd(methodVisitor);
+
+        methodVisitor = visitMethod(writer, "other");
+        methodVisitor.visitInvokeDynamicInsn("0", "()V", otherBootstrapMethodHandle);
+        visitEnd(methodVisitor);
+
+        methodVisitor = visitMethod(writer, "mixed");
+        methodVisitor.visitLdcInsn(1L << 42);
+        methodVisitor.visitInsn(POP2);
+        methodVisitor.visitInvokeDynamicInsn("0", "()V", otherBootstrapMethodHandle);
+        methodVisitor.visitInvokeDynamicInsn("2", "()V", bootstrapMethodHandle);
+        visitEnd(methodVisitor);
+
+        methodVisitor = visitMethod(writer, "none");
+        methodVisitor.visitMethodInsn(INVOKESTATIC, "p/Main", "direct", "()V", false);
+        visitEnd(methodVisitor);
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static MethodVisitor visitMethod(final ClassWriter writer, final String name) {
+        final var methodVisitor = writer.visitMethod(ACC_STATIC, name, "()V", null, null);
+        methodVisitor.visitCode();
+        return methodVisitor;
+    }
+
+    private static void visitEnd(final MethodVisitor methodVisitor) {
+        methodVisitor.visitInsn(RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+    }
+
+    /**
+     * Asserts that the {@link BootstrapMethodScanner} finds the same methods inside the {@code classFile} as visiting
+     * its instructions, and returns them.
+     */
+    private static Set<String> assertScanMatchesInstructions(final byte[] classFile, final Handle handle) {
+        final var reader = new ClassReader(classFile);
+        final var classNode = new ClassNode();
+        reader.accept(classNode, 0);
+        final var expectedMethods = new HashSet<String>();
+        for (final var method : classNode.methods) {
+            for (final var instruction : method.instructions) {
+                if ((instruction instanceof InvokeDynamicInsnNode invokeDynamicInstruction)
+                        && invokeDynamicInstruction.bsm.equals(handle)) {
+                    expectedMethods.add(method.name + method.desc);
+                }
+            }
+        }
+
+        final var methods = new BootstrapMethodScanner(reader).findInvokingMethods(handle);
+        assertEquals(expectedMethods, methods);
+        return methods;
+    }
+
+    @Test
+    void testFindsMethodsUsingBootstrapMethod() {
+        final var classFile = createClass(BOOTSTRAP_METHOD_HANDLE, OTHER_BOOTSTRAP_METHOD_HANDLE);
+        assertEquals(Set.of("direct()V", "withArgument()V", "mixed()V"),
+            assertScanMatchesInstructions(classFile, BOOTSTRAP_METHOD_HANDLE));
+        assertEquals(Set.of("other()V", "mixed()V"),
+            assertScanMatchesInstructions(classFile, OTHER_BOOTSTRAP_METHOD_HANDLE));
+    }
+
+    @Test
+    void testFindsMethodsUsingBootstrapMethodOfInterface() {
+        final var classFile = createClass(INTERFACE_BOOTSTRAP_METHOD_HANDLE, BOOTSTRAP_METHOD_HANDLE);
+        assertEquals(Set.of("direct()V", "withArgument()V", "mixed()V"),
+            assertScanMatchesInstructions(classFile, INTERFACE_BOOTSTRAP_METHOD_HANDLE));
+
+        // The reference to the owner of the handle has to be an interface method reference.
+        final var classHandle = new Handle(H_INVOKESTATIC, "p/Interface", "bootstrap", DESCRIPTOR, false);
+        assertEquals(Set.of(), assertScanMatchesInstructions(classFile, classHandle));
+    }
+
+    @Test
+    void testIgnoresClassWithoutBootstrapMethod() {
+        final var classFile = createClass(OTHER_BOOTSTRAP_METHOD_HANDLE, INTERFACE_BOOTSTRAP_METHOD_HANDLE);
+        assertEquals(Set.of(), assertScanMatchesInstructions(classFile, BOOTSTRAP_METHOD_HANDLE));
+    }
+
+    @Test
+    void testIgnoresClassWithoutInvokeDynamic() {
+        final var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V11, ACC_PUBLIC, "p/Main", null, "java/lang/Object", null);
+        final var methodVisitor = visitMethod(writer, "none");
+        methodVisitor.visitLdcInsn(1L << 40);
+        methodVisitor.visitInsn(POP2);
+        visitEnd(methodVisitor);
+        writer.visitEnd();
+        assertEquals(Set.of(), assertScanMatchesInstructions(writer.toByteArray(), BOOTSTRAP_METHOD_HANDLE));
+    }
+}
@@ -0,0 +1,16 @@
+package dev.blanke.indyobfuscator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Excludes constructors and methods, all methods of a type, or all methods of the types inside a package (when placed
+ * on {@code package-info.java}) from the obfuscation of method and field instructions, even if the type is matched by
+ * an include pattern.
+ *
+ * @see Obfuscate
+ * @see HotPath
+ */
+@Target({ElementType.CONSTRUCTOR, ElementType.METHOD, ElementType.TYPE, ElementType.PACKAGE})
+public @interface DoNotObfuscate {
+}
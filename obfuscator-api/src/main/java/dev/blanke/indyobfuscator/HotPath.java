@@ -0,0 +1,15 @@
+package dev.blanke.indyobfuscator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+
+/**
+ * Marks performance-critical code, e.g. hot loops, which must not be slowed down by obfuscation.
+ * <p>
+ * Has the same effect as {@link DoNotObfuscate}, but documents why the annotated element is excluded.
+ *
+ * @see Obfuscate
+ */
+@Target({ElementType.CONSTRUCTOR, ElementType.METHOD, ElementType.TYPE, ElementType.PACKAGE})
+public @interface HotPath {
+}
@@ -3,6 +3,14 @@ package dev.blanke.indyobfuscator;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Target;
 
-@Target({ElementType.CONSTRUCTOR, ElementType.METHOD})
+/**
+ * Marks constructors and methods, all methods of a type, or all methods of the types inside a package (when placed on
+ * {@code package-info.java}) for obfuscation if the obfuscator is run with {@code --annotated-only}.
+ * <p>
+ * The annotation closest to a method takes precedence, i.e. an annotation on a method overrides one on its type, which
+ * in turn overrides one on its package. {@link DoNotObfuscate} and {@link HotPath} take precedence over
+ * {@code Obfuscate} on the same element.
+ */
+@Target({ElementType.CONSTRUCTOR, ElementType.METHOD, ElementType.TYPE, ElementType.PACKAGE})
 public @interface Obfuscate {
 }
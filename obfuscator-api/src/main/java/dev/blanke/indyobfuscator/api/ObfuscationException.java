@@ -0,0 +1,15 @@
+package dev.blanke.indyobfuscator.api;
+
+/**
+ * Thrown by an {@link Obfuscator} if a class file cannot be obfuscated or the obfuscation cannot be completed.
+ */
+public class ObfuscationException extends RuntimeException {
+
+    public ObfuscationException(final String message) {
+        super(message);
+    }
+
+    public ObfuscationException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,252 @@
+package dev.blanke.indyobfuscator.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Immutable options for an {@link Obfuscator}, mirroring the command-line arguments of the obfuscator which do not
+ * refer to files.
+ * <p>
+ * Instances are created using {@link #builder()}.
+ */
+public final class ObfuscationOptions {
+
+    private final List<String> includePatterns;
+
+    private final List<String> excludePatterns;
+
+    private final boolean annotatedOnly;
+
+    private final boolean obfuscateIntrinsics;
+
+    private final boolean obfuscateTrivialMethods;
+
+    private final Integer maxLoopDepth;
+
+    private final boolean canonicalizeOwners;
+
+    private final FieldObfuscationMode fieldObfuscationMode;
+
+    private final String bootstrapMethodOwner;
+
+    private final String bootstrapMethodName;
+
+    private final String bootstrapMethodTemplate;
+
+    private final boolean verify;
+
+    private ObfuscationOptions(final Builder builder) {
+        includePatterns         = Collections.unmodifiableList(new ArrayList<>(builder.includePatterns));
+        excludePatterns         = Collections.unmodifiableList(new ArrayList<>(builder.excludePatterns));
+        annotatedOnly           = builder.annotatedOnly;
+        obfuscateIntrinsics     = builder.obfuscateIntrinsics;
+        obfuscateTrivialMethods = builder.obfuscateTrivialMethods;
+        maxLoopDepth            = builder.maxLoopDepth;
+        canonicalizeOwners      = builder.canonicalizeOwners;
+        fieldObfuscationMode    = builder.fieldObfuscationMode;
+        bootstrapMethodOwner    = builder.bootstrapMethodOwner;
+        bootstrapMethodName     = builder.bootstrapMethodName;
+        bootstrapMethodTemplate = builder.bootstrapMethodTemplate;
+        verify                  = builder.verify;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return Glob-like patterns limiting the obfuscation to matched fully qualified class names. All classes are
+     *         included if the list is empty.
+     */
+    public List<String> getIncludePatterns() {
+        return includePatterns;
+    }
+
+    /**
+     * @return Glob-like patterns of fully qualified class names which are excluded from the obfuscation even if they
+     *         are matched by an include pattern.
+     */
+    public List<String> getExcludePatterns() {
+        return excludePatterns;
+    }
+
+    /**
+     * @return Whether the obfuscation should be limited to methods annotated with
+     *         {@link dev.blanke.indyobfuscator.Obfuscate}.
+     */
+    public boolean getAnnotatedOnly() {
+        return annotatedOnly;
+    }
+
+    /**
+     * @return Whether invocations of methods which are intrinsified by the JIT compiler, e.g. {@code Math.abs}, should
+     *         be obfuscated as well.
+     */
+    public boolean getObfuscateIntrinsics() {
+        return obfuscateIntrinsics;
+    }
+
+    /**
+     * @return Whether invocations of trivial getters, setters, and methods returning a constant should be obfuscated as
+     *         well. Only methods of classes which have previously been passed to the {@link Obfuscator} are known to
+     *         be trivial.
+     */
+    public boolean getObfuscateTrivialMethods() {
+        return obfuscateTrivialMethods;
+    }
+
+    /**
+     * @return The maximum number of loops an instruction may be nested in to still be obfuscated, or {@code null} if
+     *         instructions should be obfuscated regardless of loops.
+     */
+    public Integer getMaxLoopDepth() {
+        return maxLoopDepth;
+    }
+
+    /**
+     * @return Whether invoked methods should be identified by their declaring class rather than by the class referenced
+     *         at the call site. Only classes which have previously been passed to the {@link Obfuscator} are taken into
+     *         account.
+     */
+    public boolean getCanonicalizeOwners() {
+        return canonicalizeOwners;
+    }
+
+    public FieldObfuscationMode getFieldObfuscationMode() {
+        return fieldObfuscationMode;
+    }
+
+    /**
+     * @return The fully qualified name of the class which should contain the bootstrap method, or {@code null} if a
+     *         new class should be generated by {@link Obfuscator#finish()}.
+     */
+    public String getBootstrapMethodOwner() {
+        return bootstrapMethodOwner;
+    }
+
+    public String getBootstrapMethodName() {
+        return bootstrapMethodName;
+    }
+
+    /**
+     * @return The content of the Apache FreeMarker template containing the native bootstrap method implementation, or
+     *         {@code null} if the default template should be used.
+     */
+    public String getBootstrapMethodTemplate() {
+        return bootstrapMethodTemplate;
+    }
+
+    /**
+     * @return Whether the transformed classes should be verified by {@link Obfuscator#finish()}.
+     */
+    public boolean getVerify() {
+        return verify;
+    }
+
+    /**
+     * Specifies if and how field access instructions ({@code getfield}, {@code putfield}, {@code getstatic},
+     * {@code putstatic}) should be obfuscated.
+     */
+    public enum FieldObfuscationMode {
+        NONE,
+        METHOD_HANDLES,
+        SYNTHETIC_ACCESSORS
+    }
+
+    public static final class Builder {
+
+        private final List<String> includePatterns = new ArrayList<>();
+
+        private final List<String> excludePatterns = new ArrayList<>();
+
+        private boolean annotatedOnly;
+
+        private boolean obfuscateIntrinsics;
+
+        private boolean obfuscateTrivialMethods;
+
+        private Integer maxLoopDepth;
+
+        private boolean canonicalizeOwners;
+
+        private FieldObfuscationMode fieldObfuscationMode = FieldObfuscationMode.NONE;
+
+        private String bootstrapMethodOwner;
+
+        private String bootstrapMethodName = "bootstrap";
+
+        private String bootstrapMethodTemplate;
+
+        private boolean verify;
+
+        private Builder() {
+        }
+
+        public Builder include(final String... patterns) {
+            includePatterns.addAll(Arrays.asList(patterns));
+            return this;
+        }
+
+        public Builder exclude(final String... patterns) {
+            excludePatterns.addAll(Arrays.asList(patterns));
+            return this;
+        }
+
+        public Builder annotatedOnly(final boolean annotatedOnly) {
+            this.annotatedOnly = annotatedOnly;
+            return this;
+        }
+
+        public Builder obfuscateIntrinsics(final boolean obfuscateIntrinsics) {
+            this.obfuscateIntrinsics = obfuscateIntrinsics;
+            return this;
+        }
+
+        public Builder obfuscateTrivialMethods(final boolean obfuscateTrivialMethods) {
+            this.obfuscateTrivialMethods = obfuscateTrivialMethods;
+            return this;
+        }
+
+        public Builder maxLoopDepth(final Integer maxLoopDepth) {
+            this.maxLoopDepth = maxLoopDepth;
+            return this;
+        }
+
+        public Builder canonicalizeOwners(final boolean canonicalizeOwners) {
+            this.canonicalizeOwners = canonicalizeOwners;
+            return this;
+        }
+
+        public Builder fieldObfuscationMode(final FieldObfuscationMode fieldObfuscationMode) {
+            this.fieldObfuscationMode = Objects.requireNonNull(fieldObfuscationMode);
+            return this;
+        }
+
+        public Builder bootstrapMethodOwner(final String bootstrapMethodOwner) {
+            this.bootstrapMethodOwner = bootstrapMethodOwner;
+            return this;
+        }
+
+        public Builder bootstrapMethodName(final String bootstrapMethodName) {
+            this.bootstrapMethodName = Objects.requireNonNull(bootstrapMethodName);
+            return this;
+        }
+
+        public Builder bootstrapMethodTemplate(final String bootstrapMethodTemplate) {
+            this.bootstrapMethodTemplate = bootstrapMethodTemplate;
+            return this;
+        }
+
+        public Builder verify(final boolean verify) {
+            this.verify = verify;
+            return this;
+        }
+
+        public ObfuscationOptions build() {
+            return new ObfuscationOptions(this);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dev.blanke.indyobfuscator.api;
+
+import java.util.Objects;
+
+/**
+ * The result of an obfuscation returned by {@link Obfuscator#finish()}.
+ */
+public final class ObfuscationResult {
+
+    private final String bootstrapMethodOwner;
+
+    private final byte[] generatedBootstrapMethodOwner;
+
+    private final String bootstrapMethodSource;
+
+    private final int methodInvocationCount;
+
+    public ObfuscationResult(final String bootstrapMethodOwner,
+                             final byte[] generatedBootstrapMethodOwner,
+                             final String bootstrapMethodSource,
+                             final int    methodInvocationCount) {
+        this.bootstrapMethodOwner          = Objects.requireNonNull(bootstrapMethodOwner);
+        this.generatedBootstrapMethodOwner = generatedBootstrapMethodOwner;
+        this.bootstrapMethodSource         = Objects.requireNonNull(bootstrapMethodSource);
+        this.methodInvocationCount         = methodInvocationCount;
+    }
+
+    /**
+     * @return The internal name of the class containing the bootstrap method, e.g. {@code com/example/Main}.
+     */
+    public String getBootstrapMethodOwner() {
+        return bootstrapMethodOwner;
+    }
+
+    /**
+     * @return The bytes of the generated bootstrap method owner class, which has to be added to the obfuscated
+     *         artifact, or {@code null} if an existing class has been used as bootstrap method owner.
+     */
+    public byte[] getGeneratedBootstrapMethodOwner() {
+        return generatedBootstrapMethodOwner;
+    }
+
+    /**
+     * @return The populated bootstrap method template, i.e. the source code of the native bootstrap method.
+     */
+    public String getBootstrapMethodSource() {
+        return bootstrapMethodSource;
+    }
+
+    /**
+     * @return The number of distinct method invocations which have been replaced by {@code invokedynamic}
+     *         instructions.
+     */
+    public int getMethodInvocationCount() {
+        return methodInvocationCount;
+    }
+}
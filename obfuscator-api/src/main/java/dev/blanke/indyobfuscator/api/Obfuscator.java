@@ -0,0 +1,85 @@
+package dev.blanke.indyobfuscator.api;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * Obfuscates class files held in memory without accessing the file system.
+ * <p>
+ * Each class of the artifact being obfuscated is passed to {@link #obfuscate(byte[])}, which may be called
+ * concurrently from multiple threads. Once all classes have been obfuscated, {@link #finish()} must be called exactly
+ * once to obtain the bootstrap method owner and the bootstrap method source code matching the obfuscated classes.
+ * <p>
+ * An implementation is provided by the {@code obfuscator} artifact, which must be present on the class path.
+ */
+public interface Obfuscator {
+
+    /**
+     * Creates a new {@code Obfuscator} using the first {@link ObfuscatorFactory} found by the {@link ServiceLoader}.
+     *
+     * @param options The options to use for the obfuscation.
+     *
+     * @return A new {@code Obfuscator} which is ready to obfuscate class files.
+     *
+     * @throws IllegalStateException If no {@code ObfuscatorFactory} is available.
+     */
+    static Obfuscator create(final ObfuscationOptions options) {
+        final Iterator<ObfuscatorFactory> factories =
+            ServiceLoader.load(ObfuscatorFactory.class, Obfuscator.class.getClassLoader()).iterator();
+        if (!factories.hasNext())
+            throw new IllegalStateException("No " + ObfuscatorFactory.class.getName() + " found on the class path.");
+        return factories.next().create(options);
+    }
+
+    /**
+     * Checks whether the class with the provided fully qualified name is matched by the include and exclude patterns of
+     * the {@link ObfuscationOptions}.
+     */
+    boolean isIncluded(String className);
+
+    /**
+     * Obfuscates the provided class file if it is included in the obfuscation. Classes which are not included are
+     * returned unmodified unless they are the bootstrap method owner.
+     * <p>
+     * Annotations on a {@code package-info} class only apply to classes of the package which are passed to this method
+     * after the {@code package-info} class, so {@code package-info} classes should be passed first. Likewise,
+     * invocations of trivial methods are only left un-obfuscated if the class declaring them has been passed before.
+     *
+     * @param classFile The bytes of the class file to obfuscate.
+     *
+     * @return The bytes of the obfuscated class file.
+     *
+     * @throws ObfuscationException If the class file cannot be obfuscated.
+     *
+     * @throws IllegalStateException If {@link #finish()} has already been called.
+     */
+    byte[] obfuscate(byte[] classFile);
+
+    /**
+     * Obfuscates the class file contained in the remaining bytes of the provided buffer.
+     *
+     * @see #obfuscate(byte[])
+     */
+    default ByteBuffer obfuscate(final ByteBuffer classFile) {
+        final byte[] bytes = new byte[classFile.remaining()];
+        classFile.get(bytes);
+        return ByteBuffer.wrap(obfuscate(bytes));
+    }
+
+    /**
+     * Completes the obfuscation by generating the bootstrap method owner if necessary, verifying the transformed
+     * classes if requested, and populating the bootstrap method template.
+     * <p>
+     * Must only be called once all calls to {@link #obfuscate(byte[])} have returned.
+     *
+     * @return The result of the obfuscation.
+     *
+     * @throws ObfuscationException If the bootstrap method source cannot be generated or verification fails.
+     *
+     * @throws IllegalStateException If a bootstrap method owner has been specified in the {@link ObfuscationOptions}
+     *                               but has not been passed to {@link #obfuscate(byte[])}, or if this method has
+     *                               already been called.
+     */
+    ObfuscationResult finish();
+}
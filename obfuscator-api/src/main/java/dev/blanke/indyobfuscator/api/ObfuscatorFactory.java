@@ -0,0 +1,10 @@
+package dev.blanke.indyobfuscator.api;
+
+/**
+ * A service provider interface for creating {@link Obfuscator} instances, which is looked up by
+ * {@link Obfuscator#create(ObfuscationOptions)} using the {@link java.util.ServiceLoader}.
+ */
+public interface ObfuscatorFactory {
+
+    Obfuscator create(ObfuscationOptions options);
+}
@@ -12,8 +12,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
 import java.util.Objects;
-import java.util.function.Predicate;
-import java.util.regex.Pattern;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -23,15 +21,43 @@ import org.objectweb.asm.Type;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
+import dev.blanke.indyobfuscator.api.ObfuscationOptions;
+import dev.blanke.indyobfuscator.filter.ClassNameMatcher;
+import dev.blanke.indyobfuscator.obfuscation.policy.StartupPath;
+
 /**
  * Encapsulates the command-line arguments that can be passed to the obfuscator.
  */
 public final class Arguments {
 
+    /**
+     * Creates {@code Arguments} equivalent to the provided {@link ObfuscationOptions} of the in-memory API.
+     * <p>
+     * The input, output, and bootstrap method template files remain unset, as the in-memory API does not access the
+     * file system.
+     *
+     * @see InMemoryObfuscator
+     */
+    static Arguments of(final ObfuscationOptions options) {
+        final var arguments = new Arguments();
+        arguments.setIncludePatterns(options.getIncludePatterns());
+        arguments.setExcludePatterns(options.getExcludePatterns());
+        arguments.annotatedOnly        = options.getAnnotatedOnly();
+        arguments.fieldObfuscationMode = FieldObfuscationMode.valueOf(options.getFieldObfuscationMode().name());
+        arguments.verify               = options.getVerify();
+        arguments.obfuscateIntrinsics     = options.getObfuscateIntrinsics();
+        arguments.obfuscateTrivialMethods = options.getObfuscateTrivialMethods();
+        arguments.maxLoopDepth            = options.getMaxLoopDepth();
+        arguments.canonicalizeOwners      = options.getCanonicalizeOwners();
+        arguments.bootstrapMethodOwner = options.getBootstrapMethodOwner();
+        arguments.bootstrapMethodName  = options.getBootstrapMethodName();
+        return arguments;
+    }
+
     //region Input/output
     @Parameters(
         index       = "0",
-        description = "The .jar or .class file to be obfuscated.")
+        description = "The .jar file, .class file, or directory of class files to be obfuscated.")
     private Path input;
 
     public @NotNull Path getInput() {
@@ -52,16 +78,27 @@ public final class Arguments {
     public @NotNull Path getOutput() {
         return (output != null) ? output : input;
     }
+
+    @Option(
+        names       = "--watch",
+        description = """
+            Keep running after obfuscating a directory and re-obfuscate class files whenever they change.
+            Requires a directory as input along with --output and --bsm-output.""")
+    private boolean watch;
+
+    public boolean getWatch() {
+        return watch;
+    }
     //endregion
 
-    //region Includes
+    //region Includes/excludes
     /**
-     * A list of predicates matching class names to decide whether the respective classes should be included in the
-     * obfuscation process.
+     * A matcher for class names to decide whether the respective classes should be included in the obfuscation
+     * process. Matches all classes if no include pattern is given.
      *
      * @see #setIncludePatterns(List)
      */
-    private List<Predicate<String>> includePatternMatchPredicates = List.of();
+    private ClassNameMatcher includeMatcher = ClassNameMatcher.NONE;
 
     @Option(
         names       = { "-I", "--include" },
@@ -69,38 +106,53 @@ public final class Arguments {
             A glob-like pattern to limit obfuscation to matched fully qualified class names.
             E.g. 'dev.blanke.indyobfuscator.*'.
             """,
-        paramLabel = "<regex>")
+        paramLabel = "<pattern>")
     private void setIncludePatterns(final List<String> includePatterns) {
-        includePatternMatchPredicates = includePatterns.stream()
-            // Convert glob-like pattern to regex by escaping dots and replacing '*'.
-            .map(includePattern -> Pattern.compile(includePattern.replace(".", "\\.").replace("*", ".*")))
-            .map(Pattern::asMatchPredicate)
-            .toList();
+        includeMatcher = ClassNameMatcher.compile(includePatterns);
     }
 
     /**
-     * Checks whether the provided path to a class file matches at least one include pattern after conversion to a fully
-     * qualified class name, in which case that class will be included in the current obfuscation pass.
+     * A matcher for class names to decide whether the respective classes should be excluded from the obfuscation
+     * process even if they are matched by an include pattern.
      *
-     * @param path The path to a class inside a jar file for which inclusion in the obfuscation pass is to be checked.
+     * @see #setExcludePatterns(List)
+     */
+    private ClassNameMatcher excludeMatcher = ClassNameMatcher.NONE;
+
+    @Option(
+        names       = { "-E", "--exclude" },
+        description = """
+            A glob-like pattern to exclude matched fully qualified class names from obfuscation.
+            Takes precedence over --include. E.g. 'dev.blanke.indyobfuscator.template.*'.
+            """,
+        paramLabel = "<pattern>")
+    private void setExcludePatterns(final List<String> excludePatterns) {
+        excludeMatcher = ClassNameMatcher.compile(excludePatterns);
+    }
+
+    /**
+     * Checks whether the provided fully qualified class name matches at least one include pattern and no exclude
+     * pattern, in which case that class will be included in the obfuscation.
+     * <p>
+     * The result is independent of the obfuscation pass, so callers are expected to evaluate it once per class file.
+     *
+     * @param className The fully qualified name of the class for which inclusion in the obfuscation is to be checked.
      *
-     * @return {@code true} if the class associated with the {@code path} should be included in the obfuscation pass,
-     *         otherwise {@code false}.
+     * @return {@code true} if the class should be included in the obfuscation, otherwise {@code false}.
      *
      * @see InputType#JAR
+     * @see InputType#DIRECTORY
      */
-    public boolean matchesIncludePattern(final Path path) {
-        // Drop the leading slash and convert path separators to dots.
-        final var fqcn = path.toString().substring(1).replace('/', '.');
-        return includePatternMatchPredicates.isEmpty()
-            || includePatternMatchPredicates.stream().anyMatch(predicate -> predicate.test(fqcn));
+    public boolean isIncluded(final String className) {
+        return (includeMatcher.isEmpty() || includeMatcher.test(className)) && !excludeMatcher.test(className);
     }
     //endregion
 
     @Option(
         names       = { "-a", "--annotated-only" },
         description = """
-            Whether obfuscation should be limited to methods annotated with @Obfuscate.
+            Whether obfuscation should be limited to methods annotated with @Obfuscate, either directly or via
+            their class or package. @DoNotObfuscate and @HotPath are respected regardless of this option.
             Disabled by default.""")
     private boolean annotatedOnly;
 
@@ -108,6 +160,18 @@ public final class Arguments {
         return annotatedOnly;
     }
 
+    @Option(
+        names       = "--canonicalize-owners",
+        description = """
+            Whether invocations of public methods inherited from a super class of the input should refer to the
+            declaring class, so that invocations through different subclasses share a single bootstrap method
+            entry. Disabled by default.""")
+    private boolean canonicalizeOwners;
+
+    public boolean getCanonicalizeOwners() {
+        return canonicalizeOwners;
+    }
+
     // Default field value is used for tests only and overridden by Picocli.
     @Option(
         names       = { "-f", "--field-obfuscation-mode" },
@@ -128,6 +192,161 @@ public final class Arguments {
         SYNTHETIC_ACCESSORS
     }
 
+    //region Call site exclusions
+    @Option(
+        names       = "--obfuscate-intrinsics",
+        description = """
+            Whether invocations of JIT intrinsic candidates such as Math.*, System.arraycopy, or String.equals should
+            be obfuscated as well, preventing their intrinsification. Disabled by default.""")
+    private boolean obfuscateIntrinsics;
+
+    public boolean getObfuscateIntrinsics() {
+        return obfuscateIntrinsics;
+    }
+
+    @Option(
+        names       = "--obfuscate-trivial-methods",
+        description = """
+            Whether invocations of trivial methods of the input, i.e. single-field getters and setters and methods
+            returning a constant, should be obfuscated as well, preventing their inlining. Disabled by default.""")
+    private boolean obfuscateTrivialMethods;
+
+    public boolean getObfuscateTrivialMethods() {
+        return obfuscateTrivialMethods;
+    }
+
+    @Option(
+        names       = "--exclusion-report",
+        description = "Write a report of the call sites which have been left un-obfuscated to file.",
+        paramLabel  = "<file>")
+    private Path exclusionReport;
+
+    public @Nullable Path getExclusionReport() {
+        return exclusionReport;
+    }
+    //endregion
+
+    //region Loop analysis
+    @Option(
+        names       = "--max-loop-depth",
+        description = """
+            Leave method and field instructions nested in more than the given number of loops un-obfuscated, e.g. 1 to
+            only obfuscate instructions outside of inner loops. Loops are detected statically from the control flow
+            of each method. Unlimited by default.""",
+        paramLabel  = "<depth>")
+    private Integer maxLoopDepth;
+
+    @Option(
+        names       = "--skip-loop-bodies",
+        description = "Leave all method and field instructions inside loops un-obfuscated. Same as --max-loop-depth 0.")
+    private boolean skipLoopBodies;
+
+    /**
+     * @return The maximum loop nesting depth of instructions which should be obfuscated, or {@code null} if
+     *         instructions should be obfuscated regardless of loops.
+     */
+    public @Nullable Integer getMaxLoopDepth() {
+        return skipLoopBodies ? Integer.valueOf(0) : maxLoopDepth;
+    }
+    //endregion
+
+    //region Overhead budget
+    @Option(
+        names       = "--overhead-budget",
+        description = """
+            Only obfuscate as many call sites as fit into the given estimated increase of call overhead in percent,
+            e.g. 2, both per class and for the whole input. The overhead of each call site is estimated statically
+            from its loop depth, the size of its method, and the kind of invoked method. Unlimited by default.""",
+        paramLabel  = "<percent>")
+    private Double overheadBudget;
+
+    public @Nullable Double getOverheadBudget() {
+        return overheadBudget;
+    }
+
+    @Option(
+        names       = "--decision-table",
+        description = """
+            Write the estimated overhead and the decision for each call site to file. Only has an effect along with
+            --overhead-budget.""",
+        paramLabel  = "<file>")
+    private Path decisionTable;
+
+    public @Nullable Path getDecisionTable() {
+        return decisionTable;
+    }
+    //endregion
+
+    //region Startup path
+    @Option(
+        names       = "--startup-mode",
+        description = """
+            Specifies how static initializers and the methods listed by --startup-methods should be obfuscated, as
+            each of their call sites costs a bootstrap method invocation during startup.
+            Valid options are: ${COMPLETION-CANDIDATES}.
+            Defaults to ${DEFAULT-VALUE}.""",
+        defaultValue = "OBFUSCATE")
+    private StartupPath.Mode startupMode = StartupPath.Mode.OBFUSCATE;
+
+    public @NotNull StartupPath.Mode getStartupMode() {
+        return startupMode;
+    }
+
+    @Option(
+        names       = "--startup-methods",
+        description = """
+            File listing methods which are only executed during startup, one per line, e.g.
+            'com.example.Main.parseArguments' or 'com.example.Main.parseArguments([Ljava/lang/String;)V'.
+            Only has an effect along with --startup-mode.""",
+        paramLabel  = "<file>")
+    private Path startupMethods;
+
+    public @Nullable Path getStartupMethods() {
+        return startupMethods;
+    }
+    //endregion
+
+    //region Verification
+    @Option(
+        names       = "--verify",
+        description = """
+            Whether the obfuscated class files should be verified once all transformations have been applied.
+            Disabled by default.""")
+    private boolean verify;
+
+    public boolean getVerify() {
+        return verify;
+    }
+
+    @Option(
+        names       = "--verify-sample",
+        description = """
+            Percentage of the obfuscated classes to verify if --verify is given, e.g. 5 for fast CI runs.
+            The sample is chosen deterministically based on the class names.
+            Defaults to ${DEFAULT-VALUE}.""",
+        defaultValue = "100",
+        paramLabel   = "<percent>")
+    private double verificationSamplePercentage = 100;
+
+    public double getVerificationSamplePercentage() {
+        return verificationSamplePercentage;
+    }
+
+    /**
+     * Checks whether the class with the provided internal name is part of the sample of classes to be verified.
+     *
+     * @param className The internal name of the class for which inclusion in the verification sample is to be checked.
+     *
+     * @return {@code true} if the class should be verified, otherwise {@code false}.
+     */
+    public boolean isSampledForVerification(final String className) {
+        if (verificationSamplePercentage >= 100)
+            return true;
+        // Use a stable hash instead of randomness so that repeated runs verify the same classes.
+        return Math.floorMod(className.hashCode(), 10_000) < (verificationSamplePercentage * 100);
+    }
+    //endregion
+
     //region Bootstrap method options
     @Option(
         names       = { "--bsm-owner", "--bootstrap-method-owner" },
@@ -172,6 +391,128 @@ public final class Arguments {
         return BOOTSTRAP_METHOD_DESCRIPTOR;
     }
 
+    // Default field value is used for tests only and overridden by Picocli.
+    @Option(
+        names       = "--bootstrap-backend",
+        description = """
+            Specifies how the bootstrap method is implemented. NATIVE implements it in a native library generated from
+            the bootstrap method template. JAVA adds a Java implementation to the bootstrap method owner, which
+            resolves the call sites using a lookup table encoded into its constant pool, so that neither a native
+            library nor any JNI transition is required, at the cost of weaker protection.
+            Valid options are: ${COMPLETION-CANDIDATES}.
+            Defaults to ${DEFAULT-VALUE}.""",
+        paramLabel   = "<backend>",
+        defaultValue = "NATIVE")
+    private BootstrapBackend bootstrapBackend = BootstrapBackend.NATIVE;
+
+    public @NotNull BootstrapBackend getBootstrapBackend() {
+        return bootstrapBackend;
+    }
+
+    public enum BootstrapBackend {
+        NATIVE,
+        JAVA
+    }
+
+    @Option(
+        names       = "--async-library-loading",
+        description = """
+            Whether the bootstrap method owner should load the native library on a background thread instead of
+            blocking its static initializer, in which case only the first bootstrap waits for the library. The native
+            method is registered by the library using RegisterNatives instead of being exported. Only supported by the
+            NATIVE backend. Disabled by default.""")
+    private boolean asyncLibraryLoading;
+
+    public boolean getAsyncLibraryLoading() {
+        return asyncLibraryLoading;
+    }
+
+    // Default field value is used for tests only and overridden by Picocli.
+    @Option(
+        names       = "--shard-by",
+        description = """
+            Partitions the obfuscated method invocations into shards, each with its own bootstrap method owner and
+            native library. PACKAGE generates a BootstrapShard class in each package containing obfuscated call
+            sites, which loads its library only once the first call site of the package is bootstrapped. The
+            source code of each shard is written to a file named after its library inside the --bsm-output
+            directory, and --compile writes the libraries next to --library-output.
+            Valid options are: ${COMPLETION-CANDIDATES}.
+            Defaults to ${DEFAULT-VALUE}.""",
+        paramLabel   = "<mode>",
+        defaultValue = "NONE")
+    private ShardingMode shardingMode = ShardingMode.NONE;
+
+    public @NotNull ShardingMode getShardingMode() {
+        return shardingMode;
+    }
+
+    public enum ShardingMode {
+        NONE,
+        PACKAGE
+    }
+
+    // Default field value is used for tests only and overridden by Picocli.
+    @Option(
+        names       = "--bsm-layout",
+        description = """
+            Specifies which of the packaged bootstrap method templates is used if no --bsm-template is given.
+            SWITCH resolves each identifier in its own case of a switch statement. TABLE looks identifiers up in a
+            static array referring to a pool of deduplicated strings, which compiles considerably faster for large
+            inputs and results in a smaller library. TRAMPOLINE uses the same table, but the bootstrap method is a Java
+            trampoline which calls into the library once to obtain the invocation and performs the lookup in Java,
+            instead of the library calling back into Java for each step of the lookup, which makes bootstrapping
+            considerably faster. Custom templates used with TRAMPOLINE have to implement the same native method.
+            Valid options are: ${COMPLETION-CANDIDATES}.
+            Defaults to ${DEFAULT-VALUE}.""",
+        defaultValue = "SWITCH")
+    private BootstrapMethodLayout bootstrapMethodLayout = BootstrapMethodLayout.SWITCH;
+
+    public @NotNull BootstrapMethodLayout getBootstrapMethodLayout() {
+        return bootstrapMethodLayout;
+    }
+
+    public enum BootstrapMethodLayout {
+        SWITCH("/bootstrap.c.ftl"),
+        TABLE("/bootstrap-table.c.ftl"),
+        TRAMPOLINE("/bootstrap-trampoline.c.ftl");
+
+        /**
+         * The variant of the {@link #SWITCH} template which is split into multiple translation units.
+         */
+        private static final String UNITS_TEMPLATE_RESOURCE = "/bootstrap-units.c.ftl";
+
+        private final String templateResource;
+
+        BootstrapMethodLayout(final String templateResource) {
+            this.templateResource = templateResource;
+        }
+    }
+
+    @Option(
+        names       = "--encode-strings",
+        description = """
+            Whether the strings of the symbol table should be encoded instead of being stored in plain text inside
+            the native library. Only supported by the TABLE and TRAMPOLINE layouts. Disabled by default.""")
+    private boolean encodeStrings;
+
+    public boolean getEncodeStrings() {
+        return encodeStrings;
+    }
+
+    @Option(
+        names       = "--bsm-units",
+        description = """
+            Split the bootstrap method implementation into the given number of translation units along with a shared
+            header and a CMakeLists.txt, which are written to the --bsm-output directory, so that the units can be
+            compiled in parallel. Only supported by the SWITCH layout. Defaults to ${DEFAULT-VALUE}.""",
+        paramLabel   = "<count>",
+        defaultValue = "1")
+    private int bootstrapMethodUnits = 1;
+
+    public int getBootstrapMethodUnits() {
+        return bootstrapMethodUnits;
+    }
+
     @Option(
         names       = { "--bsm-template", "--bootstrap-method-template" },
         description = """
@@ -190,8 +531,180 @@ public final class Arguments {
                 throw new UncheckedIOException(exception);
             }
         }
-        final var templateStream = Objects.requireNonNull(getClass().getResourceAsStream("/bootstrap.c.ftl"));
+        final var templateResource = (bootstrapMethodUnits > 1)
+            ? BootstrapMethodLayout.UNITS_TEMPLATE_RESOURCE
+            : bootstrapMethodLayout.templateResource;
+        final var templateStream = Objects.requireNonNull(getClass().getResourceAsStream(templateResource));
         return new BufferedReader(new InputStreamReader(templateStream));
     }
+
+    // Default field value is used for tests only and overridden by Picocli.
+    @Option(
+        names       = "--template-engine",
+        description = """
+            Specifies how the packaged template of the SWITCH layout is processed. DIRECT writes its output straight
+            from the symbol mapping without a template language, which is considerably faster for large inputs.
+            FREEMARKER processes it like any other template. Custom templates, the TABLE layout, and --bsm-units
+            always use FREEMARKER.
+            Valid options are: ${COMPLETION-CANDIDATES}.
+            Defaults to ${DEFAULT-VALUE}.""",
+        paramLabel   = "<engine>",
+        defaultValue = "DIRECT")
+    private TemplateEngineType templateEngine = TemplateEngineType.DIRECT;
+
+    public @NotNull TemplateEngineType getTemplateEngine() {
+        return templateEngine;
+    }
+
+    /**
+     * @return Whether the bootstrap method source is produced by a
+     *         {@link dev.blanke.indyobfuscator.template.DirectTemplateEngine}, i.e. whether the packaged template of
+     *         the {@link BootstrapMethodLayout#SWITCH} layout is used along with {@link TemplateEngineType#DIRECT}.
+     */
+    public boolean isDirectTemplateEngineUsed() {
+        return (templateEngine == TemplateEngineType.DIRECT) && (bootstrapMethodTemplate == null)
+            && (bootstrapMethodLayout == BootstrapMethodLayout.SWITCH) && (bootstrapMethodUnits == 1);
+    }
+
+    public enum TemplateEngineType {
+        DIRECT,
+        FREEMARKER
+    }
+
+    @Option(
+        names       = { "--bsm-output", "--bootstrap-method-output" },
+        description = """
+            Write the processed bootstrap method template to file instead of System.out. Denotes a directory if
+            --bsm-units is greater than 1.
+            """,
+        paramLabel = "<file>")
+    private Path bootstrapMethodOutput;
+
+    public @Nullable Path getBootstrapMethodOutput() {
+        return bootstrapMethodOutput;
+    }
+    //endregion
+
+    //region Native compilation
+    @Option(
+        names       = "--compile",
+        description = """
+            Compile the bootstrap method source code written to --bsm-output to a shared library next to the
+            output using the local C compiler. Translation units are compiled in parallel, and object files and
+            libraries are cached by the hash of their sources and the compiler flags.""")
+    private boolean compile;
+
+    public boolean getCompile() {
+        return compile;
+    }
+
+    @Option(
+        names       = "--cc",
+        description = "The C compiler to invoke. Defaults to the CC environment variable or 'cc'.",
+        paramLabel  = "<compiler>")
+    private String compiler;
+
+    public @NotNull String getCompiler() {
+        if (compiler != null)
+            return compiler;
+        final var environmentCompiler = System.getenv("CC");
+        return ((environmentCompiler != null) && !environmentCompiler.isBlank()) ? environmentCompiler : "cc";
+    }
+
+    @Option(
+        names       = "--compiler-flag",
+        description = "Additional flag to pass to the C compiler, e.g. -O2. Can be repeated.",
+        paramLabel  = "<flag>")
+    private List<String> compilerFlags = List.of();
+
+    public @NotNull List<String> getCompilerFlags() {
+        return compilerFlags;
+    }
+
+    @Option(
+        names       = "--compile-cache",
+        description = """
+            Directory in which compiled object files and libraries are cached. Defaults to indy-obfuscator inside
+            $XDG_CACHE_HOME or ~/.cache.""",
+        paramLabel  = "<directory>")
+    private Path compileCache;
+
+    public @NotNull Path getCompileCache() {
+        if (compileCache != null)
+            return compileCache;
+        final var cacheHome = System.getenv("XDG_CACHE_HOME");
+        final var cacheDirectory = ((cacheHome != null) && !cacheHome.isBlank())
+            ? Path.of(cacheHome)
+            : Path.of(System.getProperty("user.home"), ".cache");
+        return cacheDirectory.resolve("indy-obfuscator");
+    }
+
+    @Option(
+        names       = "--library-output",
+        description = """
+            Write the compiled library to file. Defaults to the platform-specific name of the 'bootstrap' library
+            inside the directory containing the output.""",
+        paramLabel  = "<file>")
+    private Path libraryOutput;
+
+    public @NotNull Path getLibraryOutput() {
+        if (libraryOutput != null)
+            return libraryOutput;
+        final var outputDirectory = getOutput().toAbsolutePath().getParent();
+        return outputDirectory.resolve(System.mapLibraryName("bootstrap"));
+    }
+
+    @Option(
+        names       = "--embed-library",
+        description = """
+            Embed the compiled library into the output jar file or directory. The bootstrap method owner extracts
+            the library once to a per-user cache directory named by its hash instead of loading it from the working
+            directory, or to a temporary file if the cache directory is not writable. Requires --compile.""")
+    private boolean embedLibrary;
+
+    public boolean getEmbedLibrary() {
+        return embedLibrary;
+    }
+    //endregion
+
+    //region Class data sharing
+    @Option(
+        names       = "--cds-archive",
+        description = """
+            Run the obfuscated jar file through a training workload with -XX:ArchiveClassesAtExit and write the
+            resulting dynamic class data sharing archive to file. The archive is then validated to contain the
+            obfuscated classes and the bootstrap method owner, and the run fails if a class loaded by the workload
+            has not been archived. It has to be used with the same JDK by passing
+            -XX:SharedArchiveFile=<file> along with the output jar file as class path. Requires a jar file with a
+            Main-Class as input and --compile unless the JAVA backend is used.""",
+        paramLabel  = "<file>")
+    private Path cdsArchive;
+
+    public @Nullable Path getCdsArchive() {
+        return cdsArchive;
+    }
+
+    @Option(
+        names       = "--cds-training-arg",
+        description = "Argument to pass to the main class during the training workload. Can be repeated.",
+        paramLabel  = "<argument>")
+    private List<String> cdsTrainingArguments = List.of();
+
+    public @NotNull List<String> getCdsTrainingArguments() {
+        return cdsTrainingArguments;
+    }
+
+    @Option(
+        names       = "--cds-startup-runs",
+        description = """
+            The number of runs of the training workload with and without the archive whose median durations are
+            compared after creating the --cds-archive. 0 disables the comparison. Defaults to ${DEFAULT-VALUE}.""",
+        paramLabel   = "<runs>",
+        defaultValue = "5")
+    private int cdsStartupRuns = 5;
+
+    public int getCdsStartupRuns() {
+        return cdsStartupRuns;
+    }
     //endregion
 }
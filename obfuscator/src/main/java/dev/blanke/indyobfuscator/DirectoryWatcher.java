@@ -0,0 +1,193 @@
+package dev.blanke.indyobfuscator;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.ClassReader;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the input directory of an obfuscation run using a {@link WatchService} and re-obfuscates only the class files
+ * which have changed, writing them to the output directory.
+ * <p>
+ * The {@link dev.blanke.indyobfuscator.mapping.SymbolMapping} of the {@link InDyObfuscator} is kept in memory between
+ * changes, so unchanged method invocations retain their identifier. The bootstrap method source is only regenerated if
+ * the changed class files contain method invocations which have not been seen before.
+ *
+ * @see InputType#DIRECTORY
+ */
+final class DirectoryWatcher {
+
+    private final InDyObfuscator obfuscator;
+
+    private final Path input;
+
+    private final Path output;
+
+    /**
+     * Whether the bootstrap method owner has been generated, in which case the included classes have to load it
+     * explicitly using {@link InDyObfuscator#addBootstrapMethodOwnerLoading}.
+     */
+    private final boolean generatedBootstrapMethodOwner;
+
+    /**
+     * The time to wait for further changes after a change has been detected, so that a compiler writing many class
+     * files at once only triggers a single regeneration of the bootstrap method source.
+     */
+    private static final long DEBOUNCE_MILLIS = 200;
+
+    private static final Logger LOGGER = System.getLogger(DirectoryWatcher.class.getName());
+
+    /**
+     * @param obfuscator An obfuscator which has already obfuscated the input directory using
+     *                   {@link InputType#DIRECTORY}.
+     */
+    DirectoryWatcher(final InDyObfuscator obfuscator) {
+        this.obfuscator = Objects.requireNonNull(obfuscator);
+
+        input  = obfuscator.getArguments().getInput();
+        output = obfuscator.getArguments().getOutput();
+        generatedBootstrapMethodOwner = !Files.exists(input.resolve(getBootstrapMethodOwnerFileName()));
+    }
+
+    /**
+     * Watches the input directory until the thread is interrupted.
+     *
+     * @throws Exception If watching the directory, transforming a class file, or regenerating the bootstrap method
+     *                   source fails.
+     */
+    void watch() throws Exception {
+        try (final var watchService = input.getFileSystem().newWatchService()) {
+            register(watchService, input);
+            LOGGER.log(Level.INFO, "Watching {0} for changes...", input);
+
+            while (!Thread.currentThread().isInterrupted()) {
+                final var changedPaths = new LinkedHashSet<Path>();
+                var watchKey = watchService.take();
+                do {
+                    pollEvents(watchService, watchKey, changedPaths);
+                } while ((watchKey = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null);
+
+                final int symbolCount = obfuscator.getSymbolMapping().size();
+                for (final var changedPath : changedPaths) {
+                    update(changedPath);
+                }
+                if (obfuscator.getSymbolMapping().size() != symbolCount) {
+                    LOGGER.log(Level.INFO, "Regenerating bootstrap method source for {0} new invocations...",
+                        obfuscator.getSymbolMapping().size() - symbolCount);
+                    obfuscator.writeBootstrapMethodSource();
+                    obfuscator.writeNativeLibrary();
+                }
+            }
+        } catch (final InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Registers the provided {@code directory} and all of its subdirectories with the {@code watchService}, as a
+     * {@link WatchService} does not watch directories recursively.
+     */
+    private static void register(final WatchService watchService, final Path directory) throws IOException {
+        try (final var fileStream = Files.walk(directory)) {
+            for (final var path : (Iterable<Path>) fileStream::iterator) {
+                if (Files.isDirectory(path)) {
+                    path.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects the paths affected by the pending events of the {@code watchKey} into {@code changedPaths}, registering
+     * newly created directories with the {@code watchService}.
+     */
+    private void pollEvents(final WatchService watchService, final WatchKey watchKey, final Set<Path> changedPaths)
+            throws IOException {
+        final var directory = (Path) watchKey.watchable();
+        for (final var event : watchKey.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // Events have been lost, so treat every file as changed.
+                try (final var fileStream = Files.walk(input)) {
+                    fileStream.forEach(changedPaths::add);
+                }
+                continue;
+            }
+
+            final var path = directory.resolve((Path) event.context());
+            if ((event.kind() == ENTRY_CREATE) && Files.isDirectory(path)) {
+                register(watchService, path);
+                // Files may have been created inside the directory before it has been registered.
+                try (final var fileStream = Files.walk(path)) {
+                    fileStream.forEach(changedPaths::add);
+                }
+                continue;
+            }
+            changedPaths.add(path);
+        }
+        watchKey.reset();
+    }
+
+    /**
+     * Mirrors the change of the provided path inside the input directory to the output directory, re-obfuscating the
+     * file if it is an included class file.
+     */
+    private void update(final Path inputPath) throws IOException {
+        final var relativePath = input.relativize(inputPath);
+        final var outputPath   = output.resolve(relativePath.toString());
+        if (!Files.exists(inputPath)) {
+            LOGGER.log(Level.INFO, "Deleting {0}...", outputPath);
+            Files.deleteIfExists(outputPath);
+            return;
+        }
+        if (Files.isDirectory(inputPath)) {
+            Files.createDirectories(outputPath);
+            return;
+        }
+        Files.createDirectories(outputPath.getParent());
+
+        final var isClassFile = inputPath.toString().endsWith(InputType.CLASS_FILE_EXTENSION);
+        if (isClassFile) {
+            // Changed package annotations and trivial methods only affect classes which change afterward.
+            obfuscator.analyzeClassFile(new ClassReader(Files.readAllBytes(inputPath)));
+        }
+        final var isIncluded  =
+            isClassFile && obfuscator.getArguments().isIncluded(InputType.toClassName(input, inputPath));
+        final var isBootstrapMethodOwner = relativePath.toString().replace('\\', '/')
+            .equals(getBootstrapMethodOwnerFileName());
+        if (!isIncluded && !isBootstrapMethodOwner) {
+            Files.copy(inputPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
+            return;
+        }
+
+        LOGGER.log(Level.INFO, "Transforming {0}...", inputPath);
+        var classFile = Files.readAllBytes(inputPath);
+        if (isIncluded) {
+            // The budget of a changed class is planned on its own, as the other classes have already been obfuscated.
+            obfuscator.estimateCallSiteCosts(new ClassReader(classFile));
+            classFile = InputType.obfuscateClassFile(obfuscator, classFile);
+            if (generatedBootstrapMethodOwner) {
+                classFile = InputType.transform(classFile, obfuscator::addBootstrapMethodOwnerLoading);
+            }
+        }
+        if (isBootstrapMethodOwner) {
+            classFile = InputType.transform(classFile, obfuscator::addBootstrapMethod);
+        }
+        Files.write(outputPath, classFile);
+    }
+
+    private String getBootstrapMethodOwnerFileName() {
+        return obfuscator.getBootstrapMethodHandle().getOwner() + InputType.CLASS_FILE_EXTENSION;
+    }
+}
@@ -1,25 +1,71 @@
 package dev.blanke.indyobfuscator;
 
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.regex.Pattern;
+
+import org.jetbrains.annotations.Nullable;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.Opcodes;
-import org.objectweb.asm.util.CheckClassAdapter;
 
 import picocli.CommandLine;
 import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Model.CommandSpec;
+import picocli.CommandLine.Spec;
 
+import dev.blanke.indyobfuscator.cds.ClassDataSharingArchiver;
+import dev.blanke.indyobfuscator.cds.ClassDataSharingException;
+import dev.blanke.indyobfuscator.compilation.NativeCompilationException;
+import dev.blanke.indyobfuscator.compilation.NativeCompiler;
+import dev.blanke.indyobfuscator.mapping.CanonicalizingSymbolMapping;
+import dev.blanke.indyobfuscator.mapping.DeclaringClasses;
+import dev.blanke.indyobfuscator.mapping.DeferredSymbolMapping;
 import dev.blanke.indyobfuscator.mapping.SequentialSymbolMapping;
 import dev.blanke.indyobfuscator.mapping.SymbolMapping;
 import dev.blanke.indyobfuscator.template.*;
+import dev.blanke.indyobfuscator.obfuscation.SymbolRenamingClassVisitor;
 import dev.blanke.indyobfuscator.obfuscation.bootstrap.*;
+import dev.blanke.indyobfuscator.obfuscation.bootstrap.BootstrapMethodShards.Shard;
+import dev.blanke.indyobfuscator.obfuscation.budget.OverheadBudget;
+import dev.blanke.indyobfuscator.obfuscation.budget.OverheadBudget.ClassBudget;
+import dev.blanke.indyobfuscator.obfuscation.exclusion.CallSiteExclusions;
+import dev.blanke.indyobfuscator.obfuscation.exclusion.ExclusionReport;
+import dev.blanke.indyobfuscator.obfuscation.exclusion.IntrinsicCatalogue;
+import dev.blanke.indyobfuscator.obfuscation.exclusion.TrivialMethods;
 import dev.blanke.indyobfuscator.obfuscation.field.accessor.FieldAccessWrappingClassVisitor;
 import dev.blanke.indyobfuscator.obfuscation.field.handle.FieldInsnObfuscatingClassVisitor;
+import dev.blanke.indyobfuscator.obfuscation.loop.LoopFilter;
 import dev.blanke.indyobfuscator.obfuscation.method.MethodInsnObfuscatingClassVisitor;
+import dev.blanke.indyobfuscator.obfuscation.policy.ObfuscationPolicy;
+import dev.blanke.indyobfuscator.obfuscation.policy.PackagePolicies;
+import dev.blanke.indyobfuscator.obfuscation.policy.StartupPath;
+import dev.blanke.indyobfuscator.verification.ClassHierarchy;
+import dev.blanke.indyobfuscator.verification.ClassVerifier;
 
 /**
  * The {@code InDyObfuscator} class serves as the entry point to the obfuscation tool via {@link #main(String...)} and
@@ -52,6 +98,18 @@ public final class InDyObfuscator implements Callable<Integer> {
     @Mixin
     private Arguments arguments = new Arguments();
 
+    /**
+     * The specification of the command being executed, which is injected by Picocli and provides access to the
+     * {@link CommandLine#getOut()} and {@link CommandLine#getErr()} writers.
+     * <p>
+     * Remains {@code null} if the obfuscator is used without Picocli, e.g. in tests.
+     *
+     * @see #getOut()
+     * @see #getErr()
+     */
+    @Spec
+    private CommandSpec commandSpec;
+
     /**
      * A reference to the bootstrap method to which {@code invokedynamic} instructions delegate.
      * <p>
@@ -61,20 +119,23 @@ public final class InDyObfuscator implements Callable<Integer> {
      */
     private Handle bootstrapMethodHandle;
 
-    // region Verification
     /**
-     * Whether the transformed class files should be verified using ASM's {@link CheckClassAdapter}.
+     * The shards replacing the {@link #bootstrapMethodHandle} and the {@link #symbolMapping} if
+     * {@link Arguments#getShardingMode()} is {@link Arguments.ShardingMode#PACKAGE}, or {@code null} otherwise.
+     * Created by {@link #call()}.
      *
-     * @see #acceptAndVerify(ClassReader, ClassWriter, ClassVisitor)
+     * @see #getShard(String)
      */
-    private final boolean verify;
+    private BootstrapMethodShards bootstrapMethodShards;
 
+    // region Verification
     /**
-     * A writer to which the verification results and encountered errors will be written.
+     * Whether the transformed class files should be verified regardless of {@link Arguments#getVerify()}.
      *
-     * @see #acceptAndVerify(ClassReader, ClassWriter, ClassVisitor)
+     * @see #verify(Collection, ClassHierarchy)
      */
-    private final PrintWriter verificationResultsPrintWriter;
+    private final boolean verify;
+
     // endregion
 
     /**
@@ -91,27 +152,121 @@ public final class InDyObfuscator implements Callable<Integer> {
      */
     private final SymbolMapping symbolMapping = new SequentialSymbolMapping();
 
+    /**
+     * Stores the super classes and declared methods of the obfuscated artifact, which are registered by
+     * {@link #analyzeClassFile(ClassReader)} if {@link Arguments#getCanonicalizeOwners()} is set.
+     *
+     * @see CanonicalizingSymbolMapping
+     */
+    private final DeclaringClasses declaringClasses = new DeclaringClasses();
+
+    /**
+     * Stores the obfuscation annotations of the {@code package-info} classes of the obfuscated artifact, which are
+     * registered by {@link #analyzeClassFile(ClassReader)} before any class is obfuscated.
+     *
+     * @see #resolvePolicy(ClassReader)
+     */
+    private final PackagePolicies packagePolicies = new PackagePolicies();
+
+    /**
+     * The methods on the startup path of the obfuscated artifact, which is created from the {@link Arguments} by
+     * {@link #call()}.
+     *
+     * @see #resolvePolicy(ClassReader)
+     */
+    private StartupPath startupPath = StartupPath.NONE;
+
+    // region Call site exclusions
+    /**
+     * Stores the trivial methods of the obfuscated artifact, which are detected by {@link #analyzeClassFile(ClassReader)}
+     * before any class is obfuscated, so that invocations of them can be left un-obfuscated.
+     *
+     * @see Arguments#getObfuscateTrivialMethods()
+     */
+    private final TrivialMethods trivialMethods = new TrivialMethods();
+
+    /**
+     * Counts the call sites which have been left un-obfuscated during calls to
+     * {@link #obfuscateMethodInstructions(ClassReader, ClassWriter)}.
+     *
+     * @see Arguments#getExclusionReport()
+     */
+    private final ExclusionReport exclusionReport = new ExclusionReport();
+
+    // endregion
+
+    /**
+     * Selects the call sites to obfuscate within the {@link Arguments#getOverheadBudget()}, or {@code null} if no
+     * budget is given. Created by {@link #call()}.
+     *
+     * @see #estimateCallSiteCosts(ClassReader)
+     */
+    private OverheadBudget overheadBudget;
+
     /**
      * The template engine which, given a {@link DataModel} containing information about the bootstrap method and the
      * {@link #symbolMapping}, processes the provided bootstrap method template in order to output source code for the
      * bootstrap method which is ready for compilation.
      * <p>
-     * No templating happens unless the {@code --bsm-template} command-line argument is passed to the obfuscator.
+     * Only created once a template is processed, so that FreeMarker is not loaded if the output of the packaged
+     * template is written by the {@link DirectTemplateEngineHolder#DIRECT_TEMPLATE_ENGINE}.
      *
-     * @see #call()
+     * @see #generateBootstrapMethodSource(Writer)
      */
-    private final TemplateEngine templateEngine = new FreeMarkerTemplateEngine();
+    private TemplateEngine templateEngine;
+
+    /**
+     * The C source files written by the last call of {@link #writeBootstrapMethodSource()}, which are compiled by
+     * {@link #writeNativeLibrary()}, so that other files inside the {@link Arguments#getBootstrapMethodOutput()}
+     * directory are never compiled into the library. Empty if the source was written to {@link #getOut()}.
+     */
+    private final List<Path> bootstrapMethodSources = new ArrayList<>();
+
+    /**
+     * Holds the engine writing the output of the packaged template of the
+     * {@link Arguments.BootstrapMethodLayout#SWITCH} layout if {@link Arguments#isDirectTemplateEngineUsed()}, which is
+     * only created on first use, as it formats the static parts of its output when initialized.
+     */
+    private static final class DirectTemplateEngineHolder {
+
+        private static final TemplateEngine DIRECT_TEMPLATE_ENGINE = new DirectTemplateEngine();
+    }
 
     private static final int ASM_API_VERSION = Opcodes.ASM9;
 
+    /**
+     * The name of the file inside the {@link Arguments#getBootstrapMethodOutput()} directory to which the main output
+     * of the bootstrap method template is written if it is split into multiple translation units.
+     */
+    private static final String MAIN_UNIT_FILE_NAME = "bootstrap.c";
+
+    /**
+     * Matches the names of the further translation units written by the template if it is split into multiple
+     * translation units, capturing the index of the unit.
+     */
+    private static final Pattern UNIT_FILE_NAME_PATTERN = Pattern.compile("bootstrap_(\\d{1,9})\\.c");
+
+    private static final Logger LOGGER = System.getLogger(InDyObfuscator.class.getName());
+
     /**
      * Instantiates a new {@code InDyObfuscator} object.
      *
-     * @param verify Whether the transformed class files should be verified using ASM's {@link CheckClassAdapter}.
+     * @param verify Whether the transformed class files should be verified even if the {@code --verify} command-line
+     *               option has not been given.
      */
     public InDyObfuscator(final boolean verify) {
-        //noinspection AssignmentUsedAsCondition
-        verificationResultsPrintWriter = (this.verify = verify) ? new PrintWriter(System.err) : null;
+        this.verify = verify;
+    }
+
+    /**
+     * Instantiates a new {@code InDyObfuscator} object using the provided {@code arguments} instead of arguments
+     * parsed from the command line.
+     *
+     * @see InMemoryObfuscator
+     */
+    InDyObfuscator(final Arguments arguments) {
+        this(false);
+        this.arguments = arguments;
     }
 
     /**
@@ -130,9 +285,14 @@ public final class InDyObfuscator implements Callable<Integer> {
      * implementation and populates the bootstrap method template if one is given.
      * <p>
      * The obfuscated artifact is output to the location specified by {@link Arguments#getOutput()} while the populated
-     * bootstrap method template is written to {@link System#out}.
+     * bootstrap method template is written to {@link Arguments#getBootstrapMethodOutput()} or {@link System#out}.
      * <p>
-     * Any logging will be done to {@link System#err}.
+     * If {@link Arguments#getWatch()} is set, the input directory is watched for changes afterward using a
+     * {@link DirectoryWatcher}, which does not return.
+     * <p>
+     * Error messages and verification results will be written to {@link CommandLine#getErr()}, which is
+     * {@link System#err} unless the obfuscator is run by an {@link dev.blanke.indyobfuscator.daemon.ObfuscationDaemon}.
+     * If any obfuscated class fails verification, the outputs are still written, but the exit code is non-zero.
      *
      * @return The exit code of the obfuscation tool.
      *
@@ -141,19 +301,574 @@ public final class InDyObfuscator implements Callable<Integer> {
     @Override
     public Integer call() throws Exception {
         try {
-            InputType.determine(arguments.getInput()).obfuscate(this);
+            final var inputType = InputType.determine(arguments.getInput());
+            if (arguments.getWatch() && ((inputType != InputType.DIRECTORY)
+                    || arguments.getOutput().equals(arguments.getInput())
+                    || (arguments.getBootstrapMethodOutput() == null))) {
+                getErr().println("""
+                    The --watch option requires a directory as input along with a different --output directory and
+                    a --bsm-output file.
+                    """);
+                return 2;
+            }
+            if ((inputType == InputType.DIRECTORY) && isNestedDirectory(arguments.getInput(), arguments.getOutput())) {
+                getErr().println("The --output directory must not be located inside the input directory.");
+                return 2;
+            }
+            if (arguments.getBootstrapMethodUnits() < 1) {
+                getErr().println("The --bsm-units option must be at least 1.");
+                return 2;
+            }
+            if ((arguments.getBootstrapMethodUnits() > 1) && ((arguments.getBootstrapMethodOutput() == null)
+                    || (arguments.getBootstrapMethodLayout() != Arguments.BootstrapMethodLayout.SWITCH))) {
+                getErr().println("The --bsm-units option requires a --bsm-output directory and the SWITCH layout.");
+                return 2;
+            }
+            if (!((arguments.getVerificationSamplePercentage() > 0)
+                    && (arguments.getVerificationSamplePercentage() <= 100))) {
+                getErr().println("The --verify-sample option must be greater than 0 and at most 100.");
+                return 2;
+            }
+            if (arguments.getEncodeStrings()
+                    && (arguments.getBootstrapMethodLayout() == Arguments.BootstrapMethodLayout.SWITCH)) {
+                getErr().println("The --encode-strings option requires the TABLE or TRAMPOLINE layout.");
+                return 2;
+            }
+            if ((arguments.getBootstrapBackend() == Arguments.BootstrapBackend.JAVA) && (arguments.getWatch()
+                    || (arguments.getBootstrapMethodOutput() != null) || arguments.getCompile()
+                    || arguments.getAsyncLibraryLoading())) {
+                getErr().println("""
+                    The JAVA bootstrap backend does not produce bootstrap method source code and cannot be combined
+                    with --bsm-output, --compile, --watch, or --async-library-loading.
+                    """);
+                return 2;
+            }
+            if (arguments.getCompile() && (arguments.getBootstrapMethodOutput() == null)) {
+                getErr().println("The --compile option requires a --bsm-output file or directory.");
+                return 2;
+            }
+            if (arguments.getEmbedLibrary() && (!arguments.getCompile() || (inputType == InputType.CLASS))) {
+                getErr().println("The --embed-library option requires --compile and a jar file or directory as input.");
+                return 2;
+            }
+            if ((arguments.getShardingMode() != Arguments.ShardingMode.NONE) && ((inputType == InputType.CLASS)
+                    || arguments.getWatch() || (arguments.getBootstrapMethodUnits() > 1)
+                    || ((arguments.getBootstrapBackend() == Arguments.BootstrapBackend.NATIVE)
+                        && (arguments.getBootstrapMethodOutput() == null)))) {
+                getErr().println("""
+                    The --shard-by option requires a jar file or directory as input along with a --bsm-output directory
+                    for the NATIVE backend, and cannot be combined with --watch or --bsm-units.
+                    """);
+                return 2;
+            }
+            if ((arguments.getCdsArchive() != null) && ((inputType != InputType.JAR) || (!arguments.getCompile()
+                    && (arguments.getBootstrapBackend() == Arguments.BootstrapBackend.NATIVE)))) {
+                getErr().println("""
+                    The --cds-archive option requires a jar file as input along with --compile for the NATIVE backend.
+                    """);
+                return 2;
+            }
+            if (arguments.getShardingMode() == Arguments.ShardingMode.PACKAGE) {
+                bootstrapMethodShards = new BootstrapMethodShards(arguments.getBootstrapMethodName(),
+                    arguments.getBootstrapMethodDescriptor());
+            }
+            startupPath = createStartupPath();
+            if (arguments.getOverheadBudget() != null) {
+                overheadBudget = new OverheadBudget(arguments.getOverheadBudget(), IntrinsicCatalogue.getDefault(),
+                    trivialMethods);
+            }
+            final long verificationFailures = inputType.obfuscate(this);
+            writeExclusionReport();
+            writeDecisionTable();
+            if (startupPath.getMode() != StartupPath.Mode.OBFUSCATE) {
+                getErr().printf("Saved %d bootstrap method invocations on the startup path.%n",
+                    startupPath.getSavedBootstraps());
+                getErr().flush();
+            }
+
+            writeBootstrapMethodSource();
+            writeNativeLibrary();
+            final int notArchivedClasses = writeClassDataSharingArchive();
 
-            templateEngine.process(arguments.getBootstrapMethodTemplateReader(),
-                new DataModel(bootstrapMethodHandle, symbolMapping, arguments.getFieldObfuscationMode()),
-                new PrintWriter(System.out));
+            if (verificationFailures > 0) {
+                getErr().printf("%d obfuscated classes failed verification.%n", verificationFailures);
+                getErr().flush();
+                return 1;
+            }
+            if (notArchivedClasses > 0) {
+                getErr().printf("%d loaded classes have not been archived.%n", notArchivedClasses);
+                getErr().flush();
+                return 1;
+            }
+            if (arguments.getWatch()) {
+                new DirectoryWatcher(this).watch();
+            }
             return 0;
         } catch (final BootstrapMethodConflictException exception) {
-            System.err.printf("""
+            getErr().printf("""
                 The bootstrap method name '%s' conflicts with an existing method inside the owning class '%s'.
                 Please specify a different bootstrap method name using the --bootstrap-method-name option.
                 """, bootstrapMethodHandle.getName(), bootstrapMethodHandle.getOwner().replace('/', '.'));
             return 1;
+        } catch (final NativeCompilationException exception) {
+            getErr().println(exception.getMessage());
+            getErr().print(exception.getCompilerOutput());
+            getErr().flush();
+            return 1;
+        } catch (final ClassDataSharingException exception) {
+            getErr().println(exception.getMessage());
+            getErr().print(exception.getOutput());
+            getErr().flush();
+            return 1;
+        }
+    }
+
+    /**
+     * Creates the {@link StartupPath} described by {@link Arguments#getStartupMode()} and
+     * {@link Arguments#getStartupMethods()}.
+     *
+     * @throws IOException If reading the list of startup methods fails.
+     */
+    private StartupPath createStartupPath() throws IOException {
+        final var startupMethodsPath = arguments.getStartupMethods();
+        if (startupMethodsPath == null)
+            return new StartupPath(arguments.getStartupMode(), Set.of());
+        try (final var reader = Files.newBufferedReader(startupMethodsPath)) {
+            return new StartupPath(arguments.getStartupMode(), StartupPath.readMethods(reader));
+        }
+    }
+
+    /**
+     * Logs a summary of the {@link #exclusionReport} and writes the full report to the file given by
+     * {@link Arguments#getExclusionReport()} if there is one.
+     *
+     * @throws IOException If writing the report fails.
+     */
+    private void writeExclusionReport() throws IOException {
+        if (!exclusionReport.isEmpty()) {
+            LOGGER.log(Level.INFO, exclusionReport.summary());
+        }
+        final var exclusionReportPath = arguments.getExclusionReport();
+        if (exclusionReportPath != null) {
+            try (final var writer = Files.newBufferedWriter(exclusionReportPath)) {
+                exclusionReport.write(writer);
+            }
+        }
+    }
+
+    /**
+     * Writes the decisions of the {@link #overheadBudget} to the file given by {@link Arguments#getDecisionTable()} if
+     * there is one.
+     *
+     * @throws IOException If writing the decision table fails.
+     */
+    private void writeDecisionTable() throws IOException {
+        final var decisionTablePath = arguments.getDecisionTable();
+        if ((overheadBudget != null) && (decisionTablePath != null)) {
+            try (final var writer = Files.newBufferedWriter(decisionTablePath)) {
+                overheadBudget.writeDecisionTable(writer);
+            }
+        }
+    }
+
+    /**
+     * Populates the bootstrap method template using the current {@link #symbolMapping} and writes the result to the
+     * file given by {@link Arguments#getBootstrapMethodOutput()} or to {@link #getOut()} if no file is given.
+     * <p>
+     * If {@link Arguments#getBootstrapMethodUnits()} is greater than one, the output is a directory containing the
+     * translation units, their shared header, and a {@code CMakeLists.txt}. If the bootstrap methods are sharded, the
+     * output is a directory containing one source file per shard, named after the shard.
+     *
+     * @throws Exception If reading or populating the template fails.
+     */
+    void writeBootstrapMethodSource() throws Exception {
+        if (arguments.getBootstrapBackend() == Arguments.BootstrapBackend.JAVA)
+            return; // The bootstrap method is part of the obfuscated artifact.
+
+        bootstrapMethodSources.clear();
+        final var bootstrapMethodOutput = arguments.getBootstrapMethodOutput();
+        if (bootstrapMethodShards != null) {
+            Files.createDirectories(bootstrapMethodOutput);
+            for (final var shard : bootstrapMethodShards.getShards()) {
+                final var source = bootstrapMethodOutput.resolve(shard.name() + ".c");
+                try (final var outputWriter = Files.newBufferedWriter(source)) {
+                    generateBootstrapMethodSource(outputWriter, shard);
+                }
+                bootstrapMethodSources.add(source);
+            }
+            return;
+        }
+        if (bootstrapMethodOutput == null) {
+            final var outputWriter = getOut();
+            generateBootstrapMethodSource(outputWriter);
+            outputWriter.flush();
+            return;
+        }
+        if (arguments.getBootstrapMethodUnits() > 1) {
+            // The main translation unit is accompanied by further units, a header, and a CMakeLists.txt.
+            Files.createDirectories(bootstrapMethodOutput);
+            deleteStaleUnits(bootstrapMethodOutput, arguments.getBootstrapMethodUnits());
+            final var mainUnit    = bootstrapMethodOutput.resolve(MAIN_UNIT_FILE_NAME);
+            final var unitOutputs = new ArrayList<Path>();
+            try (final var outputWriter = Files.newBufferedWriter(mainUnit)) {
+                processBootstrapMethodTemplate(arguments.getBootstrapMethodTemplateReader(), outputWriter,
+                    TemplateOutput.directory(bootstrapMethodOutput, unitOutputs));
+            }
+            bootstrapMethodSources.add(mainUnit);
+            unitOutputs.stream()
+                .filter(file -> file.getFileName().toString().endsWith(".c"))
+                .distinct()
+                .sorted()
+                .forEach(bootstrapMethodSources::add);
+            return;
+        }
+        try (final var outputWriter = Files.newBufferedWriter(bootstrapMethodOutput)) {
+            generateBootstrapMethodSource(outputWriter);
+        }
+        bootstrapMethodSources.add(bootstrapMethodOutput);
+    }
+
+    /**
+     * Deletes the translation units left behind inside the {@code directory} by a previous run with more than
+     * {@code unitCount} units, which would otherwise be compiled along with the current ones.
+     */
+    private static void deleteStaleUnits(final Path directory, final int unitCount) throws IOException {
+        try (final var files = Files.list(directory)) {
+            for (final var file : (Iterable<Path>) files::iterator) {
+                final var matcher = UNIT_FILE_NAME_PATTERN.matcher(file.getFileName().toString());
+                if (matcher.matches() && (Integer.parseInt(matcher.group(1)) >= unitCount)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Compiles the bootstrap method source code written by {@link #writeBootstrapMethodSource()} to the shared library
+     * given by {@link Arguments#getLibraryOutput()} if {@link Arguments#getCompile()} is set.
+     *
+     * @throws NativeCompilationException If the C compiler fails.
+     *
+     * @throws IOException If the JNI headers cannot be found or accessing the sources or the cache fails.
+     */
+    void writeNativeLibrary() throws NativeCompilationException, IOException {
+        if (!arguments.getCompile() || bootstrapMethodSources.isEmpty())
+            return;
+
+        final var flags = new ArrayList<>(NativeCompiler.DEFAULT_FLAGS);
+        flags.addAll(NativeCompiler.getJniIncludeFlags(getJavaHome()));
+        flags.addAll(arguments.getCompilerFlags());
+        final var compiler = new NativeCompiler(arguments.getCompiler(), flags, arguments.getCompileCache());
+
+        if (bootstrapMethodShards != null) {
+            // Each shard is compiled to its own library next to the --library-output.
+            final var libraryDirectory = arguments.getLibraryOutput().toAbsolutePath().getParent();
+            final var bootstrapMethodOutput = arguments.getBootstrapMethodOutput();
+            for (final var shard : bootstrapMethodShards.getShards()) {
+                writeNativeLibrary(compiler, List.of(bootstrapMethodOutput.resolve(shard.name() + ".c")),
+                    libraryDirectory.resolve(System.mapLibraryName(shard.name())), shard.name());
+            }
+            return;
+        }
+        writeNativeLibrary(compiler, List.copyOf(bootstrapMethodSources), arguments.getLibraryOutput(),
+            BootstrapMethodOwnerClassVisitor.DEFAULT_LIBRARY_NAME);
+    }
+
+    private void writeNativeLibrary(final NativeCompiler compiler, final List<Path> sources, final Path libraryOutput,
+                                    final String libraryName) throws NativeCompilationException, IOException {
+        compiler.compile(sources, libraryOutput);
+        LOGGER.log(Level.INFO, "Wrote native library to {0}.", libraryOutput);
+
+        if (arguments.getEmbedLibrary()) {
+            embedNativeLibrary(libraryOutput, libraryName);
+        }
+    }
+
+    /**
+     * Adds the compiled {@code library} to the output as the resource
+     * {@link BootstrapMethodOwnerClassVisitor#getEmbeddedLibraryResource(String)} along with a resource of the same
+     * name suffixed with {@code .sha256}, containing the hex-encoded SHA-256 hash and the size of the library separated
+     * by a space, which is read by {@link JavaBootstrapMethodTemplate#extractLibrary}.
+     *
+     * @throws IOException If reading the library or writing to the output fails.
+     */
+    private void embedNativeLibrary(final Path library, final String libraryName) throws IOException {
+        final var bytes = Files.readAllBytes(library);
+        final String hash;
+        try {
+            hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception); // Every Java platform implementation supports SHA-256.
+        }
+        final var metadata = (hash + ' ' + bytes.length + '\n').getBytes(StandardCharsets.UTF_8);
+
+        final var resource = BootstrapMethodOwnerClassVisitor.getEmbeddedLibraryResource(libraryName).substring(1);
+        final var output = arguments.getOutput();
+        if (Files.isDirectory(output)) {
+            writeEmbeddedLibrary(output.resolve(resource), bytes, metadata);
+        } else {
+            try (final var outputFS = FileSystems.newFileSystem(output)) {
+                writeEmbeddedLibrary(outputFS.getPath(resource), bytes, metadata);
+            }
+        }
+        LOGGER.log(Level.INFO, "Embedded native library {0} into {1}.", hash, output);
+    }
+
+    private static void writeEmbeddedLibrary(final Path libraryPath, final byte[] library, final byte[] metadata)
+            throws IOException {
+        Files.createDirectories(libraryPath.getParent());
+        Files.write(libraryPath, library);
+        Files.write(libraryPath.resolveSibling(libraryPath.getFileName() + ".sha256"), metadata);
+    }
+
+    /**
+     * Creates the class data sharing archive given by {@link Arguments#getCdsArchive()} by running the output jar file
+     * through the training workload, if an archive is given. Afterward, the archive is validated to contain the
+     * obfuscated classes and the bootstrap method owners loaded by the workload, and the startup time with and without
+     * the archive is compared.
+     *
+     * @return The number of obfuscated classes and bootstrap method owners which have been loaded by the training
+     *         workload but not archived, which is {@code 0} if no archive is given.
+     *
+     * @throws ClassDataSharingException If a run of the training workload fails.
+     *
+     * @throws IOException If reading the output jar file or starting a run fails.
+     */
+    private int writeClassDataSharingArchive() throws ClassDataSharingException, IOException {
+        final var archive = arguments.getCdsArchive();
+        if (archive == null)
+            return 0;
+
+        final var output = arguments.getOutput();
+        final String mainClass;
+        final var classNames = new ArrayList<String>();
+        try (final var outputFS = FileSystems.newFileSystem(output)) {
+            final var root = outputFS.getPath("/");
+            try (final var manifestStream = Files.newInputStream(root.resolve(JarFile.MANIFEST_NAME))) {
+                mainClass = new Manifest(manifestStream).getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+            } catch (final NoSuchFileException exception) {
+                throw new ClassDataSharingException("The output jar file does not contain a manifest.", "");
+            }
+            if (mainClass == null)
+                throw new ClassDataSharingException("The output jar file does not specify a Main-Class.", "");
+
+            final var bootstrapMethodOwners = new HashSet<String>();
+            bootstrapMethodOwners.add(bootstrapMethodHandle.getOwner());
+            if (bootstrapMethodShards != null) {
+                bootstrapMethodShards.getShards()
+                    .forEach(shard -> bootstrapMethodOwners.add(shard.bootstrapMethodHandle().getOwner()));
+            }
+            try (final var files = Files.walk(root)) {
+                files
+                    .filter(path -> Files.isRegularFile(path)
+                        && path.toString().endsWith(InputType.CLASS_FILE_EXTENSION))
+                    .map(path -> InputType.toClassName(root, path))
+                    .filter(className -> arguments.isIncluded(className)
+                        || bootstrapMethodOwners.contains(className.replace('.', '/')))
+                    .forEach(classNames::add);
+            }
+        }
+
+        // The library is loaded from the working directory unless it is embedded.
+        final var archiver = new ClassDataSharingArchiver(ClassDataSharingArchiver.getDefaultJava(), output, mainClass,
+            arguments.getCdsTrainingArguments(), arguments.getLibraryOutput().toAbsolutePath().getParent());
+        archiver.dump(archive);
+        LOGGER.log(Level.INFO, "Wrote class data sharing archive to {0}.", archive);
+
+        final var archivedClasses = archiver.validate(archive, classNames);
+        getErr().printf("Archived %d of %d obfuscated classes loaded by the training workload.%n",
+            archivedClasses.archived().size(),
+            archivedClasses.archived().size() + archivedClasses.notArchived().size());
+        for (final var className : archivedClasses.notArchived()) {
+            getErr().printf("Class %s has been loaded but not archived.%n", className);
+        }
+
+        final int runs = arguments.getCdsStartupRuns();
+        if (runs > 0) {
+            final long withoutArchive = archiver.measureStartup(null, runs);
+            final long withArchive    = archiver.measureStartup(archive, runs);
+            getErr().printf("Median startup of %d runs: %d ms without archive, %d ms with archive.%n", runs,
+                withoutArchive, withArchive);
+        }
+        getErr().flush();
+        return archivedClasses.notArchived().size();
+    }
+
+    /**
+     * @return The home directory of the running JDK, or the one given by the {@code JAVA_HOME} environment variable if
+     *         the running Java installation does not contain the JNI headers, e.g. because it is a JRE.
+     */
+    private static Path getJavaHome() {
+        final var javaHome = Path.of(System.getProperty("java.home"));
+        final var environmentJavaHome = System.getenv("JAVA_HOME");
+        if (Files.isDirectory(javaHome.resolve("include")) || (environmentJavaHome == null))
+            return javaHome;
+        return Path.of(environmentJavaHome);
+    }
+
+    /**
+     * Writes the bootstrap method source code for the template given by the {@link #arguments} to the
+     * {@code outputWriter}, using the {@link DirectTemplateEngine} if {@link Arguments#isDirectTemplateEngineUsed()}.
+     *
+     * @throws Exception If reading or populating the template fails.
+     */
+    void generateBootstrapMethodSource(final Writer outputWriter) throws Exception {
+        generateBootstrapMethodSource(outputWriter, getDefaultShard());
+    }
+
+    private void generateBootstrapMethodSource(final Writer outputWriter, final Shard shard) throws Exception {
+        if (arguments.isDirectTemplateEngineUsed()) {
+            DirectTemplateEngineHolder.DIRECT_TEMPLATE_ENGINE.process(Reader.nullReader(), createDataModel(shard),
+                outputWriter);
+            return;
+        }
+        processBootstrapMethodTemplate(arguments.getBootstrapMethodTemplateReader(), outputWriter, TemplateOutput.NONE,
+            shard);
+    }
+
+    /**
+     * Populates the bootstrap method template read from the {@code templateReader} using a {@link DataModel} made up
+     * of the current {@link #symbolMapping} and writes the result to the {@code outputWriter}.
+     *
+     * @throws Exception If reading or populating the template fails.
+     */
+    void processBootstrapMethodTemplate(final Reader templateReader, final Writer outputWriter) throws Exception {
+        processBootstrapMethodTemplate(templateReader, outputWriter, TemplateOutput.NONE);
+    }
+
+    /**
+     * Populates the bootstrap method template like {@link #processBootstrapMethodTemplate(Reader, Writer)}, writing
+     * additional files requested by the template to the provided {@code output}.
+     *
+     * @throws Exception If reading or populating the template fails.
+     */
+    void processBootstrapMethodTemplate(final Reader templateReader, final Writer outputWriter,
+                                        final TemplateOutput output) throws Exception {
+        processBootstrapMethodTemplate(templateReader, outputWriter, output, getDefaultShard());
+    }
+
+    private void processBootstrapMethodTemplate(final Reader templateReader, final Writer outputWriter,
+                                                final TemplateOutput output, final Shard shard) throws Exception {
+        if (templateEngine == null) {
+            templateEngine = new FreeMarkerTemplateEngine();
         }
+        templateEngine.process(templateReader, createDataModel(shard), outputWriter, output);
+    }
+
+    /**
+     * @return Whether the {@code directory} is located inside the {@code parent} directory without being the same
+     *         directory, in which case copying the {@code parent} into the {@code directory} would never terminate.
+     */
+    private static boolean isNestedDirectory(final Path parent, final Path directory) throws IOException {
+        // The output directory might not exist yet, in which case it cannot be resolved as a real path.
+        final boolean exists              = Files.exists(directory);
+        final var     normalizedParent    = exists ? parent.toRealPath() : parent.toAbsolutePath().normalize();
+        final var     normalizedDirectory = exists ? directory.toRealPath() : directory.toAbsolutePath().normalize();
+        return normalizedDirectory.startsWith(normalizedParent) && !normalizedDirectory.equals(normalizedParent);
+    }
+
+    private DataModel createDataModel(final Shard shard) {
+        return new DataModel(shard.bootstrapMethodHandle(), shard.symbolMapping(), arguments.getFieldObfuscationMode(),
+            arguments.getEncodeStrings(), arguments.getBootstrapMethodUnits(), arguments.getAsyncLibraryLoading(),
+            arguments.getCanonicalizeOwners());
+    }
+
+    /**
+     * @return The shard containing the method invocations of the class called {@code className}, which is the
+     *         {@link #getDefaultShard() default shard} unless the bootstrap methods are sharded.
+     */
+    private Shard getShard(final String className) {
+        return (bootstrapMethodShards != null) ? bootstrapMethodShards.forClass(className) : getDefaultShard();
+    }
+
+    /**
+     * @return The shard made up of the {@link #bootstrapMethodHandle} and the {@link #symbolMapping}, which contains
+     *         all method invocations unless the bootstrap methods are sharded.
+     */
+    private Shard getDefaultShard() {
+        return new Shard(BootstrapMethodOwnerClassVisitor.DEFAULT_LIBRARY_NAME, bootstrapMethodHandle, symbolMapping);
+    }
+
+    /**
+     * Collects information about the class represented by the {@code reader} which is required before any class of the
+     * obfuscated artifact is obfuscated, i.e. the obfuscation annotations of {@code package-info} classes as well as
+     * the trivial methods and the declared methods of other classes.
+     * <p>
+     * Must be called with the original, untransformed class file, regardless of whether the class is included in the
+     * obfuscation.
+     */
+    public void analyzeClassFile(final ClassReader reader) {
+        if (PackagePolicies.isPackageInfo(reader.getClassName())) {
+            packagePolicies.register(reader);
+            return;
+        }
+        if (!arguments.getObfuscateTrivialMethods()) {
+            trivialMethods.register(reader);
+        }
+        if (arguments.getCanonicalizeOwners()) {
+            declaringClasses.register(reader);
+        }
+    }
+
+    boolean isOverheadBudgetEnabled() {
+        return overheadBudget != null;
+    }
+
+    /**
+     * Estimates the cost of obfuscating each call site of the class represented by the {@code reader} if an
+     * {@link Arguments#getOverheadBudget()} is given.
+     * <p>
+     * Must be called with the original class file of every included class after all class files have been
+     * {@link #analyzeClassFile(ClassReader) analyzed}, followed by {@link #planOverheadBudget()}. Classes estimated
+     * afterward, e.g. in watch mode, are planned individually.
+     */
+    public void estimateCallSiteCosts(final ClassReader reader) {
+        if (overheadBudget == null)
+            return;
+        final var maxLoopDepth = arguments.getMaxLoopDepth();
+        overheadBudget.register(reader, resolvePolicy(reader), createCallSiteExclusions(),
+            (maxLoopDepth != null) ? maxLoopDepth : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Selects the call sites to obfuscate within the {@link Arguments#getOverheadBudget()} among all classes passed to
+     * {@link #estimateCallSiteCosts(ClassReader)}.
+     */
+    public void planOverheadBudget() {
+        if (overheadBudget == null)
+            return;
+        overheadBudget.plan();
+        LOGGER.log(Level.INFO, overheadBudget.summary());
+    }
+
+    /**
+     * Resolves the {@link ObfuscationPolicy} deciding which methods of the class represented by the {@code reader}
+     * should be obfuscated, based on the obfuscation annotations of the class, its methods, and its package,
+     * {@link Arguments#getAnnotatedOnly()}, and the {@link #startupPath}.
+     */
+    public ObfuscationPolicy resolvePolicy(final ClassReader reader) {
+        return ObfuscationPolicy.resolve(reader, packagePolicies, arguments.getAnnotatedOnly(), startupPath);
+    }
+
+    /**
+     * Analyzes the loops of the class represented by the {@code reader} if {@link Arguments#getMaxLoopDepth()} is
+     * given, so that instructions nested too deeply in loops can be left un-obfuscated.
+     * <p>
+     * Unlike the {@link ObfuscationPolicy}, the {@link LoopFilter} has to be created from the exact class file
+     * transformed by each obfuscation pass, as it identifies instructions by their position.
+     */
+    private LoopFilter analyzeLoops(final ClassReader reader) {
+        final var maxLoopDepth = arguments.getMaxLoopDepth();
+        return (maxLoopDepth != null) ? LoopFilter.analyze(reader, maxLoopDepth) : LoopFilter.NONE;
+    }
+
+    /**
+     * Obfuscates field instructions using the policy resolved by {@link #resolvePolicy(ClassReader)}.
+     *
+     * @see #obfuscateFieldInstructions(ClassReader, ClassWriter, ObfuscationPolicy)
+     */
+    public void obfuscateFieldInstructions(final ClassReader reader, final ClassWriter writer) {
+        obfuscateFieldInstructions(reader, writer, resolvePolicy(reader));
     }
 
     /**
@@ -164,16 +879,58 @@ public final class InDyObfuscator implements Callable<Integer> {
      * @param reader The {@link ClassReader} representing the class whose field instructions should be obfuscated.
      *
      * @param writer The {@link ClassWriter} enabling output of the transformed class file.
+     *
+     * @param policy The policy deciding which methods of the class should be obfuscated.
      */
-    public void obfuscateFieldInstructions(final ClassReader reader, final ClassWriter writer) {
-        ClassVisitor classVisitor = switch (arguments.getFieldObfuscationMode()) {
+    public void obfuscateFieldInstructions(final ClassReader reader, final ClassWriter writer,
+                                           final ObfuscationPolicy policy) {
+        obfuscateFieldInstructions(reader, writer, policy, getShard(reader.getClassName()).symbolMapping());
+    }
+
+    /**
+     * Obfuscates field instructions like {@link #obfuscateFieldInstructions(ClassReader, ClassWriter,
+     * ObfuscationPolicy)}, but adds the method invocations to the provided {@code symbolMapping} rather than to the
+     * mapping of the shard of the class.
+     *
+     * @see #registerSymbols(ClassReader, ClassWriter, DeferredSymbolMapping)
+     */
+    void obfuscateFieldInstructions(final ClassReader reader, final ClassWriter writer,
+                                    final ObfuscationPolicy policy, final SymbolMapping symbolMapping) {
+        final var fieldObfuscationMode = arguments.getFieldObfuscationMode();
+        var fieldReader = reader;
+        if ((fieldObfuscationMode != Arguments.FieldObfuscationMode.SYNTHETIC_ACCESSORS)
+                && (startupPath.getMode() == StartupPath.Mode.SYNTHETIC_ACCESSORS)) {
+            /*
+             * Wrap the field accesses on the startup path, which are left untouched by the visitor below, in a separate
+             * pass, as the loop filter of the visitor below identifies field instructions by their position and thus
+             * has to be computed from the class file in which the field accesses have already been wrapped.
+             */
+            final var wrappingWriter = new ClassWriter(reader, 0);
+            accept(reader, new FieldAccessWrappingClassVisitor(ASM_API_VERSION, wrappingWriter, policy,
+                analyzeLoops(reader), true, fieldObfuscationMode == Arguments.FieldObfuscationMode.METHOD_HANDLES));
+            fieldReader = new ClassReader(wrappingWriter.toByteArray());
+        }
+
+        final var loopFilter = analyzeLoops(fieldReader);
+        final var shard      = getShard(reader.getClassName());
+        final ClassVisitor classVisitor = switch (fieldObfuscationMode) {
             case NONE -> writer;
             case SYNTHETIC_ACCESSORS ->
-                new FieldAccessWrappingClassVisitor(ASM_API_VERSION, writer);
+                new FieldAccessWrappingClassVisitor(ASM_API_VERSION, writer, policy, loopFilter);
             case METHOD_HANDLES ->
-                new FieldInsnObfuscatingClassVisitor(ASM_API_VERSION, writer, symbolMapping, bootstrapMethodHandle);
+                new FieldInsnObfuscatingClassVisitor(ASM_API_VERSION, writer, symbolMapping,
+                    shard.bootstrapMethodHandle(), policy, loopFilter);
         };
-        acceptAndVerify(reader, writer, classVisitor);
+        accept(fieldReader, classVisitor);
+    }
+
+    /**
+     * Obfuscates method instructions using the policy resolved by {@link #resolvePolicy(ClassReader)}.
+     *
+     * @see #obfuscateMethodInstructions(ClassReader, ClassWriter, ObfuscationPolicy)
+     */
+    public void obfuscateMethodInstructions(final ClassReader reader, final ClassWriter writer) {
+        obfuscateMethodInstructions(reader, writer, resolvePolicy(reader));
     }
 
     /**
@@ -183,21 +940,72 @@ public final class InDyObfuscator implements Callable<Integer> {
      * <p>
      * The generated {@code invokedynamic} instructions delegate to the {@link #bootstrapMethodHandle} in order to
      * retrieve the actual {@link java.lang.invoke.CallSite} to invoke.
+     * <p>
+     * Invocations of intrinsic candidates and of trivial methods are left un-obfuscated unless
+     * {@link Arguments#getObfuscateIntrinsics()} or {@link Arguments#getObfuscateTrivialMethods()} is set, as are
+     * invocations nested in more loops than {@link Arguments#getMaxLoopDepth()} and invocations exceeding the
+     * {@link Arguments#getOverheadBudget()}.
+     * <p>
+     * If {@link Arguments#getCanonicalizeOwners()} is set, invocations of inherited methods are added to the
+     * {@link #symbolMapping} with the declaring class as owner.
      *
      * @param reader The {@link ClassReader} representing the class whose method instructions should be obfuscated.
      *
      * @param writer The {@link ClassWriter} enabling output of the transformed class file.
+     *
+     * @param policy The policy deciding which methods of the class should be obfuscated.
      */
-    public void obfuscateMethodInstructions(final ClassReader reader, final ClassWriter writer) {
-        acceptAndVerify(reader, writer, new MethodInsnObfuscatingClassVisitor(ASM_API_VERSION, writer, symbolMapping,
-            bootstrapMethodHandle, arguments.getAnnotatedOnly()));
+    public void obfuscateMethodInstructions(final ClassReader reader, final ClassWriter writer,
+                                            final ObfuscationPolicy policy) {
+        obfuscateMethodInstructions(reader, writer, policy, getShard(reader.getClassName()).symbolMapping());
+    }
+
+    /**
+     * Obfuscates method instructions like {@link #obfuscateMethodInstructions(ClassReader, ClassWriter,
+     * ObfuscationPolicy)}, but adds the method invocations to the provided {@code symbolMapping} rather than to the
+     * mapping of the shard of the class.
+     *
+     * @see #registerSymbols(ClassReader, ClassWriter, DeferredSymbolMapping)
+     */
+    void obfuscateMethodInstructions(final ClassReader reader, final ClassWriter writer,
+                                     final ObfuscationPolicy policy, final SymbolMapping symbolMapping) {
+        final var classBudget = (overheadBudget != null)
+            ? overheadBudget.forClass(reader.getClassName())
+            : ClassBudget.UNLIMITED;
+        final var shard = getShard(reader.getClassName());
+        final var methodSymbolMapping = arguments.getCanonicalizeOwners()
+            ? new CanonicalizingSymbolMapping(symbolMapping, declaringClasses)
+            : symbolMapping;
+        accept(reader, new MethodInsnObfuscatingClassVisitor(ASM_API_VERSION, writer, methodSymbolMapping,
+            shard.bootstrapMethodHandle(), policy, analyzeLoops(reader), createCallSiteExclusions(), classBudget));
+    }
+
+    /**
+     * Registers the method invocations of the class represented by the {@code reader}, which has been obfuscated using
+     * the provided {@code deferredSymbolMapping}, with the mapping of the shard of the class, and replaces the
+     * provisional identifiers used by the class with the identifiers assigned by the shard's mapping.
+     * <p>
+     * Must be called for the obfuscated classes in a deterministic order, as it determines the identifiers.
+     */
+    void registerSymbols(final ClassReader reader, final ClassWriter writer,
+                         final DeferredSymbolMapping deferredSymbolMapping) {
+        final var shard = getShard(reader.getClassName());
+        reader.accept(new SymbolRenamingClassVisitor(ASM_API_VERSION, writer, shard.bootstrapMethodHandle(),
+            deferredSymbolMapping.register(shard.symbolMapping())), 0);
+    }
+
+    private CallSiteExclusions createCallSiteExclusions() {
+        return new CallSiteExclusions(
+            arguments.getObfuscateIntrinsics()     ? null : IntrinsicCatalogue.getDefault(),
+            arguments.getObfuscateTrivialMethods() ? null : trivialMethods,
+            exclusionReport);
     }
 
     /**
      * @see InputType#JAR
      */
     public void addBootstrapMethodOwnerLoading(final ClassReader reader, final ClassWriter writer) {
-        acceptAndVerify(reader, writer, new BootstrapMethodOwnerLoadingClassVisitor(ASM_API_VERSION, writer,
+        accept(reader, new BootstrapMethodOwnerLoadingClassVisitor(ASM_API_VERSION, writer,
             bootstrapMethodHandle));
     }
 
@@ -207,6 +1015,15 @@ public final class InDyObfuscator implements Callable<Integer> {
      * <p>
      * The library loading code will be prepended to the {@code <clinit>} method of the class, creating it if it does
      * not yet exist.
+     * <p>
+     * If the {@link Arguments#getBootstrapBackend()} is {@link Arguments.BootstrapBackend#JAVA}, a Java implementation
+     * resolving the invocations of the complete {@link #symbolMapping} is added instead, which requires no library.
+     * If the {@link Arguments#getBootstrapMethodLayout()} is {@link Arguments.BootstrapMethodLayout#TRAMPOLINE}, the
+     * bootstrap method is a Java trampoline calling into the library. If {@link Arguments#getAsyncLibraryLoading()} is
+     * set, the library is loaded on a background thread, for which the bootstrap method waits. If
+     * {@link Arguments#getEmbedLibrary()} is set, the library is extracted from the resource
+     * {@link BootstrapMethodOwnerClassVisitor#getEmbeddedLibraryResource(String)} rather than being loaded from the
+     * working directory.
      *
      * @param reader The {@link ClassReader} representing the class which should contain the bootstrap method and the
      *               library loading code required by it.
@@ -214,44 +1031,127 @@ public final class InDyObfuscator implements Callable<Integer> {
      * @param writer The {@link ClassWriter} enabling output of the transformed class file.
      */
     public void addBootstrapMethod(final ClassReader reader, final ClassWriter writer) {
-        acceptAndVerify(reader, writer, new BootstrapMethodOwnerClassVisitor(ASM_API_VERSION, writer,
-            bootstrapMethodHandle));
+        addBootstrapMethod(reader, writer, getDefaultShard());
     }
 
     /**
-     * Makes the {@code visitor} visit the provided {@code reader} in order to transform the class bytes, verifying the
-     * output bytes if verification is enabled for this instance.
+     * Adds the bootstrap method of the provided {@code shard} along with the library loading code for its native
+     * library to the class represented by the provided {@code reader}, which has to be the owner of the bootstrap
+     * method of the {@code shard}.
      *
-     * @param reader The {@link ClassReader} that should accept the provided {@code visitor}.
+     * @see #addBootstrapMethod(ClassReader, ClassWriter)
+     */
+    void addBootstrapMethod(final ClassReader reader, final ClassWriter writer, final Shard shard) {
+        if (arguments.getBootstrapBackend() == Arguments.BootstrapBackend.JAVA) {
+            accept(reader, new JavaBootstrapMethodOwnerClassVisitor(ASM_API_VERSION, writer,
+                shard.bootstrapMethodHandle(), shard.symbolMapping()));
+            return;
+        }
+        accept(reader, new BootstrapMethodOwnerClassVisitor(ASM_API_VERSION, writer, shard.bootstrapMethodHandle(),
+            arguments.getBootstrapMethodLayout() == Arguments.BootstrapMethodLayout.TRAMPOLINE,
+            arguments.getAsyncLibraryLoading(), shard.name(), arguments.getEmbedLibrary()));
+    }
+
+    /**
+     * Makes the {@code visitor} visit the provided {@code reader} in order to transform the class bytes.
      *
-     * @param writer The {@link ClassWriter} storing the transformed class. Transformed class bytes are fed back into
-     *               a {@code ClassReader} for the purpose of invoking
-     *               {@link CheckClassAdapter#verify(ClassReader, boolean, PrintWriter)}.
+     * @param reader The {@link ClassReader} that should accept the provided {@code visitor}.
      *
      * @param visitor A visitor modifying the original class from the {@code reader}, storing the transformed bytes
-     *                in the {@code writer}.
-     *
-     * @see #verify
+     *                in a {@link ClassWriter}.
      */
-    private void acceptAndVerify(final ClassReader reader, final ClassWriter writer, ClassVisitor visitor) {
-        if (verify)
-            visitor = new CheckClassAdapter(visitor);
+    private static void accept(final ClassReader reader, final ClassVisitor visitor) {
         reader.accept(visitor, ClassReader.EXPAND_FRAMES);
+    }
+
+    /**
+     * Verifies the provided fully transformed class files in parallel if verification is enabled for this instance,
+     * writing the buffered diagnostics of each class to {@link #getErr()} in the order of the {@code classFiles}.
+     * <p>
+     * Verification is done once per class after all transformations rather than after each transformation, and it is
+     * limited to the sample of classes selected by {@link Arguments#isSampledForVerification(String)}.
+     *
+     * @param classFiles The bytes of the transformed class files which should be verified.
+     *
+     * @param classHierarchy The hierarchy of all classes of the obfuscated artifact, which is used to resolve super
+     *                       types without loading classes.
+     *
+     * @return The number of classes which failed verification.
+     *
+     * @see ClassVerifier
+     */
+    public long verify(final Collection<byte[]> classFiles, final ClassHierarchy classHierarchy) {
+        return verify(classFiles, classHierarchy, getErr());
+    }
+
+    /**
+     * Verifies the provided class files like {@link #verify(Collection, ClassHierarchy)}, but writes the diagnostics
+     * to the provided {@code verificationResultsPrintWriter} instead of {@link #getErr()}.
+     */
+    long verify(final Collection<byte[]> classFiles, final ClassHierarchy classHierarchy,
+                final PrintWriter verificationResultsPrintWriter) {
+        if (!isVerificationEnabled())
+            return 0;
+
+        final var verifier = new ClassVerifier(classHierarchy);
+        final var results = classFiles.parallelStream()
+            .filter(classFile -> arguments.isSampledForVerification(new ClassReader(classFile).getClassName()))
+            .map(verifier::verify)
+            .toList();
 
-        if (verify) {
-            CheckClassAdapter.verify(new ClassReader(writer.toByteArray()), true, verificationResultsPrintWriter);
+        for (final var result : results) {
+            if (!result.passed()) {
+                verificationResultsPrintWriter.printf("Verification of %s failed:%n", result.className());
+                verificationResultsPrintWriter.print(result.diagnostics());
+            }
         }
+        verificationResultsPrintWriter.flush();
+
+        final var failures = results.stream().filter(result -> !result.passed()).count();
+        LOGGER.log(Level.INFO, "Verified {0} of {1} classes, {2} failed.", results.size(), classFiles.size(), failures);
+        return failures;
+    }
+
+    boolean isVerificationEnabled() {
+        return verify || arguments.getVerify();
     }
 
     // region Getters/setters
+    /**
+     * @return The writer to which the populated bootstrap method template is written if no
+     *         {@link Arguments#getBootstrapMethodOutput()} is given.
+     */
+    PrintWriter getOut() {
+        return (commandSpec != null) ? commandSpec.commandLine().getOut() : new PrintWriter(System.out, true);
+    }
+
+    /**
+     * @return The writer to which error messages and verification results are written.
+     */
+    PrintWriter getErr() {
+        return (commandSpec != null) ? commandSpec.commandLine().getErr() : new PrintWriter(System.err, true);
+    }
+
     Arguments getArguments() {
         return arguments;
     }
 
+    SymbolMapping getSymbolMapping() {
+        return symbolMapping;
+    }
+
+    ExclusionReport getExclusionReport() {
+        return exclusionReport;
+    }
+
     Handle getBootstrapMethodHandle() {
         return bootstrapMethodHandle;
     }
 
+    @Nullable BootstrapMethodShards getBootstrapMethodShards() {
+        return bootstrapMethodShards;
+    }
+
     void setBootstrapMethodHandle(final Handle bootstrapMethodHandle) {
         this.bootstrapMethodHandle = bootstrapMethodHandle;
     }
@@ -0,0 +1,172 @@
+package dev.blanke.indyobfuscator;
+
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Handle;
+
+import dev.blanke.indyobfuscator.api.ObfuscationException;
+import dev.blanke.indyobfuscator.api.ObfuscationOptions;
+import dev.blanke.indyobfuscator.api.ObfuscationResult;
+import dev.blanke.indyobfuscator.api.Obfuscator;
+import dev.blanke.indyobfuscator.api.ObfuscatorFactory;
+import dev.blanke.indyobfuscator.obfuscation.bootstrap.BootstrapMethodConflictException;
+import dev.blanke.indyobfuscator.verification.ClassHierarchy;
+
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
+
+/**
+ * Implements the in-memory {@link Obfuscator} API on top of an {@link InDyObfuscator}, applying the same passes as
+ * {@link InputType#DIRECTORY} to class files passed in by the caller instead of files read from disk.
+ * <p>
+ * If no bootstrap method owner is specified, a new owner class is generated by {@link #finish()} and the included
+ * classes load it explicitly. Otherwise, the bootstrap method is added to the owner as soon as it is passed to
+ * {@link #obfuscate(byte[])}.
+ */
+final class InMemoryObfuscator implements Obfuscator {
+
+    private final InDyObfuscator obfuscator;
+
+    private final ObfuscationOptions options;
+
+    /**
+     * Whether the bootstrap method owner is generated by {@link #finish()} rather than being one of the obfuscated
+     * classes.
+     */
+    private final boolean generatedBootstrapMethodOwner;
+
+    /**
+     * Whether the bootstrap method owner has been passed to {@link #obfuscate(byte[])}, in which case the bootstrap
+     * method has already been added to it.
+     */
+    private final AtomicBoolean bootstrapMethodAdded = new AtomicBoolean();
+
+    private final AtomicBoolean finished = new AtomicBoolean();
+
+    /**
+     * All class files returned by {@link #obfuscate(byte[])}, which are only retained if verification is enabled.
+     */
+    private final Queue<byte[]> classFiles = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The class files transformed by {@link #obfuscate(byte[])}, which are only retained if verification is enabled.
+     */
+    private final Queue<byte[]> transformedClassFiles = new ConcurrentLinkedQueue<>();
+
+    InMemoryObfuscator(final ObfuscationOptions options) {
+        this.options = Objects.requireNonNull(options);
+
+        final var arguments = Arguments.of(options);
+        obfuscator = new InDyObfuscator(arguments);
+        obfuscator.setBootstrapMethodHandle(new Handle(H_INVOKESTATIC,
+            InputType.getBootstrapMethodOwner(arguments, null), arguments.getBootstrapMethodName(),
+            arguments.getBootstrapMethodDescriptor(), false));
+        generatedBootstrapMethodOwner = (arguments.getBootstrapMethodOwner() == null);
+    }
+
+    @Override
+    public boolean isIncluded(final String className) {
+        return obfuscator.getArguments().isIncluded(className);
+    }
+
+    @Override
+    public byte[] obfuscate(final byte[] classFile) {
+        if (finished.get())
+            throw new IllegalStateException("The obfuscation has already been finished.");
+
+        final var reader    = new ClassReader(classFile);
+        final var className = reader.getClassName();
+        obfuscator.analyzeClassFile(reader);
+        final var isIncluded = isIncluded(className.replace('/', '.'));
+        final var isBootstrapMethodOwner = className.equals(obfuscator.getBootstrapMethodHandle().getOwner());
+
+        var result = classFile;
+        try {
+            if (isIncluded) {
+                result = InputType.obfuscateClassFile(obfuscator, result);
+                if (generatedBootstrapMethodOwner) {
+                    result = InputType.transform(result, obfuscator::addBootstrapMethodOwnerLoading);
+                }
+            }
+            if (isBootstrapMethodOwner && !bootstrapMethodAdded.getAndSet(true)) {
+                result = InputType.transform(result, obfuscator::addBootstrapMethod);
+            }
+        } catch (final BootstrapMethodConflictException exception) {
+            throw new ObfuscationException("The bootstrap method name '" + options.getBootstrapMethodName()
+                + "' conflicts with an existing method inside the owning class '" + className + "'.", exception);
+        } catch (final RuntimeException exception) {
+            throw new ObfuscationException("Failed to obfuscate " + className + ".", exception);
+        }
+
+        if (obfuscator.isVerificationEnabled()) {
+            classFiles.add(result);
+            if (result != classFile) {
+                transformedClassFiles.add(result);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public ObfuscationResult finish() {
+        if (!generatedBootstrapMethodOwner && !bootstrapMethodAdded.get())
+            throw new IllegalStateException(
+                "The bootstrap method owner " + options.getBootstrapMethodOwner() + " has not been obfuscated.");
+        if (finished.getAndSet(true))
+            throw new IllegalStateException("The obfuscation has already been finished.");
+
+        final var bootstrapMethodOwner = obfuscator.getBootstrapMethodHandle().getOwner();
+        byte[] generatedOwner = null;
+        if (generatedBootstrapMethodOwner) {
+            generatedOwner = InputType.transform(InputType.createBootstrapMethodOwner(bootstrapMethodOwner),
+                obfuscator::addBootstrapMethod);
+            if (obfuscator.isVerificationEnabled()) {
+                classFiles.add(generatedOwner);
+                transformedClassFiles.add(generatedOwner);
+            }
+        }
+
+        if (obfuscator.isVerificationEnabled()) {
+            // Return the diagnostics to the caller rather than writing them to the console.
+            final var diagnostics = new StringWriter();
+            final var failures    = obfuscator.verify(transformedClassFiles, ClassHierarchy.of(classFiles),
+                new PrintWriter(diagnostics));
+            if (failures > 0)
+                throw new ObfuscationException(failures + " classes failed verification:"
+                    + System.lineSeparator() + diagnostics);
+        }
+
+        final var bootstrapMethodSource = new StringWriter();
+        try {
+            if (options.getBootstrapMethodTemplate() != null) {
+                obfuscator.processBootstrapMethodTemplate(new StringReader(options.getBootstrapMethodTemplate()),
+                    bootstrapMethodSource);
+            } else {
+                obfuscator.generateBootstrapMethodSource(bootstrapMethodSource);
+            }
+        } catch (final Exception exception) {
+            throw new ObfuscationException("Failed to populate the bootstrap method template.", exception);
+        }
+        return new ObfuscationResult(bootstrapMethodOwner, generatedOwner, bootstrapMethodSource.toString(),
+            obfuscator.getSymbolMapping().size());
+    }
+
+    /**
+     * Creates {@link InMemoryObfuscator}s for {@link Obfuscator#create(ObfuscationOptions)}.
+     *
+     * @implNote Registered in {@code META-INF/services/dev.blanke.indyobfuscator.api.ObfuscatorFactory}.
+     */
+    public static final class Factory implements ObfuscatorFactory {
+
+        @Override
+        public Obfuscator create(final ObfuscationOptions options) {
+            return new InMemoryObfuscator(options);
+        }
+    }
+}
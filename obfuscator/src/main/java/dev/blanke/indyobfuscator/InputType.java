@@ -10,15 +10,26 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.StringJoiner;
 import java.util.UUID;
 import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
 import java.util.jar.Attributes.Name;
 import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.jetbrains.annotations.Nullable;
 
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Handle;
 
+import dev.blanke.indyobfuscator.mapping.DeferredSymbolMapping;
+import dev.blanke.indyobfuscator.verification.ClassHierarchy;
+
 import static org.objectweb.asm.Opcodes.*;
 import static org.objectweb.asm.Type.getInternalName;
 
@@ -35,7 +46,7 @@ enum InputType {
      */
     CLASS {
         @Override
-        void obfuscate(final InDyObfuscator obfuscator) throws IOException {
+        long obfuscate(final InDyObfuscator obfuscator) throws IOException {
             final var arguments = obfuscator.getArguments();
             try (final var inputStream = Files.newInputStream(arguments.getInput())) {
                 var reader = new ClassReader(inputStream);
@@ -44,17 +55,28 @@ enum InputType {
                 obfuscator.setBootstrapMethodHandle(new Handle(H_INVOKESTATIC, reader.getClassName(),
                     arguments.getBootstrapMethodName(), arguments.getBootstrapMethodDescriptor(), false));
 
-                obfuscator.obfuscateFieldInstructions(reader, writer);
+                obfuscator.analyzeClassFile(reader);
+                obfuscator.estimateCallSiteCosts(reader);
+                obfuscator.planOverheadBudget();
+
+                // Resolve the obfuscation annotations once and use the result for both passes.
+                final var policy = obfuscator.resolvePolicy(reader);
+                obfuscator.obfuscateFieldInstructions(reader, writer, policy);
 
                 reader = new ClassReader(writer.toByteArray());
                 writer = new ClassWriter(reader, 0);
-                obfuscator.obfuscateMethodInstructions(reader, writer);
+                obfuscator.obfuscateMethodInstructions(reader, writer, policy);
 
                 reader = new ClassReader(writer.toByteArray());
                 writer = new ClassWriter(reader, 0);
                 obfuscator.addBootstrapMethod(reader, writer);
 
-                Files.write(arguments.getOutput(), writer.toByteArray());
+                final var classFile = writer.toByteArray();
+                final var verificationFailures =
+                    obfuscator.verify(List.of(classFile), ClassHierarchy.of(List.of(classFile)));
+
+                Files.write(arguments.getOutput(), classFile);
+                return verificationFailures;
             }
         }
     },
@@ -63,29 +85,44 @@ enum InputType {
      * Enables the obfuscation of a set of {@code .class} files located within a jar file.
      */
     JAR {
-        private static final String CLASS_FILE_EXTENSION = ".class";
-
         @Override
-        void obfuscate(final InDyObfuscator obfuscator) throws IOException {
+        long obfuscate(final InDyObfuscator obfuscator) throws IOException {
             final var arguments = obfuscator.getArguments();
             Files.copy(arguments.getInput(), arguments.getOutput(), StandardCopyOption.REPLACE_EXISTING);
 
             try (final var outputFS = FileSystems.newFileSystem(arguments.getOutput())) {
-                var bootstrapMethodOwner = getBootstrapMethodOwner(arguments);
+                final Manifest manifest;
+                try (final var jarFile = new JarFile(arguments.getInput().toFile())) {
+                    manifest = jarFile.getManifest();
+                }
+                final var root = outputFS.getPath("/");
+
+                var bootstrapMethodOwner = getBootstrapMethodOwner(arguments, manifest);
                 obfuscator.setBootstrapMethodHandle(new Handle(H_INVOKESTATIC, bootstrapMethodOwner,
                     arguments.getBootstrapMethodName(), arguments.getBootstrapMethodDescriptor(), false));
 
                 /*
-                 * Do a first pass over the included classes to obfuscate field instructions (GETFIELD, PUTFIELD,
-                 * GETSTATIC, PUTSTATIC).
+                 * Match the class files against the include and exclude patterns only once, as the result is the same
+                 * for every pass.
                  */
-                transformIncludedClassFiles(obfuscator, outputFS, obfuscator::obfuscateFieldInstructions);
+                final var includedClassFiles = findIncludedClassFiles(arguments, root);
 
                 /*
-                 * Do a second pass over the included classes for the main obfuscation step. Synthetic field accessor
-                 * methods which might have been generated in the previous step are included.
+                 * Package-level annotations and trivial methods must be known before the classes referring to them are
+                 * obfuscated.
                  */
-                transformIncludedClassFiles(obfuscator, outputFS, obfuscator::obfuscateMethodInstructions);
+                analyzeClassFiles(obfuscator, root);
+                estimateCallSiteCosts(obfuscator, includedClassFiles);
+
+                /*
+                 * Obfuscate field instructions (GETFIELD, PUTFIELD, GETSTATIC, PUTSTATIC) of each included class,
+                 * followed by the main obfuscation step, which includes synthetic field accessor methods that might
+                 * have been generated by the first step.
+                 */
+                for (final var path : includedClassFiles) {
+                    LOGGER.log(Level.INFO, "Transforming {0}...", path);
+                    Files.write(path, obfuscateClassFile(obfuscator, Files.readAllBytes(path)));
+                }
 
                 /*
                  * Access the jar file entries one more time to add the bootstrap method.
@@ -94,115 +131,107 @@ enum InputType {
                  * up the native implementation bootstrap method would be obfuscated as well, resulting in a circular
                  * dependency.
                  */
-                addBootstrapMethod(obfuscator, outputFS);
+                addBootstrapMethod(obfuscator, root, includedClassFiles);
+
+                // Verify the transformed classes once after all passes have been completed.
+                return verifyTransformedClassFiles(obfuscator, root, includedClassFiles);
             }
         }
+    },
 
-        /**
-         * Returns the internal name of the class which should contain the bootstrap method when obfuscating jar file.
-         * <p>
-         * The owner is derived from either the {@link Arguments#getBootstrapMethodOwner()} command-line argument,
-         * the value of the {@code Main-Class} attribute in the input jar file's MANIFEST.MF, or
-         *
-         * @return The internal name of the class which should contain the bootstrap method.
-         *
-         * @throws IOException If an I/O error occurs trying to access the input jar file's MANIFEST.MF.
-         */
-        private static String getBootstrapMethodOwner(final Arguments arguments) throws IOException {
-            var owner = arguments.getBootstrapMethodOwner();
-            if (owner == null) {
-                try (final var jarFile = new JarFile(arguments.getInput().toFile())) {
-                    owner = jarFile.getManifest().getMainAttributes().getValue(Name.MAIN_CLASS);
-                }
-            }
-            if (owner == null) {
-                return "Bootstrap" + UUID.randomUUID().toString().replace("-", "");
+    /**
+     * Enables the obfuscation of an exploded class tree located within a directory, such as {@code target/classes}.
+     * <p>
+     * Unlike the class files within a jar file, which are accessed through a single {@link FileSystem}, the class files
+     * inside a directory are processed in parallel.
+     *
+     * @see DirectoryWatcher
+     */
+    DIRECTORY {
+        @Override
+        long obfuscate(final InDyObfuscator obfuscator) throws IOException {
+            final var arguments = obfuscator.getArguments();
+            final var root      = arguments.getOutput();
+            if (!Files.exists(root) || !Files.isSameFile(arguments.getInput(), root)) {
+                copyDirectory(arguments.getInput(), root);
             }
-            return owner.replace('.', '/');
-        }
 
-        /**
-         * Determines the class inside the provided {@code inputJar} which should be the owner of the bootstrap
-         * method, modifies or generates that class to include the bootstrap method alongside library loading code,
-         * and writes the transformed class to the {@code fileSystem}.
-         *
-         * @param obfuscator The obfuscator instance containing the parsed command-line options along with the
-         *                   bootstrap method {@link Handle} describing the bootstrap method to be added.
-         *
-         * @param fileSystem The file system containing the obfuscated class files along with the already obfuscated
-         *                   bootstrap method owner class. The file system serves both as input as well as output
-         *                   If no owner for the bootstrap method is specified manually via the
-         *                   {@code --bootstrap-method-owner} command-line option, the {@code Main-Class} manifest
-         *                   attribute will be used to determine the owner, if present.
-         *
-         * @throws IOException If reading from the {@code inputJar} or writing to the {@code fileSystem} failed.
-         */
-        private static void addBootstrapMethod(final InDyObfuscator obfuscator,
-                                               final FileSystem     fileSystem) throws IOException {
-            final var bsmOwner     = obfuscator.getBootstrapMethodHandle().getOwner();
-            final var bsmOwnerPath = fileSystem.getPath(bsmOwner + CLASS_FILE_EXTENSION);
-
-            // Create BSM owner class if it does not yet exist.
-            if (!Files.exists(bsmOwnerPath)) {
-                transformIncludedClassFiles(obfuscator, fileSystem, obfuscator::addBootstrapMethodOwnerLoading);
-
-                final var writer = new ClassWriter(0);
-                writer.visit(V1_8, ACC_PUBLIC, bsmOwner, null, getInternalName(Object.class), null);
-                try (final var bsmOwnerOS = Files.newOutputStream(bsmOwnerPath)) {
-                    bsmOwnerOS.write(writer.toByteArray());
+            final var manifestPath = root.resolve(JarFile.MANIFEST_NAME);
+            Manifest manifest = null;
+            if (Files.exists(manifestPath)) {
+                try (final var manifestInputStream = Files.newInputStream(manifestPath)) {
+                    manifest = new Manifest(manifestInputStream);
                 }
             }
+            obfuscator.setBootstrapMethodHandle(new Handle(H_INVOKESTATIC, getBootstrapMethodOwner(arguments, manifest),
+                arguments.getBootstrapMethodName(), arguments.getBootstrapMethodDescriptor(), false));
+
+            final var includedClassFiles = findIncludedClassFiles(arguments, root);
+            analyzeClassFiles(obfuscator, root);
+            estimateCallSiteCosts(obfuscator, includedClassFiles);
 
-            final ClassWriter writer;
-            try (final var bsmOwnerIS = Files.newInputStream(bsmOwnerPath)) {
-                final var reader = new ClassReader(bsmOwnerIS);
-                obfuscator.addBootstrapMethod(reader, (writer = new ClassWriter(reader, 0)));
+            /*
+             * Both obfuscation passes only depend on the class being transformed, so they are applied to each class in
+             * one go. The classes themselves are transformed in parallel, each using its own DeferredSymbolMapping, and
+             * their method invocations are registered in the order of the included class files afterward, so that the
+             * assigned identifiers do not depend on the scheduling of the threads.
+             */
+            final var classFiles     = new byte[includedClassFiles.size()][];
+            final var symbolMappings = new DeferredSymbolMapping[includedClassFiles.size()];
+            try {
+                IntStream.range(0, includedClassFiles.size()).parallel().forEach(index -> {
+                    final var path = includedClassFiles.get(index);
+                    try {
+                        LOGGER.log(Level.INFO, "Transforming {0}...", path);
+                        symbolMappings[index] = new DeferredSymbolMapping();
+                        classFiles[index] =
+                            obfuscateClassFile(obfuscator, Files.readAllBytes(path), symbolMappings[index]);
+                    } catch (final IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                });
+                for (int index = 0; index < classFiles.length; ++index) {
+                    final var symbolMapping = symbolMappings[index];
+                    if (symbolMapping.size() > 0) {
+                        classFiles[index] = transform(classFiles[index],
+                            (reader, writer) -> obfuscator.registerSymbols(reader, writer, symbolMapping));
+                    }
+                }
+                IntStream.range(0, includedClassFiles.size()).parallel().forEach(index -> {
+                    try {
+                        Files.write(includedClassFiles.get(index), classFiles[index]);
+                    } catch (final IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                });
+            } catch (final UncheckedIOException exception) {
+                throw exception.getCause(); // Re-throw wrapped original exception.
             }
-            // Close InputStream before writing to the FileSystem just to be safe.
-            Files.write(bsmOwnerPath, writer.toByteArray());
+
+            addBootstrapMethod(obfuscator, root, includedClassFiles);
+
+            return verifyTransformedClassFiles(obfuscator, root, includedClassFiles);
         }
 
         /**
-         * Walks through the {@code fileSystem}, applying the provided {@code transformation} to all matching class
-         * files according to {@link Arguments#matchesIncludePattern(Path)} and writes the result of the transformation
-         * back to the file on the filesystem.
-         *
-         * @param obfuscator The obfuscator containing the parsed {@link Arguments}.
-         *
-         * @param fileSystem The {@link FileSystem} containing candidate files for obfuscation.
-         *
-         * @param transformation A transformation to apply to the {@link ClassReader} and {@link ClassWriter} of a
-         *                       matched class file.
-         *
-         * @throws IOException If reading or writing a class file fails.
+         * Copies the directory tree located at {@code source} to {@code target}, replacing existing files.
          */
-        private static void transformIncludedClassFiles(final InDyObfuscator                       obfuscator,
-                                                        final FileSystem                           fileSystem,
-                                                        final BiConsumer<ClassReader, ClassWriter> transformation)
-            throws IOException {
-            try (final var fileStream = Files.walk(fileSystem.getPath("/"))) {
-                fileStream
-                    .filter(path -> Files.isRegularFile(path) && path.toString().endsWith(CLASS_FILE_EXTENSION)
-                        && obfuscator.getArguments().matchesIncludePattern(path))
-                    .forEach(path -> {
-                        try (final var classInputStream = Files.newInputStream(path)) {
-                            final var reader = new ClassReader(classInputStream);
-                            final var writer = new ClassWriter(reader, 0);
-
-                            LOGGER.log(Level.INFO, "Transforming {0}...", path);
-                            transformation.accept(reader, writer);
-
-                            Files.write(path, writer.toByteArray());
-                        } catch (final IOException exception) {
-                            throw new UncheckedIOException(exception);
-                        }
-                    });
-            } catch (final UncheckedIOException exception) {
-                throw exception.getCause(); // Re-throw wrapped original exception.
+        private static void copyDirectory(final Path source, final Path target) throws IOException {
+            try (final var fileStream = Files.walk(source)) {
+                for (final var path : (Iterable<Path>) fileStream::iterator) {
+                    final var targetPath = target.resolve(source.relativize(path).toString());
+                    if (Files.isDirectory(path)) {
+                        Files.createDirectories(targetPath);
+                    } else {
+                        Files.copy(path, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
             }
         }
     };
 
+    static final String CLASS_FILE_EXTENSION = ".class";
+
     private static final Logger LOGGER = System.getLogger(InputType.class.getName());
 
     /**
@@ -211,13 +240,16 @@ enum InputType {
      * @param obfuscator The obfuscator instance containing the arguments and enabling the execution of basic
      *                   obfuscation steps.
      *
+     * @return The number of transformed class files which failed verification, which is zero if verification is not
+     *         enabled.
+     *
      * @throws IOException If reading the input or writing the result of the obfuscation process fails.
      */
-    abstract void obfuscate(InDyObfuscator obfuscator) throws IOException;
+    abstract long obfuscate(InDyObfuscator obfuscator) throws IOException;
 
     /**
      * Determines the correct {@code InputType} to be used for the file located at the provided {@code path} by checking
-     * the file extension or the content of the file.
+     * whether it is a directory or by checking the content of the file.
      *
      * @param path Path of the file that should be used as input for the obfuscation.
      *
@@ -226,9 +258,315 @@ enum InputType {
      * @throws IOException If reading the file located at the {@code path} fails.
      */
     public static InputType determine(final Path path) throws IOException {
+        if (Files.isDirectory(path))
+            return DIRECTORY;
         try (final var inputStream = new DataInputStream(Files.newInputStream(path))) {
             // Check for the magic number of .class files and treat input as jar file if it is not a .class file.
             return (inputStream.readInt() == 0xCAFEBABE) ? CLASS : JAR;
         }
     }
+
+    /**
+     * Returns the internal name of the class which should contain the bootstrap method when obfuscating a jar file or a
+     * directory.
+     * <p>
+     * The owner is derived from either the {@link Arguments#getBootstrapMethodOwner()} command-line argument,
+     * the value of the {@code Main-Class} attribute in the input's MANIFEST.MF, or randomly generated otherwise.
+     *
+     * @param arguments The parsed command-line arguments.
+     *
+     * @param manifest The manifest of the input or {@code null} if the input does not contain one.
+     *
+     * @return The internal name of the class which should contain the bootstrap method.
+     */
+    static String getBootstrapMethodOwner(final Arguments arguments, final @Nullable Manifest manifest) {
+        var owner = arguments.getBootstrapMethodOwner();
+        if ((owner == null) && (manifest != null)) {
+            owner = manifest.getMainAttributes().getValue(Name.MAIN_CLASS);
+        }
+        if (owner == null) {
+            return "Bootstrap" + UUID.randomUUID().toString().replace("-", "");
+        }
+        return owner.replace('.', '/');
+    }
+
+    /**
+     * Determines the class inside the provided {@code root} which should be the owner of the bootstrap method,
+     * modifies or generates that class to include the bootstrap method alongside library loading code, and writes the
+     * transformed class back to the file system.
+     *
+     * @param obfuscator The obfuscator instance containing the parsed command-line options along with the bootstrap
+     *                   method {@link Handle} describing the bootstrap method to be added.
+     *
+     * @param root The root directory containing the obfuscated class files along with the already obfuscated
+     *             bootstrap method owner class. It serves both as input as well as output.
+     *
+     * @param includedClassFiles The class files included in the obfuscation, which have to load the bootstrap method
+     *                           owner if it does not yet exist.
+     *
+     * @throws IOException If reading or writing a class file failed.
+     */
+    private static void addBootstrapMethod(final InDyObfuscator obfuscator,
+                                           final Path           root,
+                                           final List<Path>     includedClassFiles) throws IOException {
+        final var bootstrapMethodShards = obfuscator.getBootstrapMethodShards();
+        if (bootstrapMethodShards != null) {
+            /*
+             * The owners of the shards are not loaded eagerly, as their static initializers load the native library of
+             * the shard, which should only happen once the first call site of the shard is bootstrapped.
+             */
+            for (final var shard : bootstrapMethodShards.getShards()) {
+                final var shardOwner     = shard.bootstrapMethodHandle().getOwner();
+                final var shardOwnerPath = root.resolve(shardOwner + CLASS_FILE_EXTENSION);
+                if (!Files.exists(shardOwnerPath)) {
+                    Files.write(shardOwnerPath, createBootstrapMethodOwner(shardOwner));
+                }
+                Files.write(shardOwnerPath, transform(Files.readAllBytes(shardOwnerPath),
+                    (reader, writer) -> obfuscator.addBootstrapMethod(reader, writer, shard)));
+            }
+            return;
+        }
+
+        final var bsmOwner     = obfuscator.getBootstrapMethodHandle().getOwner();
+        final var bsmOwnerPath = root.resolve(bsmOwner + CLASS_FILE_EXTENSION);
+
+        // Create BSM owner class if it does not yet exist.
+        if (!Files.exists(bsmOwnerPath)) {
+            // The owner is only loaded eagerly for the native implementation, whose library it loads.
+            if (obfuscator.getArguments().getBootstrapBackend() == Arguments.BootstrapBackend.NATIVE) {
+                transformClassFiles(includedClassFiles, obfuscator::addBootstrapMethodOwnerLoading);
+            }
+
+            if (bsmOwnerPath.getParent() != null) {
+                Files.createDirectories(bsmOwnerPath.getParent());
+            }
+            Files.write(bsmOwnerPath, createBootstrapMethodOwner(bsmOwner));
+        }
+        Files.write(bsmOwnerPath, transform(Files.readAllBytes(bsmOwnerPath), obfuscator::addBootstrapMethod));
+    }
+
+    /**
+     * Creates an empty class which can be turned into the bootstrap method owner using
+     * {@link InDyObfuscator#addBootstrapMethod(ClassReader, ClassWriter)} if the obfuscated artifact does not contain a
+     * suitable class.
+     *
+     * @param bsmOwner The internal name of the class to create.
+     *
+     * @return The bytes of the created class file.
+     */
+    static byte[] createBootstrapMethodOwner(final String bsmOwner) {
+        final var writer = new ClassWriter(0);
+        writer.visit(V1_8, ACC_PUBLIC, bsmOwner, null, getInternalName(Object.class), null);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Verifies the class files which have been transformed during the obfuscation, i.e. the included class files and
+     * the bootstrap method owner, using a {@link ClassHierarchy} made up of all class files inside the {@code root}, if
+     * verification is enabled.
+     *
+     * @param obfuscator The obfuscator containing the parsed {@link Arguments} and the bootstrap method handle.
+     *
+     * @param root The root directory containing the obfuscated class files.
+     *
+     * @param includedClassFiles The class files which have been included in the obfuscation.
+     *
+     * @return The number of class files which failed verification.
+     *
+     * @throws IOException If reading a class file fails.
+     */
+    private static long verifyTransformedClassFiles(final InDyObfuscator obfuscator,
+                                                    final Path           root,
+                                                    final List<Path>     includedClassFiles) throws IOException {
+        if (!obfuscator.isVerificationEnabled())
+            return 0;
+
+        final var transformedPaths = new HashSet<>(includedClassFiles);
+        transformedPaths.add(root.resolve(obfuscator.getBootstrapMethodHandle().getOwner() + CLASS_FILE_EXTENSION));
+        final var bootstrapMethodShards = obfuscator.getBootstrapMethodShards();
+        if (bootstrapMethodShards != null) {
+            for (final var shard : bootstrapMethodShards.getShards()) {
+                transformedPaths.add(root.resolve(shard.bootstrapMethodHandle().getOwner() + CLASS_FILE_EXTENSION));
+            }
+        }
+
+        final var classFiles            = new ArrayList<byte[]>();
+        final var transformedClassFiles = new ArrayList<byte[]>();
+        try (final var fileStream = Files.walk(root)) {
+            for (final var path : (Iterable<Path>) fileStream::iterator) {
+                if (!Files.isRegularFile(path) || !path.toString().endsWith(CLASS_FILE_EXTENSION))
+                    continue;
+
+                final var classFile = Files.readAllBytes(path);
+                classFiles.add(classFile);
+                if (transformedPaths.contains(path)) {
+                    transformedClassFiles.add(classFile);
+                }
+            }
+        }
+        return obfuscator.verify(transformedClassFiles, ClassHierarchy.of(classFiles));
+    }
+
+    /**
+     * Passes all class files inside the {@code root} directory to {@link InDyObfuscator#analyzeClassFile(ClassReader)}
+     * in parallel, regardless of whether they are included in the obfuscation.
+     *
+     * @throws IOException If walking the {@code root} directory or reading a class file fails.
+     */
+    private static void analyzeClassFiles(final InDyObfuscator obfuscator, final Path root) throws IOException {
+        try (final var fileStream = Files.walk(root)) {
+            fileStream
+                .filter(path -> Files.isRegularFile(path) && path.toString().endsWith(CLASS_FILE_EXTENSION))
+                .toList()
+                .parallelStream()
+                .forEach(path -> {
+                    try {
+                        obfuscator.analyzeClassFile(new ClassReader(Files.readAllBytes(path)));
+                    } catch (final IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                });
+        } catch (final UncheckedIOException exception) {
+            throw exception.getCause(); // Re-throw wrapped original exception.
+        }
+    }
+
+    /**
+     * Passes the included class files to {@link InDyObfuscator#estimateCallSiteCosts(ClassReader)} in parallel and
+     * plans the overhead budget afterward, unless no budget is given.
+     *
+     * @throws IOException If reading a class file fails.
+     */
+    private static void estimateCallSiteCosts(final InDyObfuscator obfuscator, final List<Path> includedClassFiles)
+            throws IOException {
+        if (!obfuscator.isOverheadBudgetEnabled())
+            return;
+        try {
+            includedClassFiles.parallelStream().forEach(path -> {
+                try {
+                    obfuscator.estimateCallSiteCosts(new ClassReader(Files.readAllBytes(path)));
+                } catch (final IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        } catch (final UncheckedIOException exception) {
+            throw exception.getCause(); // Re-throw wrapped original exception.
+        }
+        obfuscator.planOverheadBudget();
+    }
+
+    /**
+     * Walks through the {@code root} directory and collects all class files which are included in the obfuscation
+     * according to {@link Arguments#isIncluded(String)}.
+     *
+     * @param arguments The parsed {@link Arguments} containing the include and exclude patterns.
+     *
+     * @param root The root directory containing candidate files for obfuscation.
+     *
+     * @return The paths of the included class files, sorted so that they are processed in a deterministic order.
+     *
+     * @throws IOException If walking the {@code root} directory fails.
+     */
+    private static List<Path> findIncludedClassFiles(final Arguments arguments, final Path root) throws IOException {
+        try (final var fileStream = Files.walk(root)) {
+            return fileStream
+                .filter(path -> Files.isRegularFile(path) && path.toString().endsWith(CLASS_FILE_EXTENSION)
+                    && arguments.isIncluded(toClassName(root, path)))
+                .sorted()
+                .toList();
+        }
+    }
+
+    /**
+     * Converts the path to a class file into the fully qualified name of the class.
+     *
+     * @param root The root directory of the class tree containing the class file.
+     *
+     * @param classFile The path to a class file within the {@code root} directory.
+     *
+     * @return The fully qualified name of the class, e.g. {@code dev.blanke.indyobfuscator.InputType}.
+     */
+    static String toClassName(final Path root, final Path classFile) {
+        final var joiner = new StringJoiner(".");
+        for (final var name : root.relativize(classFile)) {
+            joiner.add(name.toString());
+        }
+        final var fileName = joiner.toString();
+        return fileName.endsWith(CLASS_FILE_EXTENSION)
+            ? fileName.substring(0, fileName.length() - CLASS_FILE_EXTENSION.length())
+            : fileName;
+    }
+
+    /**
+     * Applies the provided {@code transformation} to the provided class files and writes the result of the
+     * transformation back to the respective file.
+     *
+     * @param classFiles The paths of the class files to transform.
+     *
+     * @param transformation A transformation to apply to the {@link ClassReader} and {@link ClassWriter} of a class
+     *                       file.
+     *
+     * @throws IOException If reading or writing a class file fails.
+     */
+    private static void transformClassFiles(final List<Path>                           classFiles,
+                                            final BiConsumer<ClassReader, ClassWriter> transformation)
+        throws IOException {
+        for (final var path : classFiles) {
+            LOGGER.log(Level.INFO, "Transforming {0}...", path);
+            Files.write(path, transform(Files.readAllBytes(path), transformation));
+        }
+    }
+
+    /**
+     * Applies the obfuscation passes which only depend on the class being transformed, i.e. the obfuscation of field
+     * instructions followed by the obfuscation of method instructions, to the provided class file.
+     *
+     * @param obfuscator The obfuscator instance enabling the execution of the obfuscation passes.
+     *
+     * @param classFile The bytes of the class file to obfuscate.
+     *
+     * @return The bytes of the obfuscated class file.
+     */
+    static byte[] obfuscateClassFile(final InDyObfuscator obfuscator, final byte[] classFile) {
+        // Resolve the obfuscation annotations once and use the result for both passes.
+        final var policy = obfuscator.resolvePolicy(new ClassReader(classFile));
+        if (policy.obfuscatesNothing())
+            return classFile;
+        return transform(
+            transform(classFile, (reader, writer) -> obfuscator.obfuscateFieldInstructions(reader, writer, policy)),
+            (reader, writer) -> obfuscator.obfuscateMethodInstructions(reader, writer, policy));
+    }
+
+    /**
+     * Applies the obfuscation passes like {@link #obfuscateClassFile(InDyObfuscator, byte[])}, but adds the method
+     * invocations to the provided {@code symbolMapping}, whose identifiers have to be replaced using
+     * {@link InDyObfuscator#registerSymbols(ClassReader, ClassWriter, DeferredSymbolMapping)} afterward.
+     */
+    static byte[] obfuscateClassFile(final InDyObfuscator obfuscator, final byte[] classFile,
+                                     final DeferredSymbolMapping symbolMapping) {
+        final var policy = obfuscator.resolvePolicy(new ClassReader(classFile));
+        if (policy.obfuscatesNothing())
+            return classFile;
+        return transform(
+            transform(classFile,
+                (reader, writer) -> obfuscator.obfuscateFieldInstructions(reader, writer, policy, symbolMapping)),
+            (reader, writer) -> obfuscator.obfuscateMethodInstructions(reader, writer, policy, symbolMapping));
+    }
+
+    /**
+     * Applies the provided {@code transformation} to the provided class file.
+     *
+     * @param classFile The bytes of the class file to transform.
+     *
+     * @param transformation A transformation to apply to the {@link ClassReader} and {@link ClassWriter} of the
+     *                       class file.
+     *
+     * @return The bytes of the transformed class file.
+     */
+    static byte[] transform(final byte[] classFile, final BiConsumer<ClassReader, ClassWriter> transformation) {
+        final var reader = new ClassReader(classFile);
+        final var writer = new ClassWriter(reader, 0);
+        transformation.accept(reader, writer);
+        return writer.toByteArray();
+    }
 }
@@ -0,0 +1,184 @@
+package dev.blanke.indyobfuscator.cds;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Creates a dynamic class data sharing (CDS) archive of an obfuscated application by running it through a training
+ * workload with {@code -XX:ArchiveClassesAtExit}.
+ * <p>
+ * Besides the loaded classes, the archive contains the {@code LambdaForm} holder classes regenerated for the method
+ * handles created while bootstrapping the obfuscated call sites, which would otherwise be spun at every start. The
+ * archive can only be used with the same JDK and class path, i.e. by passing {@code -XX:SharedArchiveFile} when
+ * running the same jar file using the {@link #java} launcher.
+ */
+public final class ClassDataSharingArchiver {
+
+    /**
+     * The source logged by {@code -Xlog:class+load} for classes loaded from a dynamic archive.
+     */
+    private static final String DYNAMIC_ARCHIVE_SOURCE = " source: shared objects file (top)";
+
+    private final Path java;
+
+    private final Path jar;
+
+    private final String mainClass;
+
+    private final List<String> trainingArguments;
+
+    private final Path workingDirectory;
+
+    /**
+     * @param java The {@code java} launcher of the JDK for which the archive is created.
+     *
+     * @param jar The jar file containing the obfuscated application, which makes up the class path.
+     *
+     * @param mainClass The fully qualified name of the main class of the application.
+     *
+     * @param trainingArguments The arguments passed to the main class during each run.
+     *
+     * @param workingDirectory The directory in which the application is run, e.g. the directory containing its native
+     *                         library.
+     */
+    public ClassDataSharingArchiver(final Path java, final Path jar, final String mainClass,
+                                    final List<String> trainingArguments, final Path workingDirectory) {
+        this.java              = java;
+        this.jar               = jar.toAbsolutePath();
+        this.mainClass         = mainClass;
+        this.trainingArguments = List.copyOf(trainingArguments);
+        this.workingDirectory  = workingDirectory;
+    }
+
+    /**
+     * @return The {@code java} launcher of the running JDK.
+     */
+    public static Path getDefaultJava() {
+        return Path.of(System.getProperty("java.home"), "bin", "java");
+    }
+
+    /**
+     * Runs the training workload and writes the classes loaded by it to the {@code archive}.
+     *
+     * @throws ClassDataSharingException If the training run fails.
+     *
+     * @throws IOException If starting the run fails.
+     */
+    public void dump(final Path archive) throws ClassDataSharingException, IOException {
+        run(List.of("-XX:ArchiveClassesAtExit=" + archive.toAbsolutePath()));
+    }
+
+    /**
+     * Runs the training workload using the {@code archive} and determines which of the provided classes have been
+     * loaded from it.
+     *
+     * @param classNames The fully qualified names of the classes which should be archived, e.g. the obfuscated classes
+     *                   and the bootstrap method owner.
+     *
+     * @return The classes which have been loaded during the run, split by whether they have been loaded from the
+     *         archive. Classes which are not loaded by the training workload cannot be archived and are not included.
+     *
+     * @throws ClassDataSharingException If the run fails.
+     *
+     * @throws IOException If starting the run or reading its class loading log fails.
+     */
+    public ArchivedClasses validate(final Path archive, final Collection<String> classNames)
+            throws ClassDataSharingException, IOException {
+        final var log = Files.createTempFile("class-load", ".log");
+        try {
+            // The log is written to a file, as the output of the application could be interleaved with it.
+            run(List.of("-XX:SharedArchiveFile=" + archive.toAbsolutePath(),
+                "-Xlog:class+load=info:file=" + log.toAbsolutePath() + ":none"));
+
+            final var expectedClasses = new HashSet<>(classNames);
+            final var archivedClasses = new ArrayList<String>();
+            final var loadedClasses   = new ArrayList<String>();
+            for (final var line : Files.readAllLines(log, StandardCharsets.UTF_8)) {
+                final int separator = line.indexOf(' ');
+                final var className = (separator != -1) ? line.substring(0, separator) : line;
+                if (!expectedClasses.remove(className))
+                    continue;
+                (line.endsWith(DYNAMIC_ARCHIVE_SOURCE) ? archivedClasses : loadedClasses).add(className);
+            }
+            return new ArchivedClasses(List.copyOf(archivedClasses), List.copyOf(loadedClasses));
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+
+    /**
+     * @param archived The classes which have been loaded from the archive.
+     *
+     * @param notArchived The classes which have been loaded from the jar file despite the archive, e.g. because they
+     *                    failed verification while dumping.
+     */
+    public record ArchivedClasses(List<String> archived, List<String> notArchived) {
+    }
+
+    /**
+     * Measures the wall-clock time of the training workload.
+     *
+     * @param archive The archive to use, or {@code null} to only use the default archive of the JDK.
+     *
+     * @param runs The number of runs, of which the median is returned.
+     *
+     * @return The median duration of the runs in milliseconds.
+     *
+     * @throws ClassDataSharingException If a run fails.
+     *
+     * @throws IOException If starting a run fails.
+     */
+    public long measureStartup(final @Nullable Path archive, final int runs)
+            throws ClassDataSharingException, IOException {
+        final var options = (archive != null)
+            ? List.of("-XX:SharedArchiveFile=" + archive.toAbsolutePath())
+            : List.<String>of();
+        final var durations = new long[runs];
+        for (int run = 0; run < runs; ++run) {
+            final long start = System.nanoTime();
+            run(options);
+            durations[run] = (System.nanoTime() - start) / 1_000_000;
+        }
+        Arrays.sort(durations);
+        return durations[runs / 2];
+    }
+
+    /**
+     * Runs the training workload with the provided JVM {@code options}.
+     */
+    private void run(final List<String> options) throws ClassDataSharingException, IOException {
+        final var command = new ArrayList<String>();
+        command.add(java.toString());
+        command.addAll(options);
+        command.add("-cp");
+        command.add(jar.toString());
+        command.add(mainClass);
+        command.addAll(trainingArguments);
+
+        final var process = new ProcessBuilder(command)
+            .directory(workingDirectory.toFile())
+            .redirectErrorStream(true)
+            .start();
+        final var output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        final int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (final InterruptedException exception) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the training run.", exception);
+        }
+        if (exitCode != 0)
+            throw new ClassDataSharingException("Command failed with exit code " + exitCode + ": "
+                + String.join(" ", command), output);
+    }
+}
@@ -0,0 +1,24 @@
+package dev.blanke.indyobfuscator.cds;
+
+/**
+ * A {@code ClassDataSharingException} is thrown if a run of the obfuscated application started by a
+ * {@link ClassDataSharingArchiver} fails.
+ *
+ * @see ClassDataSharingArchiver
+ */
+public final class ClassDataSharingException extends Exception {
+
+    /**
+     * The combined standard output and standard error of the failed run.
+     */
+    private final String output;
+
+    public ClassDataSharingException(final String message, final String output) {
+        super(message);
+        this.output = output;
+    }
+
+    public String getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,24 @@
+package dev.blanke.indyobfuscator.compilation;
+
+/**
+ * A {@code NativeCompilationException} is thrown if the C compiler fails to compile or link the generated bootstrap
+ * method implementation.
+ *
+ * @see NativeCompiler
+ */
+public final class NativeCompilationException extends Exception {
+
+    /**
+     * The combined standard output and standard error of the failed compiler invocation.
+     */
+    private final String compilerOutput;
+
+    public NativeCompilationException(final String message, final String compilerOutput) {
+        super(message);
+        this.compilerOutput = compilerOutput;
+    }
+
+    public String getCompilerOutput() {
+        return compilerOutput;
+    }
+}
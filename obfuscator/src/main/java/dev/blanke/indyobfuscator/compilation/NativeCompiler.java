@@ -0,0 +1,324 @@
+package dev.blanke.indyobfuscator.compilation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Compiles the generated bootstrap method implementation into a shared library using the local C compiler, without
+ * requiring a build system such as CMake.
+ * <p>
+ * Each translation unit is compiled separately and in parallel. Object files and the linked library are cached by the
+ * hash of their inputs, i.e. the compiler, the flags, and the content of the translation unit along with the headers
+ * next to it, so that byte-identical sources are never compiled twice. The compiler is identified by the path of its
+ * executable and the output of its {@code --version} option, so that upgrading it invalidates the cache.
+ */
+public final class NativeCompiler {
+
+    /**
+     * Flags suited for the generated code, which consists of large switch statements or tables executed once per call
+     * site, so that compilation speed matters more than the optimization of the code. Hiding all symbols except the
+     * ones declared with {@code JNIEXPORT} reduces the size of the dynamic symbol table.
+     */
+    public static final List<String> DEFAULT_FLAGS = List.of("-O1", "-fPIC", "-fvisibility=hidden", "-pipe");
+
+    private static final String SOURCE_PLACEHOLDER = "%s";
+
+    private static final String SOURCE_DIRECTORY_PLACEHOLDER = "%d";
+
+    private static final String OUTPUT_PLACEHOLDER = "%o";
+
+    private static final String OBJECT_DIRECTORY_NAME = "objects";
+
+    private static final String LIBRARY_DIRECTORY_NAME = "libraries";
+
+    private static final Logger LOGGER = System.getLogger(NativeCompiler.class.getName());
+
+    private final String compiler;
+
+    private final List<String> flags;
+
+    private final Path cacheDirectory;
+
+    /**
+     * The resolved path and the version of the {@link #compiler}, which is part of every hash. Determined on first use.
+     *
+     * @see #getCompilerIdentity()
+     */
+    private String compilerIdentity;
+
+    /**
+     * @param compiler The command invoking the C compiler, e.g. {@code cc}.
+     *
+     * @param flags The flags passed to each invocation of the compiler, including include directories.
+     *
+     * @param cacheDirectory The directory in which object files and libraries are cached.
+     */
+    public NativeCompiler(final String compiler, final List<String> flags, final Path cacheDirectory) {
+        this.compiler       = compiler;
+        this.flags          = List.copyOf(flags);
+        this.cacheDirectory = cacheDirectory.toAbsolutePath();
+    }
+
+    /**
+     * @return The flags required to include {@code jni.h} of the JDK located at {@code javaHome}, i.e. the
+     *         {@code include} directory and its platform-specific subdirectory.
+     *
+     * @throws IOException If the JDK does not contain the JNI headers.
+     */
+    public static List<String> getJniIncludeFlags(final Path javaHome) throws IOException {
+        final var includeDirectory = javaHome.resolve("include");
+        if (!Files.isRegularFile(includeDirectory.resolve("jni.h")))
+            throw new IOException("The JDK at " + javaHome + " does not contain jni.h. Set JAVA_HOME to a JDK.");
+
+        final var includeFlags = new ArrayList<String>();
+        includeFlags.add("-I" + includeDirectory);
+        try (final var children = Files.list(includeDirectory)) {
+            // Contains jni_md.h, e.g. include/linux or include/win32.
+            children.filter(Files::isDirectory).sorted()
+                .filter(child -> Files.isRegularFile(child.resolve("jni_md.h")))
+                .forEach(child -> includeFlags.add("-I" + child));
+        }
+        return includeFlags;
+    }
+
+    /**
+     * Compiles the provided translation units in parallel and links them into a shared library.
+     *
+     * @param sources The C source files to compile. Headers are expected to be located next to them.
+     *
+     * @param library The path to which the shared library is copied.
+     *
+     * @throws NativeCompilationException If the compiler fails.
+     *
+     * @throws IOException If reading the sources or writing to the cache fails.
+     */
+    public void compile(final List<Path> sources, final Path library) throws NativeCompilationException, IOException {
+        final var objectDirectory  = Files.createDirectories(cacheDirectory.resolve(OBJECT_DIRECTORY_NAME));
+        final var libraryDirectory = Files.createDirectories(cacheDirectory.resolve(LIBRARY_DIRECTORY_NAME));
+
+        final var identity      = getCompilerIdentity();
+        final var compiledCount = new AtomicInteger();
+        final List<Path> objects;
+        try {
+            objects = sources.parallelStream()
+                .map(source -> {
+                    try {
+                        final var command = compileCommand();
+                        final var object  = objectDirectory.resolve(hash(identity, command, readUnit(source)) + ".o");
+                        if (!Files.exists(object)) {
+                            run(command, source, object);
+                            compiledCount.incrementAndGet();
+                        }
+                        return object;
+                    } catch (final IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    } catch (final NativeCompilationException exception) {
+                        throw new UncheckedNativeCompilationException(exception);
+                    }
+                })
+                .toList();
+        } catch (final UncheckedIOException exception) {
+            throw exception.getCause(); // Re-throw wrapped original exception.
+        } catch (final UncheckedNativeCompilationException exception) {
+            throw exception.getCause();
+        }
+        LOGGER.log(Level.INFO, "Compiled {0} of {1} translation units, reused the others from {2}.",
+            compiledCount.get(), sources.size(), cacheDirectory);
+
+        // Object files are named by their hash, so that their names identify the content of the library.
+        final var command       = linkCommand(objects);
+        final var objectNames   = objects.stream().map(Path::getFileName).toList();
+        final var linkedLibrary = libraryDirectory.resolve(hash(identity, linkCommand(objectNames), new byte[0])
+            + ".so");
+        if (!Files.exists(linkedLibrary)) {
+            run(command, null, linkedLibrary);
+        }
+        final var libraryParent = library.toAbsolutePath().getParent();
+        if (libraryParent != null) {
+            Files.createDirectories(libraryParent);
+        }
+        Files.copy(linkedLibrary, library, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * @return The absolute path of the {@link #compiler} executable, with symbolic links such as {@code cc} resolved,
+     *         followed by the exit code and the output of running it with {@code --version}.
+     *
+     * @throws IOException If the compiler cannot be run.
+     */
+    private String getCompilerIdentity() throws IOException {
+        if (compilerIdentity != null)
+            return compilerIdentity;
+
+        final var process = new ProcessBuilder(compiler, "--version").redirectErrorStream(true).start();
+        final var version = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        final int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (final InterruptedException exception) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the compiler.", exception);
+        }
+        // Compilers without a --version option are still identified by their path and their error message.
+        compilerIdentity = resolveExecutable(compiler) + '\n' + exitCode + '\n' + version;
+        return compilerIdentity;
+    }
+
+    /**
+     * @return The real path of the {@code command} if it contains a path or is found on the {@code PATH}, or the
+     *         {@code command} itself otherwise.
+     */
+    private static String resolveExecutable(final String command) throws IOException {
+        final var candidates = new ArrayList<Path>();
+        if (command.contains(File.separator) || command.contains("/")) {
+            candidates.add(Path.of(command));
+        } else {
+            final var path = Objects.requireNonNullElse(System.getenv("PATH"), "");
+            for (final var directory : path.split(Pattern.quote(File.pathSeparator))) {
+                if (!directory.isEmpty()) {
+                    candidates.add(Path.of(directory, command));
+                    candidates.add(Path.of(directory, command + ".exe"));
+                }
+            }
+        }
+        for (final var candidate : candidates) {
+            if (Files.isRegularFile(candidate) && Files.isExecutable(candidate))
+                return candidate.toRealPath().toString();
+        }
+        return command;
+    }
+
+    /**
+     * @return The command compiling a translation unit, containing placeholders for the source, the directory of the
+     *         source, and the object file, so that the command itself can be hashed.
+     */
+    private List<String> compileCommand() {
+        final var command = new ArrayList<String>();
+        command.add(compiler);
+        command.addAll(flags);
+        command.add("-I" + SOURCE_DIRECTORY_PLACEHOLDER);
+        command.add("-c");
+        command.add(SOURCE_PLACEHOLDER);
+        command.add("-o");
+        command.add(OUTPUT_PLACEHOLDER);
+        return command;
+    }
+
+    /**
+     * @return The command linking the {@code objects} into a shared library, containing a placeholder for the library.
+     */
+    private List<String> linkCommand(final List<Path> objects) {
+        final var command = new ArrayList<String>();
+        command.add(compiler);
+        command.addAll(flags);
+        command.add("-shared");
+        objects.forEach(object -> command.add(object.toString()));
+        command.add("-o");
+        command.add(OUTPUT_PLACEHOLDER);
+        return command;
+    }
+
+    /**
+     * Runs the provided command with its output redirected to a temporary file next to the {@code target}, which is
+     * then atomically moved to the {@code target}, so that concurrent runs never observe incomplete cache entries.
+     */
+    private static void run(final List<String> command, final @Nullable Path source, final Path target)
+            throws NativeCompilationException, IOException {
+        final var temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            final var resolvedCommand = command.stream()
+                .map(argument -> switch (argument) {
+                    case OUTPUT_PLACEHOLDER -> temporary.toString();
+                    case SOURCE_PLACEHOLDER -> Objects.requireNonNull(source).toAbsolutePath().toString();
+                    case "-I" + SOURCE_DIRECTORY_PLACEHOLDER ->
+                        "-I" + Objects.requireNonNull(source).toAbsolutePath().getParent();
+                    default -> argument;
+                })
+                .toList();
+            final var process = new ProcessBuilder(resolvedCommand).redirectErrorStream(true).start();
+            final var output  = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            final int exitCode;
+            try {
+                exitCode = process.waitFor();
+            } catch (final InterruptedException exception) {
+                process.destroy();
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the compiler.", exception);
+            }
+            if (exitCode != 0)
+                throw new NativeCompilationException("Command failed with exit code " + exitCode + ": "
+                    + String.join(" ", resolvedCommand), output);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @return The content of the {@code source} followed by the content of the headers next to it, which may be
+     *         included by the source.
+     */
+    private static byte[] readUnit(final Path source) throws IOException {
+        final var content = new ByteArrayOutputStream();
+        content.writeBytes(Files.readAllBytes(source));
+        try (final Stream<Path> siblings = Files.list(source.toAbsolutePath().getParent())) {
+            for (final var header : siblings.filter(path -> path.toString().endsWith(".h")).sorted().toList()) {
+                content.writeBytes(header.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+                content.writeBytes(Files.readAllBytes(header));
+            }
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * @return The hexadecimal SHA-256 hash of the {@code compilerIdentity}, the {@code command}, which contains
+     *         placeholders instead of the paths of the source and the output, and the {@code content}.
+     */
+    private static String hash(final String compilerIdentity, final List<String> command, final byte[] content) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            digest.update(compilerIdentity.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            for (final var argument : command) {
+                digest.update(argument.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            digest.update(content);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    private static final class UncheckedNativeCompilationException extends RuntimeException {
+
+        UncheckedNativeCompilationException(final NativeCompilationException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized NativeCompilationException getCause() {
+            return (NativeCompilationException) super.getCause();
+        }
+    }
+}
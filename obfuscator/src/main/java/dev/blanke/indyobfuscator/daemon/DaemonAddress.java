@@ -0,0 +1,228 @@
+package dev.blanke.indyobfuscator.daemon;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import org.jetbrains.annotations.NotNull;
+
+import picocli.CommandLine.ArgGroup;
+import picocli.CommandLine.Option;
+
+/**
+ * Encapsulates the command-line arguments shared by the {@link ObfuscationDaemon} and the {@link ObfuscationClient}
+ * which specify the local address the daemon listens on.
+ * <p>
+ * By default, the daemon listens on a Unix domain socket inside a directory only accessible by the current user, as
+ * any process able to connect to the daemon can make it read and write arbitrary files with the rights of its owner.
+ * A loopback port is only used if {@code --port} is given explicitly, in which case clients have to present the
+ * shared secret stored in the {@code --token-file}.
+ */
+public final class DaemonAddress {
+
+    @ArgGroup(exclusive = true)
+    private Transport transport;
+
+    private static final class Transport {
+
+        @Option(
+            names       = "--socket",
+            description = """
+                Path of the Unix domain socket to use. Defaults to indy-obfuscator/daemon.sock inside
+                $XDG_RUNTIME_DIR or a directory of the current user inside java.io.tmpdir.""",
+            paramLabel  = "<file>")
+        private Path socket;
+
+        @ArgGroup(exclusive = false)
+        private Tcp tcp;
+    }
+
+    private static final class Tcp {
+
+        @Option(
+            names       = "--port",
+            description = "Loopback port to use instead of a Unix domain socket. Requires --token-file.",
+            required    = true,
+            paramLabel  = "<port>")
+        private int port;
+
+        @Option(
+            names       = "--token-file",
+            description = """
+                File containing the shared secret clients have to present when connecting via --port. Should only be
+                readable by the users allowed to submit jobs.""",
+            required    = true,
+            paramLabel  = "<file>")
+        private Path tokenFile;
+    }
+
+    /**
+     * Permissions of the directory containing the default socket and of the socket itself, which prevent other users
+     * from connecting to the daemon.
+     */
+    private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions.fromString("rwx------");
+
+    private static final Set<PosixFilePermission> SOCKET_PERMISSIONS = PosixFilePermissions.fromString("rw-------");
+
+    private static final String DEFAULT_SOCKET_DIRECTORY_NAME = "indy-obfuscator";
+
+    private static final String DEFAULT_SOCKET_NAME = "daemon.sock";
+
+    public @NotNull SocketAddress getSocketAddress() {
+        if ((transport != null) && (transport.tcp != null))
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), transport.tcp.port);
+        return UnixDomainSocketAddress.of(getSocket());
+    }
+
+    private Path getSocket() {
+        if ((transport != null) && (transport.socket != null))
+            return transport.socket;
+        return getDefaultSocketDirectory().resolve(DEFAULT_SOCKET_NAME);
+    }
+
+    /**
+     * @return The per-user directory containing the default socket, which is located inside {@code $XDG_RUNTIME_DIR}
+     *         if set, or inside {@code java.io.tmpdir} otherwise.
+     */
+    private static Path getDefaultSocketDirectory() {
+        final var runtimeDirectory = System.getenv("XDG_RUNTIME_DIR");
+        if ((runtimeDirectory != null) && !runtimeDirectory.isBlank())
+            return Path.of(runtimeDirectory, DEFAULT_SOCKET_DIRECTORY_NAME);
+        return Path.of(System.getProperty("java.io.tmpdir"),
+            DEFAULT_SOCKET_DIRECTORY_NAME + "-" + System.getProperty("user.name"));
+    }
+
+    /**
+     * @return The shared secret clients have to present, which is empty for Unix domain sockets, whose access is
+     *         restricted using file permissions instead.
+     *
+     * @throws IOException If reading the {@code --token-file} fails or the file is empty.
+     */
+    byte[] getToken() throws IOException {
+        if ((transport == null) || (transport.tcp == null))
+            return new byte[0];
+        final var token = Files.readString(transport.tcp.tokenFile).strip();
+        if (token.isEmpty())
+            throw new IOException("The token file " + transport.tcp.tokenFile + " is empty.");
+        return token.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a server channel bound to the {@link #getSocketAddress()}, replacing a stale Unix domain socket left
+     * behind by a previous daemon.
+     * <p>
+     * The default socket is created inside a directory which is only accessible by the current user. Any socket is
+     * only made accessible to the current user as well, before it appears at its path.
+     *
+     * @throws IOException If binding fails, if the directory of the default socket is accessible by other users, or if
+     *                     a file other than a socket exists at the path of the socket.
+     */
+    ServerSocketChannel bind() throws IOException {
+        if ((transport != null) && (transport.tcp != null)) {
+            getToken(); // Fail early if the token cannot be read.
+            final var serverChannel = ServerSocketChannel.open(StandardProtocolFamily.INET);
+            return serverChannel.bind(getSocketAddress());
+        }
+
+        final var socket = getSocket();
+        if ((transport == null) || (transport.socket == null)) {
+            createPrivateDirectory(socket.getParent());
+        }
+        deleteStaleSocket(socket);
+        final var serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            if (isPosix()) {
+                bindPrivately(serverChannel, socket);
+            } else {
+                serverChannel.bind(getSocketAddress());
+            }
+        } catch (final IOException exception) {
+            serverChannel.close();
+            throw exception;
+        }
+        socket.toFile().deleteOnExit();
+        return serverChannel;
+    }
+
+    /**
+     * Deletes the Unix domain socket at the provided path, which has been left behind by a previous daemon, but never
+     * a regular file, directory, or symbolic link, which may have been given by mistake.
+     *
+     * @throws IOException If a file other than a socket exists at the path.
+     */
+    private static void deleteStaleSocket(final Path socket) throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(socket, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (final NoSuchFileException exception) {
+            return;
+        }
+        if (!attributes.isOther())
+            throw new IOException("The socket path " + socket + " exists and is not a socket.");
+        Files.delete(socket);
+    }
+
+    /**
+     * Binds the {@code serverChannel} to a socket inside a new private directory next to the provided {@code socket},
+     * restricts its permissions, and then moves it to the {@code socket}, so that no other user can connect to it
+     * even if the directory of the {@code socket} is shared. Moving the socket file does not affect the binding.
+     */
+    private static void bindPrivately(final ServerSocketChannel serverChannel, final Path socket) throws IOException {
+        final var directory = Files.createTempDirectory(socket.toAbsolutePath().getParent(), ".socket",
+            PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+        final var temporarySocket = directory.resolve(DEFAULT_SOCKET_NAME);
+        try {
+            serverChannel.bind(UnixDomainSocketAddress.of(temporarySocket));
+            Files.setPosixFilePermissions(temporarySocket, SOCKET_PERMISSIONS);
+            Files.move(temporarySocket, socket, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporarySocket);
+            Files.delete(directory);
+        }
+    }
+
+    /**
+     * Creates the provided {@code directory} with permissions only granting access to the current user, or ensures
+     * that an existing directory is owned by the current user and not accessible by others.
+     */
+    static void createPrivateDirectory(final Path directory) throws IOException {
+        if (!isPosix()) {
+            Files.createDirectories(directory);
+            return;
+        }
+        if (!Files.exists(directory)) {
+            Files.createDirectories(directory.getParent());
+            Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(DIRECTORY_PERMISSIONS));
+        }
+        final var owner = Files.getOwner(directory);
+        if (!owner.getName().equals(System.getProperty("user.name"))
+                || !DIRECTORY_PERMISSIONS.containsAll(Files.getPosixFilePermissions(directory))) {
+            throw new IOException("The socket directory " + directory + " must be owned by the current user and must "
+                + "not be accessible by other users.");
+        }
+    }
+
+    private static boolean isPosix() {
+        return FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+    }
+
+    SocketChannel connect() throws IOException {
+        return SocketChannel.open(getSocketAddress());
+    }
+}
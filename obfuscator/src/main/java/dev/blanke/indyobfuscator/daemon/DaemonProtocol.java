@@ -0,0 +1,186 @@
+package dev.blanke.indyobfuscator.daemon;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Implements the wire format spoken between the {@link ObfuscationClient} and the {@link ObfuscationDaemon}.
+ * <p>
+ * A client sends a token, which the daemon checks on every connection and which is empty unless the daemon listens
+ * on a loopback port, followed by a single {@link Job} consisting of its working directory and the command-line
+ * arguments for the obfuscator. The daemon answers with a sequence of frames, each consisting of a frame type byte
+ * followed by an {@code int} length and as many bytes, which mirror the output the obfuscator would have written to
+ * {@link System#out} and {@link System#err}. The response is terminated by a {@link #FRAME_EXIT} frame carrying the
+ * exit code of the job instead of a length.
+ */
+final class DaemonProtocol {
+
+    /**
+     * Frame type of output the obfuscator writes to {@link System#out}, i.e. the populated bootstrap method template.
+     */
+    static final byte FRAME_STDOUT = 1;
+
+    /**
+     * Frame type of output the obfuscator writes to {@link System#err}, i.e. log messages and errors.
+     */
+    static final byte FRAME_STDERR = 2;
+
+    /**
+     * Frame type terminating the response to a job.
+     */
+    static final byte FRAME_EXIT = 3;
+
+    // Prevent instantiation of utility class.
+    private DaemonProtocol() {
+    }
+
+    /**
+     * An obfuscation job submitted to the daemon.
+     *
+     * @param workingDirectory The working directory of the client, against which relative paths are resolved.
+     *
+     * @param arguments The command-line arguments to pass to the obfuscator.
+     */
+    record Job(Path workingDirectory, List<String> arguments) {
+
+        Job {
+            Objects.requireNonNull(workingDirectory);
+            arguments = List.copyOf(arguments);
+        }
+    }
+
+    /**
+     * The maximum length of a token accepted by {@link #readToken(DataInputStream)}, which prevents unauthenticated
+     * clients from making the daemon allocate arbitrary amounts of memory.
+     */
+    private static final int MAX_TOKEN_LENGTH = 1024;
+
+    /**
+     * The maximum number of command-line arguments of a {@link Job} accepted by {@link #readJob(DataInputStream)},
+     * which prevents clients from making the daemon allocate arbitrary amounts of memory.
+     */
+    private static final int MAX_ARGUMENT_COUNT = 4096;
+
+    static void writeToken(final DataOutputStream output, final byte[] token) throws IOException {
+        output.writeInt(token.length);
+        output.write(token);
+    }
+
+    static byte[] readToken(final DataInputStream input) throws IOException {
+        final int length = input.readInt();
+        if ((length < 0) || (length > MAX_TOKEN_LENGTH))
+            throw new IOException("Invalid token length " + length);
+        final var token = new byte[length];
+        input.readFully(token);
+        return token;
+    }
+
+    static void writeJob(final DataOutputStream output, final Job job) throws IOException {
+        output.writeUTF(job.workingDirectory().toString());
+        output.writeInt(job.arguments().size());
+        for (final var argument : job.arguments()) {
+            output.writeUTF(argument);
+        }
+        output.flush();
+    }
+
+    static Job readJob(final DataInputStream input) throws IOException {
+        final var workingDirectory = Path.of(input.readUTF());
+        final int argumentCount = input.readInt();
+        if ((argumentCount < 0) || (argumentCount > MAX_ARGUMENT_COUNT))
+            throw new IOException("Invalid argument count " + argumentCount);
+        final var arguments = new ArrayList<String>(argumentCount);
+        for (int i = 0; i < argumentCount; ++i) {
+            arguments.add(input.readUTF());
+        }
+        return new Job(workingDirectory, arguments);
+    }
+
+    static void writeExitCode(final DataOutputStream output, final int exitCode) throws IOException {
+        synchronized (output) {
+            output.writeByte(FRAME_EXIT);
+            output.writeInt(exitCode);
+            output.flush();
+        }
+    }
+
+    /**
+     * Creates a writer whose output is sent to the client as frames of the provided type.
+     * <p>
+     * Writers for different frame types may share the same {@code output} and be used concurrently.
+     */
+    static PrintWriter newFrameWriter(final DataOutputStream output, final byte frameType) {
+        return new PrintWriter(
+            new OutputStreamWriter(new FrameOutputStream(output, frameType), StandardCharsets.UTF_8), true);
+    }
+
+    /**
+     * Reads frames from the daemon, copying their payload to {@code stdout} or {@code stderr}, until the
+     * {@link #FRAME_EXIT} frame is encountered.
+     *
+     * @return The exit code of the job.
+     */
+    static int readResponse(final DataInputStream input, final OutputStream stdout, final OutputStream stderr)
+            throws IOException {
+        while (true) {
+            final byte frameType = input.readByte();
+            if (frameType == FRAME_EXIT) {
+                stdout.flush();
+                stderr.flush();
+                return input.readInt();
+            }
+
+            final var payload = new byte[input.readInt()];
+            input.readFully(payload);
+            switch (frameType) {
+                case FRAME_STDOUT -> stdout.write(payload);
+                case FRAME_STDERR -> stderr.write(payload);
+                default -> throw new IOException("Unknown frame type " + frameType);
+            }
+        }
+    }
+
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream output;
+
+        private final byte frameType;
+
+        FrameOutputStream(final DataOutputStream output, final byte frameType) {
+            this.output    = output;
+            this.frameType = frameType;
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0)
+                return;
+            synchronized (output) {
+                output.writeByte(frameType);
+                output.writeInt(len);
+                output.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (output) {
+                output.flush();
+            }
+        }
+    }
+}
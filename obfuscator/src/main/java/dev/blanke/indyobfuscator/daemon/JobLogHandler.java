@@ -0,0 +1,61 @@
+package dev.blanke.indyobfuscator.daemon;
+
+import java.io.PrintWriter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+/**
+ * A {@link Handler} which routes log records to the client of the job executed by the current thread, or to
+ * {@link System#err} of the daemon if the current thread is not executing a job.
+ * <p>
+ * Records logged by helper threads of a job, e.g. those of a parallel stream, are not attributed to the job and end up
+ * in the log of the daemon.
+ */
+final class JobLogHandler extends Handler {
+
+    private static final ThreadLocal<PrintWriter> JOB_WRITER = new ThreadLocal<>();
+
+    JobLogHandler() {
+        setFormatter(new SimpleFormatter());
+    }
+
+    /**
+     * Routes records logged by the current thread to the provided {@code writer} until {@link #detach()} is called.
+     */
+    static void attach(final PrintWriter writer) {
+        JOB_WRITER.set(writer);
+    }
+
+    static void detach() {
+        JOB_WRITER.remove();
+    }
+
+    @Override
+    public void publish(final LogRecord record) {
+        if (!isLoggable(record))
+            return;
+
+        final var message = getFormatter().format(record);
+        final var jobWriter = JOB_WRITER.get();
+        if (jobWriter != null) {
+            jobWriter.print(message);
+            jobWriter.flush();
+        } else {
+            System.err.print(message);
+        }
+    }
+
+    @Override
+    public void flush() {
+        final var jobWriter = JOB_WRITER.get();
+        if (jobWriter != null) {
+            jobWriter.flush();
+        }
+        System.err.flush();
+    }
+
+    @Override
+    public void close() {
+    }
+}
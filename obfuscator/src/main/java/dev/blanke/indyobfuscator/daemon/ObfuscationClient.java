@@ -0,0 +1,71 @@
+package dev.blanke.indyobfuscator.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Parameters;
+
+/**
+ * A thin command-line client which forwards its arguments as a job to a running {@link ObfuscationDaemon} and writes
+ * the output of the job to {@link System#out} and {@link System#err}, exiting with the exit code of the job.
+ * <p>
+ * Apart from the {@link DaemonAddress} options, the client accepts the same arguments as
+ * {@link dev.blanke.indyobfuscator.InDyObfuscator}. Relative paths are resolved against the working directory of the
+ * client.
+ */
+@Command(
+    name                     = "indy-obfuscator-client",
+    description              = "Submits an obfuscation job to a running indy-obfuscator-daemon.",
+    mixinStandardHelpOptions = true)
+public final class ObfuscationClient implements Callable<Integer> {
+
+    @Mixin
+    private DaemonAddress address = new DaemonAddress();
+
+    @Parameters(
+        description = """
+            Arguments passed on to the obfuscator, e.g. 'input.jar -o output.jar'.
+            Use '--' to separate them from the options of the client if necessary.""",
+        paramLabel  = "<argument>")
+    private List<String> arguments = new ArrayList<>();
+
+    /**
+     * The exit code used if the daemon cannot be reached.
+     */
+    private static final int EXIT_CODE_UNAVAILABLE = 4;
+
+    public static void main(final String... args) {
+        final var commandLine = new CommandLine(new ObfuscationClient())
+            // Forward everything following the first argument not meant for the client to the obfuscator.
+            .setStopAtPositional(true)
+            .setUnmatchedOptionsArePositionalParams(true);
+        System.exit(commandLine.execute(args));
+    }
+
+    @Override
+    public Integer call() {
+        final var job = new DaemonProtocol.Job(Path.of("").toAbsolutePath(), arguments);
+        try (final var channel = address.connect();
+             final var input  = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+             final var output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            DaemonProtocol.writeToken(output, address.getToken());
+            DaemonProtocol.writeJob(output, job);
+            return DaemonProtocol.readResponse(input, System.out, System.err);
+        } catch (final IOException exception) {
+            System.err.printf("Failed to submit job to daemon at %s: %s%n", address.getSocketAddress(),
+                exception.getMessage());
+            return EXIT_CODE_UNAVAILABLE;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package dev.blanke.indyobfuscator.daemon;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Mixin;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.RunLast;
+
+import dev.blanke.indyobfuscator.InDyObfuscator;
+
+/**
+ * A long-lived process which runs obfuscation jobs submitted by {@link ObfuscationClient}s inside a single JVM, so
+ * that JVM startup, class loading, and JIT compilation are only paid for once instead of once per obfuscation.
+ * <p>
+ * Each job is executed by a fresh {@link InDyObfuscator} instance which is configured using the same command-line
+ * arguments as the standalone obfuscator. Jobs run concurrently on a fixed number of threads; jobs exceeding the
+ * capacity of the job queue are rejected instead of piling up. The output of a job, i.e. the populated bootstrap
+ * method template, error messages, and log records, is streamed back to the submitting client.
+ *
+ * @see DaemonProtocol
+ */
+@Command(
+    name                     = "indy-obfuscator-daemon",
+    description              = "Runs obfuscation jobs submitted by indy-obfuscator-client inside a single JVM.",
+    mixinStandardHelpOptions = true)
+public final class ObfuscationDaemon implements Callable<Integer> {
+
+    @Mixin
+    private DaemonAddress address = new DaemonAddress();
+
+    @Option(
+        names       = { "-j", "--jobs" },
+        description = """
+            Maximum number of jobs to run concurrently.
+            Defaults to the number of available processors.""",
+        paramLabel  = "<count>")
+    private int jobs = Runtime.getRuntime().availableProcessors();
+
+    @Option(
+        names        = "--queue-capacity",
+        description  = """
+            Maximum number of jobs waiting for execution before further jobs are rejected.
+            Defaults to ${DEFAULT-VALUE}.""",
+        defaultValue = "64",
+        paramLabel   = "<count>")
+    private int queueCapacity;
+
+    /**
+     * The exit code reported to a client if the daemon cannot accept its job.
+     */
+    private static final int EXIT_CODE_REJECTED = 3;
+
+    /**
+     * The exit code reported to a client which did not present the token of the daemon.
+     */
+    private static final int EXIT_CODE_UNAUTHORIZED = 5;
+
+    private static final Logger LOGGER = System.getLogger(ObfuscationDaemon.class.getName());
+
+    public static void main(final String... args) {
+        final int exitCode = new CommandLine(new ObfuscationDaemon()).execute(args);
+        System.exit(exitCode);
+    }
+
+    /**
+     * Accepts jobs until the daemon is terminated.
+     *
+     * @return The exit code of the daemon.
+     *
+     * @throws Exception If the daemon fails to listen on the {@link DaemonAddress}.
+     */
+    @Override
+    public Integer call() throws Exception {
+        installJobLogHandler();
+
+        final var executor = new ThreadPoolExecutor(jobs, jobs, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity));
+        final var token = address.getToken();
+        try (final var serverChannel = address.bind()) {
+            LOGGER.log(Level.INFO, "Listening on {0} with {1} job slots...", serverChannel.getLocalAddress(), jobs);
+            serve(serverChannel, executor, token);
+        } finally {
+            executor.shutdown();
+        }
+        return 0;
+    }
+
+    private static void serve(final ServerSocketChannel serverChannel, final ThreadPoolExecutor executor,
+                              final byte[] token) {
+        while (!Thread.currentThread().isInterrupted()) {
+            final SocketChannel channel;
+            try {
+                channel = serverChannel.accept();
+            } catch (final IOException exception) {
+                // The channel is closed if the daemon is interrupted, otherwise the failure only affects one client.
+                if (!serverChannel.isOpen())
+                    return;
+                LOGGER.log(Level.ERROR, "Failed to accept connection.", exception);
+                continue;
+            }
+
+            try {
+                executor.execute(() -> handle(channel, token));
+            } catch (final RejectedExecutionException exception) {
+                reject(channel);
+            }
+        }
+    }
+
+    /**
+     * Reads a job from the provided {@code channel}, runs it, and streams its output back to the client, unless the
+     * client does not present the expected {@code token}.
+     */
+    private static void handle(final SocketChannel channel, final byte[] token) {
+        try (channel;
+             final var input  = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+             final var output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+            if (!MessageDigest.isEqual(token, DaemonProtocol.readToken(input))) {
+                LOGGER.log(Level.WARNING, "Rejecting job of client presenting an invalid token.");
+                DaemonProtocol.newFrameWriter(output, DaemonProtocol.FRAME_STDERR).println("Invalid token.");
+                DaemonProtocol.writeExitCode(output, EXIT_CODE_UNAUTHORIZED);
+                return;
+            }
+            final var job = DaemonProtocol.readJob(input);
+            LOGGER.log(Level.INFO, "Running job {0} in {1}...", job.arguments(), job.workingDirectory());
+
+            final var stdout = DaemonProtocol.newFrameWriter(output, DaemonProtocol.FRAME_STDOUT);
+            final var stderr = DaemonProtocol.newFrameWriter(output, DaemonProtocol.FRAME_STDERR);
+            final int exitCode;
+            JobLogHandler.attach(stderr);
+            try {
+                exitCode = run(job, stdout, stderr);
+            } finally {
+                JobLogHandler.detach();
+                stdout.flush();
+                stderr.flush();
+            }
+            DaemonProtocol.writeExitCode(output, exitCode);
+        } catch (final IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to communicate with client.", exception);
+        }
+    }
+
+    /**
+     * Runs the provided {@code job} using a fresh {@link InDyObfuscator}, resolving relative paths against the working
+     * directory of the client.
+     *
+     * @return The exit code of the job.
+     */
+    static int run(final DaemonProtocol.Job job, final PrintWriter stdout, final PrintWriter stderr) {
+        final var commandLine = new CommandLine(new InDyObfuscator(false))
+            .registerConverter(Path.class, value -> job.workingDirectory().resolve(value))
+            .setOut(stdout)
+            .setErr(stderr);
+        commandLine.setExecutionStrategy(parseResult -> {
+            // A watching job would never complete and permanently occupy one of the job slots.
+            if (parseResult.hasMatchedOption("--watch")) {
+                commandLine.getErr().println("The --watch option is not supported by the daemon.");
+                return commandLine.getCommandSpec().exitCodeOnInvalidInput();
+            }
+            return new RunLast().execute(parseResult);
+        });
+        return commandLine.execute(job.arguments().toArray(String[]::new));
+    }
+
+    /**
+     * Informs the client connected via the provided {@code channel} that its job cannot be accepted.
+     */
+    private static void reject(final SocketChannel channel) {
+        LOGGER.log(Level.WARNING, "Rejecting job as the job queue is full.");
+        try (channel; final var output = new DataOutputStream(Channels.newOutputStream(channel))) {
+            final var stderr = DaemonProtocol.newFrameWriter(output, DaemonProtocol.FRAME_STDERR);
+            stderr.println("The daemon is busy, please try again later.");
+            DaemonProtocol.writeExitCode(output, EXIT_CODE_REJECTED);
+        } catch (final IOException exception) {
+            LOGGER.log(Level.WARNING, "Failed to communicate with client.", exception);
+        }
+    }
+
+    /**
+     * Replaces the handlers of the root logger with a {@link JobLogHandler}, so that log records of jobs are sent to
+     * their clients rather than to the console of the daemon.
+     */
+    private static void installJobLogHandler() {
+        final var rootLogger = java.util.logging.Logger.getLogger("");
+        for (final var handler : rootLogger.getHandlers()) {
+            rootLogger.removeHandler(handler);
+        }
+        rootLogger.addHandler(new JobLogHandler());
+    }
+}
@@ -0,0 +1,147 @@
+package dev.blanke.indyobfuscator.filter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A {@link Predicate} matching fully qualified class names against a set of glob-like patterns, in which {@code *}
+ * matches any sequence of characters, including dots.
+ * <p>
+ * All patterns are compiled once into a single matcher: patterns of the common form {@code com.foo.*} are stored in a
+ * package trie, patterns without wildcards in a hash set, and all remaining patterns are combined into one regular
+ * expression used as fallback. Matching a class name thus no longer scales with the number of patterns for the common
+ * case.
+ */
+public final class ClassNameMatcher implements Predicate<String> {
+
+    /**
+     * A {@code ClassNameMatcher} which does not match any class name.
+     */
+    public static final ClassNameMatcher NONE = compile(List.of());
+
+    /**
+     * The root of the package trie containing the prefixes of patterns of the form {@code com.foo.*}.
+     */
+    private final PackageNode packagePrefixes;
+
+    /**
+     * Fully qualified class names which have been given as patterns without any wildcard.
+     */
+    private final Set<String> exactClassNames;
+
+    /**
+     * An alternation of all patterns which could neither be added to the {@link #packagePrefixes} nor to the
+     * {@link #exactClassNames}, or {@code null} if no such pattern exists.
+     */
+    private final @Nullable Pattern fallbackPattern;
+
+    private final boolean isEmpty;
+
+    private ClassNameMatcher(final PackageNode packagePrefixes, final Set<String> exactClassNames,
+                             final @Nullable Pattern fallbackPattern, final boolean isEmpty) {
+        this.packagePrefixes = packagePrefixes;
+        this.exactClassNames = Set.copyOf(exactClassNames);
+        this.fallbackPattern = fallbackPattern;
+        this.isEmpty         = isEmpty;
+    }
+
+    /**
+     * Compiles the provided glob-like patterns into a single {@code ClassNameMatcher}.
+     *
+     * @param patterns Patterns matching fully qualified class names, e.g. {@code dev.blanke.indyobfuscator.*}.
+     *
+     * @return A {@code ClassNameMatcher} matching a class name if at least one of the {@code patterns} matches it.
+     */
+    public static ClassNameMatcher compile(final List<String> patterns) {
+        final var packagePrefixes  = new PackageNode();
+        final var exactClassNames  = new HashSet<String>();
+        final var fallbackPatterns = new ArrayList<String>();
+        for (final var pattern : patterns) {
+            final int wildcardIndex = pattern.indexOf('*');
+            if (wildcardIndex == -1) {
+                exactClassNames.add(pattern);
+            } else if (pattern.endsWith(".*") && (wildcardIndex == (pattern.length() - 1))) {
+                packagePrefixes.add(pattern.substring(0, pattern.length() - 2));
+            } else {
+                fallbackPatterns.add(pattern);
+            }
+        }
+
+        final Pattern fallbackPattern = fallbackPatterns.isEmpty() ? null : Pattern.compile(fallbackPatterns.stream()
+            // Convert glob-like pattern to regex by quoting everything but '*' which is replaced with '.*'.
+            .map(pattern -> Pattern.quote(pattern).replace("*", "\\E.*\\Q"))
+            .collect(Collectors.joining("|")));
+        return new ClassNameMatcher(packagePrefixes, exactClassNames, fallbackPattern, patterns.isEmpty());
+    }
+
+    /**
+     * Returns whether this matcher has been compiled from an empty list of patterns.
+     *
+     * @return {@code true} if no pattern has been given, otherwise {@code false}.
+     */
+    public boolean isEmpty() {
+        return isEmpty;
+    }
+
+    /**
+     * Checks whether at least one of the patterns this matcher has been compiled from matches the provided
+     * {@code className}.
+     *
+     * @param className A fully qualified class name using dots as package separators.
+     *
+     * @return {@code true} if the {@code className} is matched, otherwise {@code false}.
+     */
+    @Override
+    public boolean test(final String className) {
+        return packagePrefixes.matches(className)
+            || exactClassNames.contains(className)
+            || ((fallbackPattern != null) && fallbackPattern.matcher(className).matches());
+    }
+
+    /**
+     * A node of the package trie representing a single segment of a package prefix.
+     */
+    private static final class PackageNode {
+
+        private final Map<String, PackageNode> children = new HashMap<>();
+
+        /**
+         * Whether a pattern ends at this node, meaning that all classes inside the package (or nested packages)
+         * represented by this node are matched.
+         */
+        private boolean terminal;
+
+        void add(final String packagePrefix) {
+            var node = this;
+            for (final var segment : packagePrefix.split("\\.")) {
+                node = node.children.computeIfAbsent(segment, key -> new PackageNode());
+            }
+            node.terminal = true;
+        }
+
+        boolean matches(final String className) {
+            var node  = this;
+            int start = 0;
+            int end;
+            // Only walk the package segments of the class name, as a prefix must be followed by at least one segment.
+            while ((end = className.indexOf('.', start)) != -1) {
+                node = node.children.get(className.substring(start, end));
+                if (node == null)
+                    return false;
+                if (node.terminal)
+                    return true;
+                start = end + 1;
+            }
+            return false;
+        }
+    }
+}
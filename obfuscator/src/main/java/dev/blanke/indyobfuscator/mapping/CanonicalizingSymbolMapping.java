@@ -0,0 +1,41 @@
+package dev.blanke.indyobfuscator.mapping;
+
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link SymbolMapping} which replaces the owner of each added {@link MethodInvocation} with the class declaring the
+ * invoked method before delegating to another {@code SymbolMapping}, which reduces the number of unique identifiers
+ * and thus the size of the bootstrap method implementation.
+ *
+ * @see DeclaringClasses
+ */
+public final class CanonicalizingSymbolMapping implements SymbolMapping {
+
+    private final SymbolMapping symbolMapping;
+
+    private final DeclaringClasses declaringClasses;
+
+    public CanonicalizingSymbolMapping(final SymbolMapping symbolMapping, final DeclaringClasses declaringClasses) {
+        this.symbolMapping    = symbolMapping;
+        this.declaringClasses = declaringClasses;
+    }
+
+    @NotNull
+    @Override
+    public Iterator<Entry<MethodInvocation, Integer>> iterator() {
+        return symbolMapping.iterator();
+    }
+
+    @Override
+    public String add(final MethodInvocation methodInvocation) {
+        return symbolMapping.add(declaringClasses.canonicalize(methodInvocation));
+    }
+
+    @Override
+    public int size() {
+        return symbolMapping.size();
+    }
+}
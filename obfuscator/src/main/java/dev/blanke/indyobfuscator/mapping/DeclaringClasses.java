@@ -0,0 +1,102 @@
+package dev.blanke.indyobfuscator.mapping;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Resolves the classes declaring the methods invoked by the obfuscated artifact, so that invocations of the same method
+ * through different subclasses can be represented by a single {@link MethodInvocation}.
+ * <p>
+ * Methods are resolved along the super class chain like the JVM does for {@code invokevirtual} and
+ * {@code invokestatic}. The owner of a {@code MethodInvocation} is only replaced if every class along the chain is part
+ * of the artifact and the declaring class as well as the method are accessible wherever the original owner was, which
+ * keeps the resolved method and access checks unchanged.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @see CanonicalizingSymbolMapping
+ */
+public final class DeclaringClasses {
+
+    /**
+     * Maps the internal names of the classes of the artifact to their super class and declared methods.
+     */
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the super class and the declared methods of the class represented by the provided {@code reader},
+     * replacing a previous registration of the same class.
+     */
+    public void register(final ClassReader reader) {
+        final var classNode = new ClassNode();
+        reader.accept(classNode, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+        final var methods = new HashMap<String, Integer>();
+        for (final var method : classNode.methods) {
+            methods.put(method.name + method.desc, method.access);
+        }
+        entries.put(classNode.name, new Entry(classNode.superName, classNode.access, Map.copyOf(methods)));
+    }
+
+    /**
+     * @return A {@link MethodInvocation} referring to the class declaring the invoked method, or the provided
+     *         {@code methodInvocation} if its owner cannot be replaced safely.
+     */
+    public MethodInvocation canonicalize(final MethodInvocation methodInvocation) {
+        final int opcode = methodInvocation.opcode();
+        if ((opcode != INVOKEVIRTUAL) && (opcode != INVOKESTATIC))
+            return methodInvocation;
+
+        final var methodKey = methodInvocation.name() + methodInvocation.descriptor();
+        var className = methodInvocation.owner();
+        var entry     = entries.get(className);
+        // Static methods of interfaces are not inherited.
+        if ((entry == null) || ((entry.access() & ACC_INTERFACE) != 0))
+            return methodInvocation;
+
+        Integer methodAccess;
+        while ((methodAccess = entry.methods().get(methodKey)) == null) {
+            if (entry.superName() == null)
+                return methodInvocation;
+            className = entry.superName();
+            entry     = entries.get(className);
+            // The method might be declared by a class which is not part of the artifact.
+            if (entry == null)
+                return methodInvocation;
+        }
+        if (className.equals(methodInvocation.owner()))
+            return methodInvocation;
+
+        final boolean isStatic = (methodAccess & ACC_STATIC) != 0;
+        if ((isStatic != (opcode == INVOKESTATIC)) || ((methodAccess & ACC_PUBLIC) == 0))
+            return methodInvocation;
+        if (((entry.access() & ACC_PUBLIC) == 0)
+                && !getPackageName(className).equals(getPackageName(methodInvocation.caller())))
+            return methodInvocation;
+
+        return new MethodInvocation(opcode, className, methodInvocation.name(), methodInvocation.descriptor(),
+            methodInvocation.caller());
+    }
+
+    private static String getPackageName(final String internalName) {
+        final int index = internalName.lastIndexOf('/');
+        return (index != -1) ? internalName.substring(0, index) : "";
+    }
+
+    /**
+     * @param superName The internal name of the super class or {@code null} for {@link Object}.
+     *
+     * @param access The access flags of the class.
+     *
+     * @param methods The access flags of the declared methods, keyed by name and descriptor.
+     */
+    private record Entry(@Nullable String superName, int access, Map<String, Integer> methods) {}
+}
@@ -0,0 +1,64 @@
+package dev.blanke.indyobfuscator.mapping;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A {@link SymbolMapping} which assigns identifiers that are only unique among the {@link MethodInvocation}s added to
+ * it, so that they can be registered with another {@code SymbolMapping} later on using {@link #register(SymbolMapping)}.
+ * <p>
+ * Obfuscating each class with its own {@code DeferredSymbolMapping} allows classes to be obfuscated in parallel while
+ * the identifiers of the shared {@code SymbolMapping} are assigned in a deterministic order, by registering the
+ * deferred mappings in the order of the classes afterward. The provisional identifiers used by the obfuscated class
+ * then have to be replaced with the ones returned by {@link #register(SymbolMapping)}.
+ */
+public final class DeferredSymbolMapping implements SymbolMapping {
+
+    /**
+     * The added method invocations, where the index of each invocation is its provisional identifier.
+     */
+    private final List<MethodInvocation> methodInvocations = new ArrayList<>();
+
+    private final Map<MethodInvocation, Integer> symbolMapping = new HashMap<>();
+
+    @NotNull
+    @Override
+    public synchronized Iterator<Entry<MethodInvocation, Integer>> iterator() {
+        final var entries = new ArrayList<Entry<MethodInvocation, Integer>>(methodInvocations.size());
+        for (int identifier = 0; identifier < methodInvocations.size(); ++identifier) {
+            entries.add(new SimpleImmutableEntry<>(methodInvocations.get(identifier), identifier));
+        }
+        return entries.iterator();
+    }
+
+    @Override
+    public synchronized String add(final MethodInvocation methodInvocation) {
+        return symbolMapping.computeIfAbsent(methodInvocation, key -> {
+            methodInvocations.add(key);
+            return methodInvocations.size() - 1;
+        }).toString();
+    }
+
+    @Override
+    public synchronized int size() {
+        return methodInvocations.size();
+    }
+
+    /**
+     * Adds the method invocations to the provided {@code symbolMapping} in the order in which they have been added to
+     * this {@code DeferredSymbolMapping}.
+     *
+     * @return The identifiers assigned by the {@code symbolMapping}, indexed by the provisional identifier of the
+     *         respective method invocation.
+     */
+    public synchronized List<String> register(final SymbolMapping symbolMapping) {
+        return methodInvocations.stream().map(symbolMapping::add).toList();
+    }
+}
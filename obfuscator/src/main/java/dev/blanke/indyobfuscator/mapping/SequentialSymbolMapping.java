@@ -1,9 +1,9 @@
 package dev.blanke.indyobfuscator.mapping;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jetbrains.annotations.NotNull;
@@ -21,7 +21,7 @@ public final class SequentialSymbolMapping implements SymbolMapping {
 
     private final AtomicInteger counter = new AtomicInteger();
 
-    private final Map<MethodInvocation, Integer> symbolMapping = new HashMap<>();
+    private final Map<MethodInvocation, Integer> symbolMapping = new ConcurrentHashMap<>();
 
     @NotNull
     @Override
@@ -33,4 +33,9 @@ public final class SequentialSymbolMapping implements SymbolMapping {
     public String add(final MethodInvocation methodInvocation) {
         return symbolMapping.computeIfAbsent(methodInvocation, key -> counter.getAndIncrement()).toString();
     }
+
+    @Override
+    public int size() {
+        return symbolMapping.size();
+    }
 }
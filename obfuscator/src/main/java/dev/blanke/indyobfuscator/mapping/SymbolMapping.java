@@ -7,6 +7,8 @@ import java.util.Map.Entry;
  * <p>
  * {@code MethodInvocation}s can be included in a {@code SymbolMapping} via {@link #add(MethodInvocation)},
  * which will cause the generation of an implementation-dependent, unique identifier.
+ * <p>
+ * Implementations must be thread-safe, as classes may be obfuscated in parallel.
  */
 public interface SymbolMapping extends Iterable<Entry<MethodInvocation, Integer>> {
 
@@ -19,4 +21,11 @@ public interface SymbolMapping extends Iterable<Entry<MethodInvocation, Integer>
      * @return A unique name for the provided {@code MethodIdentifier}.
      */
     String add(MethodInvocation methodInvocation);
+
+    /**
+     * Returns the number of {@link MethodInvocation}s stored in this {@code SymbolMapping}.
+     *
+     * @return The number of distinct {@code MethodInvocation}s which have been added.
+     */
+    int size();
 }
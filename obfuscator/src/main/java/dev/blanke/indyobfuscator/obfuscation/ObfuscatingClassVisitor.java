@@ -6,6 +6,8 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Handle;
 
 import dev.blanke.indyobfuscator.mapping.SymbolMapping;
+import dev.blanke.indyobfuscator.obfuscation.loop.LoopFilter;
+import dev.blanke.indyobfuscator.obfuscation.policy.ObfuscationPolicy;
 
 public abstract class ObfuscatingClassVisitor extends ClassVisitor {
 
@@ -15,6 +17,16 @@ public abstract class ObfuscatingClassVisitor extends ClassVisitor {
 
     protected final Handle bootstrapMethodHandle;
 
+    /**
+     * Decides which methods of the visited class should be obfuscated.
+     */
+    protected final ObfuscationPolicy policy;
+
+    /**
+     * Decides which instructions of the obfuscated methods are nested too deeply in loops to be obfuscated.
+     */
+    protected final LoopFilter loopFilter;
+
     /**
      * Minimum major version of classes to be able to use {@code invokedynamic} instructions. If a class has a lower
      * major version, it must be changed to a value greater or equal to this one.
@@ -25,11 +37,14 @@ public abstract class ObfuscatingClassVisitor extends ClassVisitor {
     private static final int MINIMUM_CLASS_VERSION = 51;
 
     protected ObfuscatingClassVisitor(final int api, final ClassVisitor classVisitor,
-                                      final SymbolMapping symbolMapping, final Handle bootstrapMethodHandle) {
+                                      final SymbolMapping symbolMapping, final Handle bootstrapMethodHandle,
+                                      final ObfuscationPolicy policy, final LoopFilter loopFilter) {
         super(api, classVisitor);
 
         this.symbolMapping         = Objects.requireNonNull(symbolMapping);
         this.bootstrapMethodHandle = Objects.requireNonNull(bootstrapMethodHandle);
+        this.policy                = Objects.requireNonNull(policy);
+        this.loopFilter            = Objects.requireNonNull(loopFilter);
     }
 
     @Override
@@ -0,0 +1,49 @@
+package dev.blanke.indyobfuscator.obfuscation;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+
+import dev.blanke.indyobfuscator.mapping.DeferredSymbolMapping;
+
+/**
+ * Replaces the provisional identifiers assigned by a {@link DeferredSymbolMapping}, which are used as the names of the
+ * {@code invokedynamic} instructions delegating to the {@link #bootstrapMethodHandle}, with the identifiers returned
+ * by {@link DeferredSymbolMapping#register(dev.blanke.indyobfuscator.mapping.SymbolMapping)}.
+ */
+public final class SymbolRenamingClassVisitor extends ClassVisitor {
+
+    private final Handle bootstrapMethodHandle;
+
+    /**
+     * The final identifiers, indexed by the provisional identifier they replace.
+     */
+    private final List<String> identifiers;
+
+    public SymbolRenamingClassVisitor(final int api, final ClassVisitor classVisitor,
+                                      final Handle bootstrapMethodHandle, final List<String> identifiers) {
+        super(api, classVisitor);
+
+        this.bootstrapMethodHandle = Objects.requireNonNull(bootstrapMethodHandle);
+        this.identifiers           = Objects.requireNonNull(identifiers);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String descriptor,
+                                     final String signature, final String[] exceptions) {
+        return new MethodVisitor(api, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+            @Override
+            public void visitInvokeDynamicInsn(final String name, final String descriptor,
+                                               final Handle bootstrapMethodHandle,
+                                               final Object... bootstrapMethodArguments) {
+                final var renamed = bootstrapMethodHandle.equals(SymbolRenamingClassVisitor.this.bootstrapMethodHandle)
+                    ? identifiers.get(Integer.parseInt(name))
+                    : name;
+                super.visitInvokeDynamicInsn(renamed, descriptor, bootstrapMethodHandle, bootstrapMethodArguments);
+            }
+        };
+    }
+}
@@ -1,15 +1,20 @@
 package dev.blanke.indyobfuscator.obfuscation.bootstrap;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
 
 import static org.objectweb.asm.Opcodes.*;
 import static org.objectweb.asm.Type.CHAR_TYPE;
+import static org.objectweb.asm.Type.getObjectType;
 import static org.objectweb.asm.Type.getType;
 import static org.objectweb.asm.commons.Method.getMethod;
 
@@ -19,9 +24,48 @@ import static org.objectweb.asm.commons.Method.getMethod;
  * <p>
  * The library loading code will be prepended to the class' static initializer {@code <clinit>}, creating the method
  * if it does not yet exist.
+ * <p>
+ * The bootstrap method is either a {@code native} method, or a Java trampoline which only calls into the native
+ * library once to obtain the invocation assigned to an identifier and performs the lookup itself, see
+ * {@link JavaBootstrapMethodTemplate#trampoline}. The native library can also be loaded on a background thread, in
+ * which case the bootstrap method is a Java method waiting for the library before calling into it. Instead of being
+ * loaded from the working directory, the native library may be embedded as a resource, which is extracted by
+ * {@link JavaBootstrapMethodTemplate#extractLibrary} before being loaded.
  */
 public final class BootstrapMethodOwnerClassVisitor extends ClinitClassVisitor {
 
+    /**
+     * The name of the native library loaded by the bootstrap method owner unless the bootstrap methods are sharded.
+     */
+    public static final String DEFAULT_LIBRARY_NAME = "bootstrap";
+
+    private static final String TRAMPOLINE_NATIVE_METHOD = "symbol";
+
+    private static final String ASYNC_NATIVE_METHOD = "nativeBootstrap";
+
+    private static final String START_LIBRARY_LOADING_METHOD = "startLibraryLoading";
+
+    private static final String LOAD_LIBRARY_NAME_METHOD = "loadLibraryName";
+
+    private static final String EXTRACT_LIBRARY_METHOD = "extractLibrary";
+
+    /**
+     * The members of the {@link JavaBootstrapMethodTemplate} used by its trampoline.
+     */
+    private static final List<String> TRAMPOLINE_MEMBERS = List.of(TRAMPOLINE_NATIVE_METHOD, "resolve");
+
+    /**
+     * The members of the {@link JavaBootstrapMethodTemplate} used to load the native library asynchronously.
+     */
+    private static final List<String> ASYNC_LIBRARY_LOADING_MEMBERS = List.of("libraryLoader", "libraryError",
+        START_LIBRARY_LOADING_METHOD, LOAD_LIBRARY_NAME_METHOD, "loadLibrary", "awaitLibrary");
+
+    /**
+     * The members of the {@link JavaBootstrapMethodTemplate} used to extract an embedded native library.
+     */
+    private static final List<String> EMBEDDED_LIBRARY_MEMBERS = List.of(EXTRACT_LIBRARY_METHOD, "writeResource",
+        "isExecutableMount");
+
     /**
      * The handle containing information about the name and descriptor of the bootstrap method added by this
      * {@code ClassVisitor}.
@@ -32,7 +76,32 @@ public final class BootstrapMethodOwnerClassVisitor extends ClinitClassVisitor {
     private final Handle bootstrapMethodHandle;
 
     /**
-     * Constructs a new {@link BootstrapMethodOwnerClassVisitor}.
+     * Whether the native library is loaded on a background thread.
+     */
+    private final boolean asyncLibraryLoading;
+
+    /**
+     * The name of the native library, which is mapped to a platform-specific file name using
+     * {@link System#mapLibraryName(String)}.
+     */
+    private final String libraryName;
+
+    /**
+     * Whether the native library is extracted from the resource {@link #getEmbeddedLibraryResource(String)} rather
+     * than being loaded from the working directory.
+     */
+    private final boolean embedLibrary;
+
+    /**
+     * The template copying the Java implementation of the bootstrap method, or {@code null} if the bootstrap method is
+     * implemented natively.
+     */
+    private final BootstrapMethodTemplate template;
+
+    private String className;
+
+    /**
+     * Constructs a new {@link BootstrapMethodOwnerClassVisitor} adding a {@code native} bootstrap method.
      *
      * @param classVisitor The {@link ClassVisitor} to which this visitor must delegate method calls.
      *                     May be {@code null}.
@@ -43,9 +112,100 @@ public final class BootstrapMethodOwnerClassVisitor extends ClinitClassVisitor {
      */
     public BootstrapMethodOwnerClassVisitor(final int api, final ClassVisitor classVisitor,
                                             final Handle bootstrapMethodHandle) {
+        this(api, classVisitor, bootstrapMethodHandle, false, false, DEFAULT_LIBRARY_NAME, false);
+    }
+
+    /**
+     * Constructs a new {@link BootstrapMethodOwnerClassVisitor}.
+     *
+     * @param classVisitor The {@link ClassVisitor} to which this visitor must delegate method calls.
+     *                     May be {@code null}.
+     *
+     * @param bootstrapMethodHandle The {@link Handle} describing the bootstrap method which is intended to be created
+     *                              inside the visited class. If a method with the same name and descriptor already
+     *                              exists, a {@link BootstrapMethodConflictException} is thrown.
+     *
+     * @param trampoline Whether the bootstrap method should be a Java trampoline calling the native method
+     *                   {@link #getTrampolineNativeMethodName(String)} instead of being {@code native} itself.
+     *
+     * @param asyncLibraryLoading Whether the static initializer should only start loading the native library on a
+     *                            background thread, in which case the bootstrap method waits for the library to be
+     *                            loaded before calling into it. Unless {@code trampoline} is set, the bootstrap method
+     *                            then calls the native method {@link #getNativeBootstrapMethodName(String, boolean)}.
+     *
+     * @param libraryName The name of the native library, e.g. {@link #DEFAULT_LIBRARY_NAME}.
+     *
+     * @param embedLibrary Whether the native library is extracted from the resource
+     *                     {@link #getEmbeddedLibraryResource(String)} to a cache directory before being loaded instead
+     *                     of being loaded from the working directory.
+     */
+    public BootstrapMethodOwnerClassVisitor(final int api, final ClassVisitor classVisitor,
+                                            final Handle bootstrapMethodHandle, final boolean trampoline,
+                                            final boolean asyncLibraryLoading, final String libraryName,
+                                            final boolean embedLibrary) {
         super(api, classVisitor);
 
         this.bootstrapMethodHandle = Objects.requireNonNull(bootstrapMethodHandle);
+        this.asyncLibraryLoading   = asyncLibraryLoading;
+        this.libraryName           = Objects.requireNonNull(libraryName);
+        this.embedLibrary          = embedLibrary;
+
+        final var members = new ArrayList<String>();
+        if (embedLibrary) {
+            members.addAll(EMBEDDED_LIBRARY_MEMBERS);
+        }
+        if (trampoline) {
+            members.addAll(TRAMPOLINE_MEMBERS);
+        }
+        if (asyncLibraryLoading) {
+            members.addAll(ASYNC_LIBRARY_LOADING_MEMBERS);
+            // The asynchronous entry points delegate to the trampoline or the native bootstrap method.
+            members.add(trampoline ? "trampoline" : ASYNC_NATIVE_METHOD);
+        }
+        final String entryPoint;
+        if (trampoline) {
+            entryPoint = asyncLibraryLoading ? "asyncTrampoline" : "trampoline";
+        } else {
+            entryPoint = asyncLibraryLoading ? "asyncBootstrap" : null;
+        }
+        // The template members used by a native bootstrap method are copied without an entry point.
+        this.template = ((entryPoint != null) || !members.isEmpty())
+            ? new BootstrapMethodTemplate(bootstrapMethodHandle, entryPoint, members)
+            : null;
+    }
+
+    /**
+     * @return The absolute name of the resource from which the native library called {@code libraryName} is extracted
+     *         if it is embedded, e.g. {@code /META-INF/indy-obfuscator/libbootstrap.so}.
+     */
+    public static String getEmbeddedLibraryResource(final String libraryName) {
+        return "/META-INF/indy-obfuscator/" + System.mapLibraryName(libraryName);
+    }
+
+    /**
+     * @return The name of the {@code native} method implementing the bootstrap method with the provided name, which is
+     *         the bootstrap method itself unless the native library is loaded asynchronously.
+     */
+    public static String getNativeBootstrapMethodName(final String bootstrapMethodName,
+                                                      final boolean asyncLibraryLoading) {
+        return asyncLibraryLoading
+            ? BootstrapMethodTemplate.getMemberName(bootstrapMethodName, ASYNC_NATIVE_METHOD)
+            : bootstrapMethodName;
+    }
+
+    /**
+     * @return The name of the {@code native} method called by the trampoline of the bootstrap method with the provided
+     *         name, which has to be implemented by the native library.
+     */
+    public static String getTrampolineNativeMethodName(final String bootstrapMethodName) {
+        return BootstrapMethodTemplate.getMemberName(bootstrapMethodName, TRAMPOLINE_NATIVE_METHOD);
+    }
+
+    @Override
+    public void visit(final int version, final int access, final String name, final String signature,
+                      final String superName, final String[] interfaces) {
+        className = name;
+        super.visit(version, access, name, signature, superName, interfaces);
     }
 
     @Override
@@ -56,7 +216,8 @@ public final class BootstrapMethodOwnerClassVisitor extends ClinitClassVisitor {
          * to the class, in which case we throw an exception and inform the user to choose a different name for the
          * bootstrap method.
          */
-        if (name.equals(bootstrapMethodHandle.getName()) && descriptor.equals(bootstrapMethodHandle.getDesc())) {
+        if ((name.equals(bootstrapMethodHandle.getName()) && descriptor.equals(bootstrapMethodHandle.getDesc()))
+                || ((template != null) && template.isConflicting(name))) {
             throw new BootstrapMethodConflictException();
         }
         return super.visitMethod(access, name, descriptor, signature, exceptions);
@@ -71,6 +232,27 @@ public final class BootstrapMethodOwnerClassVisitor extends ClinitClassVisitor {
 
     @Override
     public void visitEnd() {
+        if (template != null) {
+            final var loadLibraryName = BootstrapMethodTemplate.getMemberName(bootstrapMethodHandle.getName(),
+                "loadLibrary");
+            template.copy(cv, className, Map.of(LOAD_LIBRARY_NAME_METHOD, methodVisitor -> {
+                methodVisitor.visitCode();
+                methodVisitor.visitLdcInsn(loadLibraryName);
+                methodVisitor.visitInsn(ARETURN);
+                methodVisitor.visitMaxs(1, 0);
+                methodVisitor.visitEnd();
+            }));
+            if (!template.hasEntryPoint()) {
+                visitNativeBootstrapMethod();
+            }
+            super.visitEnd();
+            return;
+        }
+        visitNativeBootstrapMethod();
+        super.visitEnd();
+    }
+
+    private void visitNativeBootstrapMethod() {
         /*
          * Create the public, static, native, and synthetic bootstrap method. No additional post-processing needs to be
          * done to the returned MethodVisitor, as the created method is simply a stub on the Java side, due to being a
@@ -78,7 +260,6 @@ public final class BootstrapMethodOwnerClassVisitor extends ClinitClassVisitor {
          */
         super.visitMethod((ACC_PUBLIC | ACC_STATIC | ACC_NATIVE | ACC_SYNTHETIC),
             bootstrapMethodHandle.getName(), bootstrapMethodHandle.getDesc(), null, null);
-        super.visitEnd();
     }
 
     private final class ClinitMethodVisitor extends GeneratorAdapter {
@@ -92,6 +273,16 @@ public final class BootstrapMethodOwnerClassVisitor extends ClinitClassVisitor {
         public void visitCode() {
             super.visitCode();
 
+            if (embedLibrary) {
+                // Extract the embedded library and pass its path to System.load or the method starting the loading.
+                visitLdcInsn(getEmbeddedLibraryResource(libraryName));
+                invokeStatic(getObjectType(className), new Method(
+                    BootstrapMethodTemplate.getMemberName(bootstrapMethodHandle.getName(), EXTRACT_LIBRARY_METHOD),
+                    "(Ljava/lang/String;)Ljava/lang/String;"));
+                visitLoadLibrary();
+                return;
+            }
+
             // Create and initialize a StringBuilder.
             newInstance(getType(StringBuilder.class));
             dup();
@@ -107,13 +298,23 @@ public final class BootstrapMethodOwnerClassVisitor extends ClinitClassVisitor {
             invokeVirtual(getType(StringBuilder.class), getMethod("java.lang.StringBuilder append (char)"));
 
             // Append the platform-specific library name retrieved from System.mapLibraryName to the StringBuilder.
-            visitLdcInsn("bootstrap"); // Name of the library to load. TODO: Consider making this configurable.
+            visitLdcInsn(libraryName);
             invokeStatic(getType(System.class),         getMethod("java.lang.String mapLibraryName(java.lang.String)"));
             invokeVirtual(getType(StringBuilder.class), getMethod("java.lang.StringBuilder append(java.lang.String)"));
 
-            // Invoke the StringBuilder.toString() method and pass the result to System.load.
+            // Invoke the StringBuilder.toString() method and pass the result to System.load or to the method starting
+            // the background thread which calls System.load.
             invokeVirtual(getType(StringBuilder.class), getMethod("java.lang.String toString()"));
-            invokeStatic(getType(System.class),         getMethod("void load(java.lang.String)"));
+            visitLoadLibrary();
+        }
+
+        private void visitLoadLibrary() {
+            if (asyncLibraryLoading) {
+                invokeStatic(getObjectType(className), new Method(BootstrapMethodTemplate.getMemberName(
+                    bootstrapMethodHandle.getName(), START_LIBRARY_LOADING_METHOD), "(Ljava/lang/String;)V"));
+            } else {
+                invokeStatic(getType(System.class), getMethod("void load(java.lang.String)"));
+            }
         }
 
         @Override
@@ -0,0 +1,88 @@
+package dev.blanke.indyobfuscator.obfuscation.bootstrap;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.asm.Handle;
+
+import dev.blanke.indyobfuscator.mapping.SequentialSymbolMapping;
+import dev.blanke.indyobfuscator.mapping.SymbolMapping;
+
+import static org.objectweb.asm.Opcodes.H_INVOKESTATIC;
+
+/**
+ * Partitions the obfuscated method invocations by the package of the class containing them, so that each package has
+ * its own bootstrap method owner, {@link SymbolMapping}, and native library.
+ * <p>
+ * The owner of each shard is a class generated inside the package, which is only initialized, and thus only loads its
+ * library, once the first call site of the package is bootstrapped. Startup cost and resident memory then depend on the
+ * packages which are actually used rather than on the whole artifact.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class BootstrapMethodShards {
+
+    /**
+     * The simple name of the bootstrap method owner generated inside each package.
+     */
+    static final String OWNER_SIMPLE_NAME = "BootstrapShard";
+
+    /**
+     * @param name The name of the shard, which is unique among all shards and is also the name of its native library,
+     *             e.g. {@code bootstrap_com_example}.
+     *
+     * @param bootstrapMethodHandle The bootstrap method to which the {@code invokedynamic} instructions of the shard
+     *                              delegate.
+     *
+     * @param symbolMapping The method invocations of the shard along with their identifiers, which are only unique
+     *                      within the shard.
+     */
+    public record Shard(String name, Handle bootstrapMethodHandle, SymbolMapping symbolMapping) {
+    }
+
+    private static final String LIBRARY_NAME = BootstrapMethodOwnerClassVisitor.DEFAULT_LIBRARY_NAME;
+
+    private final String bootstrapMethodName;
+
+    private final String bootstrapMethodDescriptor;
+
+    private final Map<String, Shard> shards = new ConcurrentHashMap<>();
+
+    public BootstrapMethodShards(final String bootstrapMethodName, final String bootstrapMethodDescriptor) {
+        this.bootstrapMethodName       = bootstrapMethodName;
+        this.bootstrapMethodDescriptor = bootstrapMethodDescriptor;
+    }
+
+    /**
+     * @param className The internal name of a class whose method invocations are obfuscated.
+     *
+     * @return The shard of the package containing the class, which is created on first use.
+     */
+    public Shard forClass(final String className) {
+        final int separator = className.lastIndexOf('/');
+        final var packageName = (separator != -1) ? className.substring(0, separator) : "";
+        return shards.computeIfAbsent(packageName, key -> new Shard(
+            key.isEmpty() ? LIBRARY_NAME : (LIBRARY_NAME + '_' + escape(key)),
+            new Handle(H_INVOKESTATIC, key.isEmpty() ? OWNER_SIMPLE_NAME : (key + '/' + OWNER_SIMPLE_NAME),
+                bootstrapMethodName, bootstrapMethodDescriptor, false),
+            new SequentialSymbolMapping()));
+    }
+
+    /**
+     * Escapes the provided package name like JNI escapes class names in the names of native methods, i.e. underscores
+     * become {@code _1} and slashes become underscores. As package names consist of Java identifiers, which cannot
+     * start with a digit, no two packages share an escaped name.
+     */
+    private static String escape(final String packageName) {
+        return packageName.replace("_", "_1").replace('/', '_');
+    }
+
+    /**
+     * @return The shards created so far, ordered by their names.
+     */
+    public List<Shard> getShards() {
+        return shards.values().stream().sorted(Comparator.comparing(Shard::name)).toList();
+    }
+}
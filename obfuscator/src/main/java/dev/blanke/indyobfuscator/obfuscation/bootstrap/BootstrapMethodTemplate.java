@@ -0,0 +1,158 @@
+package dev.blanke.indyobfuscator.obfuscation.bootstrap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.MethodRemapper;
+import org.objectweb.asm.commons.SimpleRemapper;
+import org.objectweb.asm.tree.ClassNode;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Copies an entry point of the {@link JavaBootstrapMethodTemplate} along with the members it uses into a bootstrap
+ * method owner. The entry point is renamed to the name of the bootstrap method, while the names of the other members
+ * are prefixed with it, see {@link #getMemberName(String, String)}.
+ */
+final class BootstrapMethodTemplate {
+
+    private static final String TEMPLATE_NAME = Type.getInternalName(JavaBootstrapMethodTemplate.class);
+
+    /**
+     * Holds the template, which is only read on first use.
+     */
+    private static final class TemplateHolder {
+
+        private static final ClassNode TEMPLATE;
+
+        static {
+            try (final var templateStream = Objects.requireNonNull(JavaBootstrapMethodTemplate.class
+                    .getResourceAsStream(JavaBootstrapMethodTemplate.class.getSimpleName() + ".class"))) {
+                TEMPLATE = new ClassNode();
+                // Line numbers and local variable names would refer to the template.
+                new ClassReader(templateStream).accept(TEMPLATE, ClassReader.SKIP_DEBUG);
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    private final String entryPoint;
+
+    /**
+     * Maps the names of the copied template members to the names of the members added to the bootstrap method owner.
+     */
+    private final Map<String, String> memberNames = new LinkedHashMap<>();
+
+    /**
+     * @param bootstrapMethodHandle The {@link Handle} describing the bootstrap method implemented by the copied members.
+     *
+     * @param entryPoint The name of the template method implementing the bootstrap method, or {@code null} if only
+     *                   the {@code members} are copied, e.g. because the bootstrap method is {@code native}.
+     *
+     * @param members The names of the template fields and methods used by the {@code entryPoint}.
+     */
+    BootstrapMethodTemplate(final Handle bootstrapMethodHandle, final String entryPoint, final List<String> members) {
+        this.entryPoint = entryPoint;
+
+        if (entryPoint != null) {
+            final var entryPointMethod = TemplateHolder.TEMPLATE.methods.stream()
+                .filter(method -> method.name.equals(entryPoint))
+                .findFirst()
+                .orElseThrow();
+            if (!entryPointMethod.desc.equals(bootstrapMethodHandle.getDesc()))
+                throw new IllegalArgumentException("Unsupported bootstrap method descriptor.");
+
+            memberNames.put(entryPoint, bootstrapMethodHandle.getName());
+        }
+        for (final var member : members) {
+            memberNames.put(member, getMemberName(bootstrapMethodHandle.getName(), member));
+        }
+    }
+
+    /**
+     * @return The name of the {@code member} of the template inside a bootstrap method owner whose bootstrap method is
+     *         called {@code bootstrapMethodName}, e.g. {@code bootstrap$symbol}.
+     */
+    static String getMemberName(final String bootstrapMethodName, final String member) {
+        return bootstrapMethodName + '$' + member;
+    }
+
+    /**
+     * @return Whether the bootstrap method is implemented by a copied template method.
+     */
+    boolean hasEntryPoint() {
+        return entryPoint != null;
+    }
+
+    /**
+     * @return Whether a member called {@code name} conflicts with one of the members added by {@link #copy}.
+     */
+    boolean isConflicting(final String name) {
+        return memberNames.containsValue(name);
+    }
+
+    /**
+     * Adds the copied members to the class {@code className} by visiting them with the provided
+     * {@code classVisitor}.
+     *
+     * @param classVisitor The visitor receiving the members, which may be {@code null}.
+     *
+     * @param generatedMethods The methods whose bodies are generated by the mapped visitor consumers rather than being
+     *                         copied from the template.
+     */
+    void copy(final ClassVisitor classVisitor, final String className,
+              final Map<String, Consumer<MethodVisitor>> generatedMethods) {
+        if (classVisitor == null)
+            return;
+
+        final var template = TemplateHolder.TEMPLATE;
+        final var mapping = new HashMap<String, String>();
+        mapping.put(TEMPLATE_NAME, className);
+        for (final var method : template.methods) {
+            if (memberNames.containsKey(method.name)) {
+                mapping.put(TEMPLATE_NAME + '.' + method.name + method.desc, memberNames.get(method.name));
+            }
+        }
+        for (final var field : template.fields) {
+            if (memberNames.containsKey(field.name)) {
+                mapping.put(TEMPLATE_NAME + '.' + field.name, memberNames.get(field.name));
+            }
+        }
+        final var remapper = new SimpleRemapper(mapping);
+
+        for (final var field : template.fields) {
+            if (memberNames.containsKey(field.name)) {
+                final var fieldVisitor = classVisitor.visitField((field.access & ~(ACC_PUBLIC | ACC_PROTECTED))
+                    | ACC_PRIVATE | ACC_SYNTHETIC, memberNames.get(field.name), field.desc, null, null);
+                fieldVisitor.visitEnd();
+            }
+        }
+        for (final var method : template.methods) {
+            if (!memberNames.containsKey(method.name))
+                continue;
+            final int access = method.name.equals(entryPoint)
+                ? (ACC_PUBLIC  | ACC_STATIC | ACC_SYNTHETIC)
+                : (ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC | (method.access & ACC_NATIVE));
+            final var methodVisitor =
+                classVisitor.visitMethod(access, memberNames.get(method.name), method.desc, null, null);
+            final var generator = generatedMethods.get(method.name);
+            if (generator != null) {
+                generator.accept(methodVisitor);
+            } else {
+                method.accept(new MethodRemapper(methodVisitor, remapper));
+            }
+        }
+    }
+}
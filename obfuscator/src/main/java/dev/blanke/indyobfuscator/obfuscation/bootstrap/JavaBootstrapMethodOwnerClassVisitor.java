@@ -0,0 +1,184 @@
+package dev.blanke.indyobfuscator.obfuscation.bootstrap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import dev.blanke.indyobfuscator.mapping.SymbolMapping;
+import dev.blanke.indyobfuscator.template.SymbolTable;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Denotes a {@link ClassVisitor} that adds a bootstrap method implemented in Java to the class being visited, so that
+ * neither a native library nor any JNI transition is required to bootstrap the obfuscated call sites.
+ * <p>
+ * The {@code bootstrap} method of the {@link JavaBootstrapMethodTemplate} is copied into the visited class along with
+ * its helper members by a {@link BootstrapMethodTemplate}. The lookup table describing the obfuscated method invocations
+ * is encoded into string constants, so that the names of the invoked methods do not appear in plain text inside the
+ * constant pool.
+ */
+public final class JavaBootstrapMethodOwnerClassVisitor extends ClassVisitor {
+
+    private static final String ENCODED_TABLE_METHOD_NAME = "encodedTable";
+
+    private static final String KEY_METHOD_NAME = "key";
+
+    /**
+     * The members of the {@link JavaBootstrapMethodTemplate} used by its {@code bootstrap} method.
+     */
+    private static final List<String> TEMPLATE_MEMBERS =
+        List.of("table", ENCODED_TABLE_METHOD_NAME, KEY_METHOD_NAME, "decode", "readInt", "readString", "resolve");
+
+    /**
+     * The maximum number of characters per string constant, which are each encoded in at most two bytes of modified
+     * UTF-8, as string constants are limited to 65535 bytes.
+     */
+    private static final int MAX_CHUNK_LENGTH = 32767;
+
+    private final BootstrapMethodTemplate template;
+
+    private final SymbolMapping symbolMapping;
+
+    private String className;
+
+    /**
+     * @param bootstrapMethodHandle The {@link Handle} describing the bootstrap method which is intended to be created
+     *                              inside the visited class. If a member with the same name as the bootstrap method or
+     *                              one of its helper members already exists, a
+     *                              {@link BootstrapMethodConflictException} is thrown.
+     *
+     * @param symbolMapping The mapping whose method invocations are resolved by the bootstrap method. Must be complete,
+     *                      as it is encoded into the visited class.
+     */
+    public JavaBootstrapMethodOwnerClassVisitor(final int api, final ClassVisitor classVisitor,
+                                                final Handle bootstrapMethodHandle,
+                                                final SymbolMapping symbolMapping) {
+        super(api, classVisitor);
+
+        this.template      = new BootstrapMethodTemplate(Objects.requireNonNull(bootstrapMethodHandle), "bootstrap",
+            TEMPLATE_MEMBERS);
+        this.symbolMapping = Objects.requireNonNull(symbolMapping);
+    }
+
+    @Override
+    public void visit(final int version, final int access, final String name, final String signature,
+                      final String superName, final String[] interfaces) {
+        className = name;
+        super.visit(version, access, name, signature, superName, interfaces);
+    }
+
+    @Override
+    public FieldVisitor visitField(final int access, final String name, final String descriptor,
+                                   final String signature, final Object value) {
+        if (template.isConflicting(name))
+            throw new BootstrapMethodConflictException();
+        return super.visitField(access, name, descriptor, signature, value);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(final int access, final String name, final String descriptor,
+                                     final String signature, final String[] exceptions) {
+        if (template.isConflicting(name))
+            throw new BootstrapMethodConflictException();
+        return super.visitMethod(access, name, descriptor, signature, exceptions);
+    }
+
+    @Override
+    public void visitEnd() {
+        final var table = createTable(symbolMapping);
+        final int key   = deriveKey(table);
+        template.copy(cv, className, Map.of(
+            ENCODED_TABLE_METHOD_NAME, methodVisitor -> visitEncodedTable(methodVisitor, encode(table, key)),
+            KEY_METHOD_NAME,           methodVisitor -> visitKey(methodVisitor, key)));
+        super.visitEnd();
+    }
+
+    /**
+     * Generates a method returning the {@code encodedTable}, which is split into multiple string constants if needed.
+     */
+    private static void visitEncodedTable(final MethodVisitor methodVisitor, final String encodedTable) {
+        methodVisitor.visitCode();
+        if (encodedTable.length() <= MAX_CHUNK_LENGTH) {
+            methodVisitor.visitLdcInsn(encodedTable);
+        } else {
+            final var stringBuilder = Type.getInternalName(StringBuilder.class);
+            methodVisitor.visitTypeInsn(NEW, stringBuilder);
+            methodVisitor.visitInsn(DUP);
+            methodVisitor.visitLdcInsn(encodedTable.length());
+            methodVisitor.visitMethodInsn(INVOKESPECIAL, stringBuilder, "<init>", "(I)V", false);
+            for (int offset = 0; offset < encodedTable.length(); offset += MAX_CHUNK_LENGTH) {
+                methodVisitor.visitLdcInsn(
+                    encodedTable.substring(offset, Math.min(offset + MAX_CHUNK_LENGTH, encodedTable.length())));
+                methodVisitor.visitMethodInsn(INVOKEVIRTUAL, stringBuilder, "append",
+                    "(Ljava/lang/String;)Ljava/lang/StringBuilder;", false);
+            }
+            methodVisitor.visitMethodInsn(INVOKEVIRTUAL, stringBuilder, "toString", "()Ljava/lang/String;", false);
+        }
+        methodVisitor.visitInsn(ARETURN);
+        methodVisitor.visitMaxs(3, 0);
+        methodVisitor.visitEnd();
+    }
+
+    private static void visitKey(final MethodVisitor methodVisitor, final int key) {
+        methodVisitor.visitCode();
+        methodVisitor.visitLdcInsn(key);
+        methodVisitor.visitInsn(IRETURN);
+        methodVisitor.visitMaxs(1, 0);
+        methodVisitor.visitEnd();
+    }
+
+    /**
+     * Creates the table in the format described by {@link JavaBootstrapMethodTemplate} from the {@link SymbolTable}
+     * of the provided {@code symbolMapping}.
+     */
+    static byte[] createTable(final SymbolMapping symbolMapping) {
+        final var symbolTable = SymbolTable.of(symbolMapping, false);
+        final var bytes = new ByteArrayOutputStream(
+            4 + (symbolTable.getSize() * JavaBootstrapMethodTemplate.ENTRY_SIZE) + symbolTable.getStringPoolLength());
+        try (final var output = new DataOutputStream(bytes)) {
+            output.writeInt(symbolTable.getSize());
+            for (final var entry : symbolTable.getEntries()) {
+                // Unassigned identifiers have an invalid opcode.
+                output.writeInt((entry != null) ? entry.opcode() : 0);
+                output.writeInt((entry != null) ? entry.owner()  : 0);
+                output.writeInt((entry != null) ? entry.name()   : 0);
+                output.writeInt((entry != null) ? entry.caller() : -1);
+            }
+            output.write(symbolTable.getStringPool());
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception); // Not thrown by ByteArrayOutputStream.
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return A key depending on the content of the {@code table}, so that the output is reproducible.
+     */
+    private static int deriveKey(final byte[] table) {
+        return Arrays.hashCode(table) & 0xFF;
+    }
+
+    /**
+     * Encodes the {@code table} into a string containing one character in the range {@code 0-255} per byte, each
+     * byte being XOR-ed with {@code (key + offset) & 0xFF}.
+     */
+    static String encode(final byte[] table, final int key) {
+        final var encodedTable = new char[table.length];
+        for (int offset = 0; offset < table.length; ++offset) {
+            encodedTable[offset] = (char) ((table[offset] ^ (key + offset)) & 0xFF);
+        }
+        return new String(encodedTable);
+    }
+}
@@ -0,0 +1,409 @@
+package dev.blanke.indyobfuscator.obfuscation.bootstrap;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * The Java implementations of the bootstrap method, whose members are copied into the bootstrap method owner by the
+ * {@link BootstrapMethodTemplate}. The {@link JavaBootstrapMethodOwnerClassVisitor} copies {@link #bootstrap} and
+ * generates the bodies of {@link #encodedTable()} and {@link #key()}, while the
+ * {@link BootstrapMethodOwnerClassVisitor} copies the {@link #trampoline} as well as {@link #asyncBootstrap} and
+ * {@link #asyncTrampoline}, which load the native library asynchronously, and {@link #extractLibrary}, if they are
+ * requested.
+ * <p>
+ * The table consists of the number of identifiers, followed by the opcode and the offsets of the owner, name, and
+ * caller inside the string pool for each identifier, followed by the string pool itself, as laid out by the
+ * {@link dev.blanke.indyobfuscator.template.SymbolTable}. All integers are stored in big-endian byte order.
+ * <p>
+ * As the bytecode of this class is copied into classes of arbitrary versions, only APIs available in Java 8 may be
+ * used. Language features compiled to {@code invokedynamic} instructions or relying on nest-based access, such as
+ * string concatenation, lambdas, and nested classes, must be avoided.
+ */
+final class JavaBootstrapMethodTemplate {
+
+    /**
+     * The number of bytes making up an entry of the table.
+     */
+    static final int ENTRY_SIZE = 16;
+
+    /**
+     * The decoded table, which is only decoded on first use.
+     */
+    private static volatile byte[] table;
+
+    /**
+     * The thread loading the native library, if it is loaded asynchronously.
+     */
+    private static volatile Thread libraryLoader;
+
+    /**
+     * The error thrown while loading the native library asynchronously.
+     */
+    private static volatile Throwable libraryError;
+
+    private JavaBootstrapMethodTemplate() {
+    }
+
+    /**
+     * The bootstrap method of the {@link dev.blanke.indyobfuscator.Arguments.BootstrapBackend#JAVA} backend, which
+     * looks the invoked identifier up in the decoded table.
+     */
+    public static CallSite bootstrap(final MethodHandles.Lookup lookup, final String invokedName,
+                                     final MethodType invokedType) throws ReflectiveOperationException {
+        byte[] table = JavaBootstrapMethodTemplate.table;
+        if (table == null) {
+            // Decoding concurrently is harmless, as the result is always the same.
+            table = decode(encodedTable(), key());
+            JavaBootstrapMethodTemplate.table = table;
+        }
+        final int poolOffset  = 4 + (readInt(table, 0) * ENTRY_SIZE);
+        final int entryOffset = 4 + (Integer.parseInt(invokedName) * ENTRY_SIZE);
+        if (entryOffset >= poolOffset)
+            throw new IllegalArgumentException(invokedName);
+
+        final int callerOffset = readInt(table, entryOffset + 12);
+        return resolve(lookup, invokedName, invokedType, readInt(table, entryOffset),
+            readString(table, poolOffset + readInt(table, entryOffset + 4)),
+            readString(table, poolOffset + readInt(table, entryOffset + 8)),
+            (callerOffset != -1) ? readString(table, poolOffset + callerOffset) : null);
+    }
+
+    /**
+     * The bootstrap method of the {@link dev.blanke.indyobfuscator.Arguments.BootstrapMethodLayout#TRAMPOLINE} layout,
+     * which obtains the invocation from the native library by calling {@link #symbol(int)} exactly once and performs
+     * the lookup in Java, instead of the native library calling back into Java for each step of the lookup.
+     */
+    public static CallSite trampoline(final MethodHandles.Lookup lookup, final String invokedName,
+                                      final MethodType invokedType) throws ReflectiveOperationException {
+        final String symbol = symbol(Integer.parseInt(invokedName));
+        if (symbol == null)
+            throw new IllegalArgumentException(invokedName);
+
+        final int opcodeEnd = symbol.indexOf(';');
+        final int ownerEnd  = symbol.indexOf(';', opcodeEnd + 1);
+        final int nameEnd   = symbol.indexOf(';', ownerEnd  + 1);
+        return resolve(lookup, invokedName, invokedType, Integer.parseInt(symbol.substring(0, opcodeEnd)),
+            symbol.substring(opcodeEnd + 1, ownerEnd), symbol.substring(ownerEnd + 1, nameEnd),
+            (nameEnd + 1 < symbol.length()) ? symbol.substring(nameEnd + 1) : null);
+    }
+
+    /**
+     * The bootstrap method if the native library is loaded asynchronously, which waits for the library to be loaded
+     * and then calls the native implementation of the bootstrap method.
+     */
+    public static CallSite asyncBootstrap(final MethodHandles.Lookup lookup, final String invokedName,
+                                          final MethodType invokedType) {
+        awaitLibrary();
+        return nativeBootstrap(lookup, invokedName, invokedType);
+    }
+
+    /**
+     * The {@link #trampoline} if the native library is loaded asynchronously.
+     */
+    public static CallSite asyncTrampoline(final MethodHandles.Lookup lookup, final String invokedName,
+                                           final MethodType invokedType) throws ReflectiveOperationException {
+        awaitLibrary();
+        return trampoline(lookup, invokedName, invokedType);
+    }
+
+    /**
+     * Implemented by the native library if it is loaded asynchronously, in which case the native library registers
+     * this method in its {@code JNI_OnLoad} function.
+     */
+    private static native CallSite nativeBootstrap(MethodHandles.Lookup lookup, String invokedName,
+                                                   MethodType invokedType);
+
+    /**
+     * Starts loading the native library at the provided {@code path} on a background thread. Called by the static
+     * initializer of the bootstrap method owner.
+     * <p>
+     * As nested classes and lambda expressions cannot be copied, the {@link Runnable} executed by the thread is created
+     * by calling the {@link LambdaMetafactory} like the {@code invokedynamic} instruction of a lambda expression would.
+     * The library is loaded synchronously if the thread cannot be started.
+     */
+    private static void startLibraryLoading(final String path) {
+        final Thread thread;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            final MethodType loadType = MethodType.methodType(void.class, String.class);
+            final Runnable runnable = (Runnable) LambdaMetafactory.metafactory(lookup, "run",
+                    MethodType.methodType(Runnable.class, String.class), MethodType.methodType(void.class),
+                    lookup.findStatic(lookup.lookupClass(), loadLibraryName(), loadType),
+                    MethodType.methodType(void.class))
+                .getTarget()
+                .invoke(path);
+            thread = new Thread(runnable, "bootstrap-library-loader");
+            thread.setDaemon(true);
+            libraryLoader = thread;
+            thread.start();
+        } catch (final Throwable throwable) {
+            libraryLoader = null;
+            System.load(path);
+        }
+    }
+
+    /**
+     * @return The name of {@link #loadLibrary(String)} inside the bootstrap method owner.
+     */
+    private static String loadLibraryName() {
+        return "";
+    }
+
+    private static void loadLibrary(final String path) {
+        try {
+            System.load(path);
+        } catch (final Throwable throwable) {
+            libraryError = throwable;
+        }
+    }
+
+    /**
+     * Extracts the native library embedded as the provided {@code resource} to a per-user cache directory, unless an
+     * earlier start has already extracted it, and returns the path of the extracted library. Called by the static
+     * initializer of the bootstrap method owner.
+     * <p>
+     * The resource is accompanied by a resource with the suffix {@code .sha256} containing the hash and the size of
+     * the library. The hash names the directory of the library inside the cache, so that checking for an earlier
+     * extraction only requires comparing the size of the file. If the cache directory cannot be written, e.g. because
+     * the file system is read-only, the library is extracted to a temporary file inside the memory-backed
+     * {@code /dev/shm} instead, or inside the temporary directory if {@code /dev/shm} is mounted {@code noexec}.
+     *
+     * @throws IOException If the resources are missing, the {@code .sha256} resource is malformed, or the library
+     *                     cannot be extracted.
+     */
+    private static String extractLibrary(final String resource) throws IOException {
+        final Class<?> owner = MethodHandles.lookup().lookupClass();
+        final String metadata;
+        try (InputStream metadataStream = owner.getResourceAsStream(resource.concat(".sha256"))) {
+            if (metadataStream == null)
+                throw new FileNotFoundException(resource.concat(".sha256"));
+            final String line = new BufferedReader(new InputStreamReader(metadataStream, "UTF-8")).readLine();
+            metadata = (line != null) ? line.trim() : "";
+        }
+        final int separator = metadata.indexOf(' ');
+        if (separator <= 0)
+            throw new IOException("Malformed hash and size of the embedded library: ".concat(resource));
+        final String hash = metadata.substring(0, separator);
+        final long size;
+        try {
+            size = Long.parseLong(metadata.substring(separator + 1));
+        } catch (final NumberFormatException exception) {
+            throw new IOException("Malformed hash and size of the embedded library: ".concat(resource), exception);
+        }
+        final String fileName = resource.substring(resource.lastIndexOf('/') + 1);
+
+        final String cacheHome = System.getenv("XDG_CACHE_HOME");
+        final File cacheDirectory = ((cacheHome != null) && !cacheHome.isEmpty())
+            ? new File(cacheHome)
+            : new File(System.getProperty("user.home"), ".cache");
+        final File extractedDirectory = new File(new File(cacheDirectory, "indy-obfuscator"), "extracted");
+        final File library = new File(new File(extractedDirectory, hash), fileName);
+        if (library.length() == size)
+            return library.getPath();
+        try {
+            final File directory = library.getParentFile();
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory())
+                throw new IOException(directory.getPath());
+            final File temporaryLibrary = File.createTempFile(fileName, ".tmp", directory);
+            try {
+                writeResource(owner, resource, temporaryLibrary);
+                Files.move(temporaryLibrary.toPath(), library.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (final IOException exception) {
+                // Another process may have extracted the library concurrently.
+                if (library.length() != size)
+                    throw exception;
+            } finally {
+                temporaryLibrary.delete();
+            }
+            return library.getPath();
+        } catch (final IOException | SecurityException exception) {
+            File directory = new File("/dev/shm");
+            if (!directory.isDirectory() || !directory.canWrite() || !isExecutableMount(directory.getPath())) {
+                directory = new File(System.getProperty("java.io.tmpdir"));
+            }
+            // A temporary file with a random name, as the directory may be writable by other users.
+            final File temporaryLibrary = File.createTempFile(hash, fileName, directory);
+            temporaryLibrary.deleteOnExit();
+            writeResource(owner, resource, temporaryLibrary);
+            return temporaryLibrary.getPath();
+        }
+    }
+
+    /**
+     * @return Whether {@code /proc/self/mounts} lists a file system mounted at the provided {@code path} without the
+     *         {@code noexec} option, as libraries cannot be loaded from file systems mounted with it.
+     */
+    private static boolean isExecutableMount(final String path) {
+        boolean executable = false;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream("/proc/self/mounts"), "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // Each line consists of the device, the mount point, the type, and the options. Later lines take
+                // precedence, as they mount over earlier ones.
+                final String[] fields = line.split(" ");
+                if ((fields.length > 3) && fields[1].equals(path)) {
+                    executable = !Arrays.asList(fields[3].split(",")).contains("noexec");
+                }
+            }
+        } catch (final IOException | SecurityException exception) {
+            return false;
+        }
+        return executable;
+    }
+
+    private static void writeResource(final Class<?> owner, final String resource, final File file)
+            throws IOException {
+        try (InputStream input = owner.getResourceAsStream(resource);
+             OutputStream output = new FileOutputStream(file)) {
+            if (input == null)
+                throw new FileNotFoundException(resource);
+            final byte[] buffer = new byte[1 << 16];
+            int length;
+            while ((length = input.read(buffer)) != -1) {
+                output.write(buffer, 0, length);
+            }
+        }
+    }
+
+    /**
+     * Waits until the native library has been loaded, rethrowing the error thrown while loading it, if any.
+     */
+    private static void awaitLibrary() {
+        final Thread loader = libraryLoader;
+        if (loader == null)
+            return;
+
+        boolean interrupted = false;
+        while (loader.isAlive()) {
+            try {
+                loader.join();
+            } catch (final InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        final Throwable error = libraryError;
+        if (error instanceof Error)
+            throw (Error) error;
+        if (error != null)
+            throw new IllegalStateException(error);
+    }
+
+    /**
+     * Implemented by the native library generated from the {@code TRAMPOLINE} layout.
+     *
+     * @return The invocation assigned to the provided {@code id} in the form {@code opcode;owner;name;caller}, where
+     *         the caller is empty unless the opcode is {@code INVOKESPECIAL}, or {@code null} if the {@code id} is not
+     *         assigned. A semicolon cannot be part of internal names and unqualified names.
+     */
+    private static native String symbol(int id);
+
+    /**
+     * Creates a {@link ConstantCallSite} for the invocation of {@code name} on the class {@code ownerName} using the
+     * instruction given by the {@code opcode}.
+     */
+    private static CallSite resolve(final MethodHandles.Lookup lookup, final String invokedName,
+                                    final MethodType invokedType, final int opcode, final String ownerName,
+                                    final String name, final String callerName) throws ReflectiveOperationException {
+        final ClassLoader loader = lookup.lookupClass().getClassLoader();
+        final Class<?> owner = Class.forName(ownerName.replace('/', '.'), false, loader);
+
+        final MethodHandle methodHandle;
+        switch (opcode) {
+            case INVOKEVIRTUAL:
+            case INVOKEINTERFACE:
+                // Drop the receiver parameter and adapt to the receiver type of the call site, which differs from the
+                // owner if the owner has been replaced by the declaring class of the method.
+                methodHandle = lookup.findVirtual(owner, name, invokedType.dropParameterTypes(0, 1))
+                    .asType(invokedType);
+                break;
+            case INVOKESPECIAL:
+                final Class<?> caller = Class.forName(callerName.replace('/', '.'), false, loader);
+                methodHandle = lookup.findSpecial(owner, name, invokedType.dropParameterTypes(0, 1), caller);
+                break;
+            case INVOKESTATIC:
+                methodHandle = lookup.findStatic(owner, name, invokedType);
+                break;
+            case GETFIELD:
+                methodHandle = lookup.findGetter(owner, name, invokedType.returnType());
+                break;
+            case GETSTATIC:
+                methodHandle = lookup.findStaticGetter(owner, name, invokedType.returnType());
+                break;
+            case PUTFIELD:
+                methodHandle = lookup.findSetter(owner, name, invokedType.parameterType(1));
+                break;
+            case PUTSTATIC:
+                methodHandle = lookup.findStaticSetter(owner, name, invokedType.parameterType(0));
+                break;
+            default:
+                throw new IllegalArgumentException(invokedName);
+        }
+        return new ConstantCallSite(methodHandle);
+    }
+
+    /**
+     * @return The encoded table, in which each character represents a single byte.
+     */
+    private static String encodedTable() {
+        return "";
+    }
+
+    /**
+     * @return The key with which the table has been encoded.
+     */
+    private static int key() {
+        return 0;
+    }
+
+    private static byte[] decode(final String encodedTable, final int key) {
+        final byte[] table = new byte[encodedTable.length()];
+        for (int index = 0; index < table.length; ++index) {
+            table[index] = (byte) (encodedTable.charAt(index) ^ (key + index));
+        }
+        return table;
+    }
+
+    private static int readInt(final byte[] table, final int offset) {
+        return ((table[offset] & 0xFF) << 24) | ((table[offset + 1] & 0xFF) << 16)
+            | ((table[offset + 2] & 0xFF) << 8) | (table[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Reads the {@code NUL}-terminated string in modified UTF-8 starting at the provided {@code offset}.
+     */
+    private static String readString(final byte[] table, int offset) {
+        final StringBuilder builder = new StringBuilder();
+        int value;
+        while ((value = table[offset++] & 0xFF) != 0) {
+            if (value >= 0xE0) {
+                value = ((value & 0x0F) << 12) | ((table[offset++] & 0x3F) << 6) | (table[offset++] & 0x3F);
+            } else if (value >= 0xC0) {
+                value = ((value & 0x1F) << 6) | (table[offset++] & 0x3F);
+            }
+            builder.append((char) value);
+        }
+        return builder.toString();
+    }
+}
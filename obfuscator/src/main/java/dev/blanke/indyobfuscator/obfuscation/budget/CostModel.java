@@ -0,0 +1,61 @@
+package dev.blanke.indyobfuscator.obfuscation.budget;
+
+import java.io.PrintWriter;
+
+/**
+ * Estimates the runtime cost of obfuscating a call site from static features only, in the absence of a runtime
+ * profile.
+ * <p>
+ * Costs are expressed in units of one execution of a direct method invocation. The execution frequency of a call
+ * site is estimated as {@value #LOOP_FREQUENCY} to the power of its loop nesting depth. The one-time cost of invoking
+ * the bootstrap method is not part of the model, as it only affects startup.
+ * <p>
+ * All weights are defined here and written to the header of the decision table, so that the decisions can be
+ * reproduced.
+ */
+final class CostModel {
+
+    /**
+     * The estimated number of iterations of a loop.
+     */
+    static final double LOOP_FREQUENCY = 10;
+
+    /**
+     * Methods with at most this many instructions are likely to be inlined into their callers, so an obfuscated call
+     * site in such a method is weighted by {@link #SMALL_METHOD_FACTOR}.
+     */
+    static final int SMALL_METHOD_INSTRUCTIONS = 15;
+
+    static final double SMALL_METHOD_FACTOR = 2;
+
+    // Prevent instantiation of utility class.
+    private CostModel() {
+    }
+
+    /**
+     * @return The estimated number of executions of an instruction with the provided loop nesting depth relative to an
+     *         instruction outside any loop.
+     */
+    static double frequency(final int loopDepth) {
+        return Math.pow(LOOP_FREQUENCY, loopDepth);
+    }
+
+    /**
+     * @return The estimated increase of call overhead caused by obfuscating a call site with the provided features.
+     */
+    static double overhead(final int loopDepth, final int methodSize, final TargetKind targetKind) {
+        final double sizeFactor = (methodSize <= SMALL_METHOD_INSTRUCTIONS) ? SMALL_METHOD_FACTOR : 1;
+        return frequency(loopDepth) * targetKind.getPenalty() * sizeFactor;
+    }
+
+    /**
+     * Writes the parameters of the model as comment lines.
+     */
+    static void writeParameters(final PrintWriter writer) {
+        writer.printf("# loop frequency: %s%n", LOOP_FREQUENCY);
+        writer.printf("# small method: <= %d instructions, factor %s%n", SMALL_METHOD_INSTRUCTIONS, SMALL_METHOD_FACTOR);
+        for (final var targetKind : TargetKind.values()) {
+            writer.printf("# penalty %s: %s%n", targetKind, targetKind.getPenalty());
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package dev.blanke.indyobfuscator.obfuscation.budget;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.util.Printer;
+
+import dev.blanke.indyobfuscator.obfuscation.exclusion.CallSiteExclusions;
+import dev.blanke.indyobfuscator.obfuscation.exclusion.IntrinsicCatalogue;
+import dev.blanke.indyobfuscator.obfuscation.exclusion.TrivialMethods;
+import dev.blanke.indyobfuscator.obfuscation.loop.LoopAnalysis;
+import dev.blanke.indyobfuscator.obfuscation.policy.ObfuscationPolicy;
+
+/**
+ * Selects the method invocations to obfuscate such that the estimated increase of call overhead stays within a
+ * percentage of the estimated call overhead of each class as well as of the whole artifact, while obfuscating as many
+ * call sites as possible.
+ * <p>
+ * The call sites of all classes are {@link #register registered} before any class is obfuscated. {@link #plan()} then
+ * selects call sites in the order of ascending {@link CostModel#overhead estimated overhead} as long as both budgets
+ * permit, which maximizes the number of obfuscated call sites. Classes registered after planning, e.g. in watch mode,
+ * are planned on their own against their per-class budget only.
+ * <p>
+ * Only invocations present in the original class files are subject to the budget. Field instructions and the
+ * invocations of synthetic field accessors are obfuscated according to {@code --field-obfuscation-mode} as before.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class OverheadBudget {
+
+    /**
+     * The maximum estimated overhead increase in percent of the estimated call overhead.
+     */
+    private final double percentage;
+
+    private final IntrinsicCatalogue intrinsicCatalogue;
+
+    private final TrivialMethods trivialMethods;
+
+    private final Map<String, ClassCallSites> classCallSites = new ConcurrentHashMap<>();
+
+    private final Map<String, ClassBudget> classBudgets = new ConcurrentHashMap<>();
+
+    private volatile boolean planned;
+
+    /**
+     * @param percentage The maximum estimated overhead increase in percent, e.g. {@code 2}.
+     *
+     * @param intrinsicCatalogue The catalogue used to recognize invocations of intrinsic candidates.
+     *
+     * @param trivialMethods The trivial methods of the artifact, which have to be complete before {@link #register}
+     *                       is called.
+     */
+    public OverheadBudget(final double percentage, final IntrinsicCatalogue intrinsicCatalogue,
+                          final TrivialMethods trivialMethods) {
+        this.percentage         = percentage;
+        this.intrinsicCatalogue = intrinsicCatalogue;
+        this.trivialMethods     = trivialMethods;
+    }
+
+    /**
+     * Registers the method invocations of the class represented by the provided {@code reader}, replacing a previous
+     * registration of the same class.
+     *
+     * @param reader The reader of the original class file.
+     *
+     * @param policy The policy of the class. Only invocations inside obfuscated methods are candidates.
+     *
+     * @param exclusions The call site exclusions, whose excluded invocations are not candidates.
+     *
+     * @param maxLoopDepth The maximum loop nesting depth of candidates.
+     */
+    public void register(final ClassReader reader, final ObfuscationPolicy policy,
+                         final CallSiteExclusions exclusions, final int maxLoopDepth) {
+        final var classNode = new ClassNode();
+        reader.accept(classNode, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+        double baseline = 0;
+        final var callSites = new ArrayList<CallSite>();
+        for (final var method : classNode.methods) {
+            final var depths     = LoopAnalysis.computeLoopDepths(method.instructions);
+            final var methodKey  = method.name + method.desc;
+            final var methodSize = (int) Arrays.stream(method.instructions.toArray())
+                .filter(instruction -> instruction.getOpcode() != -1)
+                .count();
+            final var shouldObfuscate = policy.shouldObfuscate(method.name, method.desc);
+
+            final var occurrences = new HashMap<String, Integer>();
+            for (int index = 0; index < depths.length; ++index) {
+                final var instruction = method.instructions.get(index);
+                if (instruction instanceof InvokeDynamicInsnNode) {
+                    baseline += CostModel.frequency(depths[index]);
+                }
+                if (!(instruction instanceof MethodInsnNode invocation))
+                    continue;
+                baseline += CostModel.frequency(depths[index]);
+
+                // Constructors and methods of arrays are never obfuscated, see MethodInsnObfuscatingClassVisitor.
+                if (!shouldObfuscate || invocation.name.equals("<init>") || invocation.owner.startsWith("["))
+                    continue;
+
+                final var target     = getTargetKey(invocation.owner, invocation.name, invocation.desc);
+                final int occurrence = occurrences.merge(target, 1, Integer::sum) - 1;
+                final var targetKind = getTargetKind(invocation);
+
+                String exclusion = null;
+                final var exclusionReason = exclusions.getExclusionReason(invocation.owner, invocation.name,
+                    invocation.desc);
+                if (exclusionReason != null) {
+                    exclusion = exclusionReason.name();
+                } else if (depths[index] > maxLoopDepth) {
+                    exclusion = "LOOP_DEPTH";
+                }
+                callSites.add(new CallSite(classNode.name, methodKey, target, occurrence, invocation.getOpcode(),
+                    depths[index], methodSize, targetKind,
+                    CostModel.overhead(depths[index], methodSize, targetKind), exclusion));
+            }
+        }
+
+        final var registeredCallSites = new ClassCallSites(baseline, callSites);
+        classCallSites.put(classNode.name, registeredCallSites);
+        if (planned) {
+            synchronized (this) {
+                select(List.of(registeredCallSites), Double.POSITIVE_INFINITY);
+                classBudgets.put(classNode.name, registeredCallSites.toClassBudget());
+            }
+        }
+    }
+
+    /**
+     * Selects the call sites to obfuscate among all registered classes.
+     */
+    public synchronized void plan() {
+        final var allCallSites = List.copyOf(classCallSites.values());
+        select(allCallSites, getGlobalBaseline() * percentage / 100);
+        classCallSites.forEach((className, callSites) -> classBudgets.put(className, callSites.toClassBudget()));
+        planned = true;
+    }
+
+    /**
+     * Selects call sites in the order of ascending overhead while both the per-class budgets and the global budget
+     * permit.
+     */
+    private void select(final List<ClassCallSites> classes, final double globalBudget) {
+        final var candidates = new ArrayList<CallSite>();
+        final var classSpending = new HashMap<String, Double>();
+        final var classLimits   = new HashMap<String, Double>();
+        for (final var callSites : classes) {
+            for (final var callSite : callSites.callSites()) {
+                callSite.decision = (callSite.exclusion != null) ? Decision.EXCLUDED : Decision.OVER_BUDGET;
+                if (callSite.exclusion == null) {
+                    candidates.add(callSite);
+                    classLimits.put(callSite.className, callSites.baseline() * percentage / 100);
+                }
+            }
+        }
+        // Break ties deterministically so that the decisions are reproducible.
+        candidates.sort(Comparator.comparingDouble((CallSite callSite) -> callSite.overhead)
+            .thenComparing(callSite -> callSite.className)
+            .thenComparing(callSite -> callSite.method)
+            .thenComparing(callSite -> callSite.target)
+            .thenComparingInt(callSite -> callSite.occurrence));
+
+        double globalSpending = 0;
+        for (final var callSite : candidates) {
+            final double spending = classSpending.getOrDefault(callSite.className, 0.0) + callSite.overhead;
+            if ((spending <= classLimits.get(callSite.className))
+                    && (globalSpending + callSite.overhead <= globalBudget)) {
+                callSite.decision = Decision.OBFUSCATE;
+                classSpending.put(callSite.className, spending);
+                globalSpending += callSite.overhead;
+            }
+        }
+    }
+
+    /**
+     * @return The budget of the class with the provided internal name, which obfuscates all call sites if the class
+     *         has not been registered.
+     */
+    public ClassBudget forClass(final String className) {
+        return classBudgets.getOrDefault(className, ClassBudget.UNLIMITED);
+    }
+
+    /**
+     * @return A single line summarizing the planned decisions.
+     */
+    public synchronized String summary() {
+        long candidates = 0;
+        long obfuscated = 0;
+        double spending = 0;
+        for (final var callSites : classCallSites.values()) {
+            for (final var callSite : callSites.callSites()) {
+                if (callSite.decision == Decision.EXCLUDED)
+                    continue;
+                ++candidates;
+                if (callSite.decision == Decision.OBFUSCATE) {
+                    ++obfuscated;
+                    spending += callSite.overhead;
+                }
+            }
+        }
+        final double baseline = getGlobalBaseline();
+        return String.format("Obfuscating %d of %d candidate call sites with an estimated overhead of %.2f%% "
+            + "(budget: %s%%).", obfuscated, candidates, (baseline > 0) ? spending * 100 / baseline : 0, percentage);
+    }
+
+    /**
+     * Writes the decision for every registered call site as tab-separated values, preceded by comment lines containing
+     * the budget and the parameters of the {@link CostModel}.
+     */
+    public synchronized void writeDecisionTable(final Writer writer) {
+        final var printWriter = new PrintWriter(writer);
+        printWriter.printf("# overhead budget: %s%%%n", percentage);
+        CostModel.writeParameters(printWriter);
+        printWriter.println(String.join("\t", "class", "method", "target", "occurrence", "opcode", "loop depth",
+            "method size", "target kind", "overhead", "decision", "exclusion"));
+
+        classCallSites.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .flatMap(entry -> entry.getValue().callSites().stream())
+            .forEachOrdered(callSite -> printWriter.printf("%s\t%s\t%s\t%d\t%s\t%d\t%d\t%s\t%.4f\t%s\t%s%n",
+                callSite.className.replace('/', '.'), callSite.method, callSite.target, callSite.occurrence,
+                Printer.OPCODES[callSite.opcode].toLowerCase(), callSite.loopDepth, callSite.methodSize,
+                callSite.targetKind, callSite.overhead, callSite.decision,
+                (callSite.exclusion != null) ? callSite.exclusion : ""));
+        printWriter.flush();
+    }
+
+    private double getGlobalBaseline() {
+        return classCallSites.values().stream().mapToDouble(ClassCallSites::baseline).sum();
+    }
+
+    private TargetKind getTargetKind(final MethodInsnNode invocation) {
+        if (intrinsicCatalogue.contains(invocation.owner, invocation.name, invocation.desc))
+            return TargetKind.INTRINSIC;
+        if (trivialMethods.get(invocation.owner, invocation.name, invocation.desc) != null)
+            return TargetKind.TRIVIAL;
+        return TargetKind.of(invocation.getOpcode());
+    }
+
+    private static String getTargetKey(final String owner, final String name, final String descriptor) {
+        return owner.replace('/', '.') + '.' + name + descriptor;
+    }
+
+    private enum Decision {
+        OBFUSCATE,
+        OVER_BUDGET,
+        EXCLUDED
+    }
+
+    /**
+     * A method invocation inside an obfuscated method, identified by the invoking method, the invoked method, and the
+     * number of preceding invocations of the same method inside the invoking method.
+     */
+    private static final class CallSite {
+
+        private final String className;
+
+        private final String method;
+
+        private final String target;
+
+        private final int occurrence;
+
+        private final int opcode;
+
+        private final int loopDepth;
+
+        private final int methodSize;
+
+        private final TargetKind targetKind;
+
+        private final double overhead;
+
+        /**
+         * The reason for which the call site is not obfuscated regardless of the budget, or {@code null}.
+         */
+        private final @Nullable String exclusion;
+
+        private Decision decision = Decision.OVER_BUDGET;
+
+        CallSite(final String className, final String method, final String target, final int occurrence,
+                 final int opcode, final int loopDepth, final int methodSize, final TargetKind targetKind,
+                 final double overhead, final @Nullable String exclusion) {
+            this.className  = className;
+            this.method     = method;
+            this.target     = target;
+            this.occurrence = occurrence;
+            this.opcode     = opcode;
+            this.loopDepth  = loopDepth;
+            this.methodSize = methodSize;
+            this.targetKind = targetKind;
+            this.overhead   = overhead;
+            this.exclusion  = exclusion;
+        }
+    }
+
+    /**
+     * The call sites of a single class along with its estimated call overhead.
+     */
+    private record ClassCallSites(double baseline, List<CallSite> callSites) {
+
+        ClassBudget toClassBudget() {
+            final var selectedOccurrences = new HashMap<String, Map<String, BitSet>>();
+            for (final var callSite : callSites) {
+                final var occurrences = selectedOccurrences
+                    .computeIfAbsent(callSite.method, method -> new HashMap<>())
+                    .computeIfAbsent(callSite.target, target -> new BitSet());
+                occurrences.set(callSite.occurrence, callSite.decision == Decision.OBFUSCATE);
+            }
+            return new ClassBudget(selectedOccurrences);
+        }
+    }
+
+    /**
+     * The planned decisions for the method invocations of a single class.
+     */
+    public static final class ClassBudget {
+
+        /**
+         * A budget obfuscating all call sites.
+         */
+        public static final ClassBudget UNLIMITED = new ClassBudget(Map.of());
+
+        /**
+         * The selected occurrences of each invoked method per invoking method.
+         */
+        private final Map<String, Map<String, BitSet>> selectedOccurrences;
+
+        private ClassBudget(final Map<String, Map<String, BitSet>> selectedOccurrences) {
+            this.selectedOccurrences = selectedOccurrences;
+        }
+
+        /**
+         * Creates the budget for the invocations of the method with the provided name and descriptor, which has to be
+         * queried in the order in which the invocations are visited.
+         */
+        public MethodBudget forMethod(final String name, final String descriptor) {
+            return new MethodBudget(selectedOccurrences.getOrDefault(name + descriptor, Map.of()));
+        }
+    }
+
+    /**
+     * The planned decisions for the method invocations of a single method.
+     */
+    public static final class MethodBudget {
+
+        private final Map<String, BitSet> selectedOccurrences;
+
+        private final Map<String, Integer> occurrences = new HashMap<>();
+
+        private MethodBudget(final Map<String, BitSet> selectedOccurrences) {
+            this.selectedOccurrences = selectedOccurrences;
+        }
+
+        /**
+         * Must be called once for every invocation of a method other than a constructor or a method of an array.
+         *
+         * @return Whether the next invocation of the method with the provided owner, name, and descriptor fits into the
+         *         budget. Invocations which have not been planned, e.g. of synthetic field accessors, always fit.
+         */
+        public boolean isNextInvocationSelected(final String owner, final String name, final String descriptor) {
+            final var target = getTargetKey(owner, name, descriptor);
+            final var selected = selectedOccurrences.get(target);
+            if (selected == null)
+                return true;
+            return selected.get(occurrences.merge(target, 1, Integer::sum) - 1);
+        }
+    }
+}
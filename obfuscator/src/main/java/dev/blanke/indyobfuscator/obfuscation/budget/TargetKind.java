@@ -0,0 +1,52 @@
+package dev.blanke.indyobfuscator.obfuscation.budget;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * The kind of method invoked by a call site, which determines how much more expensive the call site becomes when it
+ * is obfuscated.
+ *
+ * @see CostModel
+ */
+enum TargetKind {
+
+    /**
+     * The invoked method is intrinsified by the JIT compiler, which an {@code invokedynamic} call site prevents.
+     */
+    INTRINSIC(5),
+
+    /**
+     * The invoked method is a trivial getter, setter, or constant return, which would otherwise be inlined.
+     */
+    TRIVIAL(1),
+
+    /**
+     * The invoked method is dispatched virtually. The call site loses the type profile used for devirtualization.
+     */
+    VIRTUAL(0.1),
+
+    /**
+     * The invoked method is resolved statically, so the linked call site can be inlined almost like a direct call.
+     */
+    STATIC(0.05);
+
+    /**
+     * The additional cost of an execution of an obfuscated call site in units of a direct invocation.
+     */
+    private final double penalty;
+
+    TargetKind(final double penalty) {
+        this.penalty = penalty;
+    }
+
+    double getPenalty() {
+        return penalty;
+    }
+
+    /**
+     * @return The kind of an ordinary method invoked using the provided opcode.
+     */
+    static TargetKind of(final int opcode) {
+        return ((opcode == INVOKEVIRTUAL) || (opcode == INVOKEINTERFACE)) ? VIRTUAL : STATIC;
+    }
+}
@@ -0,0 +1,69 @@
+package dev.blanke.indyobfuscator.obfuscation.exclusion;
+
+import java.util.Objects;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Decides which method invocations should be left un-obfuscated despite being part of an obfuscated method, because
+ * routing them through the bootstrap method would likely prevent optimizations by the JIT compiler.
+ * <p>
+ * Every exclusion is recorded in an {@link ExclusionReport}.
+ *
+ * @see dev.blanke.indyobfuscator.obfuscation.method.MethodInsnObfuscatingClassVisitor
+ */
+public final class CallSiteExclusions {
+
+    /**
+     * Excludes no call sites at all.
+     */
+    public static final CallSiteExclusions NONE = new CallSiteExclusions(null, null, new ExclusionReport());
+
+    private final @Nullable IntrinsicCatalogue intrinsicCatalogue;
+
+    private final @Nullable TrivialMethods trivialMethods;
+
+    private final ExclusionReport report;
+
+    /**
+     * @param intrinsicCatalogue The catalogue of intrinsic candidates, or {@code null} if calls to intrinsic candidates
+     *                           should be obfuscated.
+     *
+     * @param trivialMethods The trivial methods of the obfuscated artifact, or {@code null} if calls to trivial methods
+     *                       should be obfuscated.
+     *
+     * @param report The report in which excluded call sites are recorded.
+     */
+    public CallSiteExclusions(final @Nullable IntrinsicCatalogue intrinsicCatalogue,
+                              final @Nullable TrivialMethods     trivialMethods,
+                              final ExclusionReport              report) {
+        this.intrinsicCatalogue = intrinsicCatalogue;
+        this.trivialMethods     = trivialMethods;
+        this.report             = Objects.requireNonNull(report);
+    }
+
+    /**
+     * Checks whether the invocation of the method with the provided owner, name, and descriptor should be left
+     * un-obfuscated, recording the call site in the {@link ExclusionReport} if so.
+     */
+    public boolean isExcluded(final String owner, final String name, final String descriptor) {
+        final var reason = getExclusionReason(owner, name, descriptor);
+        if (reason == null)
+            return false;
+        report.record(reason, owner, name, descriptor);
+        return true;
+    }
+
+    /**
+     * Determines why the invocation of the method with the provided owner, name, and descriptor should be left
+     * un-obfuscated without recording it in the {@link ExclusionReport}.
+     *
+     * @return The reason for the exclusion, or {@code null} if the invocation should be obfuscated.
+     */
+    public @Nullable ExclusionReason getExclusionReason(final String owner, final String name,
+                                                        final String descriptor) {
+        if ((intrinsicCatalogue != null) && intrinsicCatalogue.contains(owner, name, descriptor))
+            return ExclusionReason.INTRINSIC;
+        return (trivialMethods != null) ? trivialMethods.get(owner, name, descriptor) : null;
+    }
+}
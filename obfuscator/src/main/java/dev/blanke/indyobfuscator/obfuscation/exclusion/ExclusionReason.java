@@ -0,0 +1,27 @@
+package dev.blanke.indyobfuscator.obfuscation.exclusion;
+
+/**
+ * The reason for which a method invocation has been left un-obfuscated by the {@link CallSiteExclusions}.
+ */
+public enum ExclusionReason {
+
+    /**
+     * The invoked method is contained in the {@link IntrinsicCatalogue}.
+     */
+    INTRINSIC,
+
+    /**
+     * The invoked method only returns the value of a field.
+     */
+    TRIVIAL_GETTER,
+
+    /**
+     * The invoked method only assigns its argument to a field.
+     */
+    TRIVIAL_SETTER,
+
+    /**
+     * The invoked method only returns a constant.
+     */
+    CONSTANT_RETURN
+}
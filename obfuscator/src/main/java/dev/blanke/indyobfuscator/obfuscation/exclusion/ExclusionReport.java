@@ -0,0 +1,67 @@
+package dev.blanke.indyobfuscator.obfuscation.exclusion;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the call sites which have been left un-obfuscated by the {@link CallSiteExclusions}, grouped by invoked method
+ * and {@link ExclusionReason}.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class ExclusionReport {
+
+    private record Target(ExclusionReason reason, String owner, String name, String descriptor) {}
+
+    private final Map<Target, LongAdder> callSiteCounts = new ConcurrentHashMap<>();
+
+    void record(final ExclusionReason reason, final String owner, final String name, final String descriptor) {
+        callSiteCounts.computeIfAbsent(new Target(reason, owner, name, descriptor), target -> new LongAdder())
+            .increment();
+    }
+
+    public boolean isEmpty() {
+        return callSiteCounts.isEmpty();
+    }
+
+    /**
+     * @return The number of excluded call sites per {@link ExclusionReason}.
+     */
+    public Map<ExclusionReason, Long> countByReason() {
+        final var counts = new EnumMap<ExclusionReason, Long>(ExclusionReason.class);
+        callSiteCounts.forEach((target, count) -> counts.merge(target.reason(), count.sum(), Long::sum));
+        return counts;
+    }
+
+    /**
+     * @return A single line summarizing the number of excluded call sites per {@link ExclusionReason}.
+     */
+    public String summary() {
+        return countByReason().entrySet().stream()
+            .map(entry -> entry.getValue() + " " + entry.getKey().name().toLowerCase().replace('_', ' '))
+            .collect(Collectors.joining(", ", "Left call sites un-obfuscated: ", "."));
+    }
+
+    /**
+     * Writes one tab-separated line per excluded method, consisting of the reason, the number of call sites, and the
+     * method, ordered by reason and descending number of call sites.
+     */
+    public void write(final Writer writer) {
+        final var printWriter = new PrintWriter(writer);
+        callSiteCounts.entrySet().stream()
+            .sorted(Comparator.<Map.Entry<Target, LongAdder>, ExclusionReason>comparing(entry -> entry.getKey().reason())
+                .thenComparing(entry -> -entry.getValue().sum()))
+            .forEachOrdered(entry -> {
+                final var target = entry.getKey();
+                printWriter.printf("%s\t%d\t%s.%s%s%n", target.reason(), entry.getValue().sum(),
+                    target.owner().replace('/', '.'), target.name(), target.descriptor());
+            });
+        printWriter.flush();
+    }
+}
@@ -0,0 +1,123 @@
+package dev.blanke.indyobfuscator.obfuscation.exclusion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A versioned catalogue of methods which are intrinsified by the JIT compiler, so that invoking them through an
+ * {@code invokedynamic} call site may prevent their intrinsification or inlining.
+ * <p>
+ * The catalogue is read from a text file containing a {@code version} line followed by one entry per line, each
+ * consisting of the internal name of the owner, the method name, and the method descriptor. The name and descriptor
+ * may be {@code *} to match any value. Empty lines and lines starting with {@code #} are ignored.
+ *
+ * @see #getDefault()
+ */
+public final class IntrinsicCatalogue {
+
+    private static final String WILDCARD = "*";
+
+    private static final String DEFAULT_CATALOGUE_RESOURCE = "/intrinsics.txt";
+
+    /**
+     * Holds the default catalogue, which is only loaded on first use.
+     */
+    private static final class DefaultHolder {
+
+        private static final IntrinsicCatalogue DEFAULT;
+
+        static {
+            final var catalogueStream = Objects.requireNonNull(
+                IntrinsicCatalogue.class.getResourceAsStream(DEFAULT_CATALOGUE_RESOURCE));
+            try (final var reader = new InputStreamReader(catalogueStream, StandardCharsets.UTF_8)) {
+                DEFAULT = read(reader);
+            } catch (final IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    private final int version;
+
+    /**
+     * Maps the internal names of owners to the name/descriptor patterns of their intrinsic candidates.
+     */
+    private final Map<String, List<Entry>> entries;
+
+    private IntrinsicCatalogue(final int version, final Map<String, List<Entry>> entries) {
+        this.version = version;
+        this.entries = entries;
+    }
+
+    /**
+     * @return The catalogue packaged with the obfuscator.
+     */
+    public static IntrinsicCatalogue getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * Reads a catalogue in the format described by {@link IntrinsicCatalogue}.
+     *
+     * @throws IOException If reading fails or the catalogue is malformed.
+     */
+    public static IntrinsicCatalogue read(final Reader reader) throws IOException {
+        int version = -1;
+        final var entries = new HashMap<String, List<Entry>>();
+
+        final var bufferedReader = new BufferedReader(reader);
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            final var columns = line.split("\\s+");
+            if ((columns.length == 2) && columns[0].equals("version")) {
+                version = Integer.parseInt(columns[1]);
+                continue;
+            }
+            if (columns.length != 3)
+                throw new IOException("Malformed intrinsic catalogue entry: " + line);
+            entries.computeIfAbsent(columns[0], owner -> new ArrayList<>()).add(new Entry(columns[1], columns[2]));
+        }
+        if (version == -1)
+            throw new IOException("Intrinsic catalogue does not specify a version.");
+        return new IntrinsicCatalogue(version, Map.copyOf(entries));
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Checks whether the method with the provided owner, name, and descriptor is an intrinsic candidate.
+     */
+    public boolean contains(final String owner, final String name, final String descriptor) {
+        final var ownerEntries = entries.get(owner);
+        if (ownerEntries == null)
+            return false;
+        for (final var entry : ownerEntries) {
+            if (entry.matches(name, descriptor))
+                return true;
+        }
+        return false;
+    }
+
+    private record Entry(String name, String descriptor) {
+
+        boolean matches(final String name, final String descriptor) {
+            return (this.name.equals(WILDCARD) || this.name.equals(name))
+                && (this.descriptor.equals(WILDCARD) || this.descriptor.equals(descriptor));
+        }
+    }
+}
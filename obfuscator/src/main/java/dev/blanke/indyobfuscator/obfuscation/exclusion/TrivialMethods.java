@@ -0,0 +1,134 @@
+package dev.blanke.indyobfuscator.obfuscation.exclusion;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Detects trivial methods among the classes of the artifact being obfuscated, i.e. methods which only return the value
+ * of a field, only assign their argument to a field, or only return a constant.
+ * <p>
+ * Invocations of such methods are cheap enough to be inlined by the JIT compiler, which an {@code invokedynamic} call
+ * site may prevent, and they reveal little about the program when left un-obfuscated.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class TrivialMethods {
+
+    /**
+     * Maps the internal names of classes to the trivial methods they declare, which are keyed by name and descriptor.
+     */
+    private final Map<String, Map<String, ExclusionReason>> trivialMethods = new ConcurrentHashMap<>();
+
+    /**
+     * Detects the trivial methods declared by the class represented by the provided {@code reader}, replacing the
+     * results of a previous registration of the same class.
+     */
+    public void register(final ClassReader reader) {
+        final var classNode = new ClassNode();
+        reader.accept(classNode, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+        final var classTrivialMethods = new HashMap<String, ExclusionReason>();
+        for (final var method : classNode.methods) {
+            final var reason = classify(method);
+            if (reason != null) {
+                classTrivialMethods.put(method.name + method.desc, reason);
+            }
+        }
+        if (classTrivialMethods.isEmpty()) {
+            trivialMethods.remove(classNode.name);
+        } else {
+            trivialMethods.put(classNode.name, Map.copyOf(classTrivialMethods));
+        }
+    }
+
+    /**
+     * @return The kind of trivial method which is invoked, or {@code null} if the invoked method is not known to be
+     *         trivial.
+     */
+    public @Nullable ExclusionReason get(final String owner, final String name, final String descriptor) {
+        final var classTrivialMethods = trivialMethods.get(owner);
+        return (classTrivialMethods != null) ? classTrivialMethods.get(name + descriptor) : null;
+    }
+
+    static @Nullable ExclusionReason classify(final MethodNode method) {
+        if ((method.access & (ACC_ABSTRACT | ACC_NATIVE | ACC_SYNCHRONIZED)) != 0)
+            return null;
+
+        // Ignore labels, line numbers, and frames.
+        final var instructions = Arrays.stream(method.instructions.toArray())
+            .filter(instruction -> instruction.getOpcode() != -1)
+            .toList();
+        final boolean isStatic = (method.access & ACC_STATIC) != 0;
+
+        if (isConstantReturn(instructions))
+            return ExclusionReason.CONSTANT_RETURN;
+        if (isGetter(instructions, isStatic))
+            return ExclusionReason.TRIVIAL_GETTER;
+        if (isSetter(instructions, isStatic))
+            return ExclusionReason.TRIVIAL_SETTER;
+        return null;
+    }
+
+    private static boolean isConstantReturn(final List<AbstractInsnNode> instructions) {
+        if (instructions.size() != 2)
+            return false;
+        final int opcode = instructions.get(0).getOpcode();
+        final boolean isConstant = ((opcode >= ACONST_NULL) && (opcode <= DCONST_1))
+            || (opcode == BIPUSH) || (opcode == SIPUSH) || (opcode == LDC);
+        return isConstant && isValueReturn(instructions.get(1));
+    }
+
+    /**
+     * Matches {@code aload_0; getfield; xreturn} or {@code getstatic; xreturn}.
+     */
+    private static boolean isGetter(final List<AbstractInsnNode> instructions, final boolean isStatic) {
+        if (isStatic) {
+            return (instructions.size() == 2)
+                && (instructions.get(0).getOpcode() == GETSTATIC)
+                && isValueReturn(instructions.get(1));
+        }
+        return (instructions.size() == 3)
+            && isLoadOf(instructions.get(0), 0)
+            && (instructions.get(1).getOpcode() == GETFIELD)
+            && isValueReturn(instructions.get(2));
+    }
+
+    /**
+     * Matches {@code aload_0; xload_1; putfield; return} or {@code xload_0; putstatic; return}.
+     */
+    private static boolean isSetter(final List<AbstractInsnNode> instructions, final boolean isStatic) {
+        if (isStatic) {
+            return (instructions.size() == 3)
+                && isLoadOf(instructions.get(0), 0)
+                && (instructions.get(1).getOpcode() == PUTSTATIC)
+                && (instructions.get(2).getOpcode() == RETURN);
+        }
+        return (instructions.size() == 4)
+            && isLoadOf(instructions.get(0), 0)
+            && isLoadOf(instructions.get(1), 1)
+            && (instructions.get(2).getOpcode() == PUTFIELD)
+            && (instructions.get(3).getOpcode() == RETURN);
+    }
+
+    private static boolean isLoadOf(final AbstractInsnNode instruction, final int variable) {
+        return (instruction.getOpcode() >= ILOAD) && (instruction.getOpcode() <= ALOAD)
+            && (((VarInsnNode) instruction).var == variable);
+    }
+
+    private static boolean isValueReturn(final AbstractInsnNode instruction) {
+        return (instruction.getOpcode() >= IRETURN) && (instruction.getOpcode() <= ARETURN);
+    }
+}
@@ -1,6 +1,7 @@
 package dev.blanke.indyobfuscator.obfuscation.field.accessor;
 
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 import org.objectweb.asm.ClassVisitor;
@@ -10,7 +11,9 @@ import org.objectweb.asm.Opcodes;
 
 import dev.blanke.indyobfuscator.obfuscation.field.FieldIdentifier;
 import dev.blanke.indyobfuscator.obfuscation.field.accessor.FieldAccessorMethodVisitor.*;
+import dev.blanke.indyobfuscator.obfuscation.loop.LoopFilter;
 import dev.blanke.indyobfuscator.obfuscation.method.MethodInsnObfuscatingClassVisitor;
+import dev.blanke.indyobfuscator.obfuscation.policy.ObfuscationPolicy;
 
 import static org.objectweb.asm.Opcodes.*;
 
@@ -60,8 +63,44 @@ public final class FieldAccessWrappingClassVisitor extends ClassVisitor {
      */
     private final Set<FieldAccess> eligibleFieldAccesses = new HashSet<>();
 
-    public FieldAccessWrappingClassVisitor(final int api, final ClassVisitor classVisitor) {
+    /**
+     * Decides which methods of the visited class should have their field instructions wrapped.
+     */
+    private final ObfuscationPolicy policy;
+
+    /**
+     * Decides which field instructions are nested too deeply in loops to be wrapped.
+     */
+    private final LoopFilter loopFilter;
+
+    /**
+     * Whether only the field accesses of methods for which {@link ObfuscationPolicy#wrapsFieldAccessesOnly} holds
+     * should be wrapped, as the other methods are handled by a different field obfuscation strategy.
+     */
+    private final boolean startupMethodsOnly;
+
+    /**
+     * Whether field accesses wrapped on the startup path would otherwise have been obfuscated, in which case each of
+     * them is recorded as a saved bootstrap method invocation.
+     *
+     * @see ObfuscationPolicy#recordSavedBootstrap()
+     */
+    private final boolean countSavedBootstraps;
+
+    public FieldAccessWrappingClassVisitor(final int api, final ClassVisitor classVisitor,
+                                           final ObfuscationPolicy policy, final LoopFilter loopFilter) {
+        this(api, classVisitor, policy, loopFilter, false, true);
+    }
+
+    public FieldAccessWrappingClassVisitor(final int api, final ClassVisitor classVisitor,
+                                           final ObfuscationPolicy policy, final LoopFilter loopFilter,
+                                           final boolean startupMethodsOnly, final boolean countSavedBootstraps) {
         super(api, classVisitor);
+
+        this.policy               = Objects.requireNonNull(policy);
+        this.loopFilter           = Objects.requireNonNull(loopFilter);
+        this.startupMethodsOnly   = startupMethodsOnly;
+        this.countSavedBootstraps = countSavedBootstraps;
     }
 
     /**
@@ -90,14 +129,27 @@ public final class FieldAccessWrappingClassVisitor extends ClassVisitor {
      * <p>
      * Wrappable field instructions are replaced with method invocations to their respective synthetic getters/setters
      * and added to the {@link #eligibleFieldAccesses} set while non-wrappable field instructions remain untouched.
+     * Methods excluded by the {@link #policy} are not visited at all unless they are on the startup path with
+     * {@link ObfuscationPolicy#wrapsFieldAccessesOnly}, and field instructions rejected by the {@link #loopFilter} are
+     * left untouched.
      */
     @Override
     public MethodVisitor visitMethod(final int access, final String name, final String descriptor,
                                      final String signature, final String[] exceptions) {
-        return new MethodVisitor(api, super.visitMethod(access, name, descriptor, signature, exceptions)) {
+        final var methodVisitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+        final boolean isStartupMethod = policy.wrapsFieldAccessesOnly(name, descriptor);
+        if (!isStartupMethod && (startupMethodsOnly || !policy.shouldObfuscate(name, descriptor)))
+            return methodVisitor;
+        final var methodLoopFilter = loopFilter.forMethod(name, descriptor);
+        return new MethodVisitor(api, methodVisitor) {
             @Override
             public void visitFieldInsn(final int opcode, final String owner, final String name,
                                        final String descriptor) {
+                if (methodLoopFilter.isNextFieldInsnSkipped()) {
+                    super.visitFieldInsn(opcode, owner, name, descriptor);
+                    return;
+                }
+
                 final var fieldIdentifier = new FieldIdentifier(owner, name, descriptor);
                 if (((opcode == PUTFIELD) || (opcode == PUTSTATIC)) && finalFields.contains(fieldIdentifier)) {
                     /*
@@ -112,6 +164,9 @@ public final class FieldAccessWrappingClassVisitor extends ClassVisitor {
                  * Keep track of the field accesses to be obfuscated in order to generate the synthetic getters/setters
                  * within visitEnd.
                  */
+                if (isStartupMethod && countSavedBootstraps) {
+                    policy.recordSavedBootstrap();
+                }
                 final var fieldAccess = new FieldAccess(className, opcode, fieldIdentifier);
                 eligibleFieldAccesses.add(fieldAccess);
 
@@ -16,6 +16,9 @@ import dev.blanke.indyobfuscator.mapping.MethodInvocation;
 import dev.blanke.indyobfuscator.mapping.SymbolMapping;
 import dev.blanke.indyobfuscator.obfuscation.ObfuscatingClassVisitor;
 import dev.blanke.indyobfuscator.obfuscation.field.FieldIdentifier;
+import dev.blanke.indyobfuscator.obfuscation.loop.LoopFilter;
+import dev.blanke.indyobfuscator.obfuscation.loop.LoopFilter.MethodLoopFilter;
+import dev.blanke.indyobfuscator.obfuscation.policy.ObfuscationPolicy;
 
 import static org.objectweb.asm.Opcodes.*;
 import static org.objectweb.asm.Opcodes.PUTSTATIC;
@@ -30,8 +33,9 @@ public final class FieldInsnObfuscatingClassVisitor extends ObfuscatingClassVisi
     private static final Logger LOGGER = System.getLogger(FieldInsnObfuscatingClassVisitor.class.getName());
 
     public FieldInsnObfuscatingClassVisitor(final int api, final ClassVisitor classVisitor,
-                                            final SymbolMapping symbolMapping, final Handle bootstrapMethodHandle) {
-        super(api, classVisitor, symbolMapping, bootstrapMethodHandle);
+                                            final SymbolMapping symbolMapping, final Handle bootstrapMethodHandle,
+                                            final ObfuscationPolicy policy, final LoopFilter loopFilter) {
+        super(api, classVisitor, symbolMapping, bootstrapMethodHandle, policy, loopFilter);
     }
 
     @Override
@@ -45,17 +49,40 @@ public final class FieldInsnObfuscatingClassVisitor extends ObfuscatingClassVisi
     @Override
     public MethodVisitor visitMethod(final int access, final String name, final String descriptor,
                                      final String signature, final String[] exceptions) {
-        return new FieldInsnObfuscatingMethodVisitor(super.visitMethod(access, name, descriptor, signature, exceptions));
+        final var methodVisitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+        if (policy.shouldObfuscate(name, descriptor))
+            return new FieldInsnObfuscatingMethodVisitor(methodVisitor, loopFilter.forMethod(name, descriptor), false);
+        // Only count the field instructions of methods on the startup path which would otherwise be obfuscated.
+        if (policy.isStartupMethod(name, descriptor))
+            return new FieldInsnObfuscatingMethodVisitor(methodVisitor, loopFilter.forMethod(name, descriptor), true);
+        return methodVisitor;
     }
 
     private final class FieldInsnObfuscatingMethodVisitor extends MethodVisitor {
 
-        private FieldInsnObfuscatingMethodVisitor(final MethodVisitor methodVisitor) {
+        private final MethodLoopFilter methodLoopFilter;
+
+        /**
+         * Whether the visited method is on the startup path, in which case field instructions are only counted as
+         * saved bootstraps instead of being obfuscated.
+         */
+        private final boolean isStartupMethod;
+
+        private FieldInsnObfuscatingMethodVisitor(final MethodVisitor methodVisitor,
+                                                  final MethodLoopFilter methodLoopFilter,
+                                                  final boolean isStartupMethod) {
             super(FieldInsnObfuscatingClassVisitor.this.api, methodVisitor);
+            this.methodLoopFilter = methodLoopFilter;
+            this.isStartupMethod  = isStartupMethod;
         }
 
         @Override
         public void visitFieldInsn(final int opcode, final String owner, final String name, final String descriptor) {
+            if (methodLoopFilter.isNextFieldInsnSkipped()) {
+                super.visitFieldInsn(opcode, owner, name, descriptor);
+                return;
+            }
+
             final var fieldIdentifier = new FieldIdentifier(owner, name, descriptor);
             if (((opcode == PUTFIELD) || (opcode == PUTSTATIC)) && finalFields.contains(fieldIdentifier)) {
                 LOGGER.log(Level.INFO, "Skipping obfuscation of put on final field {0}.{1}.", owner, name);
@@ -63,6 +90,12 @@ public final class FieldInsnObfuscatingClassVisitor extends ObfuscatingClassVisi
                 return;
             }
 
+            if (isStartupMethod) {
+                policy.recordSavedBootstrap();
+                super.visitFieldInsn(opcode, owner, name, descriptor);
+                return;
+            }
+
             final var descriptorType = getType(descriptor);
             final var ownerType      = getObjectType(owner);
 
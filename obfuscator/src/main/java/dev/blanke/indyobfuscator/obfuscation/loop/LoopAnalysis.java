@@ -0,0 +1,251 @@
+package dev.blanke.indyobfuscator.obfuscation.loop;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Computes the loop nesting depth of each instruction of a method from its control-flow graph.
+ * <p>
+ * Loops are the natural loops of the back edges of the graph, i.e. of the edges whose target dominates their source.
+ * Loops sharing the same header are treated as a single loop. Exception edges are not part of the graph, so that code
+ * which is only reachable through an exception handler is considered to be outside any loop. Irreducible loops, which
+ * {@code javac} does not generate, are not detected.
+ */
+public final class LoopAnalysis {
+
+    private static final int[] NO_SUCCESSORS = new int[0];
+
+    // Prevent instantiation of utility class.
+    private LoopAnalysis() {
+    }
+
+    /**
+     * @param instructions The instructions of the method to analyze.
+     *
+     * @return The loop nesting depth of each instruction, indexed like the {@code instructions}.
+     */
+    public static int[] computeLoopDepths(final InsnList instructions) {
+        final int size = instructions.size();
+        final var depths = new int[size];
+        if (size == 0)
+            return depths;
+
+        final var successors = computeSuccessors(instructions);
+
+        // Number the instructions reachable from the first one in reverse postorder.
+        final var reversePostorder = computeReversePostorder(successors);
+        final var postorderNumbers = new int[size];
+        Arrays.fill(postorderNumbers, -1);
+        for (int i = 0; i < reversePostorder.length; ++i) {
+            postorderNumbers[reversePostorder[i]] = reversePostorder.length - 1 - i;
+        }
+
+        final var predecessors = computePredecessors(successors, postorderNumbers);
+        final var immediateDominators = computeImmediateDominators(reversePostorder, predecessors, postorderNumbers);
+
+        // Collect the bodies of the natural loops of all back edges, grouped by loop header.
+        final var loopBodies = new HashMap<Integer, BitSet>();
+        for (final int source : reversePostorder) {
+            for (final int header : successors[source]) {
+                if (dominates(header, source, immediateDominators)) {
+                    final var body = loopBodies.computeIfAbsent(header, key -> new BitSet(size));
+                    collectLoopBody(header, source, predecessors, body);
+                }
+            }
+        }
+
+        for (final var body : loopBodies.values()) {
+            body.stream().forEach(index -> ++depths[index]);
+        }
+        return depths;
+    }
+
+    private static int[][] computeSuccessors(final InsnList instructions) {
+        final int size = instructions.size();
+        final var successors = new int[size][];
+        for (int index = 0; index < size; ++index) {
+            successors[index] = computeSuccessors(instructions, instructions.get(index), index);
+        }
+        return successors;
+    }
+
+    private static int[] computeSuccessors(final InsnList instructions, final AbstractInsnNode instruction,
+                                           final int index) {
+        final int next = (index + 1 < instructions.size()) ? index + 1 : -1;
+        if (instruction instanceof JumpInsnNode jump) {
+            final int target = instructions.indexOf(jump.label);
+            return ((instruction.getOpcode() == GOTO) || (next == -1)) ? new int[] { target } : new int[] { next, target };
+        }
+        if (instruction instanceof TableSwitchInsnNode tableSwitch)
+            return indicesOf(instructions, tableSwitch.dflt, tableSwitch.labels.toArray(LabelNode[]::new));
+        if (instruction instanceof LookupSwitchInsnNode lookupSwitch)
+            return indicesOf(instructions, lookupSwitch.dflt, lookupSwitch.labels.toArray(LabelNode[]::new));
+
+        return switch (instruction.getOpcode()) {
+            case IRETURN, LRETURN, FRETURN, DRETURN, ARETURN, RETURN, ATHROW, RET -> NO_SUCCESSORS;
+            default -> (next == -1) ? NO_SUCCESSORS : new int[] { next };
+        };
+    }
+
+    private static int[] indicesOf(final InsnList instructions, final LabelNode defaultLabel, final LabelNode[] labels) {
+        final var indices = new int[labels.length + 1];
+        indices[0] = instructions.indexOf(defaultLabel);
+        for (int i = 0; i < labels.length; ++i) {
+            indices[i + 1] = instructions.indexOf(labels[i]);
+        }
+        return indices;
+    }
+
+    /**
+     * @return The indices of the instructions reachable from the first instruction in reverse postorder.
+     */
+    private static int[] computeReversePostorder(final int[][] successors) {
+        final var postorder = new int[successors.length];
+        int postorderSize = 0;
+
+        final var visited = new BitSet(successors.length);
+        // Each stack entry holds an instruction index and the index of its next successor to visit.
+        final var stack = new ArrayDeque<int[]>();
+        visited.set(0);
+        stack.push(new int[] { 0, 0 });
+        while (!stack.isEmpty()) {
+            final var entry = stack.peek();
+            final var entrySuccessors = successors[entry[0]];
+            if (entry[1] < entrySuccessors.length) {
+                final int successor = entrySuccessors[entry[1]++];
+                if (!visited.get(successor)) {
+                    visited.set(successor);
+                    stack.push(new int[] { successor, 0 });
+                }
+            } else {
+                postorder[postorderSize++] = stack.pop()[0];
+            }
+        }
+
+        final var reversePostorder = new int[postorderSize];
+        for (int i = 0; i < postorderSize; ++i) {
+            reversePostorder[i] = postorder[postorderSize - 1 - i];
+        }
+        return reversePostorder;
+    }
+
+    /**
+     * @return The predecessors of each reachable instruction, omitting unreachable predecessors.
+     */
+    private static int[][] computePredecessors(final int[][] successors, final int[] postorderNumbers) {
+        final var counts = new int[successors.length];
+        for (int index = 0; index < successors.length; ++index) {
+            if (postorderNumbers[index] == -1)
+                continue;
+            for (final int successor : successors[index]) {
+                ++counts[successor];
+            }
+        }
+        final var predecessors = new int[successors.length][];
+        for (int index = 0; index < successors.length; ++index) {
+            predecessors[index] = new int[counts[index]];
+        }
+        for (int index = 0; index < successors.length; ++index) {
+            if (postorderNumbers[index] == -1)
+                continue;
+            for (final int successor : successors[index]) {
+                predecessors[successor][--counts[successor]] = index;
+            }
+        }
+        return predecessors;
+    }
+
+    /**
+     * Computes the immediate dominator of each reachable instruction using the iterative algorithm by Cooper, Harvey,
+     * and Kennedy.
+     *
+     * @return The index of the immediate dominator of each instruction, or {@code -1} for unreachable instructions.
+     *         The first instruction is its own immediate dominator.
+     *
+     * @see <a href="https://www.cs.rice.edu/~keith/EMBED/dom.pdf">A Simple, Fast Dominance Algorithm</a>
+     */
+    private static int[] computeImmediateDominators(final int[] reversePostorder, final int[][] predecessors,
+                                                    final int[] postorderNumbers) {
+        final var immediateDominators = new int[predecessors.length];
+        Arrays.fill(immediateDominators, -1);
+        immediateDominators[0] = 0;
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < reversePostorder.length; ++i) {
+                final int index = reversePostorder[i];
+                int newImmediateDominator = -1;
+                for (final int predecessor : predecessors[index]) {
+                    if (immediateDominators[predecessor] == -1)
+                        continue;
+                    newImmediateDominator = (newImmediateDominator == -1)
+                        ? predecessor
+                        : intersect(predecessor, newImmediateDominator, immediateDominators, postorderNumbers);
+                }
+                if (immediateDominators[index] != newImmediateDominator) {
+                    immediateDominators[index] = newImmediateDominator;
+                    changed = true;
+                }
+            }
+        }
+        return immediateDominators;
+    }
+
+    private static int intersect(int first, int second, final int[] immediateDominators,
+                                 final int[] postorderNumbers) {
+        while (first != second) {
+            while (postorderNumbers[first] < postorderNumbers[second]) {
+                first = immediateDominators[first];
+            }
+            while (postorderNumbers[second] < postorderNumbers[first]) {
+                second = immediateDominators[second];
+            }
+        }
+        return first;
+    }
+
+    private static boolean dominates(final int dominator, int index, final int[] immediateDominators) {
+        while (true) {
+            if (index == dominator)
+                return true;
+            if (index == 0)
+                return false;
+            index = immediateDominators[index];
+        }
+    }
+
+    /**
+     * Adds the natural loop of the back edge from {@code source} to {@code header} to the {@code body}, i.e. the header
+     * and all instructions from which the {@code source} can be reached without passing through the header.
+     */
+    private static void collectLoopBody(final int header, final int source, final int[][] predecessors,
+                                        final BitSet body) {
+        body.set(header);
+        if (body.get(source))
+            return;
+        body.set(source);
+
+        final var worklist = new ArrayDeque<Integer>();
+        worklist.push(source);
+        while (!worklist.isEmpty()) {
+            for (final int predecessor : predecessors[worklist.pop()]) {
+                if (!body.get(predecessor)) {
+                    body.set(predecessor);
+                    worklist.push(predecessor);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package dev.blanke.indyobfuscator.obfuscation.loop;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+
+/**
+ * Decides which method and field instructions of a single class should be left un-obfuscated because they are nested
+ * in more loops than allowed by {@code --max-loop-depth}, as a static approximation of hot code in the absence of a
+ * runtime profile.
+ * <p>
+ * The filter is computed by {@link #analyze} from the same class file which is subsequently transformed. The
+ * obfuscating visitors identify instructions by their position among the method or field instructions of a method,
+ * which is why {@link MethodLoopFilter} must be queried exactly once per visited instruction.
+ *
+ * @see LoopAnalysis
+ */
+public final class LoopFilter {
+
+    /**
+     * A filter which does not leave any instruction un-obfuscated.
+     */
+    public static final LoopFilter NONE = new LoopFilter(Map.of());
+
+    /**
+     * The positions of the instructions to leave un-obfuscated per method, keyed by method name and descriptor.
+     * Methods without such instructions are absent.
+     */
+    private final Map<String, SkippedInstructions> skippedInstructions;
+
+    private LoopFilter(final Map<String, SkippedInstructions> skippedInstructions) {
+        this.skippedInstructions = skippedInstructions;
+    }
+
+    /**
+     * Analyzes the loops of all methods of the class represented by the provided {@code reader}.
+     *
+     * @param reader The reader of the class which is going to be transformed.
+     *
+     * @param maxLoopDepth The maximum loop nesting depth of instructions which should still be obfuscated, e.g.
+     *                     {@code 0} to leave all instructions inside loops un-obfuscated.
+     *
+     * @return The filter for the class.
+     */
+    public static LoopFilter analyze(final ClassReader reader, final int maxLoopDepth) {
+        final var classNode = new ClassNode();
+        reader.accept(classNode, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+        final var skippedInstructions = new HashMap<String, SkippedInstructions>();
+        for (final var method : classNode.methods) {
+            final var depths = LoopAnalysis.computeLoopDepths(method.instructions);
+
+            final var skippedMethodInstructions = new BitSet();
+            final var skippedFieldInstructions  = new BitSet();
+            int methodInstructionCount = 0;
+            int fieldInstructionCount  = 0;
+            for (int index = 0; index < depths.length; ++index) {
+                final var instruction = method.instructions.get(index);
+                if (instruction instanceof MethodInsnNode) {
+                    skippedMethodInstructions.set(methodInstructionCount++, depths[index] > maxLoopDepth);
+                } else if (instruction instanceof FieldInsnNode) {
+                    skippedFieldInstructions.set(fieldInstructionCount++, depths[index] > maxLoopDepth);
+                }
+            }
+            if (!skippedMethodInstructions.isEmpty() || !skippedFieldInstructions.isEmpty()) {
+                skippedInstructions.put(method.name + method.desc,
+                    new SkippedInstructions(skippedMethodInstructions, skippedFieldInstructions));
+            }
+        }
+        return new LoopFilter(skippedInstructions);
+    }
+
+    /**
+     * Creates a filter for the instructions of the method with the provided name and descriptor, which has to be
+     * queried in the order in which the instructions are visited.
+     */
+    public MethodLoopFilter forMethod(final String name, final String descriptor) {
+        return new MethodLoopFilter(skippedInstructions.get(name + descriptor));
+    }
+
+    private record SkippedInstructions(BitSet methodInstructions, BitSet fieldInstructions) {}
+
+    /**
+     * Decides for the instructions of a single method whether they should be left un-obfuscated.
+     */
+    public static final class MethodLoopFilter {
+
+        private final SkippedInstructions skippedInstructions;
+
+        private int methodInstructionCount;
+
+        private int fieldInstructionCount;
+
+        private MethodLoopFilter(final SkippedInstructions skippedInstructions) {
+            this.skippedInstructions = skippedInstructions;
+        }
+
+        /**
+         * Must be called once for every method instruction of the method, e.g. from
+         * {@link org.objectweb.asm.MethodVisitor#visitMethodInsn}.
+         *
+         * @return Whether the next method instruction should be left un-obfuscated.
+         */
+        public boolean isNextMethodInsnSkipped() {
+            final int position = methodInstructionCount++;
+            return (skippedInstructions != null) && skippedInstructions.methodInstructions().get(position);
+        }
+
+        /**
+         * Must be called once for every field instruction of the method, e.g. from
+         * {@link org.objectweb.asm.MethodVisitor#visitFieldInsn}.
+         *
+         * @return Whether the next field instruction should be left un-obfuscated.
+         */
+        public boolean isNextFieldInsnSkipped() {
+            final int position = fieldInstructionCount++;
+            return (skippedInstructions != null) && skippedInstructions.fieldInstructions().get(position);
+        }
+    }
+}
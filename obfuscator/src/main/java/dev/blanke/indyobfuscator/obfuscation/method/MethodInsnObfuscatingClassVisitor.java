@@ -1,62 +1,86 @@
 package dev.blanke.indyobfuscator.obfuscation.method;
 
-import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.Handle;
 import org.objectweb.asm.MethodVisitor;
-import org.objectweb.asm.Type;
 
-import dev.blanke.indyobfuscator.Obfuscate;
 import dev.blanke.indyobfuscator.mapping.MethodInvocation;
 import dev.blanke.indyobfuscator.mapping.SymbolMapping;
 import dev.blanke.indyobfuscator.obfuscation.ObfuscatingClassVisitor;
+import dev.blanke.indyobfuscator.obfuscation.budget.OverheadBudget.ClassBudget;
+import dev.blanke.indyobfuscator.obfuscation.budget.OverheadBudget.MethodBudget;
+import dev.blanke.indyobfuscator.obfuscation.exclusion.CallSiteExclusions;
+import dev.blanke.indyobfuscator.obfuscation.loop.LoopFilter;
+import dev.blanke.indyobfuscator.obfuscation.loop.LoopFilter.MethodLoopFilter;
+import dev.blanke.indyobfuscator.obfuscation.policy.ObfuscationPolicy;
 
 import static org.objectweb.asm.Opcodes.*;
 
 public final class MethodInsnObfuscatingClassVisitor extends ObfuscatingClassVisitor {
 
-    private final boolean annotatedOnly;
+    /**
+     * Decides which method invocations are left un-obfuscated inside the obfuscated methods, e.g. invocations of
+     * intrinsic candidates.
+     */
+    private final CallSiteExclusions callSiteExclusions;
 
-    private static final String OBFUSCATE_ANNOTATION_DESCRIPTOR = Type.getDescriptor(Obfuscate.class);
+    /**
+     * Decides which of the remaining method invocations fit into the {@code --overhead-budget}.
+     */
+    private final ClassBudget classBudget;
 
     public MethodInsnObfuscatingClassVisitor(final int api, final ClassVisitor classVisitor,
                                              final SymbolMapping symbolMapping, final Handle bootstrapMethodHandle,
-                                             final boolean annotatedOnly) {
-        super(api, classVisitor, symbolMapping, bootstrapMethodHandle);
-
-        this.annotatedOnly = annotatedOnly;
+                                             final ObfuscationPolicy policy, final LoopFilter loopFilter,
+                                             final CallSiteExclusions callSiteExclusions,
+                                             final ClassBudget classBudget) {
+        super(api, classVisitor, symbolMapping, bootstrapMethodHandle, policy, loopFilter);
+        this.callSiteExclusions = callSiteExclusions;
+        this.classBudget        = classBudget;
     }
 
     @Override
     public MethodVisitor visitMethod(final int access, final String name, final String descriptor,
                                      final String signature, final String[] exceptions) {
-        return new MethodInsnObfuscatingMethodVisitor(super.visitMethod(access, name, descriptor, signature, exceptions));
+        final var methodVisitor = super.visitMethod(access, name, descriptor, signature, exceptions);
+        if (policy.shouldObfuscate(name, descriptor))
+            return new MethodInsnObfuscatingMethodVisitor(methodVisitor, loopFilter.forMethod(name, descriptor),
+                classBudget.forMethod(name, descriptor), false);
+        // Only count the call sites of methods on the startup path which would otherwise be obfuscated.
+        if (policy.isStartupMethod(name, descriptor))
+            return new MethodInsnObfuscatingMethodVisitor(methodVisitor, loopFilter.forMethod(name, descriptor),
+                ClassBudget.UNLIMITED.forMethod(name, descriptor), true);
+        return methodVisitor;
     }
 
     final class MethodInsnObfuscatingMethodVisitor extends MethodVisitor {
 
-        private boolean annotated;
-
         private static final System.Logger LOGGER = System.getLogger(MethodInsnObfuscatingMethodVisitor.class.getName());
 
-        MethodInsnObfuscatingMethodVisitor(final MethodVisitor methodVisitor) {
-            super(MethodInsnObfuscatingClassVisitor.this.api, methodVisitor);
-        }
+        private final MethodLoopFilter methodLoopFilter;
 
-        @Override
-        public AnnotationVisitor visitAnnotation(final String descriptor, final boolean visible) {
-            annotated |= OBFUSCATE_ANNOTATION_DESCRIPTOR.equals(descriptor);
-            return super.visitAnnotation(descriptor, visible);
+        private final MethodBudget methodBudget;
+
+        /**
+         * Whether the visited method is on the startup path, in which case call sites are only counted as saved
+         * bootstraps instead of being obfuscated.
+         */
+        private final boolean isStartupMethod;
+
+        MethodInsnObfuscatingMethodVisitor(final MethodVisitor methodVisitor, final MethodLoopFilter methodLoopFilter,
+                                           final MethodBudget methodBudget, final boolean isStartupMethod) {
+            super(MethodInsnObfuscatingClassVisitor.this.api, methodVisitor);
+            this.methodLoopFilter = methodLoopFilter;
+            this.methodBudget     = methodBudget;
+            this.isStartupMethod  = isStartupMethod;
         }
 
         // INVOKEDYNAMIC instructions are not handled by this method.
         @Override
         public void visitMethodInsn(final int opcode, final String owner, final String name, final String descriptor,
                                     final boolean isInterface) {
-            if (annotatedOnly && !annotated) {
-                super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
-                return;
-            }
+            // Query the loop filter first, as it has to be queried for every method instruction.
+            final boolean isNestedTooDeeply = methodLoopFilter.isNextMethodInsnSkipped();
 
             /*
              * Replacing INVOKESPECIAL instruction invoking <init> with INVOKEDYNAMIC ones would cause bytecode
@@ -80,6 +104,19 @@ public final class MethodInsnObfuscatingClassVisitor extends ObfuscatingClassVis
                 return;
             }
 
+            // Query the budget next, as it has to be queried for every invocation which may be obfuscated.
+            final boolean fitsIntoBudget = methodBudget.isNextInvocationSelected(owner, name, descriptor);
+
+            if (isNestedTooDeeply || callSiteExclusions.isExcluded(owner, name, descriptor)) {
+                super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+                return;
+            }
+
+            if (!fitsIntoBudget) {
+                super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+                return;
+            }
+
             /*
              * Adjust the descriptor passed to the invokedynamic instruction depending on the type of invoke* instruction
              * being processed.
@@ -115,6 +152,18 @@ public final class MethodInsnObfuscatingClassVisitor extends ObfuscatingClassVis
                     return;
                 }
             }
+            if (isStartupMethod) {
+                /*
+                 * Invocations of synthetic field accessors generated for the startup path are not counted, as they
+                 * are accounted for by the field obfuscation pass.
+                 */
+                if (!owner.equals(getClassName()) || policy.declaresMethod(name, descriptor)) {
+                    policy.recordSavedBootstrap();
+                }
+                super.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+                return;
+            }
+
             final var invokeDynamicName =
                 symbolMapping.add(new MethodInvocation(opcode, owner, name, descriptor, getClassName()));
             super.visitInvokeDynamicInsn(invokeDynamicName, invokeDynamicDescriptor, bootstrapMethodHandle);
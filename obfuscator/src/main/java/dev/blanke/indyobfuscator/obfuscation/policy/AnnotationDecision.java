@@ -0,0 +1,58 @@
+package dev.blanke.indyobfuscator.obfuscation.policy;
+
+import java.util.Collection;
+
+import org.objectweb.asm.Type;
+
+import dev.blanke.indyobfuscator.DoNotObfuscate;
+import dev.blanke.indyobfuscator.HotPath;
+import dev.blanke.indyobfuscator.Obfuscate;
+
+/**
+ * The decision expressed by the obfuscation annotations present on a single element, i.e. a method, a type, or a
+ * package.
+ */
+enum AnnotationDecision {
+
+    /**
+     * The element is annotated with {@link Obfuscate}.
+     */
+    OBFUSCATE,
+
+    /**
+     * The element is annotated with {@link DoNotObfuscate} or {@link HotPath}.
+     */
+    DO_NOT_OBFUSCATE,
+
+    /**
+     * The element carries no obfuscation annotation, so the decision is inherited from the enclosing element.
+     */
+    INHERIT;
+
+    private static final String OBFUSCATE_DESCRIPTOR = Type.getDescriptor(Obfuscate.class);
+
+    private static final String DO_NOT_OBFUSCATE_DESCRIPTOR = Type.getDescriptor(DoNotObfuscate.class);
+
+    private static final String HOT_PATH_DESCRIPTOR = Type.getDescriptor(HotPath.class);
+
+    /**
+     * Derives the decision from the descriptors of the annotations present on an element. Opting out takes precedence
+     * over opting in.
+     */
+    static AnnotationDecision of(final Collection<String> annotationDescriptors) {
+        if (annotationDescriptors.contains(DO_NOT_OBFUSCATE_DESCRIPTOR)
+                || annotationDescriptors.contains(HOT_PATH_DESCRIPTOR))
+            return DO_NOT_OBFUSCATE;
+        if (annotationDescriptors.contains(OBFUSCATE_DESCRIPTOR))
+            return OBFUSCATE;
+        return INHERIT;
+    }
+
+    /**
+     * Returns this decision unless it is {@link #INHERIT}, in which case the decision of the enclosing element is
+     * returned.
+     */
+    AnnotationDecision orElse(final AnnotationDecision enclosingDecision) {
+        return (this == INHERIT) ? enclosingDecision : this;
+    }
+}
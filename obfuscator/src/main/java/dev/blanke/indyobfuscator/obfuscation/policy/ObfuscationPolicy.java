@@ -0,0 +1,227 @@
+package dev.blanke.indyobfuscator.obfuscation.policy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Decides which methods of a single class should have their method and field instructions obfuscated, based on the
+ * {@link dev.blanke.indyobfuscator.Obfuscate}, {@link dev.blanke.indyobfuscator.DoNotObfuscate}, and
+ * {@link dev.blanke.indyobfuscator.HotPath} annotations of the methods, the class, and its package.
+ * <p>
+ * The annotation closest to a method wins. If none of the method, the class, and the package is annotated, a method
+ * is obfuscated unless {@code --annotated-only} is given. Methods on the {@link StartupPath} are treated according to
+ * its {@link StartupPath.Mode} afterward.
+ * <p>
+ * The policy is resolved once per class by {@link #resolve} before the class is transformed, so that the obfuscating
+ * visitors can decide per method in {@link ClassVisitor#visitMethod} instead of per instruction.
+ */
+public final class ObfuscationPolicy {
+
+    /**
+     * A policy obfuscating all methods.
+     */
+    public static final ObfuscationPolicy ALL =
+        new ObfuscationPolicy("", Set.of(), true, Map.of(), StartupPath.NONE);
+
+    /**
+     * The internal name of the class to which this policy applies.
+     */
+    private final String className;
+
+    /**
+     * The keys of the methods declared by the class at the time the policy has been resolved.
+     */
+    private final Set<String> declaredMethods;
+
+    /**
+     * The decision for methods which are not annotated themselves, resolved from the class and package annotations.
+     */
+    private final boolean obfuscateByDefault;
+
+    /**
+     * The decisions of methods whose decision differs from {@link #obfuscateByDefault}, keyed by
+     * {@link #getMethodKey(String, String)}.
+     */
+    private final Map<String, Boolean> methodDecisions;
+
+    private final StartupPath startupPath;
+
+    private ObfuscationPolicy(final String className, final Set<String> declaredMethods,
+                              final boolean obfuscateByDefault, final Map<String, Boolean> methodDecisions,
+                              final StartupPath startupPath) {
+        this.className          = className;
+        this.declaredMethods    = declaredMethods;
+        this.obfuscateByDefault = obfuscateByDefault;
+        this.methodDecisions    = methodDecisions;
+        this.startupPath        = startupPath;
+    }
+
+    /**
+     * Resolves the policy for the class represented by the provided {@code reader} without taking a
+     * {@link StartupPath} into account.
+     *
+     * @see #resolve(ClassReader, PackagePolicies, boolean, StartupPath)
+     */
+    public static ObfuscationPolicy resolve(final ClassReader     reader,
+                                            final PackagePolicies packagePolicies,
+                                            final boolean         annotatedOnly) {
+        return resolve(reader, packagePolicies, annotatedOnly, StartupPath.NONE);
+    }
+
+    /**
+     * Resolves the policy for the class represented by the provided {@code reader}.
+     *
+     * @param reader The reader of the class for which the policy should be resolved.
+     *
+     * @param packagePolicies The annotations of the {@code package-info} classes of the obfuscated artifact.
+     *
+     * @param annotatedOnly Whether methods without any applicable annotation should be left untouched.
+     *
+     * @param startupPath The methods on the startup path and how they should be obfuscated.
+     *
+     * @return The resolved policy.
+     */
+    public static ObfuscationPolicy resolve(final ClassReader     reader,
+                                            final PackagePolicies packagePolicies,
+                                            final boolean         annotatedOnly,
+                                            final StartupPath     startupPath) {
+        final var annotations = readAnnotations(reader);
+
+        final var classDecision = AnnotationDecision.of(annotations.classAnnotations())
+            .orElse(packagePolicies.get(reader.getClassName()));
+        final var obfuscateByDefault = switch (classDecision) {
+            case OBFUSCATE        -> true;
+            case DO_NOT_OBFUSCATE -> false;
+            case INHERIT          -> !annotatedOnly;
+        };
+
+        final var methodDecisions = new HashMap<String, Boolean>();
+        annotations.methodAnnotations().forEach((methodKey, methodAnnotations) -> {
+            final var methodDecision = AnnotationDecision.of(methodAnnotations);
+            if (methodDecision != AnnotationDecision.INHERIT) {
+                final boolean obfuscate = (methodDecision == AnnotationDecision.OBFUSCATE);
+                if (obfuscate != obfuscateByDefault) {
+                    methodDecisions.put(methodKey, obfuscate);
+                }
+            }
+        });
+        return new ObfuscationPolicy(reader.getClassName(), annotations.methods(), obfuscateByDefault,
+            methodDecisions, startupPath);
+    }
+
+    /**
+     * Checks whether the instructions of the method with the provided name and descriptor should be obfuscated.
+     * <p>
+     * Methods which have been added to the class after the policy has been resolved, e.g. synthetic field accessors,
+     * follow the class-level decision.
+     */
+    public boolean shouldObfuscate(final String methodName, final String methodDescriptor) {
+        return isAnnotatedForObfuscation(methodName, methodDescriptor)
+            && !isOnExcludedStartupPath(methodName, methodDescriptor);
+    }
+
+    /**
+     * Checks whether the instructions of the method with the provided name and descriptor would be obfuscated if the
+     * method was not on the {@link StartupPath}, in which case the obfuscating visitors should
+     * {@link #recordSavedBootstrap()} for each call site they leave un-obfuscated.
+     */
+    public boolean isStartupMethod(final String methodName, final String methodDescriptor) {
+        return isAnnotatedForObfuscation(methodName, methodDescriptor)
+            && isOnExcludedStartupPath(methodName, methodDescriptor);
+    }
+
+    /**
+     * Checks whether the field accesses of the method with the provided name and descriptor should be wrapped in
+     * synthetic accessors despite the method not being obfuscated otherwise, as it is on a {@link StartupPath} with
+     * {@link StartupPath.Mode#SYNTHETIC_ACCESSORS}.
+     */
+    public boolean wrapsFieldAccessesOnly(final String methodName, final String methodDescriptor) {
+        return (startupPath.getMode() == StartupPath.Mode.SYNTHETIC_ACCESSORS)
+            && isStartupMethod(methodName, methodDescriptor);
+    }
+
+    /**
+     * @see StartupPath#recordSavedBootstrap()
+     */
+    public void recordSavedBootstrap() {
+        startupPath.recordSavedBootstrap();
+    }
+
+    /**
+     * Checks whether the method with the provided name and descriptor has been declared by the class when the policy
+     * was resolved, i.e. before it may have been extended by synthetic field accessors.
+     */
+    public boolean declaresMethod(final String methodName, final String methodDescriptor) {
+        return declaredMethods.contains(getMethodKey(methodName, methodDescriptor));
+    }
+
+    private boolean isAnnotatedForObfuscation(final String methodName, final String methodDescriptor) {
+        return methodDecisions.getOrDefault(getMethodKey(methodName, methodDescriptor), obfuscateByDefault);
+    }
+
+    private boolean isOnExcludedStartupPath(final String methodName, final String methodDescriptor) {
+        return (startupPath.getMode() != StartupPath.Mode.OBFUSCATE)
+            && startupPath.contains(className, methodName, methodDescriptor);
+    }
+
+    /**
+     * @return {@code true} if no method of the class will be obfuscated, in which case the class does not need to be
+     *         transformed at all.
+     */
+    public boolean obfuscatesNothing() {
+        return !obfuscateByDefault && methodDecisions.isEmpty();
+    }
+
+    private static String getMethodKey(final String methodName, final String methodDescriptor) {
+        return methodName + methodDescriptor;
+    }
+
+    /**
+     * The descriptors of the annotations present on a class and on its methods.
+     */
+    record ClassAnnotations(List<String> classAnnotations, Map<String, List<String>> methodAnnotations,
+                            Set<String> methods) {}
+
+    /**
+     * Collects the descriptors of the annotations on the class represented by the {@code reader} and on its methods,
+     * along with the keys of all its methods, skipping the code of the methods.
+     */
+    static ClassAnnotations readAnnotations(final ClassReader reader) {
+        final var classAnnotations  = new ArrayList<String>();
+        final var methodAnnotations = new HashMap<String, List<String>>();
+        final var methods           = new HashSet<String>();
+        reader.accept(new ClassVisitor(Opcodes.ASM9) {
+            @Override
+            public AnnotationVisitor visitAnnotation(final String descriptor, final boolean visible) {
+                classAnnotations.add(descriptor);
+                return null;
+            }
+
+            @Override
+            public MethodVisitor visitMethod(final int access, final String name, final String descriptor,
+                                             final String signature, final String[] exceptions) {
+                methods.add(getMethodKey(name, descriptor));
+                return new MethodVisitor(api) {
+                    @Override
+                    public AnnotationVisitor visitAnnotation(final String annotationDescriptor,
+                                                             final boolean visible) {
+                        methodAnnotations.computeIfAbsent(getMethodKey(name, descriptor), key -> new ArrayList<>())
+                            .add(annotationDescriptor);
+                        return null;
+                    }
+                };
+            }
+        }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return new ClassAnnotations(classAnnotations, methodAnnotations, methods);
+    }
+}
@@ -0,0 +1,50 @@
+package dev.blanke.indyobfuscator.obfuscation.policy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Stores the obfuscation annotations of the {@code package-info} classes of the artifact being obfuscated, so that
+ * {@link ObfuscationPolicy#resolve} can take package-level annotations into account.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class PackagePolicies {
+
+    private static final String PACKAGE_INFO_SIMPLE_NAME = "package-info";
+
+    /**
+     * Maps the internal names of packages, e.g. {@code com/example}, to the decision expressed by the annotations of
+     * their {@code package-info} class.
+     */
+    private final Map<String, AnnotationDecision> decisions = new ConcurrentHashMap<>();
+
+    /**
+     * Checks whether the class with the provided internal name is a {@code package-info} class.
+     */
+    public static boolean isPackageInfo(final String className) {
+        return className.equals(PACKAGE_INFO_SIMPLE_NAME) || className.endsWith("/" + PACKAGE_INFO_SIMPLE_NAME);
+    }
+
+    /**
+     * Registers the annotations of the provided {@code package-info} class, replacing those of a previously registered
+     * version of the class.
+     *
+     * @param reader A reader for a {@code package-info} class.
+     */
+    public void register(final ClassReader reader) {
+        final var annotations = ObfuscationPolicy.readAnnotations(reader);
+        decisions.put(getPackageName(reader.getClassName()), AnnotationDecision.of(annotations.classAnnotations()));
+    }
+
+    AnnotationDecision get(final String className) {
+        return decisions.getOrDefault(getPackageName(className), AnnotationDecision.INHERIT);
+    }
+
+    private static String getPackageName(final String className) {
+        final int index = className.lastIndexOf('/');
+        return (index == -1) ? "" : className.substring(0, index);
+    }
+}
@@ -0,0 +1,126 @@
+package dev.blanke.indyobfuscator.obfuscation.policy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Describes the methods on the startup path of the obfuscated application, i.e. all static initializers along with an
+ * optional list of methods which are only executed while the application starts, and how they should be obfuscated.
+ * <p>
+ * Each obfuscated call site costs a bootstrap method invocation on its first execution, which is paid entirely during
+ * startup for code that only runs once. The number of call sites left un-obfuscated for this reason is counted by
+ * {@link #recordSavedBootstrap()}.
+ * <p>
+ * This class is thread-safe.
+ */
+public final class StartupPath {
+
+    /**
+     * Leaves the startup path to the regular obfuscation.
+     */
+    public static final StartupPath NONE = new StartupPath(Mode.OBFUSCATE, Set.of());
+
+    private static final String CLINIT_NAME = "<clinit>";
+
+    private final Mode mode;
+
+    /**
+     * The listed startup-only methods, each of the form {@code owner.name} or {@code owner.nameDescriptor} using the
+     * internal name of the owner.
+     */
+    private final Set<String> methods;
+
+    private final LongAdder savedBootstraps = new LongAdder();
+
+    public StartupPath(final Mode mode, final Set<String> methods) {
+        this.mode    = Objects.requireNonNull(mode);
+        this.methods = Set.copyOf(methods);
+    }
+
+    /**
+     * Reads a list of startup-only methods containing one method per line, given by the fully qualified name of its
+     * class, a dot, the method name, and an optional method descriptor, e.g. {@code com.example.Main.parseArguments} or
+     * {@code com.example.Main.parseArguments([Ljava/lang/String;)V}. Empty lines and lines starting with {@code #} are
+     * ignored.
+     *
+     * @throws IOException If reading fails or a line is malformed.
+     */
+    public static Set<String> readMethods(final Reader reader) throws IOException {
+        final var methods = new HashSet<String>();
+
+        final var bufferedReader = new BufferedReader(reader);
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            line = line.strip();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            final int descriptorStart = line.indexOf('(');
+            final var qualifiedName   = (descriptorStart == -1) ? line : line.substring(0, descriptorStart);
+            final var descriptor      = (descriptorStart == -1) ? "" : line.substring(descriptorStart);
+            final int nameStart       = qualifiedName.lastIndexOf('.');
+            if ((nameStart <= 0) || (nameStart == qualifiedName.length() - 1))
+                throw new IOException("Malformed startup method: " + line);
+            methods.add(qualifiedName.substring(0, nameStart).replace('.', '/') + qualifiedName.substring(nameStart)
+                + descriptor);
+        }
+        return methods;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Checks whether the method with the provided owner, name, and descriptor is on the startup path, ignoring the
+     * {@link #getMode()}.
+     */
+    public boolean contains(final String owner, final String name, final String descriptor) {
+        if (name.equals(CLINIT_NAME))
+            return true;
+        final var method = owner + '.' + name;
+        return methods.contains(method) || methods.contains(method + descriptor);
+    }
+
+    /**
+     * Records a call site on the startup path which would have been obfuscated if it was not for this startup path.
+     */
+    public void recordSavedBootstrap() {
+        savedBootstraps.increment();
+    }
+
+    /**
+     * @return The number of call sites on the startup path which have been left un-obfuscated, each of which would
+     *         have required a bootstrap method invocation during startup.
+     */
+    public long getSavedBootstraps() {
+        return savedBootstraps.sum();
+    }
+
+    /**
+     * Specifies how the methods on the startup path should be obfuscated.
+     */
+    public enum Mode {
+
+        /**
+         * Obfuscates the startup path like any other code.
+         */
+        OBFUSCATE,
+
+        /**
+         * Leaves the startup path un-obfuscated.
+         */
+        SKIP,
+
+        /**
+         * Only wraps the field accesses on the startup path in synthetic accessors, which does not require any
+         * bootstrap method invocations.
+         */
+        SYNTHETIC_ACCESSORS
+    }
+}
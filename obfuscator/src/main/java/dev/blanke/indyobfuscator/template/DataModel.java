@@ -1,9 +1,15 @@
 package dev.blanke.indyobfuscator.template;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.objectweb.asm.Handle;
 
 import dev.blanke.indyobfuscator.Arguments.FieldObfuscationMode;
+import dev.blanke.indyobfuscator.mapping.MethodInvocation;
 import dev.blanke.indyobfuscator.mapping.SymbolMapping;
+import dev.blanke.indyobfuscator.obfuscation.bootstrap.BootstrapMethodOwnerClassVisitor;
 
 /**
  * The data model encapsulates fields that are available in the context of the bootstrap method template.
@@ -29,6 +35,126 @@ import dev.blanke.indyobfuscator.mapping.SymbolMapping;
  *                             {@code jmethodID} references to methods of {@link java.lang.invoke.MethodHandles.Lookup}
  *                             have to be cached, such as {@code findSetter}, {@code findGetter}, or their static
  *                             equivalent.
+ *
+ * @param encodeStrings Whether the strings of the {@link #symbolTable()} should be encoded.
+ *
+ * @param unitCount The number of translation units into which the {@link #symbolMapping} is split by {@link #units()}.
+ *
+ * @param asyncLibraryLoading Whether the native library is loaded on a background thread.
+ *                            <p>
+ *                            If set, the native method {@link #nativeBootstrapMethodName()} has to be registered using
+ *                            {@code RegisterNatives} in {@code JNI_OnLoad}, as the bootstrap method owner only declares
+ *                            the bootstrap method itself in Java.
+ *
+ * @param canonicalizeOwners Whether the owners of invocations may have been replaced by the class declaring the
+ *                           invoked method (see {@link dev.blanke.indyobfuscator.Arguments#getCanonicalizeOwners()}).
+ *                           <p>
+ *                           If set, the method handles of virtual invocations have to be adapted to the type of the
+ *                           call site, whose receiver type differs from the owner.
  */
 public record DataModel(Handle bootstrapMethodHandle, SymbolMapping symbolMapping,
-                        FieldObfuscationMode fieldObfuscationMode) {}
+                        FieldObfuscationMode fieldObfuscationMode, boolean encodeStrings, int unitCount,
+                        boolean asyncLibraryLoading, boolean canonicalizeOwners) {
+
+    public DataModel {
+        if (unitCount < 1)
+            throw new IllegalArgumentException("The number of translation units must be positive.");
+    }
+
+    /**
+     * Splits the {@link #symbolMapping} into {@link #unitCount} translation units covering contiguous ranges of
+     * identifiers of roughly equal size. The last unit covers all identifiers up to {@link Integer#MAX_VALUE}.
+     */
+    public List<TranslationUnit> units() {
+        final var mappings = new ArrayList<Map.Entry<MethodInvocation, Integer>>();
+        symbolMapping.forEach(mappings::add);
+        mappings.sort(Map.Entry.comparingByValue());
+
+        final int endId     = mappings.isEmpty() ? 0 : (mappings.get(mappings.size() - 1).getValue() + 1);
+        final int unitWidth = Math.max(1, (endId + unitCount - 1) / unitCount);
+
+        final var units = new ArrayList<TranslationUnit>(unitCount);
+        int mappingIndex = 0;
+        for (int index = 0; index < unitCount; ++index) {
+            final int unitFirstId = index * unitWidth;
+            final int unitEndId   = (index == (unitCount - 1)) ? Integer.MAX_VALUE : (unitFirstId + unitWidth);
+
+            final int firstMappingIndex = mappingIndex;
+            while ((mappingIndex < mappings.size()) && (mappings.get(mappingIndex).getValue() < unitEndId)) {
+                ++mappingIndex;
+            }
+            units.add(new TranslationUnit(index, unitFirstId, unitEndId,
+                List.copyOf(mappings.subList(firstMappingIndex, mappingIndex))));
+        }
+        return units;
+    }
+
+    /**
+     * Creates the {@link SymbolTable} representation of the {@link #symbolMapping} used by table-driven templates.
+     * <p>
+     * The table is created anew on each invocation, so templates should assign it to a variable.
+     */
+    public SymbolTable symbolTable() {
+        return SymbolTable.of(symbolMapping, encodeStrings);
+    }
+
+    /**
+     * @return The name of the {@code native} method implementing the bootstrap method inside the bootstrap method owner.
+     *
+     * @see BootstrapMethodOwnerClassVisitor#getNativeBootstrapMethodName(String, boolean)
+     */
+    public String nativeBootstrapMethodName() {
+        return BootstrapMethodOwnerClassVisitor.getNativeBootstrapMethodName(bootstrapMethodHandle.getName(),
+            asyncLibraryLoading);
+    }
+
+    /**
+     * @return The name of the JNI function implementing the bootstrap method if it is exported rather than registered
+     *         in {@code JNI_OnLoad}, i.e. unless {@link #asyncLibraryLoading} is set.
+     */
+    public String nativeBootstrapFunctionName() {
+        return "Java_" + mangle(bootstrapMethodHandle.getOwner()) + '_' + mangle(nativeBootstrapMethodName());
+    }
+
+    /**
+     * @return The name of the {@code native} method called by the trampoline of the
+     *         {@link dev.blanke.indyobfuscator.Arguments.BootstrapMethodLayout#TRAMPOLINE} layout.
+     */
+    public String trampolineMethodName() {
+        return BootstrapMethodOwnerClassVisitor.getTrampolineNativeMethodName(bootstrapMethodHandle.getName());
+    }
+
+    /**
+     * @return The name of the JNI function implementing the {@code native} method called by the trampoline of the
+     *         {@link dev.blanke.indyobfuscator.Arguments.BootstrapMethodLayout#TRAMPOLINE} layout.
+     *
+     * @see BootstrapMethodOwnerClassVisitor#getTrampolineNativeMethodName(String)
+     */
+    public String trampolineFunctionName() {
+        return "Java_" + mangle(bootstrapMethodHandle.getOwner()) + '_' + mangle(trampolineMethodName());
+    }
+
+    /**
+     * Escapes the provided internal name as specified by the JNI for the names of native method implementations.
+     */
+    private static String mangle(final String name) {
+        final var builder = new StringBuilder(name.length());
+        for (int index = 0; index < name.length(); ++index) {
+            final char character = name.charAt(index);
+            switch (character) {
+                case '/' -> builder.append('_');
+                case '_' -> builder.append("_1");
+                case ';' -> builder.append("_2");
+                case '[' -> builder.append("_3");
+                default  -> {
+                    if ((character < 128) && Character.isLetterOrDigit(character)) {
+                        builder.append(character);
+                    } else {
+                        builder.append("_0").append(String.format("%04x", (int) character));
+                    }
+                }
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,203 @@
+package dev.blanke.indyobfuscator.template;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import dev.blanke.indyobfuscator.Arguments.FieldObfuscationMode;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Denotes an implementation of the {@link TemplateEngine} interface which writes the output of the packaged
+ * {@code bootstrap.c.ftl} template straight from the {@link DataModel}, without a template language.
+ * <p>
+ * The output is byte-identical to the one of the {@link FreeMarkerTemplateEngine} for the packaged template, but is
+ * produced without reflection, intermediate template models, or parsing a template, and without loading FreeMarker at
+ * all. As such, this engine is only suited for the packaged template of the
+ * {@link dev.blanke.indyobfuscator.Arguments.BootstrapMethodLayout#SWITCH SWITCH} layout, while custom templates have
+ * to be processed by the {@code FreeMarkerTemplateEngine}.
+ * <p>
+ * The {@code JNI_OnLoad} and {@code resolve} functions are copied verbatim from the packaged
+ * {@code bootstrap-runtime.c}, which the packaged templates include as well.
+ */
+public final class DirectTemplateEngine implements TemplateEngine {
+
+    /**
+     * The size of the buffer collecting the output before it is written to the output writer, which is large enough
+     * to hold several hundred cases of the {@code switch} statement.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The number of decimal digits of {@link Integer#MAX_VALUE}, the largest identifier.
+     */
+    private static final int MAX_IDENTIFIER_DIGITS = 10;
+
+    /**
+     * The macros configuring the {@link #RUNTIME}, i.e. the output of the {@code definitions} macro of the packaged
+     * {@code bootstrap-common.ftl} library. Contains format specifiers for the values of
+     * {@code FIELD_INSN_HANDLE_OBFUSCATION}, {@code ASYNC_LIBRARY_LOADING}, and {@code CANONICALIZE_OWNERS} and for the
+     * {@link #NATIVE_METHOD_DEFINITIONS}.
+     */
+    private static final String DEFINITIONS = """
+        #define FIELD_INSN_HANDLE_OBFUSCATION %%d
+        #define ASYNC_LIBRARY_LOADING         %%d
+        #define CANONICALIZE_OWNERS           %%d
+        %%s
+        #ifdef FIELD_INSN_HANDLE_OBFUSCATION
+        #define OPCODE_GETSTATIC       %d
+        #define OPCODE_PUTSTATIC       %d
+        #define OPCODE_GETFIELD        %d
+        #define OPCODE_PUTFIELD        %d
+        #endif
+
+        #define OPCODE_INVOKEVIRTUAL   %d
+        #define OPCODE_INVOKESPECIAL   %d
+        #define OPCODE_INVOKESTATIC    %d
+        #define OPCODE_INVOKEINTERFACE %d
+
+        """.formatted(
+            GETSTATIC, PUTSTATIC, GETFIELD, PUTFIELD, INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC, INVOKEINTERFACE);
+
+    /**
+     * The macros naming the native method registered by {@code JNI_OnLoad} if {@link DataModel#asyncLibraryLoading()}
+     * is set. Contains format specifiers for the internal name of its owner and for its name and descriptor.
+     */
+    private static final String NATIVE_METHOD_DEFINITIONS = """
+
+        #define NATIVE_BOOTSTRAP_METHOD_OWNER      "%s"
+        #define NATIVE_BOOTSTRAP_METHOD_NAME       "%s"
+        #define NATIVE_BOOTSTRAP_METHOD_DESCRIPTOR "%s"
+        """;
+
+    /**
+     * The packaged {@code bootstrap-runtime.c} containing the {@code JNI_OnLoad} and {@code resolve} functions, which
+     * is shared with the packaged templates.
+     */
+    private static final String RUNTIME = readResource("/bootstrap-runtime.c");
+
+    /**
+     * Everything between the name of the native bootstrap method and the first case of its {@code switch} statement.
+     */
+    private static final String SWITCH_PROLOGUE = """
+            (JNIEnv *env, jclass thisClass, jobject lookup, jstring invokedName, jobject invokedType)
+        {
+            const char *invokedNameUTF = (*env)->GetStringUTFChars(env, invokedName, NULL);
+            const long  invokedId      = strtol(invokedNameUTF, NULL, 0);
+            (*env)->ReleaseStringUTFChars(env, invokedName, invokedNameUTF);
+
+            switch (invokedId) {
+        """;
+
+    private static final String SWITCH_EPILOGUE = """
+            default:
+                return NULL;
+            }
+        }
+        """;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@code templateReader} is ignored, as the output of the packaged {@code bootstrap.c.ftl} template is written.
+     * The template does not write any additional files to the {@code output}.
+     */
+    @Override
+    public void process(final Reader templateReader, final DataModel dataModel, final Writer outputWriter,
+                        final TemplateOutput output) throws IOException {
+        try (templateReader) {
+            final var writer = new BufferedWriter(outputWriter, BUFFER_SIZE);
+            final var bootstrapMethodHandle = dataModel.bootstrapMethodHandle();
+            final var asyncLibraryLoading   = dataModel.asyncLibraryLoading();
+            writer.write(DEFINITIONS.formatted(
+                (dataModel.fieldObfuscationMode() == FieldObfuscationMode.METHOD_HANDLES) ? 1 : 0,
+                asyncLibraryLoading ? 1 : 0,
+                dataModel.canonicalizeOwners() ? 1 : 0,
+                asyncLibraryLoading
+                    ? NATIVE_METHOD_DEFINITIONS.formatted(bootstrapMethodHandle.getOwner(),
+                        dataModel.nativeBootstrapMethodName(), bootstrapMethodHandle.getDesc())
+                    : ""));
+            writer.write(RUNTIME);
+            writer.write('\n');
+
+            if (asyncLibraryLoading) {
+                writer.write("static jobject JNICALL native_bootstrap\n");
+            } else {
+                writer.write("JNIEXPORT jobject JNICALL ");
+                writer.write(dataModel.nativeBootstrapFunctionName());
+                writer.write('\n');
+            }
+            writer.write(SWITCH_PROLOGUE);
+
+            final var digits = new char[MAX_IDENTIFIER_DIGITS];
+            for (final var mapping : dataModel.symbolMapping()) {
+                final var methodInvocation = mapping.getKey();
+                writer.write("    case ");
+                writeIdentifier(writer, digits, mapping.getValue());
+                writer.write(":\n        return resolve(env, lookup, \"");
+                writer.write(methodInvocation.owner());
+                writer.write("\", ");
+                writer.write(getOpcodeMacro(methodInvocation.opcode()));
+                writer.write(", \"");
+                writer.write(methodInvocation.name());
+                writer.write("\", invokedType, ");
+                // Caller is needed for MethodHandles.Lookup.findSpecial.
+                if (methodInvocation.opcode() == INVOKESPECIAL) {
+                    writer.write('"');
+                    writer.write(methodInvocation.caller());
+                    writer.write('"');
+                } else {
+                    writer.write("NULL");
+                }
+                writer.write(");\n");
+            }
+            writer.write(SWITCH_EPILOGUE);
+            writer.flush();
+        }
+    }
+
+    /**
+     * Writes the decimal representation of the non-negative {@code identifier} using the {@code digits} buffer, so
+     * that no string is allocated per case.
+     */
+    private static void writeIdentifier(final Writer writer, final char[] digits, final int identifier)
+            throws IOException {
+        int position  = digits.length;
+        int remainder = identifier;
+        do {
+            digits[--position] = (char) ('0' + (remainder % 10));
+            remainder /= 10;
+        } while (remainder != 0);
+        writer.write(digits, position, digits.length - position);
+    }
+
+    private static String readResource(final String name) {
+        try (final var stream = DirectTemplateEngine.class.getResourceAsStream(name)) {
+            if (stream == null)
+                throw new ExceptionInInitializerError("The resource " + name + " is missing.");
+            return new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (final IOException exception) {
+            throw new ExceptionInInitializerError(exception);
+        }
+    }
+
+    /**
+     * @return The name of the {@code OPCODE_*} macro defined by the {@link #DEFINITIONS} for the provided opcode.
+     */
+    private static String getOpcodeMacro(final int opcode) {
+        return switch (opcode) {
+            case INVOKEVIRTUAL   -> "OPCODE_INVOKEVIRTUAL";
+            case INVOKESPECIAL   -> "OPCODE_INVOKESPECIAL";
+            case INVOKESTATIC    -> "OPCODE_INVOKESTATIC";
+            case INVOKEINTERFACE -> "OPCODE_INVOKEINTERFACE";
+            case GETFIELD        -> "OPCODE_GETFIELD";
+            case PUTFIELD        -> "OPCODE_PUTFIELD";
+            case GETSTATIC       -> "OPCODE_GETSTATIC";
+            case PUTSTATIC       -> "OPCODE_PUTSTATIC";
+            default -> throw new IllegalArgumentException("Unsupported opcode: " + opcode);
+        };
+    }
+}
@@ -2,14 +2,28 @@ package dev.blanke.indyobfuscator.template;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import freemarker.cache.ClassTemplateLoader;
+import freemarker.core.Environment;
 import freemarker.ext.beans.BeansWrapperBuilder;
 import freemarker.template.Configuration;
-import freemarker.template.DefaultObjectWrapperBuilder;
 import freemarker.template.Template;
+import freemarker.template.TemplateDirectiveBody;
+import freemarker.template.TemplateDirectiveModel;
 import freemarker.template.TemplateException;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateScalarModel;
 
 import org.objectweb.asm.Opcodes;
 
@@ -22,45 +36,148 @@ import static freemarker.template.Configuration.VERSION_2_3_31;
  */
 public final class FreeMarkerTemplateEngine implements TemplateEngine {
 
-    private final Configuration configuration;
-
-    private static final Configuration DEFAULT_CONFIGURATION;
-
-    static {
-        final var configuration = new Configuration(VERSION_2_3_31);
-
-        // Enable support for java.lang.Iterable.
-        final var objectWrapperBuilder =
-            new DefaultObjectWrapperBuilder(configuration.getIncompatibleImprovements());
-        objectWrapperBuilder.setIterableSupport(true);
-        configuration.setObjectWrapper(objectWrapperBuilder.build());
-
-        // Prevent formatting of numbers.
-        configuration.setNumberFormat("computer");
+    /**
+     * The maximum number of parsed templates kept by the {@link #TEMPLATE_CACHE}.
+     */
+    private static final int TEMPLATE_CACHE_SIZE = 16;
+
+    /**
+     * Caches parsed templates by their configuration and the hash of their content, so that obfuscations running
+     * inside the same JVM, e.g. inside an {@link dev.blanke.indyobfuscator.daemon.ObfuscationDaemon} or during
+     * {@code --watch}, parse each template only once. Parsed templates are safe for concurrent use.
+     */
+    private static final Map<TemplateKey, Template> TEMPLATE_CACHE =
+        Collections.synchronizedMap(new LinkedHashMap<>(TEMPLATE_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<TemplateKey, Template> eldest) {
+                return size() > TEMPLATE_CACHE_SIZE;
+            }
+        });
+
+    /**
+     * Holds the default configuration, which is only built once an engine using it is created.
+     */
+    private static final class ConfigurationHolder {
+
+        private static final Configuration DEFAULT_CONFIGURATION;
+
+        static {
+            final var configuration = new Configuration(VERSION_2_3_31);
+
+            // Allow templates to import the libraries packaged with the JAR, e.g. bootstrap-common.ftl.
+            configuration.setTemplateLoader(new ClassTemplateLoader(FreeMarkerTemplateEngine.class, "/"));
+            configuration.setLocalizedLookup(false);
+            configuration.setDefaultEncoding(StandardCharsets.UTF_8.name());
+
+            // Enable support for java.lang.Iterable and avoid reflection for the elements of the symbol mapping.
+            configuration.setObjectWrapper(new SymbolMappingObjectWrapper(configuration.getIncompatibleImprovements()));
+
+            // Prevent formatting of numbers, formatting integers without a java.text.DecimalFormat.
+            configuration.setCustomNumberFormats(
+                Map.of(IntegerNumberFormatFactory.NAME, IntegerNumberFormatFactory.INSTANCE));
+            configuration.setNumberFormat("@" + IntegerNumberFormatFactory.NAME);
+
+            DEFAULT_CONFIGURATION = configuration;
+        }
+    }
 
-        DEFAULT_CONFIGURATION = configuration;
+    /**
+     * Holds the model allowing access to {@code org.objectweb.asm.Opcodes.*} from inside the template via the
+     * 'Opcodes' variable, which is only built once a template is processed.
+     */
+    private static final class OpcodesModelHolder {
+
+        private static final TemplateModel OPCODES_MODEL;
+
+        static {
+            try {
+                OPCODES_MODEL = new BeansWrapperBuilder(VERSION_2_3_31).build()
+                    .getStaticModels().get(Opcodes.class.getName());
+            } catch (final TemplateModelException exception) {
+                throw new ExceptionInInitializerError(exception);
+            }
+        }
     }
 
+    private final Configuration configuration;
+
     public FreeMarkerTemplateEngine() {
-        this(DEFAULT_CONFIGURATION);
+        this(ConfigurationHolder.DEFAULT_CONFIGURATION);
     }
 
     public FreeMarkerTemplateEngine(final Configuration configuration) {
         this.configuration = configuration;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Templates write to additional files using the {@code output} directive, e.g.
+     * {@code <@output file="bootstrap.h">...</@output>}.
+     */
     @Override
-    public void process(final Reader templateReader, final DataModel dataModel, final Writer outputWriter)
-            throws IOException, TemplateException {
+    public void process(final Reader templateReader, final DataModel dataModel, final Writer outputWriter,
+                        final TemplateOutput output) throws IOException, TemplateException {
+        final String templateSource;
         try (templateReader) {
-            final var template = new Template("", templateReader, configuration);
+            templateSource = readFully(templateReader);
+        }
+        final var template = getTemplate(templateSource);
+        template.process(Map.of("dataModel", dataModel, "Opcodes", OpcodesModelHolder.OPCODES_MODEL,
+            "output", new OutputDirective(output)), outputWriter);
+    }
+
+    /**
+     * @return The parsed template with the provided {@code source} from the {@link #TEMPLATE_CACHE}, parsing it if it
+     *         is not cached yet.
+     */
+    private Template getTemplate(final String source) throws IOException {
+        final var key = new TemplateKey(configuration, hash(source));
+        final var cachedTemplate = TEMPLATE_CACHE.get(key);
+        if (cachedTemplate != null)
+            return cachedTemplate;
+
+        // Parse outside the lock, as parsing the same template twice concurrently is harmless.
+        final var template = new Template("", new StringReader(source), configuration);
+        TEMPLATE_CACHE.put(key, template);
+        return template;
+    }
 
-            // Allow access to org.objectweb.asm.Opcodes.* from inside the template via the 'Opcodes' variable.
-            final var wrapper =
-                new BeansWrapperBuilder(template.getConfiguration().getIncompatibleImprovements()).build();
-            final var opcodes = wrapper.getStaticModels().get(Opcodes.class.getName());
+    private static String readFully(final Reader reader) throws IOException {
+        final var source = new StringWriter();
+        reader.transferTo(source);
+        return source.toString();
+    }
+
+    private static String hash(final String source) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(source.getBytes(StandardCharsets.UTF_8)));
+        } catch (final NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
 
-            template.process(Map.of("dataModel", dataModel, "Opcodes", opcodes), outputWriter);
+    /**
+     * Identifies a parsed template. The {@link Configuration} is compared by identity.
+     */
+    private record TemplateKey(Configuration configuration, String hash) {}
+
+    /**
+     * Redirects the output of its body to the file given by its {@code file} parameter.
+     */
+    private record OutputDirective(TemplateOutput output) implements TemplateDirectiveModel {
+
+        @Override
+        public void execute(final Environment environment, final Map parameters, final TemplateModel[] loopVariables,
+                            final TemplateDirectiveBody body) throws TemplateException, IOException {
+            if (!(parameters.get("file") instanceof TemplateScalarModel fileName) || (parameters.size() != 1))
+                throw new TemplateModelException("The output directive requires exactly one 'file' parameter.");
+            if (body == null)
+                return;
+            try (final var writer = output.open(fileName.getAsString())) {
+                body.render(writer);
+            }
         }
     }
 }
@@ -0,0 +1,65 @@
+package dev.blanke.indyobfuscator.template;
+
+import java.util.Locale;
+
+import freemarker.core.Environment;
+import freemarker.core.TemplateNumberFormat;
+import freemarker.core.TemplateNumberFormatFactory;
+import freemarker.core.TemplateValueFormatException;
+import freemarker.template.TemplateModelException;
+import freemarker.template.TemplateNumberModel;
+
+/**
+ * Creates number formats which format integral numbers using {@link Long#toString(long)} and any other number using
+ * the {@code computer} format, whose output is identical for integral numbers.
+ * <p>
+ * Templates interpolate identifiers and string pool offsets once per mapping, and the {@code computer} format is backed
+ * by a {@link java.text.DecimalFormat}, which is considerably slower.
+ */
+final class IntegerNumberFormatFactory extends TemplateNumberFormatFactory {
+
+    /**
+     * The name under which this factory is registered as custom number format.
+     */
+    static final String NAME = "integer";
+
+    static final IntegerNumberFormatFactory INSTANCE = new IntegerNumberFormatFactory();
+
+    private IntegerNumberFormatFactory() {
+    }
+
+    @Override
+    public TemplateNumberFormat get(final String parameters, final Locale locale, final Environment environment)
+            throws TemplateValueFormatException {
+        return new IntegerNumberFormat(environment.getTemplateNumberFormat("computer"));
+    }
+
+    private static final class IntegerNumberFormat extends TemplateNumberFormat {
+
+        private final TemplateNumberFormat fallbackFormat;
+
+        IntegerNumberFormat(final TemplateNumberFormat fallbackFormat) {
+            this.fallbackFormat = fallbackFormat;
+        }
+
+        @Override
+        public String formatToPlainText(final TemplateNumberModel numberModel)
+                throws TemplateValueFormatException, TemplateModelException {
+            final var number = numberModel.getAsNumber();
+            if ((number instanceof Integer) || (number instanceof Long) || (number instanceof Short)
+                    || (number instanceof Byte))
+                return Long.toString(number.longValue());
+            return fallbackFormat.formatToPlainText(numberModel);
+        }
+
+        @Override
+        public boolean isLocaleBound() {
+            return false;
+        }
+
+        @Override
+        public String getDescription() {
+            return NAME;
+        }
+    }
+}
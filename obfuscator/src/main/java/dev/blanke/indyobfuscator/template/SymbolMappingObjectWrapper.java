@@ -0,0 +1,164 @@
+package dev.blanke.indyobfuscator.template;
+
+import java.util.Map;
+
+import freemarker.template.AdapterTemplateModel;
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.DefaultObjectWrapperBuilder;
+import freemarker.template.SimpleNumber;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateMethodModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
+import freemarker.template.Version;
+
+import dev.blanke.indyobfuscator.mapping.MethodInvocation;
+
+/**
+ * A {@link DefaultObjectWrapper} which wraps the elements of a {@link dev.blanke.indyobfuscator.mapping.SymbolMapping}
+ * and a {@link SymbolTable}, i.e. {@link Map.Entry Map.Entries}, {@link MethodInvocation}s, and
+ * {@link SymbolTable.Entry SymbolTable.Entries}, into lightweight models instead of reflection-based bean models.
+ * <p>
+ * As these elements are wrapped once per iteration of a {@code #list} directive, the bean models created by the
+ * {@code DefaultObjectWrapper} dominate the rendering time of large mappings. The accessors of the lightweight models
+ * are resolved by a {@code switch} on their name, while any other member is still resolved by the bean model, which is
+ * only created on first use.
+ * <p>
+ * Iterables, such as the {@code SymbolMapping} itself, are supported and iterated lazily, so that the mapping is
+ * streamed into the template without being copied.
+ */
+final class SymbolMappingObjectWrapper extends DefaultObjectWrapper {
+
+    SymbolMappingObjectWrapper(final Version incompatibleImprovements) {
+        super(createConfiguration(incompatibleImprovements), true);
+    }
+
+    private static DefaultObjectWrapperBuilder createConfiguration(final Version incompatibleImprovements) {
+        final var builder = new DefaultObjectWrapperBuilder(incompatibleImprovements);
+        builder.setIterableSupport(true);
+        return builder;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The elements of the symbol mapping are checked first, as they make up the vast majority of wrapped objects.
+     */
+    @Override
+    public TemplateModel wrap(final Object object) throws TemplateModelException {
+        if (object instanceof MethodInvocation methodInvocation)
+            return new MethodInvocationModel(methodInvocation, this);
+        if (object instanceof SymbolTable.Entry entry)
+            return new SymbolTableEntryModel(entry, this);
+        if (object instanceof Map.Entry<?, ?> entry)
+            return new MapEntryModel(entry, this);
+        return super.wrap(object);
+    }
+
+    /**
+     * Exposes the accessors of a wrapped object as methods without arguments, so that templates can call them like
+     * the methods exposed by a bean model, e.g. {@code methodId.owner()}.
+     */
+    private abstract static class AccessorModel<T> implements TemplateHashModel, AdapterTemplateModel {
+
+        final T object;
+
+        private final SymbolMappingObjectWrapper wrapper;
+
+        /**
+         * The bean model to which unknown members are delegated, which is only created on first use.
+         */
+        private TemplateHashModel beanModel;
+
+        AccessorModel(final T object, final SymbolMappingObjectWrapper wrapper) {
+            this.object  = object;
+            this.wrapper = wrapper;
+        }
+
+        /**
+         * @return The wrapped result of the accessor with the provided {@code name}, or {@code null} if the object
+         *         has no such accessor.
+         */
+        abstract TemplateModel getAccessorResult(String name) throws TemplateModelException;
+
+        @Override
+        public final TemplateModel get(final String key) throws TemplateModelException {
+            final var result = getAccessorResult(key);
+            if (result != null)
+                return (TemplateMethodModelEx) arguments -> result;
+            if (beanModel == null) {
+                beanModel = wrapper.wrapAsAPI(object);
+            }
+            return beanModel.get(key);
+        }
+
+        @Override
+        public final boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public final Object getAdaptedObject(final Class<?> hint) {
+            return object;
+        }
+
+        final TemplateModel wrap(final Object value) throws TemplateModelException {
+            return wrapper.wrap(value);
+        }
+    }
+
+    private static final class MapEntryModel extends AccessorModel<Map.Entry<?, ?>> {
+
+        MapEntryModel(final Map.Entry<?, ?> entry, final SymbolMappingObjectWrapper wrapper) {
+            super(entry, wrapper);
+        }
+
+        @Override
+        TemplateModel getAccessorResult(final String name) throws TemplateModelException {
+            return switch (name) {
+                case "getKey"   -> wrap(object.getKey());
+                case "getValue" -> wrap(object.getValue());
+                default         -> null;
+            };
+        }
+    }
+
+    private static final class MethodInvocationModel extends AccessorModel<MethodInvocation> {
+
+        MethodInvocationModel(final MethodInvocation methodInvocation, final SymbolMappingObjectWrapper wrapper) {
+            super(methodInvocation, wrapper);
+        }
+
+        @Override
+        TemplateModel getAccessorResult(final String name) {
+            return switch (name) {
+                case "opcode"     -> new SimpleNumber(object.opcode());
+                case "owner"      -> new SimpleScalar(object.owner());
+                case "name"       -> new SimpleScalar(object.name());
+                case "descriptor" -> new SimpleScalar(object.descriptor());
+                // A null caller is resolved by the bean model, which results in an undefined value.
+                case "caller"     -> (object.caller() != null) ? new SimpleScalar(object.caller()) : null;
+                default           -> null;
+            };
+        }
+    }
+
+    private static final class SymbolTableEntryModel extends AccessorModel<SymbolTable.Entry> {
+
+        SymbolTableEntryModel(final SymbolTable.Entry entry, final SymbolMappingObjectWrapper wrapper) {
+            super(entry, wrapper);
+        }
+
+        @Override
+        TemplateModel getAccessorResult(final String name) {
+            return switch (name) {
+                case "owner"  -> new SimpleNumber(object.owner());
+                case "name"   -> new SimpleNumber(object.name());
+                case "caller" -> new SimpleNumber(object.caller());
+                case "opcode" -> new SimpleNumber(object.opcode());
+                default       -> null;
+            };
+        }
+    }
+}
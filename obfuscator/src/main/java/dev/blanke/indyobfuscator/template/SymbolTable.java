@@ -0,0 +1,225 @@
+package dev.blanke.indyobfuscator.template;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import org.objectweb.asm.Opcodes;
+
+import dev.blanke.indyobfuscator.mapping.MethodInvocation;
+import dev.blanke.indyobfuscator.mapping.SymbolMapping;
+
+/**
+ * A compact representation of a {@link SymbolMapping} for table-driven bootstrap method templates, consisting of an
+ * array of {@link Entry entries} indexed by identifier and a pool of deduplicated strings referenced by the entries.
+ * <p>
+ * The strings are stored in modified UTF-8 as expected by JNI, each terminated by a {@code NUL} byte. If the pool is
+ * encoded, each byte is XOR-ed with {@code (key + offset) & 0xFF}, where {@code offset} is the position of the byte
+ * inside the pool, so that the strings do not appear in plain text inside the native library.
+ *
+ * @see DataModel#symbolTable()
+ */
+public final class SymbolTable {
+
+    /**
+     * The number of string pool bytes per line of {@link #getStringPoolLines()}.
+     */
+    private static final int BYTES_PER_LINE = 32;
+
+    /**
+     * The entries indexed by identifier. Identifiers which are not assigned by the {@link SymbolMapping} are
+     * {@code null}.
+     */
+    private final List<@Nullable Entry> entries;
+
+    private final byte[] stringPool;
+
+    private final int stringCount;
+
+    private final int key;
+
+    private SymbolTable(final List<@Nullable Entry> entries, final byte[] stringPool, final int stringCount,
+                        final int key) {
+        this.entries     = entries;
+        this.stringPool  = stringPool;
+        this.stringCount = stringCount;
+        this.key         = key;
+    }
+
+    /**
+     * Creates a {@code SymbolTable} from the provided {@code symbolMapping}.
+     *
+     * @param symbolMapping The symbol mapping whose identifiers are used as indices into the table.
+     *
+     * @param encode Whether the string pool should be encoded. The key is derived from the content of the pool, so
+     *               that the output is reproducible.
+     */
+    public static SymbolTable of(final SymbolMapping symbolMapping, final boolean encode) {
+        final var invocations = new ArrayList<Map.Entry<MethodInvocation, Integer>>();
+        int maxIdentifier = -1;
+        for (final var mapping : symbolMapping) {
+            invocations.add(mapping);
+            maxIdentifier = Math.max(maxIdentifier, mapping.getValue());
+        }
+        // Add the strings in the order of the identifiers, as the iteration order of the mapping is unspecified.
+        invocations.sort(Map.Entry.comparingByValue());
+
+        final var pool    = new StringPoolBuilder();
+        final var entries = new ArrayList<@Nullable Entry>(Arrays.asList(new Entry[maxIdentifier + 1]));
+        for (final var mapping : invocations) {
+            final var invocation = mapping.getKey();
+            // The caller is only needed for MethodHandles.Lookup.findSpecial.
+            final int caller = (invocation.opcode() == Opcodes.INVOKESPECIAL) ? pool.add(invocation.caller()) : -1;
+            entries.set(mapping.getValue(), new Entry(pool.add(invocation.owner()), pool.add(invocation.name()),
+                caller, invocation.opcode()));
+        }
+
+        final var stringPool = pool.toByteArray();
+        final int key = encode ? deriveKey(stringPool) : 0;
+        if (encode) {
+            for (int offset = 0; offset < stringPool.length; ++offset) {
+                stringPool[offset] ^= (byte) (key + offset);
+            }
+        }
+        return new SymbolTable(Collections.unmodifiableList(entries), stringPool, pool.size(), key);
+    }
+
+    /**
+     * @return A non-zero key depending on the content of the {@code stringPool}.
+     */
+    private static int deriveKey(final byte[] stringPool) {
+        final int key = Arrays.hashCode(stringPool) & 0xFF;
+        return (key != 0) ? key : 0x5A;
+    }
+
+    public List<@Nullable Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return The number of entries, i.e. the highest identifier plus one.
+     */
+    public int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * @return The number of distinct strings in the string pool.
+     */
+    public int getStringCount() {
+        return stringCount;
+    }
+
+    /**
+     * @return A copy of the string pool, which is encoded if {@link #isEncoded()}.
+     */
+    public byte[] getStringPool() {
+        return stringPool.clone();
+    }
+
+    /**
+     * @return The length of the string pool in bytes including the terminating {@code NUL} bytes.
+     */
+    public int getStringPoolLength() {
+        return stringPool.length;
+    }
+
+    public boolean isEncoded() {
+        return key != 0;
+    }
+
+    /**
+     * @return The key used to encode the string pool, or {@code 0} if the string pool is not encoded.
+     */
+    public int getKey() {
+        return key;
+    }
+
+    /**
+     * @return The string pool split into C string literals without quotes, which only contain printable ASCII
+     *         characters and octal escape sequences and which are meant to be concatenated by the C compiler.
+     */
+    public List<String> getStringPoolLines() {
+        final var lines = new ArrayList<String>((stringPool.length / BYTES_PER_LINE) + 1);
+        final var line  = new StringBuilder();
+        for (int offset = 0; offset < stringPool.length; ++offset) {
+            final int value = stringPool[offset] & 0xFF;
+            if ((value >= 0x20) && (value < 0x7F) && (value != '"') && (value != '\\') && (value != '?')) {
+                line.append((char) value);
+            } else {
+                // Octal escape sequences end after at most three digits, unlike hexadecimal ones.
+                line.append('\\')
+                    .append((char) ('0' + ((value >> 6) & 7)))
+                    .append((char) ('0' + ((value >> 3) & 7)))
+                    .append((char) ('0' + (value & 7)));
+            }
+            if (((offset + 1) % BYTES_PER_LINE) == 0) {
+                lines.add(line.toString());
+                line.setLength(0);
+            }
+        }
+        if (!line.isEmpty()) {
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    /**
+     * An entry of the {@link SymbolTable}, referring to strings by their offset inside the string pool.
+     *
+     * @param owner The offset of the internal name of the owner.
+     *
+     * @param name The offset of the name of the invoked method or accessed field.
+     *
+     * @param caller The offset of the internal name of the caller, or {@code -1} unless {@link #opcode} is
+     *               {@link Opcodes#INVOKESPECIAL}.
+     *
+     * @param opcode The opcode of the obfuscated instruction.
+     */
+    public record Entry(int owner, int name, int caller, int opcode) {}
+
+    /**
+     * Concatenates distinct strings, each followed by a {@code NUL} byte, and remembers their offsets.
+     */
+    private static final class StringPoolBuilder {
+
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        private final DataOutputStream output = new DataOutputStream(bytes);
+
+        int add(final String string) {
+            return offsets.computeIfAbsent(string, key -> {
+                final int offset = bytes.size();
+                try {
+                    // DataOutput.writeUTF writes modified UTF-8 preceded by its length in two bytes.
+                    final var encoded = new ByteArrayOutputStream();
+                    new DataOutputStream(encoded).writeUTF(string);
+                    output.write(encoded.toByteArray(), 2, encoded.size() - 2);
+                    output.write(0);
+                } catch (final IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+                return offset;
+            });
+        }
+
+        int size() {
+            return offsets.size();
+        }
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -4,8 +4,8 @@ import java.io.Reader;
 import java.io.Writer;
 
 /**
- * A {@code TemplateEngine} allows the combination of a template file with a {@link DataModel} in order to produce an
- * output file.
+ * A {@code TemplateEngine} allows the combination of a template file with a {@link DataModel} in order to produce one
+ * or more output files.
  */
 public interface TemplateEngine {
 
@@ -21,5 +21,24 @@ public interface TemplateEngine {
      *
      * @throws Exception if an exception occurs reading or populating the {@code template}.
      */
-    void process(Reader templateReader, DataModel dataModel, Writer outputWriter) throws Exception;
+    default void process(Reader templateReader, DataModel dataModel, Writer outputWriter) throws Exception {
+        process(templateReader, dataModel, outputWriter, TemplateOutput.NONE);
+    }
+
+    /**
+     * Combines the provided {@code template} and {@code dataModel}, writing the main output to the
+     * {@code outputWriter} and any additional files requested by the template to the {@code output}.
+     *
+     * @param templateReader The template file to populate. Its syntax is implementation-dependent.
+     *
+     * @param dataModel Encapsulation of fields which can be accessed within the {@code template}.
+     *
+     * @param outputWriter A writer to which the main output should be written.
+     *
+     * @param output Provides the additional files written by the template.
+     *
+     * @throws Exception if an exception occurs reading or populating the {@code template}.
+     */
+    void process(Reader templateReader, DataModel dataModel, Writer outputWriter, TemplateOutput output)
+        throws Exception;
 }
@@ -0,0 +1,60 @@
+package dev.blanke.indyobfuscator.template;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Provides the additional files a template may write to besides its main output, e.g. a shared header and separate
+ * translation units which can be compiled in parallel.
+ *
+ * @see TemplateEngine#process(java.io.Reader, DataModel, Writer, TemplateOutput)
+ */
+@FunctionalInterface
+public interface TemplateOutput {
+
+    /**
+     * Rejects any additional file, for templates whose output is written to a single stream.
+     */
+    TemplateOutput NONE = fileName -> {
+        throw new IOException("The template writes to the additional file '" + fileName
+            + "', which requires a directory as output.");
+    };
+
+    /**
+     * Opens the file with the provided name for writing, replacing its previous content.
+     *
+     * @param fileName The name of the file relative to the output location.
+     *
+     * @return A writer for the file, which is closed by the caller.
+     *
+     * @throws IOException If the file cannot be opened.
+     */
+    Writer open(String fileName) throws IOException;
+
+    /**
+     * @return A {@code TemplateOutput} writing files to the provided {@code directory}.
+     */
+    static TemplateOutput directory(final Path directory) {
+        return directory(directory, new ArrayList<>());
+    }
+
+    /**
+     * @return A {@code TemplateOutput} writing files to the provided {@code directory}, which adds the normalized
+     *         absolute path of each opened file to the {@code writtenFiles}.
+     */
+    static TemplateOutput directory(final Path directory, final Collection<? super Path> writtenFiles) {
+        final var normalizedDirectory = directory.toAbsolutePath().normalize();
+        return fileName -> {
+            final var path = normalizedDirectory.resolve(fileName).normalize();
+            if (!path.startsWith(normalizedDirectory))
+                throw new IOException("The template file '" + fileName + "' is located outside of " + directory + ".");
+            final var writer = Files.newBufferedWriter(path);
+            writtenFiles.add(path);
+            return writer;
+        };
+    }
+}
@@ -0,0 +1,22 @@
+package dev.blanke.indyobfuscator.template;
+
+import java.util.List;
+import java.util.Map;
+
+import dev.blanke.indyobfuscator.mapping.MethodInvocation;
+
+/**
+ * A contiguous range of identifiers of the {@link dev.blanke.indyobfuscator.mapping.SymbolMapping} which is resolved by
+ * a separate translation unit of the bootstrap method implementation, so that the units can be compiled in parallel.
+ *
+ * @param index The zero-based index of the unit.
+ *
+ * @param firstId The first identifier covered by the unit.
+ *
+ * @param endId The identifier following the last one covered by the unit.
+ *
+ * @param mappings The {@link MethodInvocation}s whose identifiers are covered by the unit, ordered by identifier.
+ *
+ * @see DataModel#units()
+ */
+public record TranslationUnit(int index, int firstId, int endId, List<Map.Entry<MethodInvocation, Integer>> mappings) {}
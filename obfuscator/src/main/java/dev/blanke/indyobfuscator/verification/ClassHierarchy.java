@@ -0,0 +1,71 @@
+package dev.blanke.indyobfuscator.verification;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import org.objectweb.asm.ClassReader;
+
+import static org.objectweb.asm.Opcodes.ACC_INTERFACE;
+
+/**
+ * A read-only view of the super class and interface relationships between the classes of an obfuscated artifact.
+ * <p>
+ * The hierarchy is derived solely from the class file headers and thus does not require the classes to be loadable by
+ * the obfuscator, which is usually not the case for classes contained inside the jar file being obfuscated.
+ *
+ * @see HierarchyAwareVerifier
+ */
+public final class ClassHierarchy {
+
+    /**
+     * Maps the internal name of each known class to the information required to resolve its super types.
+     */
+    private final Map<String, Entry> entries;
+
+    private ClassHierarchy(final Map<String, Entry> entries) {
+        this.entries = Map.copyOf(entries);
+    }
+
+    /**
+     * Creates a new {@code ClassHierarchy} from the headers of the provided class files.
+     *
+     * @param classFiles The bytes of the class files which should make up the hierarchy.
+     *
+     * @return A {@code ClassHierarchy} containing an entry for each of the provided {@code classFiles}.
+     */
+    public static ClassHierarchy of(final Iterable<byte[]> classFiles) {
+        final var entries = new HashMap<String, Entry>();
+        for (final var classFile : classFiles) {
+            final var reader = new ClassReader(classFile);
+            entries.put(reader.getClassName(), new Entry(reader.getSuperName(), List.of(reader.getInterfaces()),
+                (reader.getAccess() & ACC_INTERFACE) != 0));
+        }
+        return new ClassHierarchy(entries);
+    }
+
+    /**
+     * Returns the hierarchy information about the class with the provided internal name.
+     *
+     * @param internalName The internal name of the class to look up.
+     *
+     * @return The {@link Entry} for the class or {@code null} if the class is not part of this hierarchy, in which
+     *         case it is expected to be resolvable using a {@link ClassLoader}, e.g. because it is part of the JDK.
+     */
+    @Nullable Entry get(final String internalName) {
+        return entries.get(internalName);
+    }
+
+    /**
+     * Describes the direct super types of a class.
+     *
+     * @param superName The internal name of the super class or {@code null} for {@link Object}.
+     *
+     * @param interfaces The internal names of the directly implemented interfaces.
+     *
+     * @param isInterface Whether the class is an interface.
+     */
+    record Entry(@Nullable String superName, List<String> interfaces, boolean isInterface) {}
+}
@@ -0,0 +1,85 @@
+package dev.blanke.indyobfuscator.verification;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Objects;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.util.CheckClassAdapter;
+
+import static org.objectweb.asm.Opcodes.ACC_INTERFACE;
+
+/**
+ * Verifies transformed class files by combining the structural checks of ASM's {@link CheckClassAdapter} with a
+ * data-flow analysis using a {@link HierarchyAwareVerifier}.
+ * <p>
+ * Instances of this class are thread-safe, as diagnostics are buffered per class file rather than being written to a
+ * shared {@link java.io.Writer}, allowing class files to be verified in parallel.
+ */
+public final class ClassVerifier {
+
+    private final ClassHierarchy classHierarchy;
+
+    /**
+     * @param classHierarchy The hierarchy used to resolve the super types of classes which are part of the obfuscated
+     *                       artifact. Should contain all classes of the artifact, not only the ones being verified.
+     */
+    public ClassVerifier(final ClassHierarchy classHierarchy) {
+        this.classHierarchy = Objects.requireNonNull(classHierarchy);
+    }
+
+    /**
+     * Verifies the provided class file.
+     *
+     * @param classFile The bytes of the class file to be verified.
+     *
+     * @return A {@link VerificationResult} containing the diagnostics for the class file, if any.
+     */
+    public VerificationResult verify(final byte[] classFile) {
+        final var reader      = new ClassReader(classFile);
+        final var diagnostics = new StringWriter();
+        final var printWriter = new PrintWriter(diagnostics);
+
+        final var classNode = new ClassNode();
+        try {
+            reader.accept(new CheckClassAdapter(classNode, false), 0);
+        } catch (final IllegalArgumentException | IllegalStateException exception) {
+            printWriter.println(exception.getMessage());
+            return new VerificationResult(reader.getClassName(), diagnostics.toString());
+        }
+
+        final var classType  = Type.getObjectType(classNode.name);
+        final var superType  = (classNode.superName != null) ? Type.getObjectType(classNode.superName) : null;
+        final var interfaces = classNode.interfaces.stream().map(Type::getObjectType).toList();
+        final var analyzer   = new Analyzer<>(new HierarchyAwareVerifier(classHierarchy, classType, superType,
+            interfaces, (classNode.access & ACC_INTERFACE) != 0));
+        for (final var method : classNode.methods) {
+            try {
+                analyzer.analyze(classNode.name, method);
+            } catch (final AnalyzerException | RuntimeException exception) {
+                // RuntimeExceptions are thrown if a type outside the class hierarchy cannot be loaded.
+                printWriter.printf("%s.%s%s: %s%n", classNode.name, method.name, method.desc, exception.getMessage());
+            }
+        }
+        printWriter.flush();
+        return new VerificationResult(classNode.name, diagnostics.toString());
+    }
+
+    /**
+     * The outcome of the verification of a single class file.
+     *
+     * @param className The internal name of the verified class.
+     *
+     * @param diagnostics The buffered diagnostics produced during the verification. Empty if verification passed.
+     */
+    public record VerificationResult(String className, String diagnostics) {
+
+        public boolean passed() {
+            return diagnostics.isEmpty();
+        }
+    }
+}
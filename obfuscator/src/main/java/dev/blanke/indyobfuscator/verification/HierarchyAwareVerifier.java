@@ -0,0 +1,112 @@
+package dev.blanke.indyobfuscator.verification;
+
+import java.util.List;
+import java.util.Objects;
+
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.analysis.BasicValue;
+import org.objectweb.asm.tree.analysis.SimpleVerifier;
+
+import static org.objectweb.asm.Opcodes.ASM9;
+
+/**
+ * A {@link SimpleVerifier} which resolves the super types of classes contained in the obfuscated artifact using a
+ * {@link ClassHierarchy} instead of loading them.
+ * <p>
+ * {@code SimpleVerifier} loads every class it has to reason about using a {@link ClassLoader}, which fails for classes
+ * of the artifact being obfuscated and causes their static initializers to run otherwise. Types which are not part of
+ * the {@code ClassHierarchy} are still resolved by the {@code SimpleVerifier} implementation, which is only expected
+ * to happen for JDK classes.
+ */
+final class HierarchyAwareVerifier extends SimpleVerifier {
+
+    private final ClassHierarchy classHierarchy;
+
+    /**
+     * The {@link Type} of {@link Object}, to which any reference type is assignable.
+     */
+    private static final Type OBJECT_TYPE = Type.getType(Object.class);
+
+    /**
+     * Interfaces implemented by every array type as per JLS §10.8.
+     */
+    private static final List<Type> ARRAY_INTERFACE_TYPES =
+        List.of(Type.getType(Cloneable.class), Type.getType(java.io.Serializable.class));
+
+    HierarchyAwareVerifier(final ClassHierarchy classHierarchy, final Type currentClass,
+                           final Type currentSuperClass, final List<Type> currentClassInterfaces,
+                           final boolean isInterface) {
+        super(ASM9, currentClass, currentSuperClass, currentClassInterfaces, isInterface);
+
+        this.classHierarchy = Objects.requireNonNull(classHierarchy);
+    }
+
+    @Override
+    protected boolean isSubTypeOf(final BasicValue value, final BasicValue expected) {
+        final var type         = value.getType();
+        final var expectedType = expected.getType();
+        if ((type == null) || (expectedType == null) || !isReference(type) || !isReference(expectedType)
+                || type.getInternalName().equals("null")) {
+            return super.isSubTypeOf(value, expected);
+        }
+        /*
+         * Like the verifier of the JVM, treat interface types like java.lang.Object. Unlike the SimpleVerifier
+         * implementation, this does not require loading the class of the value.
+         */
+        return isAssignableFrom(expectedType, type)
+            || ((expectedType.getSort() == Type.OBJECT) && isInterface(expectedType));
+    }
+
+    @Override
+    protected boolean isInterface(final Type type) {
+        final var entry = getEntry(type);
+        return (entry != null) ? entry.isInterface() : super.isInterface(type);
+    }
+
+    @Override
+    protected Type getSuperClass(final Type type) {
+        final var entry = getEntry(type);
+        if (entry == null)
+            return super.getSuperClass(type);
+        return (entry.superName() != null) ? Type.getObjectType(entry.superName()) : null;
+    }
+
+    @Override
+    protected boolean isAssignableFrom(final Type type1, final Type type2) {
+        if (type1.equals(type2) || type1.equals(OBJECT_TYPE))
+            return true;
+
+        if (type1.getSort() == Type.ARRAY) {
+            if (type2.getSort() != Type.ARRAY)
+                return false;
+            final var componentType1 = Type.getType(type1.getDescriptor().substring(1));
+            final var componentType2 = Type.getType(type2.getDescriptor().substring(1));
+            if (!isReference(componentType1) || !isReference(componentType2))
+                return componentType1.equals(componentType2);
+            return isAssignableFrom(componentType1, componentType2);
+        }
+        if (type2.getSort() == Type.ARRAY)
+            return ARRAY_INTERFACE_TYPES.contains(type1);
+
+        final var entry2 = getEntry(type2);
+        if (entry2 == null) {
+            // Classes outside the artifact, e.g. JDK classes, can never be subtypes of classes inside the artifact.
+            return (getEntry(type1) == null) && super.isAssignableFrom(type1, type2);
+        }
+        if ((entry2.superName() != null) && isAssignableFrom(type1, Type.getObjectType(entry2.superName())))
+            return true;
+        for (final var interfaceName : entry2.interfaces()) {
+            if (isAssignableFrom(type1, Type.getObjectType(interfaceName)))
+                return true;
+        }
+        return false;
+    }
+
+    private ClassHierarchy.Entry getEntry(final Type type) {
+        return (type.getSort() == Type.OBJECT) ? classHierarchy.get(type.getInternalName()) : null;
+    }
+
+    private static boolean isReference(final Type type) {
+        return (type.getSort() == Type.OBJECT) || (type.getSort() == Type.ARRAY);
+    }
+}
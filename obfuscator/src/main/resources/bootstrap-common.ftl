@@ -0,0 +1,166 @@
+<#-- @ftlvariable name="dataModel" type="dev.blanke.indyobfuscator.template.DataModel" -->
+<#--
+  Macros shared by the packaged bootstrap method templates, which import this library using
+  <#import "bootstrap-common.ftl" as common>. Custom templates can import it as well.
+-->
+<#--
+  Defines the macros configuring the runtime and the OPCODE_* macros passed to its resolve function.
+-->
+<#macro definitions>
+#define FIELD_INSN_HANDLE_OBFUSCATION <#if dataModel.fieldObfuscationMode().name() == "METHOD_HANDLES">1<#else>0</#if>
+#define ASYNC_LIBRARY_LOADING         <#if dataModel.asyncLibraryLoading()>1<#else>0</#if>
+#define CANONICALIZE_OWNERS           <#if dataModel.canonicalizeOwners()>1<#else>0</#if>
+<#if dataModel.asyncLibraryLoading()>
+
+#define NATIVE_BOOTSTRAP_METHOD_OWNER      "${dataModel.bootstrapMethodHandle().getOwner()}"
+#define NATIVE_BOOTSTRAP_METHOD_NAME       "${dataModel.nativeBootstrapMethodName()}"
+#define NATIVE_BOOTSTRAP_METHOD_DESCRIPTOR "${dataModel.bootstrapMethodHandle().getDesc()}"
+</#if>
+
+#ifdef FIELD_INSN_HANDLE_OBFUSCATION
+#define OPCODE_GETSTATIC       ${Opcodes.GETSTATIC}
+#define OPCODE_PUTSTATIC       ${Opcodes.PUTSTATIC}
+#define OPCODE_GETFIELD        ${Opcodes.GETFIELD}
+#define OPCODE_PUTFIELD        ${Opcodes.PUTFIELD}
+#endif
+
+#define OPCODE_INVOKEVIRTUAL   ${Opcodes.INVOKEVIRTUAL}
+#define OPCODE_INVOKESPECIAL   ${Opcodes.INVOKESPECIAL}
+#define OPCODE_INVOKESTATIC    ${Opcodes.INVOKESTATIC}
+#define OPCODE_INVOKEINTERFACE ${Opcodes.INVOKEINTERFACE}
+</#macro>
+<#--
+  Writes the JNI_OnLoad and resolve functions, which have to be preceded by the definitions.
+-->
+<#macro runtime>
+<#include "bootstrap-runtime.c" parse=false>
+</#macro>
+<#--
+  Writes the header of the function implementing the native bootstrap method, which is either registered by
+  JNI_OnLoad or exported under the name expected by the JVM.
+-->
+<#macro nativeBootstrapMethod>
+<#if dataModel.asyncLibraryLoading()>
+static jobject JNICALL native_bootstrap
+<#else>
+JNIEXPORT jobject JNICALL ${dataModel.nativeBootstrapFunctionName()}
+</#if>
+    (JNIEnv *env, jclass thisClass, jobject lookup, jstring invokedName, jobject invokedType)
+</#macro>
+<#--
+  Writes the case of a switch statement over the identifiers which resolves the provided entry of the symbol mapping.
+-->
+<#macro resolveCase mapping>
+<#local methodId = mapping.getKey()>
+<#-- Caller is needed for MethodHandles.Lookup.findSpecial. -->
+<#if methodId.opcode() == Opcodes.INVOKESPECIAL>
+    <#local caller = "\"${methodId.caller()}\"">
+<#else>
+    <#local caller = "NULL">
+</#if>
+    case ${mapping.getValue()}:
+        return resolve(env, lookup, "${methodId.owner()}", ${opcodeMacro(methodId.opcode())}, "${methodId.name()}", invokedType, ${caller});
+</#macro>
+<#--
+  Returns the name of the OPCODE_* macro for the provided opcode, so that no magic numbers are passed to resolve.
+-->
+<#function opcodeMacro opcode>
+    <#switch opcode>
+        <#case Opcodes.INVOKEVIRTUAL>
+            <#return "OPCODE_INVOKEVIRTUAL">
+        <#case Opcodes.INVOKESPECIAL>
+            <#return "OPCODE_INVOKESPECIAL">
+        <#case Opcodes.INVOKESTATIC>
+            <#return "OPCODE_INVOKESTATIC">
+        <#case Opcodes.INVOKEINTERFACE>
+            <#return "OPCODE_INVOKEINTERFACE">
+        <#case Opcodes.GETFIELD>
+            <#return "OPCODE_GETFIELD">
+        <#case Opcodes.PUTFIELD>
+            <#return "OPCODE_PUTFIELD">
+        <#case Opcodes.GETSTATIC>
+            <#return "OPCODE_GETSTATIC">
+        <#case Opcodes.PUTSTATIC>
+            <#return "OPCODE_PUTSTATIC">
+    </#switch>
+</#function>
+<#--
+  Writes the symbol table of table-driven templates along with the get_string and release_string functions, which
+  requires <stdint.h>, <stdlib.h>, and <jni.h>.
+-->
+<#macro symbolTable>
+<#local symbolTable = dataModel.symbolTable()>
+// Symbol table with ${symbolTable.getSize()} entries referring to ${symbolTable.getStringCount()} distinct strings.
+
+#define SYMBOL_COUNT    ${symbolTable.getSize()}
+#define STRING_POOL_KEY ${symbolTable.getKey()}
+#define NO_CALLER       UINT32_MAX
+
+struct symbol {
+    uint32_t owner;
+    uint32_t name;
+    uint32_t caller;
+    uint8_t  opcode;
+};
+
+<#-- Start with an empty literal, so that the array is valid even if the symbol table is empty. -->
+static const char string_pool[] = ""
+<#list symbolTable.getStringPoolLines() as line>
+    "${line}"
+</#list>
+    ;
+
+<#-- The trailing sentinel entry keeps the array valid even if the symbol table is empty. -->
+static const struct symbol symbols[SYMBOL_COUNT + 1] = {
+<#list symbolTable.getEntries() as entry>
+<#if entry??>
+    { ${entry.owner()}, ${entry.name()}, <#if entry.caller() == -1>NO_CALLER<#else>${entry.caller()}</#if>, ${entry.opcode()} },
+<#else>
+    { 0, 0, NO_CALLER, 0 },
+</#if>
+</#list>
+    { 0, 0, NO_CALLER, 0 }
+};
+
+/*
+ * Returns the string at the provided offset of the string pool, or NULL if decoding it fails to allocate memory. The
+ * result has to be released using release_string.
+ */
+static const char *get_string(uint32_t offset)
+{
+#if STRING_POOL_KEY
+    size_t length = 0;
+    while (((uint8_t) string_pool[offset + length] ^ (uint8_t) (STRING_POOL_KEY + offset + length)) != 0) {
+        ++length;
+    }
+    char *string = malloc(length + 1);
+    if (string == NULL) {
+        return NULL;
+    }
+    for (size_t index = 0; index <= length; ++index) {
+        string[index] = (char) ((uint8_t) string_pool[offset + index] ^ (uint8_t) (STRING_POOL_KEY + offset + index));
+    }
+    return string;
+#else
+    return &string_pool[offset];
+#endif
+}
+
+// Releases a string returned by get_string, which may be NULL.
+static void release_string(const char *string)
+{
+#if STRING_POOL_KEY
+    free((void *) string);
+#else
+    (void) string;
+#endif
+}
+
+static void throw_out_of_memory_error(JNIEnv *env)
+{
+    jclass OutOfMemoryError = (*env)->FindClass(env, "java/lang/OutOfMemoryError");
+    if (OutOfMemoryError != NULL) {
+        (*env)->ThrowNew(env, OutOfMemoryError, "Failed to allocate memory for a symbol.");
+    }
+}
+</#macro>
@@ -0,0 +1,400 @@
+/*
+ * The runtime shared by the bootstrap method templates, which caches the JNI references used by the bootstrap method
+ * and resolves call sites through the resolve function. It is included verbatim, so that it is configured by the
+ * following macros, which have to be defined beforehand:
+ *
+ * FIELD_INSN_HANDLE_OBFUSCATION  Whether field instructions are resolved using method handles.
+ * ASYNC_LIBRARY_LOADING          Whether JNI_OnLoad registers native_bootstrap as NATIVE_BOOTSTRAP_METHOD_NAME with
+ *                                the NATIVE_BOOTSTRAP_METHOD_DESCRIPTOR inside the NATIVE_BOOTSTRAP_METHOD_OWNER.
+ * CANONICALIZE_OWNERS            Whether virtual method handles are adapted to the type of the call site, as the
+ *                                owner of the invocation may be a super class of the receiver.
+ * OPCODE_*                       The opcodes passed to the resolve function.
+ *
+ * The resolve function has internal linkage unless RESOLVE_LINKAGE is defined, e.g. as empty.
+ */
+#include <stdlib.h>
+#include <stdio.h>
+#include <stdint.h>
+#include <string.h>
+
+#include <jni.h>
+
+#ifndef RESOLVE_LINKAGE
+#define RESOLVE_LINKAGE static
+#endif
+
+static const jint JNI_VERSION = JNI_VERSION_1_8;
+
+// Cache jclass and jmethodID references.
+
+static jclass    ConstantCallSite;
+static jmethodID ConstantCallSite_Init;
+
+static jclass    Lookup;
+static jmethodID Lookup_FindVirtual;
+static jmethodID Lookup_FindSpecial;
+static jmethodID Lookup_FindStatic;
+static jmethodID Lookup_LookupClass;
+#if FIELD_INSN_HANDLE_OBFUSCATION
+static jmethodID Lookup_FindGetter;
+static jmethodID Lookup_FindSetter;
+static jmethodID Lookup_FindStaticGetter;
+static jmethodID Lookup_FindStaticSetter;
+#endif
+
+#if CANONICALIZE_OWNERS
+static jclass    MethodHandle;
+static jmethodID MethodHandle_AsType;
+#endif
+
+static jclass    MethodType;
+static jmethodID MethodType_DropParameterTypes;
+#if FIELD_INSN_HANDLE_OBFUSCATION
+static jmethodID MethodType_ReturnType;
+static jmethodID MethodType_ParameterType;
+#endif
+
+static jclass    Class;
+static jmethodID Class_ForName;
+static jmethodID Class_GetClassLoader;
+
+static jclass    OutOfMemoryError;
+
+// Guards the class cache used by find_class.
+static jobject    ClassCacheLock;
+
+static void check_jni_exception(JNIEnv *env)
+{
+    if ((*env)->ExceptionCheck(env) == JNI_TRUE) {
+        (*env)->ExceptionDescribe(env);
+    }
+}
+
+#if ASYNC_LIBRARY_LOADING
+static jobject JNICALL native_bootstrap(JNIEnv *env, jclass thisClass, jobject lookup, jstring invokedName,
+    jobject invokedType);
+#endif
+
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved)
+{
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION) != JNI_OK) {
+        return JNI_ERR;
+    }
+
+    ConstantCallSite = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/invoke/ConstantCallSite"));
+    ConstantCallSite_Init =
+        (*env)->GetMethodID(env, ConstantCallSite, "<init>", "(Ljava/lang/invoke/MethodHandle;)V");
+
+    Lookup = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/invoke/MethodHandles$Lookup"));
+    Lookup_FindVirtual = (*env)->GetMethodID(env, Lookup, "findVirtual",
+        "(Ljava/lang/Class;Ljava/lang/String;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/MethodHandle;");
+    Lookup_FindSpecial = (*env)->GetMethodID(env, Lookup, "findSpecial",
+        "(Ljava/lang/Class;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/Class;)Ljava/lang/invoke/MethodHandle;");
+    Lookup_FindStatic = (*env)->GetMethodID(env, Lookup, "findStatic",
+        "(Ljava/lang/Class;Ljava/lang/String;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/MethodHandle;");
+    Lookup_LookupClass = (*env)->GetMethodID(env, Lookup, "lookupClass", "()Ljava/lang/Class;");
+#if FIELD_INSN_HANDLE_OBFUSCATION
+    Lookup_FindGetter = (*env)->GetMethodID(env, Lookup, "findGetter",
+        "(Ljava/lang/Class;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/invoke/MethodHandle;");
+    Lookup_FindSetter = (*env)->GetMethodID(env, Lookup, "findSetter",
+        "(Ljava/lang/Class;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/invoke/MethodHandle;");
+    Lookup_FindStaticGetter = (*env)->GetMethodID(env, Lookup, "findStaticGetter",
+        "(Ljava/lang/Class;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/invoke/MethodHandle;");
+    Lookup_FindStaticSetter = (*env)->GetMethodID(env, Lookup, "findStaticSetter",
+        "(Ljava/lang/Class;Ljava/lang/String;Ljava/lang/Class;)Ljava/lang/invoke/MethodHandle;");
+#endif
+
+#if CANONICALIZE_OWNERS
+    MethodHandle = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/invoke/MethodHandle"));
+    MethodHandle_AsType = (*env)->GetMethodID(env, MethodHandle, "asType",
+        "(Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/MethodHandle;");
+#endif
+
+    MethodType = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/invoke/MethodType"));
+    MethodType_DropParameterTypes =
+        (*env)->GetMethodID(env, MethodType, "dropParameterTypes", "(II)Ljava/lang/invoke/MethodType;");
+#if FIELD_INSN_HANDLE_OBFUSCATION
+    MethodType_ReturnType =
+        (*env)->GetMethodID(env, MethodType, "returnType", "()Ljava/lang/Class;");
+    MethodType_ParameterType =
+        (*env)->GetMethodID(env, MethodType, "parameterType", "(I)Ljava/lang/Class;");
+#endif
+
+    Class = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/Class"));
+    Class_ForName = (*env)->GetStaticMethodID(env, Class, "forName",
+        "(Ljava/lang/String;ZLjava/lang/ClassLoader;)Ljava/lang/Class;");
+    Class_GetClassLoader = (*env)->GetMethodID(env, Class, "getClassLoader", "()Ljava/lang/ClassLoader;");
+
+    OutOfMemoryError = (*env)->NewGlobalRef(env, (*env)->FindClass(env, "java/lang/OutOfMemoryError"));
+
+    ClassCacheLock = (*env)->NewGlobalRef(env, (*env)->AllocObject(env, (*env)->FindClass(env, "java/lang/Object")));
+#if ASYNC_LIBRARY_LOADING
+
+    // FindClass uses the class loader of the bootstrap method owner, which loads this library.
+    JNINativeMethod methods[] = {
+        { NATIVE_BOOTSTRAP_METHOD_NAME, NATIVE_BOOTSTRAP_METHOD_DESCRIPTOR, (void *) &native_bootstrap }
+    };
+    jclass owner = (*env)->FindClass(env, NATIVE_BOOTSTRAP_METHOD_OWNER);
+    if ((owner == NULL) || ((*env)->RegisterNatives(env, owner, methods, 1) != JNI_OK)) {
+        check_jni_exception(env);
+        return JNI_ERR;
+    }
+#endif
+
+    return JNI_VERSION;
+}
+
+/*
+ * Caches the classes resolved by find_class per initiating class loader. Both the class loaders and the classes are
+ * only referenced weakly, so that the cache does not prevent class loaders from being unloaded, e.g. on redeployment.
+ * Entries whose class or class loader has been unloaded are removed when their bucket is searched or the cache grows.
+ * The number of buckets is doubled once the cache holds as many entries as buckets, so that lookups take constant
+ * time regardless of the number of classes.
+ */
+#define CLASS_CACHE_INITIAL_BUCKETS 64
+
+struct class_cache_entry {
+    struct class_cache_entry *next;
+    jweak                     loader; // NULL for the bootstrap class loader.
+    jweak                     type;
+    unsigned int              hash;
+    char                      name[];
+};
+
+static struct class_cache_entry **class_cache;
+static size_t                     class_cache_buckets; // Always a power of two.
+static size_t                     class_cache_size;
+
+// FNV-1a hash of the class name.
+static unsigned int hash_class_name(const char *className)
+{
+    unsigned int hash = 2166136261u;
+    for (; *className != 0; ++className) {
+        hash = (hash ^ (unsigned char) *className) * 16777619u;
+    }
+    return hash;
+}
+
+static jboolean is_same_loader(JNIEnv *env, jweak cachedLoader, jobject loader)
+{
+    if ((cachedLoader == NULL) || (loader == NULL)) {
+        return (cachedLoader == NULL) && (loader == NULL);
+    }
+    return (*env)->IsSameObject(env, cachedLoader, loader);
+}
+
+// Returns whether the class loader of the entry has been unloaded, in which case the entry cannot match anymore.
+static jboolean is_loader_unloaded(JNIEnv *env, const struct class_cache_entry *entry)
+{
+    return (entry->loader != NULL) && (*env)->IsSameObject(env, entry->loader, NULL);
+}
+
+static void delete_class_cache_entry(JNIEnv *env, struct class_cache_entry *entry)
+{
+    if (entry->loader != NULL) {
+        (*env)->DeleteWeakGlobalRef(env, entry->loader);
+    }
+    (*env)->DeleteWeakGlobalRef(env, entry->type);
+    free(entry);
+}
+
+/*
+ * Ensures that the class cache has room for another entry, doubling its buckets and removing unloaded entries once it
+ * holds as many entries as buckets. Has to be called while holding the ClassCacheLock. Returns JNI_FALSE if the cache
+ * cannot be allocated at all.
+ */
+static jboolean reserve_class_cache_entry(JNIEnv *env)
+{
+    if ((class_cache != NULL) && (class_cache_size < class_cache_buckets)) {
+        return JNI_TRUE;
+    }
+    const size_t buckets = (class_cache != NULL) ? (class_cache_buckets * 2) : CLASS_CACHE_INITIAL_BUCKETS;
+    struct class_cache_entry **cache = calloc(buckets, sizeof(struct class_cache_entry *));
+    if (cache == NULL) {
+        // Keep using the current buckets, which only makes lookups slower.
+        return (class_cache != NULL) ? JNI_TRUE : JNI_FALSE;
+    }
+    for (size_t index = 0; index < class_cache_buckets; ++index) {
+        for (struct class_cache_entry *entry = class_cache[index], *next; entry != NULL; entry = next) {
+            next = entry->next;
+            if ((*env)->IsSameObject(env, entry->type, NULL) || is_loader_unloaded(env, entry)) {
+                delete_class_cache_entry(env, entry);
+                --class_cache_size;
+                continue;
+            }
+            struct class_cache_entry **bucket = &cache[entry->hash & (buckets - 1)];
+            entry->next = *bucket;
+            *bucket     = entry;
+        }
+    }
+    free(class_cache);
+    class_cache         = cache;
+    class_cache_buckets = buckets;
+    return JNI_TRUE;
+}
+
+/*
+ * Resolves the class with the provided internal name through the provided class loader, which is the loader of the
+ * class containing the call site, instead of the loader of the class declaring the native bootstrap method.
+ */
+static jclass find_class(JNIEnv *env, jobject loader, const char *className)
+{
+    const unsigned int hash = hash_class_name(className);
+
+    jclass type = NULL;
+    (*env)->MonitorEnter(env, ClassCacheLock);
+    if (class_cache != NULL) {
+        struct class_cache_entry **link = &class_cache[hash & (class_cache_buckets - 1)];
+        while (*link != NULL) {
+            struct class_cache_entry *entry = *link;
+            jclass cachedType = (*env)->NewLocalRef(env, entry->type);
+            if ((cachedType == NULL) || is_loader_unloaded(env, entry)) {
+                // The class or the class loader of the entry has been unloaded.
+                if (cachedType != NULL) {
+                    (*env)->DeleteLocalRef(env, cachedType);
+                }
+                *link = entry->next;
+                delete_class_cache_entry(env, entry);
+                --class_cache_size;
+                continue;
+            }
+            if ((entry->hash == hash) && (strcmp(entry->name, className) == 0)
+                    && is_same_loader(env, entry->loader, loader)) {
+                type = cachedType;
+                break;
+            }
+            (*env)->DeleteLocalRef(env, cachedType);
+            link = &entry->next;
+        }
+    }
+    (*env)->MonitorExit(env, ClassCacheLock);
+    if (type != NULL) {
+        return type;
+    }
+
+    // Class.forName expects the binary name of the class.
+    const size_t length = strlen(className);
+    char *binaryName = malloc(length + 1);
+    if (binaryName == NULL) {
+        (*env)->ThrowNew(env, OutOfMemoryError, "Failed to allocate the name of a class.");
+        return NULL; // The exception is reported by the caller.
+    }
+    for (size_t index = 0; index <= length; ++index) {
+        binaryName[index] = (className[index] == '/') ? '.' : className[index];
+    }
+    jstring name = (*env)->NewStringUTF(env, binaryName);
+    free(binaryName);
+
+    type = (*env)->CallStaticObjectMethod(env, Class, Class_ForName, name, JNI_FALSE, loader);
+    (*env)->DeleteLocalRef(env, name);
+    if ((*env)->ExceptionCheck(env) == JNI_TRUE) {
+        return NULL; // The exception is reported by the caller.
+    }
+
+    struct class_cache_entry *entry = malloc(sizeof(struct class_cache_entry) + length + 1);
+    if (entry == NULL) {
+        return type; // The class is resolved again by the next call.
+    }
+    entry->loader = (loader != NULL) ? (*env)->NewWeakGlobalRef(env, loader) : NULL;
+    entry->type   = (*env)->NewWeakGlobalRef(env, type);
+    entry->hash   = hash;
+    memcpy(entry->name, className, length + 1);
+
+    (*env)->MonitorEnter(env, ClassCacheLock);
+    if (reserve_class_cache_entry(env) == JNI_TRUE) {
+        struct class_cache_entry **bucket = &class_cache[hash & (class_cache_buckets - 1)];
+        entry->next = *bucket;
+        *bucket     = entry;
+        ++class_cache_size;
+        entry = NULL;
+    }
+    (*env)->MonitorExit(env, ClassCacheLock);
+    if (entry != NULL) {
+        delete_class_cache_entry(env, entry);
+    }
+    return type;
+}
+
+RESOLVE_LINKAGE jobject resolve(JNIEnv *env, jobject lookup, const char *ownerName, int opcode,
+    const char *invokedName, jobject invokedType, const char *callerName)
+{
+    // Resolve classes through the class loader of the class containing the call site.
+    jobject lookupClass = (*env)->CallObjectMethod(env, lookup, Lookup_LookupClass);
+    check_jni_exception(env);
+    jobject loader = (*env)->CallObjectMethod(env, lookupClass, Class_GetClassLoader);
+    check_jni_exception(env);
+    (*env)->DeleteLocalRef(env, lookupClass);
+
+    jclass owner = find_class(env, loader, ownerName);
+    check_jni_exception(env);
+
+    jstring name = (*env)->NewStringUTF(env, invokedName);
+    check_jni_exception(env);
+
+#if CANONICALIZE_OWNERS
+    jobject callSiteType = invokedType;
+#endif
+    jobject fieldType;
+    jobject methodHandle;
+    switch (opcode) {
+        case OPCODE_INVOKEVIRTUAL:
+        case OPCODE_INVOKEINTERFACE:
+            // Drop receiver parameter.
+            invokedType = (*env)->CallObjectMethod(env, invokedType, MethodType_DropParameterTypes, 0, 1);
+            check_jni_exception(env);
+
+            methodHandle = (*env)->CallObjectMethod(env, lookup, Lookup_FindVirtual, owner, name, invokedType);
+            check_jni_exception(env);
+#if CANONICALIZE_OWNERS
+
+            /*
+             * The receiver type of the call site differs from the owner if the owner has been replaced by the declaring
+             * class of the method (see --canonicalize-owners).
+             */
+            if (methodHandle != NULL) {
+                methodHandle = (*env)->CallObjectMethod(env, methodHandle, MethodHandle_AsType, callSiteType);
+                check_jni_exception(env);
+            }
+#endif
+            break;
+        case OPCODE_INVOKESPECIAL:
+            // Drop receiver parameter.
+            invokedType = (*env)->CallObjectMethod(env, invokedType, MethodType_DropParameterTypes, 0, 1);
+            check_jni_exception(env);
+
+            // Find caller class.
+            jclass caller = find_class(env, loader, callerName);
+
+            methodHandle = (*env)->CallObjectMethod(env, lookup, Lookup_FindSpecial, owner, name, invokedType, caller);
+            break;
+        case OPCODE_INVOKESTATIC:
+            methodHandle = (*env)->CallObjectMethod(env, lookup, Lookup_FindStatic, owner, name, invokedType);
+            break;
+#if FIELD_INSN_HANDLE_OBFUSCATION
+        case OPCODE_GETFIELD:
+            fieldType    = (*env)->CallObjectMethod(env, invokedType, MethodType_ReturnType);
+            methodHandle = (*env)->CallObjectMethod(env, lookup, Lookup_FindGetter, owner, name, fieldType);
+            break;
+        case OPCODE_GETSTATIC:
+            fieldType    = (*env)->CallObjectMethod(env, invokedType, MethodType_ReturnType);
+            methodHandle = (*env)->CallObjectMethod(env, lookup, Lookup_FindStaticGetter, owner, name, fieldType);
+            break;
+        case OPCODE_PUTFIELD:
+            fieldType    = (*env)->CallObjectMethod(env, invokedType, MethodType_ParameterType, 1);
+            methodHandle = (*env)->CallObjectMethod(env, lookup, Lookup_FindSetter, owner, name, fieldType);
+            break;
+        case OPCODE_PUTSTATIC:
+            fieldType    = (*env)->CallObjectMethod(env, invokedType, MethodType_ParameterType, 0);
+            methodHandle = (*env)->CallObjectMethod(env, lookup, Lookup_FindStaticSetter, owner, name, fieldType);
+            break;
+#endif
+    }
+    check_jni_exception(env);
+    (*env)->DeleteLocalRef(env, loader);
+
+    // Instantiate ConstantCallSite using the retrieved MethodHandle.
+    jobject callSite = (*env)->NewObject(env, ConstantCallSite, ConstantCallSite_Init, methodHandle);
+    check_jni_exception(env);
+    return callSite;
+}
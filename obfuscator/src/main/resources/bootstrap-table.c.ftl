@@ -0,0 +1,38 @@
+<#-- @ftlvariable name="dataModel" type="dev.blanke.indyobfuscator.template.DataModel" -->
+<#import "bootstrap-common.ftl" as common>
+<@common.definitions/>
+
+<@common.runtime/>
+
+<@common.symbolTable/>
+
+<@common.nativeBootstrapMethod/>
+{
+    const char *invokedNameUTF = (*env)->GetStringUTFChars(env, invokedName, NULL);
+    const long  invokedId      = strtol(invokedNameUTF, NULL, 0);
+    (*env)->ReleaseStringUTFChars(env, invokedName, invokedNameUTF);
+
+    if ((invokedId < 0) || (invokedId >= SYMBOL_COUNT)) {
+        return NULL;
+    }
+    const struct symbol *symbol = &symbols[invokedId];
+    if (symbol->opcode == 0) {
+        return NULL;
+    }
+
+    const char *owner  = get_string(symbol->owner);
+    const char *name   = get_string(symbol->name);
+    const char *caller = (symbol->caller != NO_CALLER) ? get_string(symbol->caller) : NULL;
+
+    jobject callSite = NULL;
+    if ((owner == NULL) || (name == NULL) || ((symbol->caller != NO_CALLER) && (caller == NULL))) {
+        throw_out_of_memory_error(env);
+    } else {
+        callSite = resolve(env, lookup, owner, symbol->opcode, name, invokedType, caller);
+    }
+
+    release_string(owner);
+    release_string(name);
+    release_string(caller);
+    return callSite;
+}
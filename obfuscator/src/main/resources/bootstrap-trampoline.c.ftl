@@ -0,0 +1,87 @@
+<#-- @ftlvariable name="dataModel" type="dev.blanke.indyobfuscator.template.DataModel" -->
+<#--
+  Implements the native method called by the Java trampoline of the bootstrap method, which passes the invoked
+  identifier and receives the invocation as a single string, so that no JNI upcall is made while bootstrapping.
+-->
+<#import "bootstrap-common.ftl" as common>
+#include <stdlib.h>
+#include <stdio.h>
+#include <stdint.h>
+
+#include <jni.h>
+
+static const jint JNI_VERSION = JNI_VERSION_1_8;
+
+<#if dataModel.asyncLibraryLoading()>
+static jstring JNICALL native_symbol(JNIEnv *env, jclass thisClass, jint invokedId);
+
+</#if>
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved)
+{
+    JNIEnv *env;
+    if ((*vm)->GetEnv(vm, (void **) &env, JNI_VERSION) != JNI_OK) {
+        return JNI_ERR;
+    }
+<#if dataModel.asyncLibraryLoading()>
+
+    // FindClass uses the class loader of the bootstrap method owner, which loads this library.
+    JNINativeMethod methods[] = {
+        { "${dataModel.trampolineMethodName()}", "(I)Ljava/lang/String;", (void *) &native_symbol }
+    };
+    jclass owner = (*env)->FindClass(env, "${dataModel.bootstrapMethodHandle().getOwner()}");
+    if ((owner == NULL) || ((*env)->RegisterNatives(env, owner, methods, 1) != JNI_OK)) {
+        if ((*env)->ExceptionCheck(env) == JNI_TRUE) {
+            (*env)->ExceptionDescribe(env);
+        }
+        return JNI_ERR;
+    }
+
+</#if>
+    return JNI_VERSION;
+}
+
+<@common.symbolTable/>
+
+/*
+ * Returns the invocation assigned to the provided identifier in the form "opcode;owner;name;caller", where the caller
+ * is empty if the entry has none, or NULL if the identifier is not assigned.
+ */
+<#if dataModel.asyncLibraryLoading()>
+static jstring JNICALL native_symbol(JNIEnv *env, jclass thisClass, jint invokedId)
+<#else>
+JNIEXPORT jstring JNICALL ${dataModel.trampolineFunctionName()}(JNIEnv *env, jclass thisClass, jint invokedId)
+</#if>
+{
+    if ((invokedId < 0) || (invokedId >= SYMBOL_COUNT)) {
+        return NULL;
+    }
+    const struct symbol *symbol = &symbols[invokedId];
+    if (symbol->opcode == 0) {
+        return NULL;
+    }
+
+    const char *owner  = get_string(symbol->owner);
+    const char *name   = get_string(symbol->name);
+    const char *caller = (symbol->caller != NO_CALLER) ? get_string(symbol->caller) : NULL;
+
+    jstring invocation = NULL;
+    if ((owner == NULL) || (name == NULL) || ((symbol->caller != NO_CALLER) && (caller == NULL))) {
+        throw_out_of_memory_error(env);
+    } else {
+        const char *callerOrEmpty = (caller != NULL) ? caller : "";
+        const int   length        = snprintf(NULL, 0, "%d;%s;%s;%s", symbol->opcode, owner, name, callerOrEmpty);
+        char *result = malloc((size_t) length + 1);
+        if (result == NULL) {
+            throw_out_of_memory_error(env);
+        } else {
+            snprintf(result, (size_t) length + 1, "%d;%s;%s;%s", symbol->opcode, owner, name, callerOrEmpty);
+            invocation = (*env)->NewStringUTF(env, result);
+            free(result);
+        }
+    }
+
+    release_string(owner);
+    release_string(name);
+    release_string(caller);
+    return invocation;
+}
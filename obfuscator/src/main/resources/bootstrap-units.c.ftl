@@ -0,0 +1,77 @@
+<#-- @ftlvariable name="dataModel" type="dev.blanke.indyobfuscator.template.DataModel" -->
+<#--
+  Splits the bootstrap method implementation into a shared header, this main translation unit, and one translation
+  unit per range of identifiers, along with a CMakeLists.txt building all of them, so that they can be compiled in
+  parallel using, e.g., 'make -j'.
+-->
+<#import "bootstrap-common.ftl" as common>
+<#assign units = dataModel.units()>
+<@output file="bootstrap.h">
+#ifndef BOOTSTRAP_H
+#define BOOTSTRAP_H
+
+#include <jni.h>
+
+<@common.definitions/>
+
+// The resolve function is called by the other translation units.
+#define RESOLVE_LINKAGE
+
+jobject resolve(JNIEnv *env, jobject lookup, const char *ownerName, int opcode, const char *invokedName,
+    jobject invokedType, const char *callerName);
+
+<#list units as unit>
+jobject bootstrap_unit_${unit.index()}(JNIEnv *env, jobject lookup, long invokedId, jobject invokedType);
+</#list>
+
+#endif
+</@output>
+<#list units as unit>
+<@output file="bootstrap_${unit.index()}.c">
+#include "bootstrap.h"
+
+// Resolves the identifiers ${unit.firstId()} up to ${unit.endId()} (exclusive).
+jobject bootstrap_unit_${unit.index()}(JNIEnv *env, jobject lookup, long invokedId, jobject invokedType)
+{
+    switch (invokedId) {
+    <#list unit.mappings() as mapping>
+    <@common.resolveCase mapping/>
+    </#list>
+    default:
+        return NULL;
+    }
+}
+</@output>
+</#list>
+<@output file="CMakeLists.txt">
+cmake_minimum_required(VERSION 3.16.3)
+
+project(bootstrap LANGUAGES C)
+
+find_package(JNI REQUIRED)
+
+add_library(bootstrap SHARED
+    bootstrap.c
+<#list units as unit>
+    bootstrap_${unit.index()}.c
+</#list>
+)
+target_include_directories(bootstrap PRIVATE ${r"${JNI_INCLUDE_DIRS}"})
+</@output>
+#include "bootstrap.h"
+
+<@common.runtime/>
+
+<@common.nativeBootstrapMethod/>
+{
+    const char *invokedNameUTF = (*env)->GetStringUTFChars(env, invokedName, NULL);
+    const long  invokedId      = strtol(invokedNameUTF, NULL, 0);
+    (*env)->ReleaseStringUTFChars(env, invokedName, invokedNameUTF);
+
+<#list units as unit>
+    if (invokedId < ${unit.endId()}L) {
+        return bootstrap_unit_${unit.index()}(env, lookup, invokedId, invokedType);
+    }
+</#list>
+    return NULL;
+}
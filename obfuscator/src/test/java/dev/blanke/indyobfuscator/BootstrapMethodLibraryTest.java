@@ -0,0 +1,157 @@
+package dev.blanke.indyobfuscator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import org.objectweb.asm.ClassWriter;
+
+import picocli.CommandLine;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Compiles the output of the packaged bootstrap method templates using the local C compiler and runs the obfuscated
+ * program against the resulting library.
+ */
+final class BootstrapMethodLibraryTest {
+
+    /**
+     * The number of classes whose static methods are invoked by the main class, which exceeds the initial number of
+     * buckets of the class cache of the native runtime, so that the cache has to grow.
+     */
+    private static final int CLASS_COUNT = 100;
+
+    private static final long TIMEOUT_SECONDS = 60;
+
+    @BeforeAll
+    static void assumeCompilerAvailable() throws InterruptedException {
+        boolean available;
+        try {
+            final var process = new ProcessBuilder("cc", "--version").redirectErrorStream(true).start();
+            process.getInputStream().transferTo(OutputStream.nullOutputStream());
+            available = process.waitFor() == 0;
+        } catch (final IOException exception) {
+            available = false;
+        }
+        assumeTrue(available, "A C compiler is required.");
+    }
+
+    /**
+     * Writes the class {@code app.Main}, whose main method prints the number of digits of the sum of the values
+     * returned by the classes {@code app.C0} up to {@code app.C<CLASS_COUNT - 1>}, followed by the sum.
+     */
+    private static void createInput(final Path input) throws IOException {
+        for (int index = 0; index < CLASS_COUNT; ++index) {
+            final var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            writer.visit(V11, ACC_PUBLIC, "app/C" + index, null, "java/lang/Object", null);
+            final var methodVisitor = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, "value", "()I", null, null);
+            methodVisitor.visitCode();
+            methodVisitor.visitLdcInsn(index);
+            methodVisitor.visitInsn(IRETURN);
+            methodVisitor.visitMaxs(0, 0);
+            methodVisitor.visitEnd();
+            writer.visitEnd();
+            write(input.resolve("app/C" + index + ".class"), writer.toByteArray());
+        }
+
+        final var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V11, ACC_PUBLIC, "app/Main", null, "java/lang/Object", null);
+        final var methodVisitor = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V", null,
+            null);
+        methodVisitor.visitCode();
+        methodVisitor.visitInsn(ICONST_0);
+        for (int index = 0; index < CLASS_COUNT; ++index) {
+            methodVisitor.visitMethodInsn(INVOKESTATIC, "app/C" + index, "value", "()I", false);
+            methodVisitor.visitInsn(IADD);
+        }
+        methodVisitor.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "toString", "(I)Ljava/lang/String;", false);
+        methodVisitor.visitVarInsn(ASTORE, 1);
+        methodVisitor.visitFieldInsn(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+        methodVisitor.visitVarInsn(ALOAD, 1);
+        methodVisitor.visitMethodInsn(INVOKEINTERFACE, "java/lang/CharSequence", "length", "()I", true);
+        methodVisitor.visitMethodInsn(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(I)V", false);
+        methodVisitor.visitFieldInsn(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+        methodVisitor.visitVarInsn(ALOAD, 1);
+        methodVisitor.visitMethodInsn(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(Ljava/lang/String;)V", false);
+        methodVisitor.visitInsn(RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+        writer.visitEnd();
+        write(input.resolve("app/Main.class"), writer.toByteArray());
+    }
+
+    private static void write(final Path file, final byte[] bytes) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, bytes);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "--template-engine FREEMARKER",
+        "-f METHOD_HANDLES --canonicalize-owners",
+        "--async-library-loading",
+        "--bsm-layout TABLE --encode-strings",
+        "--bsm-layout TRAMPOLINE",
+        "--bsm-units 3 -f METHOD_HANDLES",
+    })
+    void testObfuscatedProgramRunsAgainstCompiledLibrary(final String options, @TempDir final Path directory)
+            throws Exception {
+        final var input   = directory.resolve("input");
+        final var output  = directory.resolve("output");
+        // Translation units are written to a directory, whereas a single source needs the extension of a C file.
+        final var source  = directory.resolve(options.contains("--bsm-units") ? "bootstrap" : "bootstrap.c");
+        final var library = directory.resolve("lib").resolve(System.mapLibraryName("bootstrap"));
+        createInput(input);
+
+        final var arguments = new ArrayList<>(List.of(input.toString(), "-o", output.toString(),
+            "--bsm-owner", "app/Main", "--bsm-output", source.toString(), "--compile",
+            "--compile-cache", directory.resolve("cache").toString(), "--library-output", library.toString()));
+        if (!options.isEmpty()) {
+            arguments.addAll(Arrays.asList(options.split(" ")));
+        }
+        assertEquals(0, new CommandLine(new InDyObfuscator(false)).execute(arguments.toArray(String[]::new)));
+
+        // The bootstrap method owner loads the library from the working directory.
+        final var process = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+            "-cp", output.toString(), "app.Main")
+            .directory(library.getParent().toFile())
+            .redirectErrorStream(true)
+            .start();
+        final var processOutput = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(0, process.exitValue(), processOutput);
+
+        final int sum = CLASS_COUNT * (CLASS_COUNT - 1) / 2;
+        assertEquals(Integer.toString(sum).length() + System.lineSeparator() + sum + System.lineSeparator(),
+            processOutput);
+    }
+
+    @Test
+    void testOnlyWrittenSourcesAreCompiled(@TempDir final Path directory) throws Exception {
+        final var input  = directory.resolve("input");
+        final var source = directory.resolve("bootstrap");
+        createInput(input);
+        write(source.resolve("unrelated.c"), "#error Not written by the obfuscator.".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(0, new CommandLine(new InDyObfuscator(false)).execute(input.toString(),
+            "-o", directory.resolve("output").toString(), "--bsm-owner", "app/Main", "--bsm-output", source.toString(),
+            "--bsm-units", "2", "--compile", "--compile-cache", directory.resolve("cache").toString(),
+            "--library-output", directory.resolve("lib").resolve(System.mapLibraryName("bootstrap")).toString()));
+    }
+}
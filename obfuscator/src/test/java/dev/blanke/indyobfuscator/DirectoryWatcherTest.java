@@ -0,0 +1,135 @@
+package dev.blanke.indyobfuscator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.intellij.lang.annotations.Language;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import picocli.CommandLine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static dev.blanke.indyobfuscator.InputTypeTest.compile;
+import static dev.blanke.indyobfuscator.InputTypeTest.countInvokeDynamicInstructions;
+
+final class DirectoryWatcherTest {
+
+    @Language("Java")
+    private static final String ORIGINAL_SOURCE = """
+        package app;
+
+        public class Main {
+            public static void main(final String[] arguments) {
+                System.out.println(arguments.length);
+            }
+        }
+        """;
+
+    @Language("Java")
+    private static final String CHANGED_SOURCE = """
+        package app;
+
+        public class Main {
+            public static void main(final String[] arguments) {
+                System.out.println(String.valueOf(arguments.length).trim());
+            }
+        }
+        """;
+
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    @TempDir
+    private Path directory;
+
+    private Path input;
+
+    private Path output;
+
+    private Path bootstrapMethodOutput;
+
+    private Thread watcherThread;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        input                 = directory.resolve("input");
+        output                = directory.resolve("output");
+        bootstrapMethodOutput = directory.resolve("bootstrap.c");
+        compile(input, ORIGINAL_SOURCE);
+
+        watcherThread = new Thread(() -> new CommandLine(new InDyObfuscator(false)).execute(input.toString(),
+            "-o", output.toString(), "--bsm-owner", "app/Bootstrap", "--bsm-output", bootstrapMethodOutput.toString(),
+            "--watch"));
+        watcherThread.start();
+        awaitCondition(() -> Files.exists(bootstrapMethodOutput));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        watcherThread.interrupt();
+        watcherThread.join(TIMEOUT_MILLIS);
+        assertFalse(watcherThread.isAlive());
+    }
+
+    /**
+     * Waits until the {@code condition} holds, repeating the {@code change} until then, as changes made before the
+     * watcher has registered the input directory are not noticed.
+     */
+    private static void awaitChange(final ThrowingRunnable change, final BooleanSupplier condition) throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_MILLIS);
+        do {
+            change.run();
+            Thread.sleep(500);
+        } while (!condition.getAsBoolean() && (System.nanoTime() < deadline));
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static void awaitCondition(final BooleanSupplier condition) throws Exception {
+        awaitChange(() -> {}, condition);
+    }
+
+    @Test
+    void testWatchObfuscatesChangedClassFile() throws Exception {
+        final var outputClassFile = output.resolve("app/Main.class");
+        assertEquals(1, countInvokeDynamicInstructions(outputClassFile));
+        final var originalSource = Files.readString(bootstrapMethodOutput);
+
+        awaitChange(() -> compile(input, CHANGED_SOURCE), () -> {
+            try {
+                return countInvokeDynamicInstructions(outputClassFile) == 3;
+            } catch (final Exception exception) {
+                return false; // The class file might be observed while it is being written.
+            }
+        });
+        // The new invocations of String.valueOf and String.trim require the bootstrap method to be regenerated.
+        awaitCondition(() -> {
+            try {
+                return !Files.readString(bootstrapMethodOutput).equals(originalSource);
+            } catch (final Exception exception) {
+                return false;
+            }
+        });
+    }
+
+    @Test
+    void testWatchMirrorsNewAndDeletedFiles() throws Exception {
+        final var resource = Path.of("app", "resource.txt");
+        awaitChange(() -> Files.writeString(input.resolve(resource), "resource"),
+            () -> Files.exists(output.resolve(resource)));
+
+        awaitChange(() -> Files.deleteIfExists(input.resolve(resource)),
+            () -> !Files.exists(output.resolve(resource)));
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+
+        void run() throws Exception;
+    }
+}
@@ -1,31 +1,54 @@
 package dev.blanke.indyobfuscator;
 
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Predicate;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
 
 import org.intellij.lang.annotations.Language;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
 import org.objectweb.asm.tree.AbstractInsnNode;
 import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.InvokeDynamicInsnNode;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
 
 import dev.blanke.indyobfuscator.obfuscation.bootstrap.BootstrapMethodConflictException;
+import dev.blanke.indyobfuscator.obfuscation.exclusion.ExclusionReason;
+import dev.blanke.indyobfuscator.obfuscation.policy.ObfuscationPolicy;
+import dev.blanke.indyobfuscator.obfuscation.policy.PackagePolicies;
+import dev.blanke.indyobfuscator.obfuscation.policy.StartupPath;
+import dev.blanke.indyobfuscator.util.ClassReaders;
+import dev.blanke.indyobfuscator.verification.ClassHierarchy;
+
+import picocli.CommandLine;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 import static org.objectweb.asm.Opcodes.*;
 
-import static dev.blanke.indyobfuscator.util.ClassReaders.compileAndTransform;
-
 final class InDyObfuscatorTest {
 
     private InDyObfuscator obfuscator;
@@ -38,6 +61,24 @@ final class InDyObfuscatorTest {
             arguments.getBootstrapMethodName(), arguments.getBootstrapMethodDescriptor(), false));
     }
 
+    /**
+     * Compiles and transforms the provided {@code source} like {@link ClassReaders#compileAndTransform}, asserting that
+     * the transformed class file passes the verification enabled for the {@link #obfuscator}.
+     */
+    private ClassNode compileAndTransform(final String source,
+                                         final BiConsumer<ClassReader, ClassWriter> transformation) {
+        final var reader = Objects.requireNonNull(ClassReaders.forSource(source));
+        final var writer = new ClassWriter(reader, ClassWriter.COMPUTE_FRAMES);
+        transformation.accept(reader, writer);
+
+        final var classFile = writer.toByteArray();
+        assertEquals(0, obfuscator.verify(List.of(classFile), ClassHierarchy.of(List.of(classFile))));
+
+        final var transformedClassNode = new ClassNode();
+        new ClassReader(classFile).accept(transformedClassNode, 0);
+        return transformedClassNode;
+    }
+
     private static MethodNode assertClinitExists(final ClassNode classNode) {
         return assertMethodExists(classNode, method -> method.name.equals("<clinit>"));
     }
@@ -274,5 +315,351 @@ final class InDyObfuscatorTest {
             final var invokedynamicInstruction = (InvokeDynamicInsnNode) invokedynamicInstructions.get(0);
             assertEquals(obfuscator.getBootstrapMethodHandle(), invokedynamicInstruction.bsm);
         }
+
+        @Test
+        void testObfuscateSkipsHotPath() {
+            @Language("JAVA")
+            final var source = """
+            class Test {
+                @dev.blanke.indyobfuscator.HotPath
+                public static void main(final String... args) {
+                    System.out.println("Hello, world!");
+                }
+            }
+            """;
+            final var classNode = compileAndTransform(source, obfuscator::obfuscateMethodInstructions);
+
+            final var mainMethod = assertMethodExists(classNode, method -> method.name.equals("main"));
+            assertInstructionNotExists(mainMethod.instructions,
+                instruction -> instruction.getOpcode() == INVOKEDYNAMIC);
+            assertMethodInstructionExists(mainMethod.instructions,
+                instruction -> instruction.name.equals("println"));
+        }
+
+        @Test
+        void testObfuscateSkipsIntrinsicsAndTrivialMethods() {
+            @Language("JAVA")
+            final var source = """
+            class Test {
+                private int value;
+
+                int getValue() {
+                    return value;
+                }
+
+                void run() {
+                    System.out.println(Math.abs(getValue()));
+                }
+            }
+            """;
+            final var classNode = compileAndTransform(source, (reader, writer) -> {
+                obfuscator.analyzeClassFile(reader);
+                obfuscator.obfuscateMethodInstructions(reader, writer);
+            });
+
+            final var runMethod = assertMethodExists(classNode, method -> method.name.equals("run"));
+            assertMethodInstructionExists(runMethod.instructions, instruction -> instruction.name.equals("abs"));
+            assertMethodInstructionExists(runMethod.instructions, instruction -> instruction.name.equals("getValue"));
+            assertEquals(1, findInstructions(runMethod.instructions,
+                instruction -> instruction.getOpcode() == INVOKEDYNAMIC).size());
+
+            final var counts = obfuscator.getExclusionReport().countByReason();
+            assertEquals(1L, counts.get(ExclusionReason.INTRINSIC));
+            assertEquals(1L, counts.get(ExclusionReason.TRIVIAL_GETTER));
+        }
+
+        @Test
+        void testObfuscateSkipsStartupPath() {
+            @Language("JAVA")
+            final var source = """
+            class Test {
+                static {
+                    System.out.println("Initializing");
+                }
+
+                public static void main(final String... args) {
+                    System.out.println("Hello, world!");
+                }
+            }
+            """;
+            final var startupPath = new StartupPath(StartupPath.Mode.SKIP, Set.of());
+            final var classNode = compileAndTransform(source, (reader, writer) ->
+                obfuscator.obfuscateMethodInstructions(reader, writer,
+                    ObfuscationPolicy.resolve(reader, new PackagePolicies(), false, startupPath)));
+
+            final var clinit = assertClinitExists(classNode);
+            assertInstructionNotExists(clinit.instructions, instruction -> instruction.getOpcode() == INVOKEDYNAMIC);
+            final var mainMethod = assertMethodExists(classNode, method -> method.name.equals("main"));
+            assertInstructionExists(mainMethod.instructions, instruction -> instruction.getOpcode() == INVOKEDYNAMIC);
+            assertEquals(1, startupPath.getSavedBootstraps());
+        }
+    }
+
+    @Nested
+    final class WrapStartupFieldAccesses {
+
+        @Test
+        void testWrapStartupFieldAccessesAlongsideMethodHandles(@TempDir final Path directory) throws Exception {
+            @Language("JAVA")
+            final var source = """
+                class Test {
+                    static int counter;
+                    static int[] values = new int[4];
+
+                    static {
+                        for (int i = 0; i < values.length; ++i) {
+                            values[i] = counter;
+                        }
+                        counter = values.length;
+                    }
+
+                    static int get() {
+                        return counter;
+                    }
+                }
+                """;
+            final var reader = Objects.requireNonNull(ClassReaders.forSource(source));
+            final var writer = new ClassWriter(0);
+            reader.accept(writer, 0);
+            final var input = directory.resolve("Test.class");
+            Files.write(input, writer.toByteArray());
+
+            final var output = directory.resolve("Output.class");
+            final var stderr = new StringWriter();
+            final int exitCode = new CommandLine(new InDyObfuscator(false))
+                .setErr(new PrintWriter(stderr))
+                .execute(input.toString(), "-o", output.toString(), "--bsm-output",
+                    directory.resolve("bootstrap.c").toString(), "--field-obfuscation-mode", "METHOD_HANDLES",
+                    "--startup-mode", "SYNTHETIC_ACCESSORS", "--max-loop-depth", "0", "--verify");
+            assertEquals(0, exitCode, stderr::toString);
+
+            final var classNode = new ClassNode();
+            new ClassReader(Files.readAllBytes(output)).accept(classNode, 0);
+
+            /*
+             * The three field accesses of the static initializer outside the loop are wrapped, while the two inside
+             * the loop are left untouched and must not be counted as saved bootstraps.
+             */
+            final var clinit = assertClinitExists(classNode);
+            assertInstructionNotExists(clinit.instructions, instruction -> instruction.getOpcode() == INVOKEDYNAMIC);
+            final var fieldInstructions = findInstructions(clinit.instructions, instruction ->
+                (instruction instanceof FieldInsnNode fieldInstruction) && fieldInstruction.owner.equals("Test"));
+            assertEquals(3, fieldInstructions.size());
+            assertTrue(stderr.toString().contains("Saved 3 bootstrap method invocations"), stderr::toString);
+
+            // Field accesses outside the startup path are still obfuscated using method handles.
+            final var get = assertMethodExists(classNode, method -> method.name.equals("get"));
+            assertInstructionNotExists(get.instructions, instruction -> instruction.getOpcode() == GETSTATIC);
+            assertInstructionExists(get.instructions, instruction -> instruction.getOpcode() == INVOKEDYNAMIC);
+        }
+    }
+
+    @Nested
+    final class Verify {
+
+        /**
+         * Creates a class containing a static method with the provided descriptor which returns its first argument.
+         */
+        private static byte[] createIdentityClass(final String descriptor) {
+            final var writer = new ClassWriter(0);
+            writer.visit(V1_8, ACC_PUBLIC, "Identity", null, "java/lang/Object", null);
+            final var methodVisitor = writer.visitMethod(ACC_STATIC, "identity", descriptor, null, null);
+            methodVisitor.visitCode();
+            methodVisitor.visitVarInsn(ALOAD, 0);
+            methodVisitor.visitInsn(ARETURN);
+            methodVisitor.visitMaxs(1, 1);
+            methodVisitor.visitEnd();
+            writer.visitEnd();
+            return writer.toByteArray();
+        }
+
+        private static int obfuscate(final Path directory, final byte[] classFile, final String... options)
+                throws Exception {
+            final var input = directory.resolve("Identity.class");
+            Files.write(input, classFile);
+            final var arguments = new ArrayList<>(List.of(input.toString(),
+                "-o", directory.resolve("Output.class").toString(),
+                "--bsm-output", directory.resolve("bootstrap.c").toString(), "--verify"));
+            arguments.addAll(List.of(options));
+            return new CommandLine(new InDyObfuscator(false)).execute(arguments.toArray(String[]::new));
+        }
+
+        @Test
+        void testCallSucceedsIfVerificationPasses(@TempDir final Path directory) throws Exception {
+            assertEquals(0, obfuscate(directory, createIdentityClass("(Ljava/lang/String;)Ljava/lang/Object;")));
+        }
+
+        @Test
+        void testSampleMustBeAPercentage(@TempDir final Path directory) throws Exception {
+            final var classFile = createIdentityClass("(Ljava/lang/String;)Ljava/lang/Object;");
+            assertEquals(2, obfuscate(directory, classFile, "--verify-sample", "0"));
+            assertEquals(2, obfuscate(directory, classFile, "--verify-sample", "100.5"));
+            assertEquals(2, obfuscate(directory, classFile, "--verify-sample", "NaN"));
+            assertFalse(Files.exists(directory.resolve("Output.class")));
+            assertEquals(0, obfuscate(directory, classFile, "--verify-sample", "5"));
+        }
+
+        @Test
+        void testCallFailsIfVerificationFails(@TempDir final Path directory) throws Exception {
+            // Returning an Object as String fails verification, which the obfuscation does not change.
+            assertEquals(1, obfuscate(directory, createIdentityClass("(Ljava/lang/Object;)Ljava/lang/String;")));
+            assertTrue(Files.exists(directory.resolve("Output.class")));
+        }
+    }
+
+    @Nested
+    final class BootstrapMethodUnits {
+
+        private static int obfuscate(final Path directory, final String units) throws Exception {
+            final var input = directory.resolve("Identity.class");
+            Files.write(input, Verify.createIdentityClass("(Ljava/lang/String;)Ljava/lang/Object;"));
+            return new CommandLine(new InDyObfuscator(false)).execute(input.toString(),
+                "-o", directory.resolve("Output.class").toString(),
+                "--bsm-output", directory.resolve("bootstrap").toString(), "--bsm-units", units);
+        }
+
+        @Test
+        void testUnitsMustBePositive(@TempDir final Path directory) throws Exception {
+            assertEquals(2, obfuscate(directory, "0"));
+            assertFalse(Files.exists(directory.resolve("bootstrap")));
+        }
+
+        @Test
+        void testStaleUnitsAreDeleted(@TempDir final Path directory) throws Exception {
+            assertEquals(0, obfuscate(directory, "4"));
+            assertTrue(Files.exists(directory.resolve("bootstrap/bootstrap_3.c")));
+
+            assertEquals(0, obfuscate(directory, "2"));
+            assertTrue(Files.exists(directory.resolve("bootstrap/bootstrap_1.c")));
+            assertFalse(Files.exists(directory.resolve("bootstrap/bootstrap_2.c")));
+            assertFalse(Files.exists(directory.resolve("bootstrap/bootstrap_3.c")));
+        }
+    }
+
+    @Nested
+    final class EncodeStrings {
+
+        private static int obfuscate(final Path directory, final String layout) throws Exception {
+            final var input = directory.resolve("Identity.class");
+            Files.write(input, Verify.createIdentityClass("(Ljava/lang/String;)Ljava/lang/Object;"));
+            return new CommandLine(new InDyObfuscator(false)).execute(input.toString(),
+                "-o", directory.resolve("Output.class").toString(),
+                "--bsm-output", directory.resolve("bootstrap.c").toString(), "--bsm-layout", layout,
+                "--encode-strings");
+        }
+
+        @Test
+        void testEncodeStringsRequiresTableLayout(@TempDir final Path directory) throws Exception {
+            assertEquals(2, obfuscate(directory, "SWITCH"));
+            assertEquals(0, obfuscate(directory, "TABLE"));
+            assertEquals(0, obfuscate(directory, "TRAMPOLINE"));
+        }
+    }
+
+    @Nested
+    final class ClassDataSharing {
+
+        private static final String ARCHIVE_NAME = "app.jsa";
+
+        /**
+         * Writes a jar file whose main class {@code p.Main} calls the static method {@code run} of the class
+         * {@code p.Library}, and obfuscates it into a class data sharing archive.
+         *
+         * @param onlyIfArchived Whether {@code p.Main} only calls {@code p.Library.run()} if the archive exists inside
+         *                       the working directory, i.e. only after the training workload.
+         */
+        private static int obfuscate(final Path directory, final boolean onlyIfArchived) throws Exception {
+            final var input = directory.resolve("input.jar");
+            final var manifest = new Manifest();
+            manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+            manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, "p.Main");
+            try (final var jarStream = new JarOutputStream(Files.newOutputStream(input), manifest)) {
+                jarStream.putNextEntry(new JarEntry("p/Main.class"));
+                jarStream.write(createMainClass(onlyIfArchived));
+                jarStream.putNextEntry(new JarEntry("p/Library.class"));
+                jarStream.write(createLibraryClass());
+            }
+            // The training workload runs inside the directory of the output.
+            return new CommandLine(new InDyObfuscator(false)).execute(input.toString(),
+                "-o", directory.resolve("output.jar").toString(), "--bootstrap-backend", "JAVA",
+                "--cds-archive", directory.resolve(ARCHIVE_NAME).toString(), "--cds-startup-runs", "0");
+        }
+
+        private static byte[] createMainClass(final boolean onlyIfArchived) {
+            final var writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+            writer.visit(V11, ACC_PUBLIC, "p/Main", null, "java/lang/Object", null);
+            final var methodVisitor = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V",
+                null, null);
+            methodVisitor.visitCode();
+            final var end = new Label();
+            if (onlyIfArchived) {
+                methodVisitor.visitTypeInsn(NEW, "java/io/File");
+                methodVisitor.visitInsn(DUP);
+                methodVisitor.visitLdcInsn(ARCHIVE_NAME);
+                methodVisitor.visitMethodInsn(INVOKESPECIAL, "java/io/File", "<init>", "(Ljava/lang/String;)V", false);
+                methodVisitor.visitMethodInsn(INVOKEVIRTUAL, "java/io/File", "exists", "()Z", false);
+                methodVisitor.visitJumpInsn(IFEQ, end);
+            }
+            methodVisitor.visitMethodInsn(INVOKESTATIC, "p/Library", "run", "()V", false);
+            methodVisitor.visitLabel(end);
+            methodVisitor.visitInsn(RETURN);
+            methodVisitor.visitMaxs(0, 0);
+            methodVisitor.visitEnd();
+            writer.visitEnd();
+            return writer.toByteArray();
+        }
+
+        private static byte[] createLibraryClass() {
+            final var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            writer.visit(V11, ACC_PUBLIC, "p/Library", null, "java/lang/Object", null);
+            final var methodVisitor = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, "run", "()V", null, null);
+            methodVisitor.visitCode();
+            methodVisitor.visitInsn(RETURN);
+            methodVisitor.visitMaxs(0, 0);
+            methodVisitor.visitEnd();
+            writer.visitEnd();
+            return writer.toByteArray();
+        }
+
+        @Test
+        void testArchivingAllLoadedClassesSucceeds(@TempDir final Path directory) throws Exception {
+            assertEquals(0, obfuscate(directory, false));
+        }
+
+        @Test
+        void testCallFailsIfLoadedClassIsNotArchived(@TempDir final Path directory) throws Exception {
+            // p.Library is only loaded once the archive exists, so it is missing from the archive.
+            assertEquals(1, obfuscate(directory, true));
+            assertTrue(Files.exists(directory.resolve(ARCHIVE_NAME)));
+        }
+    }
+
+    @Nested
+    final class Sharding {
+
+        @Test
+        void testShardExportsJniMangledBootstrapMethod(@TempDir final Path directory) throws Exception {
+            final var input  = directory.resolve("input");
+            final var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+            writer.visit(V11, ACC_PUBLIC, "a/b_c/Main", null, "java/lang/Object", null);
+            final var methodVisitor = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V",
+                null, null);
+            methodVisitor.visitCode();
+            methodVisitor.visitMethodInsn(INVOKESTATIC, "java/lang/System", "gc", "()V", false);
+            methodVisitor.visitInsn(RETURN);
+            methodVisitor.visitMaxs(0, 0);
+            methodVisitor.visitEnd();
+            writer.visitEnd();
+            Files.createDirectories(input.resolve("a/b_c"));
+            Files.write(input.resolve("a/b_c/Main.class"), writer.toByteArray());
+
+            final var bootstrapMethodOutput = directory.resolve("bootstrap");
+            assertEquals(0, new CommandLine(new InDyObfuscator(false)).execute(input.toString(),
+                "-o", directory.resolve("output").toString(), "--bsm-output", bootstrapMethodOutput.toString(),
+                "--shard-by", "PACKAGE"));
+            // The JVM looks up the bootstrap method of a/b_c/BootstrapShard using the JNI-mangled owner.
+            final var source = Files.readString(bootstrapMethodOutput.resolve("bootstrap_a_b_1c.c"));
+            assertTrue(source.contains("JNIEXPORT jobject JNICALL Java_a_b_1c_BootstrapShard_bootstrap\n"));
+        }
     }
 }
@@ -0,0 +1,123 @@
+package dev.blanke.indyobfuscator;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.intellij.lang.annotations.Language;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+
+import dev.blanke.indyobfuscator.api.ObfuscationException;
+import dev.blanke.indyobfuscator.api.ObfuscationOptions;
+import dev.blanke.indyobfuscator.api.Obfuscator;
+import dev.blanke.indyobfuscator.util.ClassReaders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static org.objectweb.asm.Opcodes.*;
+
+final class InMemoryObfuscatorTest {
+
+    private byte[] classFile;
+
+    @BeforeEach
+    void setUp() {
+        @Language("JAVA")
+        final var source = """
+            class Test {
+                public static void main(String[] args) {
+                    System.out.println("Hello, World!");
+                }
+            }
+            """;
+        final var reader = ClassReaders.forSource(source);
+        assertNotNull(reader);
+        final var writer = new ClassWriter(0);
+        reader.accept(writer, 0);
+        classFile = writer.toByteArray();
+    }
+
+    private static ClassNode toClassNode(final byte[] classFile) {
+        final var classNode = new ClassNode();
+        new ClassReader(classFile).accept(classNode, 0);
+        return classNode;
+    }
+
+    @Test
+    void testGeneratedBootstrapMethodOwner() {
+        final var obfuscator = Obfuscator.create(ObfuscationOptions.builder().verify(true).build());
+        assertInstanceOf(InMemoryObfuscator.class, obfuscator);
+
+        final var main = toClassNode(obfuscator.obfuscate(classFile)).methods.stream()
+            .filter(method -> method.name.equals("main"))
+            .findFirst()
+            .orElseThrow();
+        assertTrue(Arrays.stream(main.instructions.toArray()).anyMatch(InvokeDynamicInsnNode.class::isInstance));
+
+        final var result = obfuscator.finish();
+        assertNotNull(result.getGeneratedBootstrapMethodOwner());
+        assertEquals(result.getBootstrapMethodOwner(), toClassNode(result.getGeneratedBootstrapMethodOwner()).name);
+        assertTrue(result.getBootstrapMethodSource()
+            .contains("Java_" + result.getBootstrapMethodOwner() + "_bootstrap"));
+        assertEquals(1, result.getMethodInvocationCount());
+    }
+
+    @Test
+    void testExistingBootstrapMethodOwner() {
+        final var obfuscator = Obfuscator.create(ObfuscationOptions.builder().bootstrapMethodOwner("Test").build());
+
+        final var obfuscatedClassFile = obfuscator.obfuscate(ByteBuffer.wrap(classFile));
+        final var classNode = toClassNode(obfuscatedClassFile.array());
+        assertTrue(classNode.methods.stream().anyMatch(method -> method.name.equals("bootstrap")));
+
+        final var result = obfuscator.finish();
+        assertNull(result.getGeneratedBootstrapMethodOwner());
+        assertEquals("Test", result.getBootstrapMethodOwner());
+    }
+
+    @Test
+    void testExcludedClassIsUnchanged() {
+        final var obfuscator = Obfuscator.create(ObfuscationOptions.builder().exclude("Test").build());
+        assertSame(classFile, obfuscator.obfuscate(classFile));
+        assertEquals(0, obfuscator.finish().getMethodInvocationCount());
+    }
+
+    @Test
+    void testVerificationFailureIsReported() {
+        // Returning an Object as String fails verification, which the obfuscation does not change.
+        final var writer = new ClassWriter(0);
+        writer.visit(V1_8, ACC_PUBLIC, "Identity", null, "java/lang/Object", null);
+        final var methodVisitor =
+            writer.visitMethod(ACC_STATIC, "identity", "(Ljava/lang/Object;)Ljava/lang/String;", null, null);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(ALOAD, 0);
+        methodVisitor.visitInsn(ARETURN);
+        methodVisitor.visitMaxs(1, 1);
+        methodVisitor.visitEnd();
+        writer.visitEnd();
+
+        final var obfuscator = Obfuscator.create(ObfuscationOptions.builder().verify(true).build());
+        obfuscator.obfuscate(writer.toByteArray());
+        final var exception = assertThrows(ObfuscationException.class, obfuscator::finish);
+        assertTrue(exception.getMessage().contains("Verification of Identity failed"), exception::getMessage);
+    }
+
+    @Test
+    void testIllegalState() {
+        final var obfuscator = Obfuscator.create(ObfuscationOptions.builder().bootstrapMethodOwner("Main").build());
+        obfuscator.obfuscate(classFile);
+        // The bootstrap method owner has never been passed to the obfuscator.
+        assertThrows(IllegalStateException.class, obfuscator::finish);
+
+        final var finishedObfuscator = Obfuscator.create(ObfuscationOptions.builder().build());
+        finishedObfuscator.finish();
+        assertThrows(IllegalStateException.class, () -> finishedObfuscator.obfuscate(classFile));
+        assertThrows(IllegalStateException.class, finishedObfuscator::finish);
+    }
+}
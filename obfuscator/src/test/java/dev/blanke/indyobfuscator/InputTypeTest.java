@@ -0,0 +1,119 @@
+package dev.blanke.indyobfuscator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.intellij.lang.annotations.Language;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+
+import dev.blanke.indyobfuscator.util.ClassReaders;
+
+import picocli.CommandLine;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class InputTypeTest {
+
+    /**
+     * Compiles the provided {@code source} and writes the class file to the path of its class inside the
+     * {@code root} directory.
+     */
+    static void compile(final Path root, @Language("Java") final String source) throws Exception {
+        final var reader = Objects.requireNonNull(ClassReaders.forSource(source));
+        final var writer = new ClassWriter(0);
+        reader.accept(writer, 0);
+
+        final var classFile = root.resolve(reader.getClassName() + InputType.CLASS_FILE_EXTENSION);
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, writer.toByteArray());
+    }
+
+    static long countInvokeDynamicInstructions(final Path classFile) throws Exception {
+        final var classNode = new ClassNode();
+        new ClassReader(Files.readAllBytes(classFile)).accept(classNode, 0);
+        return classNode.methods.stream()
+            .flatMap(method -> Arrays.stream(method.instructions.toArray()))
+            .filter(InvokeDynamicInsnNode.class::isInstance)
+            .count();
+    }
+
+    @Nested
+    final class Directory {
+
+        private static final int CLASS_COUNT = 16;
+
+        private static void createInput(final Path input) throws Exception {
+            for (int index = 0; index < CLASS_COUNT; ++index) {
+                compile(input, """
+                    package app.p%1$d;
+
+                    public class C%1$d {
+                        public static String run(final Object value) {
+                            System.out.println(value);
+                            return String.valueOf(value).trim().concat("%1$d").concat(Integer.toHexString(%1$d));
+                        }
+                    }
+                    """.formatted(index));
+            }
+        }
+
+        private static int obfuscate(final Path input, final Path output, final Path bootstrapMethodOutput) {
+            return new CommandLine(new InDyObfuscator(false)).execute(input.toString(), "-o", output.toString(),
+                "--bsm-owner", "app/Bootstrap", "--bsm-output", bootstrapMethodOutput.toString());
+        }
+
+        @Test
+        void testObfuscateDirectory(@TempDir final Path directory) throws Exception {
+            final var input  = directory.resolve("input");
+            final var output = directory.resolve("output");
+            createInput(input);
+
+            assertEquals(0, obfuscate(input, output, directory.resolve("bootstrap.c")));
+            for (int index = 0; index < CLASS_COUNT; ++index) {
+                final var relativePath = "app/p%1$d/C%1$d.class".formatted(index);
+                // The input is left untouched.
+                assertEquals(0, countInvokeDynamicInstructions(input.resolve(relativePath)));
+                assertEquals(6, countInvokeDynamicInstructions(output.resolve(relativePath)));
+            }
+            assertTrue(Files.exists(output.resolve("app/Bootstrap.class")));
+        }
+
+        @Test
+        void testObfuscateDirectoryIsDeterministic(@TempDir final Path directory) throws Exception {
+            final var input = directory.resolve("input");
+            createInput(input);
+
+            final var firstOutput  = directory.resolve("first");
+            final var secondOutput = directory.resolve("second");
+            assertEquals(0, obfuscate(input, firstOutput, directory.resolve("first.c")));
+            assertEquals(0, obfuscate(input, secondOutput, directory.resolve("second.c")));
+
+            assertEquals(Files.readString(directory.resolve("first.c")),
+                Files.readString(directory.resolve("second.c")));
+            for (int index = 0; index < CLASS_COUNT; ++index) {
+                final var relativePath = "app/p%1$d/C%1$d.class".formatted(index);
+                assertArrayEquals(Files.readAllBytes(firstOutput.resolve(relativePath)),
+                    Files.readAllBytes(secondOutput.resolve(relativePath)));
+            }
+        }
+
+        @Test
+        void testObfuscateDirectoryRejectsOutputInsideInput(@TempDir final Path directory) throws Exception {
+            final var input = directory.resolve("input");
+            createInput(input);
+
+            assertEquals(2, obfuscate(input, input.resolve("output"), directory.resolve("bootstrap.c")));
+            assertFalse(Files.exists(input.resolve("output")));
+        }
+    }
+}
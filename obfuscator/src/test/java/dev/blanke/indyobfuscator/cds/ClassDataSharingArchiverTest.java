@@ -0,0 +1,74 @@
+package dev.blanke.indyobfuscator.cds;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.objectweb.asm.ClassWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+final class ClassDataSharingArchiverTest {
+
+    @TempDir
+    Path directory;
+
+    private Path jar;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        jar = directory.resolve("app.jar");
+        try (final var jarStream = new JarOutputStream(Files.newOutputStream(jar))) {
+            jarStream.putNextEntry(new JarEntry("p/Main.class"));
+            jarStream.write(createMainClass());
+            jarStream.closeEntry();
+        }
+    }
+
+    @Test
+    void testDumpedArchiveContainsLoadedClasses() throws Exception {
+        final var archiver = new ClassDataSharingArchiver(ClassDataSharingArchiver.getDefaultJava(), jar, "p.Main",
+            List.of(), directory);
+        final var archive = directory.resolve("app.jsa");
+        archiver.dump(archive);
+        assertTrue(Files.size(archive) > 0);
+
+        // Classes which have not been loaded by the training workload are not reported.
+        final var archivedClasses = archiver.validate(archive, List.of("p.Main", "p.Unused"));
+        assertEquals(List.of("p.Main"), archivedClasses.archived());
+        assertEquals(List.of(), archivedClasses.notArchived());
+    }
+
+    @Test
+    void testFailingTrainingWorkload() {
+        final var archiver = new ClassDataSharingArchiver(ClassDataSharingArchiver.getDefaultJava(), jar, "p.Missing",
+            List.of(), directory);
+        final var exception = assertThrows(ClassDataSharingException.class,
+            () -> archiver.dump(directory.resolve("app.jsa")));
+        assertTrue(exception.getOutput().contains("p.Missing"));
+    }
+
+    /**
+     * @return A class {@code p.Main} with an empty {@code main} method.
+     */
+    private static byte[] createMainClass() {
+        final var writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        writer.visit(V1_8, ACC_PUBLIC, "p/Main", null, "java/lang/Object", null);
+        final var methodVisitor = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V", null,
+            null);
+        methodVisitor.visitCode();
+        methodVisitor.visitInsn(RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+}
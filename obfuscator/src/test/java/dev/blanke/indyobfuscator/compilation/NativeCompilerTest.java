@@ -0,0 +1,132 @@
+package dev.blanke.indyobfuscator.compilation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+final class NativeCompilerTest {
+
+    /**
+     * A stand-in for the C compiler which records each invocation and writes its first input to the output file, or
+     * fails if the input contains {@code #error}. Its version is read from the file {@code version} next to it.
+     */
+    private static final String FAKE_COMPILER = """
+        #!/bin/sh
+        if [ "$1" = --version ]; then cat "$(dirname "$0")/version"; exit 0; fi
+        echo "$@" >> "$(dirname "$0")/invocations"
+        while [ "$#" -gt 0 ]; do
+          case "$1" in
+            -o) output="$2"; shift ;;
+            -*) ;;
+            *) input="${input:-$1}" ;;
+          esac
+          shift
+        done
+        if grep -q '#error' "$input"; then echo "$input: error"; exit 1; fi
+        cat "$input" > "$output"
+        """;
+
+    @TempDir
+    Path directory;
+
+    private Path compiler;
+
+    private NativeCompiler nativeCompiler;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        assumeTrue(!System.getProperty("os.name").startsWith("Windows"));
+
+        compiler = directory.resolve("bin/cc");
+        Files.createDirectories(compiler.getParent());
+        Files.writeString(compiler, FAKE_COMPILER);
+        Files.setPosixFilePermissions(compiler, PosixFilePermissions.fromString("rwx------"));
+        Files.writeString(compiler.resolveSibling("version"), "cc 1.0");
+        nativeCompiler = new NativeCompiler(compiler.toString(), List.of("-O1"), directory.resolve("cache"));
+    }
+
+    @Test
+    void testCompileReusesCachedObjectFilesOfUnchangedUnits() throws Exception {
+        final var sources = directory.resolve("sources");
+        Files.createDirectories(sources);
+        final var first  = Files.writeString(sources.resolve("bootstrap_0.c"), "int first;");
+        final var second = Files.writeString(sources.resolve("bootstrap_1.c"), "int second;");
+        final var library = directory.resolve("out/libbootstrap.so");
+
+        nativeCompiler.compile(List.of(first, second), library);
+        assertTrue(Files.exists(library));
+        assertEquals(3, getInvocationCount()); // Two units and one link.
+
+        nativeCompiler.compile(List.of(first, second), library);
+        assertEquals(3, getInvocationCount());
+
+        Files.writeString(second, "int changed;");
+        nativeCompiler.compile(List.of(first, second), library);
+        assertEquals(5, getInvocationCount()); // One unit and one link.
+    }
+
+    @Test
+    void testCompileRecompilesUnitsIfHeaderChanges() throws Exception {
+        final var sources = directory.resolve("sources");
+        Files.createDirectories(sources);
+        final var header = Files.writeString(sources.resolve("bootstrap.h"), "#define A 1");
+        final var source = Files.writeString(sources.resolve("bootstrap.c"), "int a = A;");
+        final var library = directory.resolve("libbootstrap.so");
+
+        nativeCompiler.compile(List.of(source), library);
+        Files.writeString(header, "#define A 2");
+        nativeCompiler.compile(List.of(source), library);
+        assertEquals(4, getInvocationCount());
+    }
+
+    @Test
+    void testCompileRecompilesUnitsIfCompilerVersionChanges() throws Exception {
+        final var source  = Files.writeString(directory.resolve("bootstrap.c"), "int a;");
+        final var library = directory.resolve("libbootstrap.so");
+
+        nativeCompiler.compile(List.of(source), library);
+        Files.writeString(compiler.resolveSibling("version"), "cc 2.0");
+        new NativeCompiler(compiler.toString(), List.of("-O1"), directory.resolve("cache"))
+            .compile(List.of(source), library);
+        assertEquals(4, getInvocationCount());
+    }
+
+    @Test
+    void testCompileRecompilesUnitsIfCompilerPathChanges() throws Exception {
+        final var source  = Files.writeString(directory.resolve("bootstrap.c"), "int a;");
+        final var library = directory.resolve("libbootstrap.so");
+
+        nativeCompiler.compile(List.of(source), library);
+        final var otherCompiler = Files.copy(compiler, compiler.resolveSibling("gcc"));
+        new NativeCompiler(otherCompiler.toString(), List.of("-O1"), directory.resolve("cache"))
+            .compile(List.of(source), library);
+        assertEquals(4, getInvocationCount());
+    }
+
+    @Test
+    void testCompileReportsCompilerOutputOnFailure() throws Exception {
+        final var source = Files.writeString(directory.resolve("bootstrap.c"), "#error");
+
+        final var exception = assertThrows(NativeCompilationException.class,
+            () -> nativeCompiler.compile(List.of(source), directory.resolve("libbootstrap.so")));
+        assertTrue(exception.getCompilerOutput().contains("error"));
+        try (final var objects = Files.list(directory.resolve("cache/objects"))) {
+            assertEquals(0, objects.count()); // Neither a cache entry nor a temporary file remains.
+        }
+    }
+
+    private long getInvocationCount() throws IOException {
+        try (final var lines = Files.lines(compiler.resolveSibling("invocations"))) {
+            return lines.count();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package dev.blanke.indyobfuscator.daemon;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.intellij.lang.annotations.Language;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.objectweb.asm.ClassWriter;
+
+import picocli.CommandLine;
+
+import dev.blanke.indyobfuscator.util.ClassReaders;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ObfuscationDaemonTest {
+
+    @TempDir
+    Path workingDirectory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        @Language("JAVA")
+        final var source = """
+            class Test {
+                public static void main(String[] args) {
+                    System.out.println("Hello, World!");
+                }
+            }
+            """;
+        final var reader = ClassReaders.forSource(source);
+        assertNotNull(reader);
+        final var writer = new ClassWriter(0);
+        reader.accept(writer, 0);
+        Files.write(workingDirectory.resolve("Test.class"), writer.toByteArray());
+    }
+
+    @Test
+    void testRunResolvesPathsAgainstWorkingDirectory() {
+        final var job = new DaemonProtocol.Job(workingDirectory, List.of("Test.class", "-o", "Test-obf.class"));
+        final var stdout = new StringWriter();
+        final var stderr = new StringWriter();
+
+        final int exitCode = ObfuscationDaemon.run(job, new PrintWriter(stdout), new PrintWriter(stderr));
+        assertEquals(0, exitCode, stderr::toString);
+        assertTrue(Files.exists(workingDirectory.resolve("Test-obf.class")));
+        assertTrue(stdout.toString().contains("Java_Test_bootstrap"));
+    }
+
+    @Test
+    void testRunRejectsWatch() {
+        final var job = new DaemonProtocol.Job(workingDirectory, List.of("Test.class", "--watch"));
+        final var stderr = new StringWriter();
+
+        final int exitCode = ObfuscationDaemon.run(job, new PrintWriter(new StringWriter()), new PrintWriter(stderr));
+        assertNotEquals(0, exitCode);
+        assertTrue(stderr.toString().contains("--watch"));
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testJobOverSocket() throws Exception {
+        final var socket = workingDirectory.resolve("daemon.sock");
+        final var daemonThread = new Thread(() ->
+            new CommandLine(new ObfuscationDaemon()).execute("--socket", socket.toString(), "--jobs", "1"));
+        daemonThread.setDaemon(true);
+        daemonThread.start();
+        final var stdout = new ByteArrayOutputStream();
+        final var stderr = new ByteArrayOutputStream();
+        final int exitCode;
+        try (final var channel = connect(socket);
+             final var input  = new DataInputStream(Channels.newInputStream(channel));
+             final var output = new DataOutputStream(Channels.newOutputStream(channel))) {
+            DaemonProtocol.writeToken(output, new byte[0]);
+            DaemonProtocol.writeJob(output, new DaemonProtocol.Job(workingDirectory, List.of("Test.class")));
+            exitCode = DaemonProtocol.readResponse(input, stdout, stderr);
+        } finally {
+            daemonThread.interrupt();
+        }
+        assertEquals(0, exitCode, () -> stderr.toString(UTF_8));
+        assertTrue(stdout.toString(UTF_8).contains("Java_Test_bootstrap"));
+        assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(socket));
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testSocketReplacesStaleSocket() throws Exception {
+        final var socket = workingDirectory.resolve("daemon.sock");
+        try (final var staleChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            staleChannel.bind(UnixDomainSocketAddress.of(socket));
+        }
+        final var daemonThread = new Thread(() ->
+            new CommandLine(new ObfuscationDaemon()).execute("--socket", socket.toString(), "--jobs", "1"));
+        daemonThread.setDaemon(true);
+        daemonThread.start();
+        try {
+            assertEquals(0, submit(UnixDomainSocketAddress.of(socket), new byte[0]));
+        } finally {
+            daemonThread.interrupt();
+        }
+        // Only the socket itself remains next to it, without the directory it has been bound in.
+        try (final var files = Files.list(workingDirectory)) {
+            assertEquals(List.of(socket), files.filter(file -> !file.getFileName().toString().endsWith(".class"))
+                .toList());
+        }
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testSocketDoesNotReplaceRegularFile() throws IOException {
+        final var file = Files.writeString(workingDirectory.resolve("daemon.sock"), "content");
+        final int exitCode = new CommandLine(new ObfuscationDaemon())
+            .setErr(new PrintWriter(new StringWriter()))
+            .execute("--socket", file.toString());
+        assertNotEquals(0, exitCode);
+        assertEquals("content", Files.readString(file));
+    }
+
+    @Test
+    void testReadJobRejectsInvalidArgumentCount() throws IOException {
+        for (final int argumentCount : new int[] { -1, Integer.MAX_VALUE }) {
+            final var bytes = new ByteArrayOutputStream();
+            try (final var output = new DataOutputStream(bytes)) {
+                output.writeUTF(workingDirectory.toString());
+                output.writeInt(argumentCount);
+            }
+            assertThrows(IOException.class, () -> DaemonProtocol.readJob(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+        }
+    }
+
+    @Test
+    void testPortRequiresTokenFile() {
+        final var stderr = new StringWriter();
+        final int exitCode = new CommandLine(new ObfuscationDaemon())
+            .setErr(new PrintWriter(stderr))
+            .execute("--port", "0");
+        assertEquals(2, exitCode);
+        assertTrue(stderr.toString().contains("--token-file"));
+    }
+
+    @Test
+    void testCreatePrivateDirectory() throws IOException {
+        final var directory = workingDirectory.resolve("private");
+        DaemonAddress.createPrivateDirectory(directory);
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(directory));
+        // An existing private directory is reused.
+        DaemonAddress.createPrivateDirectory(directory);
+
+        Files.setPosixFilePermissions(directory, PosixFilePermissions.fromString("rwxrwxrwx"));
+        assertThrows(IOException.class, () -> DaemonAddress.createPrivateDirectory(directory));
+    }
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void testJobOverPortRequiresToken() throws Exception {
+        final var tokenFile = workingDirectory.resolve("token");
+        Files.writeString(tokenFile, "secret\n");
+        final int port;
+        try (final var serverSocket = new ServerSocket(0)) {
+            port = serverSocket.getLocalPort();
+        }
+        final var daemonThread = new Thread(() -> new CommandLine(new ObfuscationDaemon()).execute(
+            "--port", Integer.toString(port), "--token-file", tokenFile.toString(), "--jobs", "1"));
+        daemonThread.setDaemon(true);
+        daemonThread.start();
+        final var address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        try {
+            assertEquals(5, submit(address, "wrong".getBytes(UTF_8)));
+            assertEquals(0, submit(address, "secret".getBytes(UTF_8)));
+        } finally {
+            daemonThread.interrupt();
+        }
+    }
+
+    private int submit(final SocketAddress address, final byte[] token) throws Exception {
+        try (final var channel = connect(address);
+             final var input  = new DataInputStream(Channels.newInputStream(channel));
+             final var output = new DataOutputStream(Channels.newOutputStream(channel))) {
+            DaemonProtocol.writeToken(output, token);
+            DaemonProtocol.writeJob(output, new DaemonProtocol.Job(workingDirectory, List.of("Test.class")));
+            return DaemonProtocol.readResponse(input, new ByteArrayOutputStream(), new ByteArrayOutputStream());
+        }
+    }
+
+    /**
+     * Connects to the daemon listening on the provided {@code socket}, waiting for the daemon to start listening.
+     */
+    private static SocketChannel connect(final Path socket) throws InterruptedException {
+        return connect(UnixDomainSocketAddress.of(socket));
+    }
+
+    private static SocketChannel connect(final SocketAddress address) throws InterruptedException {
+        while (true) {
+            try {
+                return SocketChannel.open(address);
+            } catch (final IOException exception) {
+                Thread.sleep(10);
+            }
+        }
+    }
+}
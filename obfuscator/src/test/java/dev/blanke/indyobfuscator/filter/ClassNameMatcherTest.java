@@ -0,0 +1,45 @@
+package dev.blanke.indyobfuscator.filter;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class ClassNameMatcherTest {
+
+    @Test
+    void testEmpty() {
+        final var matcher = ClassNameMatcher.compile(List.of());
+        assertTrue(matcher.isEmpty());
+        assertFalse(matcher.test("dev.blanke.indyobfuscator.InDyObfuscator"));
+    }
+
+    @Test
+    void testPackagePrefix() {
+        final var matcher = ClassNameMatcher.compile(List.of("dev.blanke.*", "com.example.app.*"));
+        assertTrue(matcher.test("dev.blanke.indyobfuscator.InDyObfuscator"));
+        assertTrue(matcher.test("dev.blanke.Main"));
+        assertTrue(matcher.test("com.example.app.Main$Inner"));
+        assertFalse(matcher.test("dev.blanke"));
+        assertFalse(matcher.test("dev.blankes.Main"));
+        assertFalse(matcher.test("com.example.Main"));
+    }
+
+    @Test
+    void testExactClassName() {
+        final var matcher = ClassNameMatcher.compile(List.of("com.example.Main"));
+        assertTrue(matcher.test("com.example.Main"));
+        assertFalse(matcher.test("com.example.MainTest"));
+    }
+
+    @Test
+    void testFallbackPattern() {
+        final var matcher = ClassNameMatcher.compile(List.of("com.*.internal.*", "*Test"));
+        assertTrue(matcher.test("com.example.internal.Util"));
+        assertTrue(matcher.test("com.example.MainTest"));
+        assertFalse(matcher.test("com.example.Main"));
+        // Dots must not be treated as regular expression wildcards.
+        assertFalse(matcher.test("comXexampleXinternalXUtil"));
+    }
+}
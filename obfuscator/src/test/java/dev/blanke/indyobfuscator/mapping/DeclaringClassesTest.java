@@ -0,0 +1,79 @@
+package dev.blanke.indyobfuscator.mapping;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+final class DeclaringClassesTest {
+
+    private DeclaringClasses declaringClasses;
+
+    /**
+     * Creates a class file declaring methods without code, which suffices for {@link DeclaringClasses#register}.
+     */
+    private static ClassReader createClass(final int access, final String name, final String superName,
+                                           final int methodAccess, final String... methodNames) {
+        final var writer = new ClassWriter(0);
+        writer.visit(V17, access, name, null, superName, null);
+        for (final var methodName : methodNames) {
+            writer.visitMethod(methodAccess | ACC_ABSTRACT, methodName, "()V", null, null).visitEnd();
+        }
+        writer.visitEnd();
+        return new ClassReader(writer.toByteArray());
+    }
+
+    @BeforeEach
+    void setUp() {
+        declaringClasses = new DeclaringClasses();
+        declaringClasses.register(createClass(ACC_PUBLIC, "a/Base", "java/lang/Object", ACC_PUBLIC, "run"));
+        declaringClasses.register(createClass(ACC_PUBLIC, "a/Middle", "a/Base", ACC_PROTECTED, "hidden"));
+        declaringClasses.register(createClass(ACC_PUBLIC, "a/Sub", "a/Middle", ACC_PUBLIC, "other"));
+        declaringClasses.register(createClass(0, "a/Internal", "java/lang/Object", ACC_PUBLIC, "run"));
+        declaringClasses.register(createClass(ACC_PUBLIC, "a/Exposed", "a/Internal", ACC_PUBLIC));
+        declaringClasses.register(createClass(ACC_PUBLIC, "b/Foreign", "x/Unknown", ACC_PUBLIC));
+    }
+
+    private static MethodInvocation invocation(final String owner, final String name, final String caller) {
+        return new MethodInvocation(INVOKEVIRTUAL, owner, name, "()V", caller);
+    }
+
+    @Test
+    void testCanonicalizeInheritedMethod() {
+        assertEquals(invocation("a/Base", "run", "c/Caller"),
+            declaringClasses.canonicalize(invocation("a/Sub", "run", "c/Caller")));
+        assertEquals(invocation("a/Base", "run", "c/Caller"),
+            declaringClasses.canonicalize(invocation("a/Base", "run", "c/Caller")));
+    }
+
+    @Test
+    void testKeepOwnerIfUnsafe() {
+        // Protected methods are subject to additional access checks.
+        assertEquals(invocation("a/Sub", "hidden", "c/Caller"),
+            declaringClasses.canonicalize(invocation("a/Sub", "hidden", "c/Caller")));
+        // The declaring class is only accessible from within its package.
+        assertEquals(invocation("a/Exposed", "run", "c/Caller"),
+            declaringClasses.canonicalize(invocation("a/Exposed", "run", "c/Caller")));
+        assertEquals(invocation("a/Internal", "run", "a/Caller"),
+            declaringClasses.canonicalize(invocation("a/Exposed", "run", "a/Caller")));
+        // The super class is not part of the artifact and might declare the method as well.
+        assertEquals(invocation("b/Foreign", "toString", "c/Caller"),
+            declaringClasses.canonicalize(invocation("b/Foreign", "toString", "c/Caller")));
+        // The opcode does not match the declared method.
+        final var staticInvocation = new MethodInvocation(INVOKESTATIC, "a/Sub", "run", "()V", "c/Caller");
+        assertEquals(staticInvocation, declaringClasses.canonicalize(staticInvocation));
+    }
+
+    @Test
+    void testCanonicalizingSymbolMapping() {
+        final var symbolMapping = new CanonicalizingSymbolMapping(new SequentialSymbolMapping(), declaringClasses);
+        final var name = symbolMapping.add(invocation("a/Sub", "run", "c/Caller"));
+        assertEquals(name, symbolMapping.add(invocation("a/Middle", "run", "c/Caller")));
+        assertEquals(name, symbolMapping.add(invocation("a/Base", "run", "c/Caller")));
+        assertEquals(1, symbolMapping.size());
+    }
+}
@@ -0,0 +1,51 @@
+package dev.blanke.indyobfuscator.mapping;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+final class DeferredSymbolMappingTest {
+
+    private static MethodInvocation createInvocation(final String name, final String caller) {
+        return new MethodInvocation(INVOKESTATIC, "a/Owner", name, "()V", caller);
+    }
+
+    @Test
+    void testAddAssignsProvisionalIdentifiers() {
+        final var symbolMapping = new DeferredSymbolMapping();
+        assertEquals("0", symbolMapping.add(createInvocation("first", "a/Caller")));
+        assertEquals("1", symbolMapping.add(createInvocation("second", "a/Caller")));
+        assertEquals("0", symbolMapping.add(createInvocation("first", "a/Caller")));
+        assertEquals(2, symbolMapping.size());
+    }
+
+    @Test
+    void testRegisterIsIndependentOfObfuscationOrder() {
+        final var first  = new DeferredSymbolMapping();
+        final var second = new DeferredSymbolMapping();
+        // Populate the mapping of the second class before the one of the first class.
+        second.add(createInvocation("pause", "a/Second"));
+        second.add(createInvocation("run", "a/Second"));
+        first.add(createInvocation("run", "a/First"));
+        first.add(createInvocation("stop", "a/First"));
+
+        final var symbolMapping = new SequentialSymbolMapping();
+        assertEquals(List.of("0", "1"), first.register(symbolMapping));
+        assertEquals(List.of("2", "0"), second.register(symbolMapping));
+        assertEquals(3, symbolMapping.size());
+    }
+
+    @Test
+    void testRegisterReusesExistingIdentifiers() {
+        final var symbolMapping = new SequentialSymbolMapping();
+        symbolMapping.add(createInvocation("stop", "a/Caller"));
+
+        final var deferredSymbolMapping = new DeferredSymbolMapping();
+        deferredSymbolMapping.add(createInvocation("run", "a/Caller"));
+        deferredSymbolMapping.add(createInvocation("stop", "a/Caller"));
+        assertEquals(List.of("1", "0"), deferredSymbolMapping.register(symbolMapping));
+    }
+}
@@ -0,0 +1,247 @@
+package dev.blanke.indyobfuscator.obfuscation.bootstrap;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.objectweb.asm.Opcodes.*;
+
+final class BootstrapMethodOwnerClassVisitorTest {
+
+    private static final String OWNER = "p/Owner";
+
+    private static final Handle BOOTSTRAP_METHOD_HANDLE = new Handle(H_INVOKESTATIC, OWNER, "bootstrap",
+        "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)"
+            + "Ljava/lang/invoke/CallSite;", false);
+
+    private static final String EMBEDDED_LIBRARY = BootstrapMethodOwnerClassVisitor.getEmbeddedLibraryResource(
+        BootstrapMethodOwnerClassVisitor.DEFAULT_LIBRARY_NAME);
+
+    @Test
+    void testTrampolineCallsNativeMethodOnce() {
+        final var classNode = addBootstrapMethod(createOwner(null), false);
+
+        final var bootstrapMethod = getMethod(classNode, "bootstrap");
+        assertEquals(ACC_PUBLIC | ACC_STATIC | ACC_SYNTHETIC, bootstrapMethod.access);
+        final var nativeMethodName = BootstrapMethodOwnerClassVisitor.getTrampolineNativeMethodName("bootstrap");
+        assertEquals(1, countInvocations(bootstrapMethod, nativeMethodName));
+
+        final var nativeMethod = getMethod(classNode, nativeMethodName);
+        assertEquals("(I)Ljava/lang/String;", nativeMethod.desc);
+        assertEquals(ACC_PRIVATE | ACC_STATIC | ACC_NATIVE | ACC_SYNTHETIC, nativeMethod.access);
+
+        // The library still has to be loaded.
+        assertEquals(1, countInvocations(getMethod(classNode, "<clinit>"), "load"));
+    }
+
+    @Test
+    void testTrampolineConflictingHelperMethod() {
+        final var owner = createOwner(BootstrapMethodOwnerClassVisitor.getTrampolineNativeMethodName("bootstrap"));
+        assertThrows(BootstrapMethodConflictException.class, () -> addBootstrapMethod(owner, false));
+    }
+
+    @Test
+    void testAsyncLibraryLoadingCallsNativeMethodAfterLoading() {
+        final var classNode = toClassNode(addBootstrapMethod(createOwner(null), false, true));
+
+        final var bootstrapMethod = getMethod(classNode, "bootstrap");
+        assertEquals(ACC_PUBLIC | ACC_STATIC | ACC_SYNTHETIC, bootstrapMethod.access);
+        final var nativeMethodName = BootstrapMethodOwnerClassVisitor.getNativeBootstrapMethodName("bootstrap", true);
+        assertEquals(1, countInvocations(bootstrapMethod, nativeMethodName));
+        assertEquals(ACC_PRIVATE | ACC_STATIC | ACC_NATIVE | ACC_SYNTHETIC, getMethod(classNode, nativeMethodName).access);
+
+        // The library is loaded by a background thread instead of the static initializer.
+        final var clinit = getMethod(classNode, "<clinit>");
+        assertEquals(0, countInvocations(clinit, "load"));
+        assertEquals(1, countInvocations(clinit, "bootstrap$startLibraryLoading"));
+    }
+
+    @Test
+    void testAsyncLibraryLoadingRethrowsLoadingErrorOnBootstrap() throws ReflectiveOperationException {
+        // The library does not exist inside the working directory, which must not fail the static initializer.
+        final var classFile = addBootstrapMethod(createOwner(null), true, true);
+        final var owner = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define() {
+                return defineClass(OWNER.replace('/', '.'), classFile, 0, classFile.length);
+            }
+        }.define();
+        final var bootstrapMethod = owner.getMethod(BOOTSTRAP_METHOD_HANDLE.getName(), MethodHandles.Lookup.class,
+            String.class, MethodType.class);
+
+        final var exception = assertThrows(InvocationTargetException.class, () ->
+            bootstrapMethod.invoke(null, MethodHandles.lookup(), "0", MethodType.methodType(void.class)));
+        assertInstanceOf(UnsatisfiedLinkError.class, exception.getCause());
+    }
+
+    @Test
+    void testEmbeddedLibraryIsExtractedBeforeLoading() {
+        final var classNode = toClassNode(addBootstrapMethod(createOwner(null), false, false, true));
+
+        assertEquals(ACC_PUBLIC | ACC_STATIC | ACC_NATIVE | ACC_SYNTHETIC, getMethod(classNode, "bootstrap").access);
+        final var clinit = getMethod(classNode, "<clinit>");
+        assertEquals(1, countInvocations(clinit, "bootstrap$extractLibrary"));
+        assertEquals(1, countInvocations(clinit, "load"));
+        assertEquals(0, countInvocations(clinit, "getProperty"));
+    }
+
+    @Test
+    void testEmbeddedLibraryIsExtractedOnce(@TempDir final Path home) throws ReflectiveOperationException,
+            IOException {
+        assumeTrue(System.getenv("XDG_CACHE_HOME") == null);
+
+        final var library = "library".getBytes(StandardCharsets.UTF_8);
+        final var resources = Map.of(
+            EMBEDDED_LIBRARY,             library,
+            EMBEDDED_LIBRARY + ".sha256", ("0123abcd " + library.length + '\n').getBytes(StandardCharsets.UTF_8));
+        final var extractLibrary = getEmbeddedLibraryMethod(resources, "bootstrap$extractLibrary", String.class);
+
+        final var userHome = System.getProperty("user.home");
+        try {
+            System.setProperty("user.home", home.toString());
+            final var extractedLibrary = Path.of((String) extractLibrary.invoke(null, EMBEDDED_LIBRARY));
+            assertEquals(home.resolve(".cache/indy-obfuscator/extracted/0123abcd/libbootstrap.so"), extractedLibrary);
+            assertArrayEquals(library, Files.readAllBytes(extractedLibrary));
+
+            // An extracted library of the expected size is reused.
+            Files.write(extractedLibrary, "LIBRARY".getBytes(StandardCharsets.UTF_8));
+            assertEquals(extractedLibrary, Path.of((String) extractLibrary.invoke(null, EMBEDDED_LIBRARY)));
+            assertEquals("LIBRARY", Files.readString(extractedLibrary));
+        } finally {
+            System.setProperty("user.home", userHome);
+        }
+    }
+
+    @Test
+    void testEmbeddedLibraryRequiresHashAndSize() throws ReflectiveOperationException {
+        final var resources = Map.of(
+            EMBEDDED_LIBRARY,             "library".getBytes(StandardCharsets.UTF_8),
+            EMBEDDED_LIBRARY + ".sha256", new byte[0]);
+        final var extractLibrary = getEmbeddedLibraryMethod(resources, "bootstrap$extractLibrary", String.class);
+
+        // The static initializer of the owner extracts the library first.
+        final var exception = assertThrows(ExceptionInInitializerError.class,
+            () -> extractLibrary.invoke(null, EMBEDDED_LIBRARY));
+        assertInstanceOf(IOException.class, exception.getCause());
+        assertTrue(exception.getCause().getMessage().contains(EMBEDDED_LIBRARY));
+    }
+
+    @Test
+    void testLibraryIsNotExtractedToUnknownMount(@TempDir final Path home) throws ReflectiveOperationException {
+        assumeTrue(System.getenv("XDG_CACHE_HOME") == null);
+
+        final var library = "library".getBytes(StandardCharsets.UTF_8);
+        final var resources = Map.of(
+            EMBEDDED_LIBRARY,             library,
+            EMBEDDED_LIBRARY + ".sha256", ("0123abcd " + library.length + '\n').getBytes(StandardCharsets.UTF_8));
+        final var isExecutableMount = getEmbeddedLibraryMethod(resources, "bootstrap$isExecutableMount",
+            String.class);
+
+        final var userHome = System.getProperty("user.home");
+        try {
+            System.setProperty("user.home", home.toString());
+            assertEquals(false, isExecutableMount.invoke(null, "/nonexistent/mount"));
+        } finally {
+            System.setProperty("user.home", userHome);
+        }
+    }
+
+    /**
+     * @return The method with the provided {@code name} of a bootstrap method owner with an embedded library, whose
+     *         class loader provides the {@code resources}.
+     */
+    private static Method getEmbeddedLibraryMethod(final Map<String, byte[]> resources, final String name,
+                                                   final Class<?>... parameterTypes)
+            throws ReflectiveOperationException {
+        // Loading the library asynchronously keeps the static initializer from failing on the invalid library.
+        final var classFile = addBootstrapMethod(createOwner(null), false, true, true);
+        final var owner = new ClassLoader(BootstrapMethodOwnerClassVisitorTest.class.getClassLoader()) {
+            Class<?> define() {
+                return defineClass(OWNER.replace('/', '.'), classFile, 0, classFile.length);
+            }
+
+            @Override
+            public InputStream getResourceAsStream(final String name) {
+                final var resource = resources.get('/' + name);
+                return (resource != null) ? new ByteArrayInputStream(resource) : null;
+            }
+        }.define();
+        final var method = owner.getDeclaredMethod(name, parameterTypes);
+        method.setAccessible(true);
+        return method;
+    }
+
+    /**
+     * @param methodName The name of a method without parameters which should be declared by the owner, or
+     *                   {@code null}.
+     */
+    private static byte[] createOwner(final String methodName) {
+        final var writer = new ClassWriter(0);
+        writer.visit(V1_8, ACC_PUBLIC, OWNER, null, "java/lang/Object", null);
+        if (methodName != null) {
+            final var methodVisitor = writer.visitMethod(ACC_STATIC, methodName, "()V", null, null);
+            methodVisitor.visitCode();
+            methodVisitor.visitInsn(RETURN);
+            methodVisitor.visitMaxs(0, 0);
+            methodVisitor.visitEnd();
+        }
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static ClassNode addBootstrapMethod(final byte[] classFile, final boolean asyncLibraryLoading) {
+        return toClassNode(addBootstrapMethod(classFile, true, asyncLibraryLoading));
+    }
+
+    private static byte[] addBootstrapMethod(final byte[] classFile, final boolean trampoline,
+                                             final boolean asyncLibraryLoading) {
+        return addBootstrapMethod(classFile, trampoline, asyncLibraryLoading, false);
+    }
+
+    private static byte[] addBootstrapMethod(final byte[] classFile, final boolean trampoline,
+                                             final boolean asyncLibraryLoading, final boolean embedLibrary) {
+        final var reader = new ClassReader(classFile);
+        final var writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+        reader.accept(new BootstrapMethodOwnerClassVisitor(ASM9, writer, BOOTSTRAP_METHOD_HANDLE, trampoline,
+            asyncLibraryLoading, BootstrapMethodOwnerClassVisitor.DEFAULT_LIBRARY_NAME, embedLibrary),
+            ClassReader.EXPAND_FRAMES);
+        return writer.toByteArray();
+    }
+
+    private static ClassNode toClassNode(final byte[] classFile) {
+        final var classNode = new ClassNode();
+        new ClassReader(classFile).accept(classNode, 0);
+        return classNode;
+    }
+
+    private static MethodNode getMethod(final ClassNode classNode, final String name) {
+        return classNode.methods.stream().filter(method -> method.name.equals(name)).findFirst().orElseThrow();
+    }
+
+    private static long countInvocations(final MethodNode method, final String name) {
+        return Arrays.stream(method.instructions.toArray())
+            .filter(instruction -> (instruction instanceof MethodInsnNode methodInstruction)
+                && methodInstruction.name.equals(name))
+            .count();
+    }
+}
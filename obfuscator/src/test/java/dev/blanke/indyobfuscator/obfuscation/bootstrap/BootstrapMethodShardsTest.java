@@ -0,0 +1,50 @@
+package dev.blanke.indyobfuscator.obfuscation.bootstrap;
+
+import org.junit.jupiter.api.Test;
+
+import dev.blanke.indyobfuscator.mapping.MethodInvocation;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+final class BootstrapMethodShardsTest {
+
+    private static final String DESCRIPTOR =
+        "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)"
+            + "Ljava/lang/invoke/CallSite;";
+
+    private final BootstrapMethodShards shards = new BootstrapMethodShards("bootstrap", DESCRIPTOR);
+
+    @Test
+    void testClassesOfSamePackageShareShard() {
+        final var shard = shards.forClass("a/b/First");
+        assertSame(shard, shards.forClass("a/b/Second"));
+        assertNotSame(shard, shards.forClass("a/b/c/Third"));
+
+        assertEquals("bootstrap_a_b", shard.name());
+        assertEquals("a/b/BootstrapShard", shard.bootstrapMethodHandle().getOwner());
+        assertEquals("bootstrap", shard.bootstrapMethodHandle().getName());
+        assertEquals(DESCRIPTOR, shard.bootstrapMethodHandle().getDesc());
+    }
+
+    @Test
+    void testShardNamesAreUnique() {
+        assertEquals("bootstrap", shards.forClass("Main").name());
+        assertEquals("BootstrapShard", shards.forClass("Main").bootstrapMethodHandle().getOwner());
+        assertEquals("bootstrap_a_b_1c", shards.forClass("a/b_c/Main").name());
+        assertEquals("bootstrap_a_1b_c", shards.forClass("a_b/c/Main").name());
+        // Doubling the underscores would map both packages to bootstrap_a___b.
+        assertEquals("bootstrap_a_1_b", shards.forClass("a_/b/Main").name());
+        assertEquals("bootstrap_a__1b", shards.forClass("a/_b/Main").name());
+        assertEquals(5, shards.getShards().size());
+    }
+
+    @Test
+    void testIdentifiersAreAssignedPerShard() {
+        final var invocation = new MethodInvocation(INVOKESTATIC, "java/lang/Math", "max", "(II)I", "a/Main");
+        assertEquals("0", shards.forClass("a/Main").symbolMapping().add(invocation));
+        assertEquals("0", shards.forClass("b/Main").symbolMapping().add(
+            new MethodInvocation(INVOKESTATIC, "java/lang/Math", "min", "(II)I", "b/Main")));
+        assertEquals(1, shards.forClass("a/Main").symbolMapping().size());
+    }
+}
@@ -0,0 +1,114 @@
+package dev.blanke.indyobfuscator.obfuscation.bootstrap;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+
+import dev.blanke.indyobfuscator.mapping.MethodInvocation;
+import dev.blanke.indyobfuscator.mapping.SequentialSymbolMapping;
+import dev.blanke.indyobfuscator.mapping.SymbolMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+final class JavaBootstrapMethodOwnerClassVisitorTest {
+
+    private static final String OWNER = "p/Owner";
+
+    private static final Handle BOOTSTRAP_METHOD_HANDLE = new Handle(H_INVOKESTATIC, OWNER, "bootstrap",
+        "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)"
+            + "Ljava/lang/invoke/CallSite;", false);
+
+    private SymbolMapping symbolMapping;
+
+    @BeforeEach
+    void setUp() {
+        symbolMapping = new SequentialSymbolMapping();
+    }
+
+    @Test
+    void testBootstrapResolvesMethodsAndFields() throws Throwable {
+        final var max    = symbolMapping.add(new MethodInvocation(INVOKESTATIC, "java/lang/Math", "max", "(II)I", OWNER));
+        final var length = symbolMapping.add(
+            new MethodInvocation(INVOKEVIRTUAL, "java/lang/String", "length", "()I", OWNER));
+        final var maxValue = symbolMapping.add(
+            new MethodInvocation(GETSTATIC, "java/lang/Integer", "MAX_VALUE", "()I", OWNER));
+        final var bootstrapMethod = defineOwner();
+
+        assertEquals(3, bootstrap(bootstrapMethod, max, MethodType.methodType(int.class, int.class, int.class))
+            .dynamicInvoker().invoke(2, 3));
+        assertEquals(5, bootstrap(bootstrapMethod, length, MethodType.methodType(int.class, String.class))
+            .dynamicInvoker().invoke("12345"));
+        assertEquals(Integer.MAX_VALUE, bootstrap(bootstrapMethod, maxValue, MethodType.methodType(int.class))
+            .dynamicInvoker().invoke());
+        assertThrows(IllegalArgumentException.class,
+            () -> bootstrap(bootstrapMethod, "3", MethodType.methodType(void.class)));
+    }
+
+    @Test
+    void testBootstrapDecodesTableSplitIntoMultipleConstants() throws Throwable {
+        for (int index = 0; index < 4000; ++index) {
+            symbolMapping.add(new MethodInvocation(INVOKESTATIC, "java/lang/Math", "method" + index, "()V", OWNER));
+        }
+        final var last = symbolMapping.add(
+            new MethodInvocation(INVOKESTATIC, "java/lang/Math", "abs", "(I)I", OWNER));
+        assertTrue(JavaBootstrapMethodOwnerClassVisitor.createTable(symbolMapping).length > 65535);
+
+        assertEquals(7, bootstrap(defineOwner(), last, MethodType.methodType(int.class, int.class))
+            .dynamicInvoker().invoke(-7));
+    }
+
+    @Test
+    void testConflictingMemberIsRejected() {
+        final var writer = new ClassWriter(0);
+        writer.visit(V1_8, ACC_PUBLIC, OWNER, null, "java/lang/Object", null);
+        writer.visitField(ACC_PRIVATE | ACC_STATIC, "bootstrap$table", "I", null, null).visitEnd();
+        writer.visitEnd();
+
+        final var reader = new ClassReader(writer.toByteArray());
+        assertThrows(BootstrapMethodConflictException.class, () -> reader.accept(
+            new JavaBootstrapMethodOwnerClassVisitor(ASM9, new ClassWriter(0), BOOTSTRAP_METHOD_HANDLE,
+                symbolMapping), 0));
+    }
+
+    /**
+     * Adds the bootstrap method to an empty owner class, defines the class, and returns its bootstrap method.
+     */
+    private Method defineOwner() throws ReflectiveOperationException {
+        final var ownerWriter = new ClassWriter(0);
+        ownerWriter.visit(V1_8, ACC_PUBLIC, OWNER, null, "java/lang/Object", null);
+        ownerWriter.visitEnd();
+
+        final var reader = new ClassReader(ownerWriter.toByteArray());
+        final var writer = new ClassWriter(reader, 0);
+        reader.accept(new JavaBootstrapMethodOwnerClassVisitor(ASM9, writer, BOOTSTRAP_METHOD_HANDLE, symbolMapping),
+            ClassReader.EXPAND_FRAMES);
+
+        final var classFile = writer.toByteArray();
+        final var owner = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define() {
+                return defineClass(OWNER.replace('/', '.'), classFile, 0, classFile.length);
+            }
+        }.define();
+        return owner.getMethod(BOOTSTRAP_METHOD_HANDLE.getName(), MethodHandles.Lookup.class, String.class,
+            MethodType.class);
+    }
+
+    private static CallSite bootstrap(final Method bootstrapMethod, final String invokedName,
+                                      final MethodType invokedType) throws Throwable {
+        try {
+            return (CallSite) bootstrapMethod.invoke(null, MethodHandles.lookup(), invokedName, invokedType);
+        } catch (final InvocationTargetException exception) {
+            throw exception.getCause();
+        }
+    }
+}
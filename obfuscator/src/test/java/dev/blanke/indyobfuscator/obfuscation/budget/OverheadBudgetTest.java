@@ -0,0 +1,109 @@
+package dev.blanke.indyobfuscator.obfuscation.budget;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.intellij.lang.annotations.Language;
+
+import org.junit.jupiter.api.Test;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+
+import dev.blanke.indyobfuscator.obfuscation.exclusion.CallSiteExclusions;
+import dev.blanke.indyobfuscator.obfuscation.exclusion.IntrinsicCatalogue;
+import dev.blanke.indyobfuscator.obfuscation.exclusion.TrivialMethods;
+import dev.blanke.indyobfuscator.obfuscation.policy.ObfuscationPolicy;
+import dev.blanke.indyobfuscator.obfuscation.policy.PackagePolicies;
+import dev.blanke.indyobfuscator.util.ClassReaders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class OverheadBudgetTest {
+
+    /**
+     * Contains four invocations weighted by their estimated frequency (1 + 1 + 1 + 10 including the invocation of the
+     * super constructor), two of which would cost 0.2 each when obfuscated and one of which would cost 2.
+     */
+    @Language("JAVA")
+    private static final String SOURCE = """
+        class Test {
+            void first() {}
+            void second() {}
+
+            void run(int n) {
+                first();
+                second();
+                for (int i = 0; i < n; ++i) {
+                    first();
+                }
+            }
+        }
+        """;
+
+    private static OverheadBudget plan(final ClassReader reader, final double percentage) {
+        final var budget = new OverheadBudget(percentage, IntrinsicCatalogue.getDefault(), new TrivialMethods());
+        budget.register(reader, ObfuscationPolicy.resolve(reader, new PackagePolicies(), false),
+            CallSiteExclusions.NONE, Integer.MAX_VALUE);
+        budget.plan();
+        return budget;
+    }
+
+    /**
+     * @return The names of the methods invoked by {@code Test.run} which are obfuscated within the provided budget.
+     */
+    private static List<String> getSelectedInvocations(final double percentage) {
+        final var reader = ClassReaders.forSource(SOURCE);
+        assertNotNull(reader);
+
+        final var classNode = new ClassNode();
+        reader.accept(classNode, ClassReader.SKIP_DEBUG);
+        final var run = classNode.methods.stream().filter(method -> method.name.equals("run")).findFirst().orElseThrow();
+
+        final var methodBudget = plan(reader, percentage).forClass("Test").forMethod(run.name, run.desc);
+        final var selectedInvocations = new ArrayList<String>();
+        for (final var instruction : run.instructions) {
+            if ((instruction instanceof MethodInsnNode invocation)
+                    && methodBudget.isNextInvocationSelected(invocation.owner, invocation.name, invocation.desc)) {
+                selectedInvocations.add(invocation.name);
+            }
+        }
+        return selectedInvocations;
+    }
+
+    @Test
+    void testSelectsCheapestCallSitesFirst() {
+        assertEquals(List.of(), getSelectedInvocations(1));
+        assertEquals(List.of("first"), getSelectedInvocations(2));
+        assertEquals(List.of("first", "second"), getSelectedInvocations(10));
+        assertEquals(List.of("first", "second", "first"), getSelectedInvocations(20));
+    }
+
+    @Test
+    void testUnknownClassIsUnlimited() {
+        final var reader = ClassReaders.forSource(SOURCE);
+        assertNotNull(reader);
+
+        final var methodBudget = plan(reader, 0).forClass("Unknown").forMethod("run", "(I)V");
+        assertTrue(methodBudget.isNextInvocationSelected("Test", "first", "()V"));
+    }
+
+    @Test
+    void testWriteDecisionTable() {
+        final var reader = ClassReaders.forSource(SOURCE);
+        assertNotNull(reader);
+
+        final var writer = new StringWriter();
+        plan(reader, 2).writeDecisionTable(writer);
+        final var lines = writer.toString().lines().filter(line -> !line.startsWith("#")).toList();
+
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(0).startsWith("class\tmethod\ttarget"));
+        assertEquals("Test\trun(I)V\tTest.first()V\t0\tinvokevirtual\t0\t14\tVIRTUAL\t0.2000\tOBFUSCATE\t",
+            lines.get(1));
+        assertTrue(lines.get(3).startsWith("Test\trun(I)V\tTest.first()V\t1\tinvokevirtual\t1\t"));
+        assertTrue(lines.get(3).endsWith("\tOVER_BUDGET\t"));
+    }
+}
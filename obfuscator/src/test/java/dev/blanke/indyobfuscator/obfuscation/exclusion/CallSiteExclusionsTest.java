@@ -0,0 +1,86 @@
+package dev.blanke.indyobfuscator.obfuscation.exclusion;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.Test;
+
+import dev.blanke.indyobfuscator.util.ClassReaders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class CallSiteExclusionsTest {
+
+    @Test
+    void testDefaultIntrinsicCatalogue() {
+        final var catalogue = IntrinsicCatalogue.getDefault();
+        assertTrue(catalogue.getVersion() > 0);
+        assertTrue(catalogue.contains("java/lang/Math", "abs", "(I)I"));
+        assertTrue(catalogue.contains("java/lang/System", "arraycopy", "(Ljava/lang/Object;ILjava/lang/Object;II)V"));
+        assertTrue(catalogue.contains("java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;"));
+        assertFalse(catalogue.contains("java/io/PrintStream", "println", "(Ljava/lang/String;)V"));
+    }
+
+    @Test
+    void testReadIntrinsicCatalogue() throws IOException {
+        final var catalogue = IntrinsicCatalogue.read(new StringReader("""
+            # Comment
+            version 2
+            com/example/Fast * *
+            com/example/Mixed fast ()V
+            """));
+        assertEquals(2, catalogue.getVersion());
+        assertTrue(catalogue.contains("com/example/Fast", "anything", "()I"));
+        assertTrue(catalogue.contains("com/example/Mixed", "fast", "()V"));
+        assertFalse(catalogue.contains("com/example/Mixed", "fast", "()I"));
+        assertFalse(catalogue.contains("com/example/Mixed", "slow", "()V"));
+
+        assertThrows(IOException.class, () -> IntrinsicCatalogue.read(new StringReader("com/example/Fast * *")));
+    }
+
+    @Test
+    void testTrivialMethods() {
+        final var reader = ClassReaders.forSource("""
+            class Test {
+                private int value;
+                private static String name;
+
+                int getValue() { return value; }
+                void setValue(int value) { this.value = value; }
+                static String getName() { return name; }
+                static void setName(String name) { Test.name = name; }
+                long constant() { return 42L; }
+                int computed() { return value + 1; }
+                synchronized int synchronizedGetter() { return value; }
+            }
+            """);
+        assertNotNull(reader);
+
+        final var trivialMethods = new TrivialMethods();
+        trivialMethods.register(reader);
+        assertEquals(ExclusionReason.TRIVIAL_GETTER, trivialMethods.get("Test", "getValue", "()I"));
+        assertEquals(ExclusionReason.TRIVIAL_SETTER, trivialMethods.get("Test", "setValue", "(I)V"));
+        assertEquals(ExclusionReason.TRIVIAL_GETTER, trivialMethods.get("Test", "getName", "()Ljava/lang/String;"));
+        assertEquals(ExclusionReason.TRIVIAL_SETTER, trivialMethods.get("Test", "setName", "(Ljava/lang/String;)V"));
+        assertEquals(ExclusionReason.CONSTANT_RETURN, trivialMethods.get("Test", "constant", "()J"));
+        assertNull(trivialMethods.get("Test", "computed", "()I"));
+        assertNull(trivialMethods.get("Test", "synchronizedGetter", "()I"));
+        assertNull(trivialMethods.get("Test", "<init>", "()V"));
+    }
+
+    @Test
+    void testExclusionsAreReported() {
+        final var report     = new ExclusionReport();
+        final var exclusions = new CallSiteExclusions(IntrinsicCatalogue.getDefault(), new TrivialMethods(), report);
+        assertTrue(exclusions.isExcluded("java/lang/Math", "max", "(II)I"));
+        assertTrue(exclusions.isExcluded("java/lang/Math", "max", "(II)I"));
+        assertFalse(exclusions.isExcluded("java/io/PrintStream", "println", "()V"));
+        assertFalse(CallSiteExclusions.NONE.isExcluded("java/lang/Math", "max", "(II)I"));
+
+        assertEquals(2L, report.countByReason().get(ExclusionReason.INTRINSIC));
+        final var writer = new StringWriter();
+        report.write(writer);
+        assertEquals("INTRINSIC\t2\tjava.lang.Math.max(II)I" + System.lineSeparator(), writer.toString());
+    }
+}
@@ -0,0 +1,107 @@
+package dev.blanke.indyobfuscator.obfuscation.loop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.intellij.lang.annotations.Language;
+
+import org.junit.jupiter.api.Test;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+
+import dev.blanke.indyobfuscator.util.ClassReaders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+final class LoopFilterTest {
+
+    @Language("JAVA")
+    private static final String SOURCE = """
+        class Test {
+            static void straight() {}
+            static void outer() {}
+            static void inner() {}
+            static void handler() {}
+            static void after() {}
+
+            void run(int n) {
+                straight();
+                for (int i = 0; i < n; ++i) {
+                    outer();
+                    int j = 0;
+                    while (j++ < n) {
+                        inner();
+                    }
+                    try {
+                        outer();
+                    } catch (RuntimeException exception) {
+                        handler();
+                    }
+                }
+                after();
+            }
+        }
+        """;
+
+    /**
+     * @return The names of the methods invoked by {@code Test.run} which are left un-obfuscated by a {@link LoopFilter}
+     *         with the provided maximum loop depth.
+     */
+    private static List<String> getSkippedInvocations(final int maxLoopDepth) {
+        final var reader = ClassReaders.forSource(SOURCE);
+        assertNotNull(reader);
+
+        final var classNode = new ClassNode();
+        reader.accept(classNode, ClassReader.SKIP_DEBUG);
+        final var run = classNode.methods.stream().filter(method -> method.name.equals("run")).findFirst().orElseThrow();
+
+        final var methodLoopFilter = LoopFilter.analyze(reader, maxLoopDepth).forMethod(run.name, run.desc);
+        final var skippedInvocations = new ArrayList<String>();
+        for (final var instruction : run.instructions) {
+            if ((instruction instanceof MethodInsnNode methodInstruction) && methodLoopFilter.isNextMethodInsnSkipped()) {
+                skippedInvocations.add(methodInstruction.name);
+            }
+        }
+        return skippedInvocations;
+    }
+
+    @Test
+    void testSkipLoopBodies() {
+        assertEquals(List.of("outer", "inner", "outer"), getSkippedInvocations(0));
+    }
+
+    @Test
+    void testMaxLoopDepth() {
+        assertEquals(List.of("inner"), getSkippedInvocations(1));
+        assertEquals(List.of(), getSkippedInvocations(2));
+    }
+
+    @Test
+    void testLoopDepths() {
+        final var reader = ClassReaders.forSource("""
+            class Test {
+                int run(int[][] values) {
+                    int sum = 0;
+                    for (int[] row : values) {
+                        for (int value : row) {
+                            sum += value;
+                        }
+                    }
+                    return sum;
+                }
+            }
+            """);
+        assertNotNull(reader);
+        final var classNode = new ClassNode();
+        reader.accept(classNode, 0);
+        final var run = classNode.methods.stream().filter(method -> method.name.equals("run")).findFirst().orElseThrow();
+
+        final var depths = LoopAnalysis.computeLoopDepths(run.instructions);
+        assertEquals(0, depths[0]);
+        assertEquals(0, depths[depths.length - 1]);
+        assertEquals(2, Arrays.stream(depths).max().orElseThrow());
+    }
+}
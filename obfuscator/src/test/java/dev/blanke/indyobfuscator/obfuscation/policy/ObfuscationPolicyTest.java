@@ -0,0 +1,131 @@
+package dev.blanke.indyobfuscator.obfuscation.policy;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.intellij.lang.annotations.Language;
+
+import org.junit.jupiter.api.Test;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Type;
+
+import dev.blanke.indyobfuscator.DoNotObfuscate;
+import dev.blanke.indyobfuscator.util.ClassReaders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static org.objectweb.asm.Opcodes.*;
+
+final class ObfuscationPolicyTest {
+
+    private static final String VOID_DESCRIPTOR = "()V";
+
+    private static ClassReader compile(@Language("JAVA") final String source) {
+        final var reader = ClassReaders.forSource(source);
+        assertNotNull(reader);
+        return reader;
+    }
+
+    @Test
+    void testUnannotated() {
+        final var reader = compile("""
+            class Test {
+                void method() {}
+            }
+            """);
+        assertTrue(ObfuscationPolicy.resolve(reader, new PackagePolicies(), false)
+            .shouldObfuscate("method", VOID_DESCRIPTOR));
+        assertFalse(ObfuscationPolicy.resolve(reader, new PackagePolicies(), true)
+            .shouldObfuscate("method", VOID_DESCRIPTOR));
+    }
+
+    @Test
+    void testMethodAnnotationOverridesClassAnnotation() {
+        final var reader = compile("""
+            import dev.blanke.indyobfuscator.*;
+
+            @DoNotObfuscate
+            class Test {
+                @Obfuscate
+                void obfuscated() {}
+
+                void inherited() {}
+
+                @Obfuscate @HotPath
+                void conflicting() {}
+            }
+            """);
+        final var policy = ObfuscationPolicy.resolve(reader, new PackagePolicies(), false);
+        assertTrue(policy.shouldObfuscate("obfuscated", VOID_DESCRIPTOR));
+        assertFalse(policy.shouldObfuscate("inherited", VOID_DESCRIPTOR));
+        assertFalse(policy.shouldObfuscate("conflicting", VOID_DESCRIPTOR));
+        assertFalse(policy.obfuscatesNothing());
+    }
+
+    @Test
+    void testPackageAnnotation() {
+        final var packageInfoWriter = new ClassWriter(0);
+        packageInfoWriter.visit(V1_8, ACC_ABSTRACT | ACC_INTERFACE | ACC_SYNTHETIC, "com/example/package-info", null,
+            "java/lang/Object", null);
+        packageInfoWriter.visitAnnotation(Type.getDescriptor(DoNotObfuscate.class), false).visitEnd();
+        packageInfoWriter.visitEnd();
+
+        final var packagePolicies = new PackagePolicies();
+        assertTrue(PackagePolicies.isPackageInfo("com/example/package-info"));
+        packagePolicies.register(new ClassReader(packageInfoWriter.toByteArray()));
+
+        final var packagedPolicy = ObfuscationPolicy.resolve(compile("""
+            package com.example;
+
+            class Test {
+                void method() {}
+            }
+            """), packagePolicies, false);
+        assertTrue(packagedPolicy.obfuscatesNothing());
+
+        // Class-level annotations take precedence over package-level ones.
+        final var classPolicy = ObfuscationPolicy.resolve(compile("""
+            package com.example;
+
+            @dev.blanke.indyobfuscator.Obfuscate
+            class Test {
+                void method() {}
+            }
+            """), packagePolicies, false);
+        assertTrue(classPolicy.shouldObfuscate("method", VOID_DESCRIPTOR));
+    }
+
+    @Test
+    void testStartupPath() throws IOException {
+        final var startupMethods = StartupPath.readMethods(new StringReader("""
+            # Startup-only methods
+            Test.init
+            Test.configure(I)V
+            """));
+        final var startupPath = new StartupPath(StartupPath.Mode.SKIP, startupMethods);
+
+        final var policy = ObfuscationPolicy.resolve(compile("""
+            class Test {
+                static int value = Integer.parseInt("1");
+
+                void init() {}
+                void configure(int value) {}
+                void configure(String value) {}
+                @dev.blanke.indyobfuscator.DoNotObfuscate
+                static void hot() {}
+            }
+            """), new PackagePolicies(), false, startupPath);
+        for (final var method : new String[][] { { "<clinit>", "()V" }, { "init", "()V" }, { "configure", "(I)V" } }) {
+            assertFalse(policy.shouldObfuscate(method[0], method[1]));
+            assertTrue(policy.isStartupMethod(method[0], method[1]));
+            assertFalse(policy.wrapsFieldAccessesOnly(method[0], method[1]));
+        }
+        assertTrue(policy.shouldObfuscate("configure", "(Ljava/lang/String;)V"));
+        assertFalse(policy.isStartupMethod("configure", "(Ljava/lang/String;)V"));
+        assertFalse(policy.isStartupMethod("hot", VOID_DESCRIPTOR));
+
+        assertThrows(IOException.class, () -> StartupPath.readMethods(new StringReader("method")));
+    }
+}
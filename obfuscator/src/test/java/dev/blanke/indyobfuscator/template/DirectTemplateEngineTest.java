@@ -0,0 +1,69 @@
+package dev.blanke.indyobfuscator.template;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import org.objectweb.asm.Handle;
+
+import dev.blanke.indyobfuscator.Arguments.FieldObfuscationMode;
+import dev.blanke.indyobfuscator.mapping.MethodInvocation;
+import dev.blanke.indyobfuscator.mapping.SequentialSymbolMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+final class DirectTemplateEngineTest {
+
+    private static final Handle BOOTSTRAP_METHOD_HANDLE = new Handle(H_INVOKESTATIC, "p/q/Main", "bootstrap",
+        "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)"
+            + "Ljava/lang/invoke/CallSite;", false);
+
+    @ParameterizedTest
+    @EnumSource(FieldObfuscationMode.class)
+    void testProcessMatchesPackagedTemplate(final FieldObfuscationMode fieldObfuscationMode) throws Exception {
+        final var symbolMapping = new SequentialSymbolMapping();
+        final int[] opcodes = {
+            INVOKEVIRTUAL, INVOKESPECIAL, INVOKESTATIC, INVOKEINTERFACE, GETFIELD, PUTFIELD, GETSTATIC, PUTSTATIC
+        };
+        for (final int opcode : opcodes) {
+            symbolMapping.add(new MethodInvocation(opcode, "p/A", "member" + opcode, "()V", "p/q/Main"));
+        }
+        assertMatchesPackagedTemplate(
+            new DataModel(BOOTSTRAP_METHOD_HANDLE, symbolMapping, fieldObfuscationMode, false, 1, false, false));
+        assertMatchesPackagedTemplate(
+            new DataModel(BOOTSTRAP_METHOD_HANDLE, symbolMapping, fieldObfuscationMode, false, 1, true, false));
+        assertMatchesPackagedTemplate(
+            new DataModel(BOOTSTRAP_METHOD_HANDLE, symbolMapping, fieldObfuscationMode, false, 1, false, true));
+    }
+
+    @Test
+    void testProcessWritesMultiDigitIdentifiers() throws Exception {
+        final var symbolMapping = new SequentialSymbolMapping();
+        for (int index = 0; index < 1024; ++index) {
+            symbolMapping.add(new MethodInvocation(INVOKESTATIC, "p/A", "method" + index, "()V", "p/q/Main"));
+        }
+        assertMatchesPackagedTemplate(
+            new DataModel(BOOTSTRAP_METHOD_HANDLE, symbolMapping, FieldObfuscationMode.NONE, false, 1, false, false));
+    }
+
+    private void assertMatchesPackagedTemplate(final DataModel dataModel) throws Exception {
+        final var expected = new StringWriter();
+        new FreeMarkerTemplateEngine().process(openPackagedTemplate(), dataModel, expected);
+        final var actual = new StringWriter();
+        new DirectTemplateEngine().process(Reader.nullReader(), dataModel, actual);
+
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    private Reader openPackagedTemplate() {
+        return new InputStreamReader(Objects.requireNonNull(getClass().getResourceAsStream("/bootstrap.c.ftl")),
+            StandardCharsets.UTF_8);
+    }
+}
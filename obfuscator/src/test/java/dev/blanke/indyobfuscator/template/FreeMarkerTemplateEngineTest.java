@@ -0,0 +1,156 @@
+package dev.blanke.indyobfuscator.template;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.objectweb.asm.Handle;
+
+import dev.blanke.indyobfuscator.Arguments.FieldObfuscationMode;
+import dev.blanke.indyobfuscator.mapping.MethodInvocation;
+import dev.blanke.indyobfuscator.mapping.SequentialSymbolMapping;
+import dev.blanke.indyobfuscator.mapping.SymbolMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+final class FreeMarkerTemplateEngineTest {
+
+    private static final Handle BOOTSTRAP_METHOD_HANDLE = new Handle(H_INVOKESTATIC, "p/Main", "bootstrap",
+        "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)"
+            + "Ljava/lang/invoke/CallSite;", false);
+
+    private final TemplateEngine templateEngine = new FreeMarkerTemplateEngine();
+
+    private SymbolMapping symbolMapping;
+
+    @BeforeEach
+    void setUp() {
+        symbolMapping = new SequentialSymbolMapping();
+        for (int index = 0; index < 5; ++index) {
+            symbolMapping.add(new MethodInvocation(INVOKESTATIC, "p/A", "method" + index, "()V", "p/Main"));
+        }
+    }
+
+    /**
+     * A {@link TemplateOutput} collecting the written files in memory.
+     */
+    private static final class InMemoryOutput implements TemplateOutput {
+
+        private final Map<String, StringWriter> files = new TreeMap<>();
+
+        @Override
+        public Writer open(final String fileName) {
+            return files.computeIfAbsent(fileName, key -> new StringWriter());
+        }
+
+        String get(final String fileName) {
+            return files.get(fileName).toString();
+        }
+    }
+
+    @Test
+    void testUnits() {
+        final var units = new DataModel(BOOTSTRAP_METHOD_HANDLE, symbolMapping,
+            FieldObfuscationMode.NONE, false, 2, false, false).units();
+        assertEquals(2, units.size());
+        assertEquals(3, units.get(0).mappings().size());
+        assertEquals(2, units.get(1).mappings().size());
+        assertEquals(3, units.get(0).endId());
+        assertEquals(Integer.MAX_VALUE, units.get(1).endId());
+    }
+
+    @Test
+    void testProcessUnitsTemplate() throws Exception {
+        final var dataModel = new DataModel(BOOTSTRAP_METHOD_HANDLE, symbolMapping,
+            FieldObfuscationMode.NONE, false, 2, false, false);
+        final var output = new InMemoryOutput();
+        final var mainUnit = new StringWriter();
+        try (final var templateReader = new InputStreamReader(Objects.requireNonNull(
+                getClass().getResourceAsStream("/bootstrap-units.c.ftl")), StandardCharsets.UTF_8)) {
+            templateEngine.process(templateReader, dataModel, mainUnit, output);
+        }
+
+        assertEquals("[CMakeLists.txt, bootstrap.h, bootstrap_0.c, bootstrap_1.c]", output.files.keySet().toString());
+        assertTrue(mainUnit.toString().contains("JNI_OnLoad"));
+        assertTrue(mainUnit.toString().contains("bootstrap_unit_1(env, lookup, invokedId, invokedType)"));
+        assertTrue(output.get("bootstrap_0.c").contains("\"method2\""));
+        assertFalse(output.get("bootstrap_0.c").contains("\"method3\""));
+        assertTrue(output.get("bootstrap_1.c").contains("\"method3\""));
+        assertTrue(output.get("CMakeLists.txt").contains("bootstrap_1.c"));
+    }
+
+    @Test
+    void testOutputRequiresTemplateOutput() {
+        final var dataModel = new DataModel(BOOTSTRAP_METHOD_HANDLE, symbolMapping,
+            FieldObfuscationMode.NONE, false, 1, false, false);
+        assertThrows(IOException.class, () -> templateEngine.process(
+            new StringReader("<@output file=\"bootstrap.h\">header</@output>"), dataModel, new StringWriter()));
+    }
+
+    @Test
+    void testProcessExposesMappingAccessorsAndBeanMembers() throws Exception {
+        final var mapping = new SequentialSymbolMapping();
+        mapping.add(new MethodInvocation(INVOKESPECIAL, "p/A", "method", "()V", "p/Main"));
+        final var dataModel = new DataModel(BOOTSTRAP_METHOD_HANDLE, mapping,
+            FieldObfuscationMode.NONE, false, 1, false, false);
+        final var template = """
+            <#list dataModel.symbolMapping() as mapping><#assign methodId = mapping.getKey()>\
+            ${mapping.getValue()} ${methodId.owner()}.${methodId.name()}${methodId.descriptor()} ${methodId.caller()} \
+            ${(methodId.opcode() == Opcodes.INVOKESPECIAL)?c} ${methodId.toString()?starts_with("MethodInvocation[")?c}\
+            </#list>""";
+
+        final var output = new StringWriter();
+        templateEngine.process(new StringReader(template), dataModel, output);
+        assertEquals("0 p/A.method()V p/Main true true", output.toString());
+    }
+
+    @Test
+    void testProcessFormatsNumbersWithoutGrouping() throws Exception {
+        final var dataModel = new DataModel(BOOTSTRAP_METHOD_HANDLE, symbolMapping,
+            FieldObfuscationMode.NONE, false, 1, false, false);
+        final var output = new StringWriter();
+        templateEngine.process(new StringReader("${1234567} ${-42} ${1.5} ${dataModel.unitCount()}"), dataModel,
+            output);
+        assertEquals("1234567 -42 1.5 1", output.toString());
+    }
+
+    @Test
+    void testProcessUsesCurrentDataModelForCachedTemplate() throws Exception {
+        for (int unitCount = 1; unitCount <= 2; ++unitCount) {
+            final var output = new StringWriter();
+            templateEngine.process(new StringReader("${dataModel.unitCount()}"),
+                new DataModel(BOOTSTRAP_METHOD_HANDLE, symbolMapping,
+                    FieldObfuscationMode.NONE, false, unitCount, false, false),
+                output);
+            assertEquals(Integer.toString(unitCount), output.toString());
+        }
+    }
+
+    @Test
+    void testProcessTrampolineTemplate() throws Exception {
+        final var bootstrapMethodHandle = new Handle(H_INVOKESTATIC, "p/Main_1", "bootstrap",
+            BOOTSTRAP_METHOD_HANDLE.getDesc(), false);
+        final var dataModel = new DataModel(bootstrapMethodHandle, symbolMapping,
+            FieldObfuscationMode.NONE, false, 1, false, false);
+        final var output = new StringWriter();
+        try (final var templateReader = new InputStreamReader(Objects.requireNonNull(
+                getClass().getResourceAsStream("/bootstrap-trampoline.c.ftl")), StandardCharsets.UTF_8)) {
+            templateEngine.process(templateReader, dataModel, output);
+        }
+
+        assertEquals("Java_p_Main_11_bootstrap_00024symbol", dataModel.trampolineFunctionName());
+        assertTrue(output.toString().contains("JNICALL Java_p_Main_11_bootstrap_00024symbol(JNIEnv *env"));
+        assertFalse(output.toString().contains("CallObjectMethod"));
+        assertTrue(output.toString().contains("#define SYMBOL_COUNT    5"));
+    }
+}
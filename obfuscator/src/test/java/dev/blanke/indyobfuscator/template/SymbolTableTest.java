@@ -0,0 +1,96 @@
+package dev.blanke.indyobfuscator.template;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.blanke.indyobfuscator.mapping.MethodInvocation;
+import dev.blanke.indyobfuscator.mapping.SequentialSymbolMapping;
+import dev.blanke.indyobfuscator.mapping.SymbolMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+final class SymbolTableTest {
+
+    private static final Pattern OCTAL_ESCAPE = Pattern.compile("\\\\([0-7]{3})");
+
+    private SymbolMapping symbolMapping;
+
+    @BeforeEach
+    void setUp() {
+        symbolMapping = new SequentialSymbolMapping();
+        symbolMapping.add(new MethodInvocation(INVOKEVIRTUAL, "p/A", "run", "()V", "p/Caller"));
+        symbolMapping.add(new MethodInvocation(INVOKESTATIC, "p/A", "run", "()V", "p/Caller"));
+        symbolMapping.add(new MethodInvocation(INVOKESPECIAL, "p/B", "run", "()V", "p/Caller"));
+    }
+
+    /**
+     * Reverses the escaping of {@link SymbolTable#getStringPoolLines()} and decodes the string pool if necessary.
+     */
+    private static byte[] readStringPool(final SymbolTable symbolTable) {
+        final var literal = String.join("", symbolTable.getStringPoolLines());
+        final var matcher = OCTAL_ESCAPE.matcher(literal);
+        final var output  = new ByteArrayOutputStream();
+        int position = 0;
+        while (matcher.find()) {
+            output.writeBytes(literal.substring(position, matcher.start()).getBytes(StandardCharsets.US_ASCII));
+            output.write(Integer.parseInt(matcher.group(1), 8));
+            position = matcher.end();
+        }
+        output.writeBytes(literal.substring(position).getBytes(StandardCharsets.US_ASCII));
+
+        final var stringPool = output.toByteArray();
+        if (symbolTable.isEncoded()) {
+            for (int offset = 0; offset < stringPool.length; ++offset) {
+                stringPool[offset] ^= (byte) (symbolTable.getKey() + offset);
+            }
+        }
+        return stringPool;
+    }
+
+    private static String readString(final byte[] stringPool, final int offset) {
+        int end = offset;
+        while (stringPool[end] != 0) {
+            ++end;
+        }
+        return new String(stringPool, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testDeduplicatesStrings() {
+        final var symbolTable = SymbolTable.of(symbolMapping, false);
+        assertEquals(3, symbolTable.getSize());
+        assertEquals(4, symbolTable.getStringCount());
+        assertEquals("p/A\0run\0p/B\0p/Caller\0".length(), symbolTable.getStringPoolLength());
+
+        final var stringPool = readStringPool(symbolTable);
+        final var special = symbolTable.getEntries().get(2);
+        assertNotNull(special);
+        assertEquals("p/B",      readString(stringPool, special.owner()));
+        assertEquals("run",      readString(stringPool, special.name()));
+        assertEquals("p/Caller", readString(stringPool, special.caller()));
+        assertEquals(INVOKESPECIAL, special.opcode());
+
+        final var virtual = symbolTable.getEntries().get(0);
+        assertNotNull(virtual);
+        assertEquals(-1, virtual.caller());
+        assertEquals(special.name(), virtual.name());
+    }
+
+    @Test
+    void testEncodesStrings() {
+        final var symbolTable = SymbolTable.of(symbolMapping, true);
+        assertTrue(symbolTable.isEncoded());
+        assertFalse(String.join("", symbolTable.getStringPoolLines()).contains("p/Caller"));
+
+        final var stringPool = readStringPool(symbolTable);
+        final var entry = symbolTable.getEntries().get(1);
+        assertNotNull(entry);
+        assertEquals("p/A", readString(stringPool, entry.owner()));
+        assertEquals("run", readString(stringPool, entry.name()));
+    }
+}
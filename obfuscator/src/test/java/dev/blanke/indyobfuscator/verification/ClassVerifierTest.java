@@ -0,0 +1,84 @@
+package dev.blanke.indyobfuscator.verification;
+
+import java.util.List;
+
+import org.intellij.lang.annotations.Language;
+
+import org.junit.jupiter.api.Test;
+
+import org.objectweb.asm.ClassWriter;
+
+import dev.blanke.indyobfuscator.util.ClassReaders;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static org.objectweb.asm.Opcodes.*;
+
+final class ClassVerifierTest {
+
+    private static byte[] createClass(final String name, final String superName, final String... interfaces) {
+        final var writer = new ClassWriter(0);
+        writer.visit(V1_8, ACC_PUBLIC, name, null, superName, interfaces);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    /**
+     * Creates a class containing a static method with the provided descriptor which returns its first argument.
+     */
+    private static byte[] createIdentityClass(final String descriptor) {
+        final var writer = new ClassWriter(0);
+        writer.visit(V1_8, ACC_PUBLIC, "Identity", null, "java/lang/Object", null);
+        final var methodVisitor = writer.visitMethod(ACC_STATIC, "identity", descriptor, null, null);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(ALOAD, 0);
+        methodVisitor.visitInsn(ARETURN);
+        methodVisitor.visitMaxs(1, 1);
+        methodVisitor.visitEnd();
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    @Test
+    void testVerifyCompiledClass() {
+        @Language("JAVA")
+        final var source = """
+            class Test {
+                public static void main(final String... args) {
+                    System.out.println(args.length > 0 ? args[0] : "Hello, world!");
+                }
+            }
+            """;
+        final var classFile = ClassReaders.forSource(source).b;
+
+        final var result = new ClassVerifier(ClassHierarchy.of(List.of(classFile))).verify(classFile);
+        assertTrue(result.passed(), result.diagnostics());
+        assertEquals("Test", result.className());
+    }
+
+    @Test
+    void testVerifyResolvesSuperTypesFromHierarchy() {
+        // Neither of the classes can be loaded, so their relationship must be resolved using the ClassHierarchy.
+        final var identityClass = createIdentityClass("(LDerived;)LBase;");
+        final var hierarchy = ClassHierarchy.of(List.of(identityClass,
+            createClass("Base", "java/lang/Object"), createClass("Derived", "Base", "java/lang/Runnable")));
+
+        final var result = new ClassVerifier(hierarchy).verify(identityClass);
+        assertTrue(result.passed(), result.diagnostics());
+
+        final var interfaceResult = new ClassVerifier(hierarchy).verify(
+            createIdentityClass("(LDerived;)Ljava/lang/Runnable;"));
+        assertTrue(interfaceResult.passed(), interfaceResult.diagnostics());
+    }
+
+    @Test
+    void testVerifyReportsIncompatibleTypes() {
+        final var identityClass = createIdentityClass("(LBase;)LDerived;");
+        final var hierarchy = ClassHierarchy.of(List.of(identityClass,
+            createClass("Base", "java/lang/Object"), createClass("Derived", "Base")));
+
+        final var result = new ClassVerifier(hierarchy).verify(identityClass);
+        assertFalse(result.passed());
+        assertTrue(result.diagnostics().contains("identity"));
+    }
+}